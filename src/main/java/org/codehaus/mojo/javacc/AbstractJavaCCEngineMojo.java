@@ -0,0 +1,114 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.util.List;
+
+import org.apache.maven.artifact.factory.ArtifactFactory;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.artifact.resolver.ArtifactResolver;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * Provides the mojo parameters to select the version of JavaCC run by the mojos and resolves the corresponding
+ * {@link JavaCCEngine}.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+public abstract class AbstractJavaCCEngineMojo
+    extends AbstractMojo
+{
+
+    /**
+     * The version of JavaCC to run instead of the version the plugin has been built against, e.g. <code>7.0.13</code>.
+     * The JavaCC artifact is resolved like a plugin dependency, i.e. from the local repository if present there.
+     * JavaCC and JJTree are then run from isolated class loaders over the resolved JAR, which are kept while the
+     * plugin is loaded, or from a forked JVM with the JAR on its class path. If unset, the JavaCC version of the plugin
+     * is used.
+     * 
+     * @parameter expression="${javaccVersion}"
+     * @since 2.7
+     */
+    private String javaccVersion;
+
+    /**
+     * The group id of the JavaCC artifact to use if <code>javaccVersion</code> is set.
+     * 
+     * @parameter expression="${javaccGroupId}" default-value="net.java.dev.javacc"
+     * @since 2.7
+     */
+    private String javaccGroupId;
+
+    /**
+     * The artifact id of the JavaCC artifact to use if <code>javaccVersion</code> is set.
+     * 
+     * @parameter expression="${javaccArtifactId}" default-value="javacc"
+     * @since 2.7
+     */
+    private String javaccArtifactId;
+
+    /**
+     * The local repository to resolve the JavaCC artifact from.
+     * 
+     * @parameter expression="${localRepository}"
+     * @readonly
+     * @required
+     */
+    private ArtifactRepository localRepository;
+
+    /**
+     * The remote repositories to resolve the JavaCC artifact from if it is not available in the local repository.
+     * 
+     * @parameter expression="${project.pluginArtifactRepositories}"
+     * @readonly
+     */
+    private List remoteRepositories;
+
+    /**
+     * The factory used to create the JavaCC artifact.
+     * 
+     * @component
+     */
+    private ArtifactFactory artifactFactory;
+
+    /**
+     * The resolver used to resolve the JavaCC artifact.
+     * 
+     * @component
+     */
+    private ArtifactResolver artifactResolver;
+
+    /**
+     * Resolves the engine to run the JavaCC version selected by the mojo parameter <code>javaccVersion</code>.
+     * 
+     * @return The engine to pass to the tool facades or <code>null</code> to use the JavaCC version of the plugin.
+     * @throws MojoExecutionException If the JavaCC artifact could not be resolved.
+     */
+    protected JavaCCEngine resolveJavaCCEngine()
+        throws MojoExecutionException
+    {
+        return JavaCCEngine.getInstance( this.javaccGroupId, this.javaccArtifactId, this.javaccVersion,
+                                         this.artifactFactory, this.artifactResolver, this.localRepository,
+                                         this.remoteRepositories );
+    }
+
+}
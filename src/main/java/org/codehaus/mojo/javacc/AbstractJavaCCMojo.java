@@ -26,13 +26,13 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 
-import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.util.FileUtils;
 import org.codehaus.plexus.util.SelectorUtils;
 import org.codehaus.plexus.util.StringUtils;
+import org.sonatype.plexus.build.incremental.BuildContext;
 
 /**
  * Provides common services for all mojos that compile JavaCC grammar files.
@@ -42,7 +42,8 @@ import org.codehaus.plexus.util.StringUtils;
  * @version $Id$
  */
 public abstract class AbstractJavaCCMojo
-    extends AbstractMojo
+    extends AbstractJavaCCEngineMojo
+    implements Cloneable
 {
 
     /**
@@ -61,6 +62,26 @@ public abstract class AbstractJavaCCMojo
      */
     private Collection nonGeneratedSourceRoots;
 
+    /**
+     * The generation times and memory requirements of the grammar files from previous builds, loaded by
+     * {@link #prepareProcessing()}.
+     */
+    private GrammarHistory history;
+
+    /**
+     * The build context used to scan only the grammar files changed since the last incremental build and to notify the
+     * IDE about updated source files.
+     * 
+     * @component
+     */
+    private BuildContext buildContext;
+
+    /**
+     * The engine to run the JavaCC version selected by <code>javaccVersion</code>, <code>null</code> to use the JavaCC
+     * version of the plugin.
+     */
+    private JavaCCEngine javaccEngine;
+
     /**
      * The Java version for which to generate source code. Default value is <code>1.5</code> for plugin version 2.6+ and
      * <code>1.4</code> in older versions.
@@ -283,6 +304,157 @@ public abstract class AbstractJavaCCMojo
      */
     private String grammarEncoding;
 
+    /**
+     * A flag whether the generated token manager should defer the creation of the image strings for non-literal
+     * tokens. If set to <code>true</code>, the characters of those tokens are copied into large chunks shared by
+     * subsequent tokens and the image string is only created on the first call to <code>Token.getImage()</code>. This
+     * considerably reduces the allocation rate when lexing bulk data whose token images are mostly never read. Note
+     * that the field <code>image</code> of a non-literal token remains <code>null</code> until
+     * <code>getImage()</code> has been called so grammar actions must use this method instead. A custom token class
+     * must provide the method <code>setImageChars(char[], int, int)</code>, a custom token factory is still used but
+     * receives <code>null</code> as the image of non-literal tokens. This option is not supported in combination with
+     * <code>userCharStream</code>. Default value is <code>false</code>.
+     * 
+     * @parameter expression="${lazyTokenImages}" default-value="false"
+     * @since 2.7
+     */
+    private boolean lazyTokenImages;
+
+    /**
+     * A flag whether the generated token manager should reuse the images of non-literal tokens like identifiers. If
+     * set to <code>true</code>, the token manager looks up the characters of every such token in a fixed-size cache of
+     * recently created images and only creates a new string if no equal image is cached. This considerably reduces the
+     * retained heap of syntax trees that hold many references to repeated identifiers. This option cannot be combined
+     * with <code>lazyTokenImages</code> and is not supported in combination with <code>userCharStream</code>. Default
+     * value is <code>false</code>.
+     * 
+     * @parameter expression="${internTokenImages}" default-value="false"
+     * @since 2.7
+     */
+    private boolean internTokenImages;
+
+    /**
+     * The number of slots in the cache used by the token manager if <code>internTokenImages</code> is enabled. The
+     * value is rounded up to the next power of two. Token images longer than 64 characters are never cached.
+     * 
+     * @parameter expression="${tokenImageCacheSize}" default-value="4096"
+     * @since 2.7
+     */
+    private int tokenImageCacheSize;
+
+    /**
+     * A flag whether the generated token manager should collect statistics about the scanned tokens. If set to
+     * <code>true</code>, the option <code>commonTokenAction</code> is enabled and the method
+     * <code>CommonTokenAction()</code> is added to the token manager. It records every token in the generated class
+     * <code><i>ParserName</i>TokenStatistics</code> which counts the tokens per kind in a <code>long[]</code> sized to
+     * the token kinds, the characters of their images and the elapsed time. The counters are shared by all token
+     * manager instances and can be read via static accessors like <code>getTokenCounts()</code>,
+     * <code>getAverageImageLength()</code> and <code>getCharactersPerSecond()</code>. A
+     * <code>CommonTokenAction()</code> defined by the grammar is still called. The generated class requires Java 5.
+     * Default value is <code>false</code>.
+     * 
+     * @parameter expression="${tokenStatistics}" default-value="false"
+     * @since 2.7
+     */
+    private boolean tokenStatistics;
+
+    /**
+     * A flag whether to generate the class <code><i>ParserName</i>Pool</code> next to the parser. The pool is
+     * thread-safe and hands out parsers that have been reset via the <code>ReInit()</code> methods of the parser
+     * instead of creating a new parser, token manager and char stream for every input. The pool keeps a separate list
+     * of idle parsers per thread and counts the borrowed and returned parsers. This option requires a non-static
+     * parser, i.e. <code>isStatic</code> or the grammar option STATIC must be <code>false</code>, and the generated
+     * pool requires Java 5. Default value is <code>false</code>.
+     * 
+     * @parameter expression="${parserPool}" default-value="false"
+     * @since 2.7
+     */
+    private boolean parserPool;
+
+    /**
+     * A flag whether to instrument the generated parser to collect a profile of its productions. If set to
+     * <code>true</code>, the parser counts the calls and the elapsed nanoseconds of every production method as well as
+     * the calls of the methods used for syntactic lookahead. The counters are shared by all parser instances and can be
+     * printed via the generated static method <code>dumpProfile()</code>. Unlike <code>debugParser</code>, this
+     * instrumentation does not produce any output while parsing and is cheap enough for use under load. The
+     * instrumented parser requires Java 5. Default value is <code>false</code>.
+     * 
+     * @parameter expression="${profileParser}" default-value="false"
+     * @since 2.7
+     */
+    private boolean profileParser;
+
+    /**
+     * A flag whether to generate the class <code><i>ParserName</i>ChunkedLexer</code> next to the token manager. Its
+     * method <code>tokenize(File)</code> memory-maps the input, splits it into chunks at line boundaries and runs one
+     * token manager per chunk on a fork/join pool, concatenating the token lists of the chunks in order. This is only
+     * supported for line-oriented grammars: the lexical specification must not use lexical states other than
+     * <code>DEFAULT</code> or <code>MORE</code> rules and no token may span more than one line, otherwise the build
+     * fails. The option also requires a non-static token manager and char stream generated by JavaCC, and the generated
+     * class requires Java 7. Default value is <code>false</code>.
+     * 
+     * @parameter expression="${chunkedLexer}" default-value="false"
+     * @since 2.7
+     */
+    private boolean chunkedLexer;
+
+    /**
+     * A flag whether to generate the class <code><i>ParserName</i>BatchDriver</code> next to the parser. The driver
+     * parses a stream of inputs concurrently on virtual threads (when running on Java 21 or later) or on a fixed thread
+     * pool and reuses idle parsers via <code>ReInit()</code>, keeping no more parsers than inputs in flight. The inputs
+     * are only consumed as fast as they are parsed and the result or exception of each input is delivered to a
+     * callback. The driver is only generated for non-static parsers, i.e. <code>isStatic</code> or the grammar option
+     * STATIC must be <code>false</code>, and requires Java 5. Default value is <code>false</code>.
+     * 
+     * @parameter expression="${batchDriver}" default-value="false"
+     * @since 2.7
+     */
+    private boolean batchDriver;
+
+    /**
+     * The share of the maximum heap of the Maven JVM in percent that may be used by the grammar files being processed
+     * concurrently. Grammar files are only admitted for processing while the estimated heap of all running ones stays
+     * within this share, and a grammar file that alone would exceed it is processed by a forked JVM with its own heap.
+     * The heap of a grammar file is estimated as the growth of the live heap, i.e. the heap in use after a garbage
+     * collection, that was measured while it was last processed. Garbage is not included, and grammar files processed
+     * concurrently may inflate a measurement, so the estimate is only an approximation of the peak live heap. A forked
+     * JVM reports its peak heap usage instead, and its maximum heap is never set below this share. Grammar files
+     * without a measurement are estimated from their size, using the average heap per byte of the measured grammar
+     * files.
+     * 
+     * @parameter expression="${javaccMemoryShare}" default-value="50"
+     * @since 2.7
+     */
+    private int memoryShare;
+
+    /**
+     * The path to a file to write a trace of the grammar processing to. The trace uses the Chrome trace event format
+     * and can be viewed with <code>chrome://tracing</code> or Perfetto. It shows a track for each thread and each
+     * forked JVM with the spans for scanning, JJTree/JTB, JavaCC, copying and cleanup of each grammar file. All
+     * executions within a reactor build that are configured with the same file append to it.
+     * 
+     * @parameter expression="${javaccTraceFile}"
+     * @since 2.7
+     */
+    private File traceFile;
+
+    /**
+     * The maximum heap in bytes of the forked JVM for the grammar file being processed by the current thread, unset if
+     * the grammar file is processed in the current JVM.
+     */
+    private final ThreadLocal forkedHeap = new ThreadLocal();
+
+    /**
+     * The facade running JavaCC in a forked JVM for the grammar file being processed by the current thread, unset if
+     * the grammar file is processed in the current JVM. It provides the heap the forked JVM reported afterwards.
+     */
+    private final ThreadLocal forkedJavaCC = new ThreadLocal();
+
+    /**
+     * Whether the grammar files are currently regenerated in response to a change detected by {@link #watch(long)}.
+     */
+    private boolean watching;
+
     /**
      * Gets the file encoding of the grammar files.
      * 
@@ -294,6 +466,17 @@ public abstract class AbstractJavaCCMojo
         return this.grammarEncoding;
     }
 
+    /**
+     * Gets the engine to run the JavaCC version selected by the mojo parameter <code>javaccVersion</code>. The engine
+     * is resolved when the mojo starts to process the stale grammars.
+     * 
+     * @return The engine to pass to the tool facades or <code>null</code> to use the JavaCC version of the plugin.
+     */
+    protected JavaCCEngine getJavaCCEngine()
+    {
+        return this.javaccEngine;
+    }
+
     /**
      * Gets the Java version for which to generate source code.
      * 
@@ -363,6 +546,41 @@ public abstract class AbstractJavaCCMojo
      */
     protected abstract File[] getCompileSourceRoots();
 
+    /**
+     * Gets the current Maven project.
+     * 
+     * @return The current Maven project.
+     */
+    protected MavenProject getProject()
+    {
+        return this.project;
+    }
+
+    /**
+     * Creates a copy of this mojo that processes the grammar files of another project with the same configuration.
+     * 
+     * @param otherProject The project whose grammar files should be processed by the copy, must not be
+     *            <code>null</code>.
+     * @return The copy of this mojo, never <code>null</code>.
+     */
+    protected AbstractJavaCCMojo copyForProject( MavenProject otherProject )
+    {
+        AbstractJavaCCMojo copy;
+        try
+        {
+            copy = (AbstractJavaCCMojo) clone();
+        }
+        catch ( CloneNotSupportedException e )
+        {
+            throw new IllegalStateException( e.getMessage() );
+        }
+        copy.project = otherProject;
+        copy.nonGeneratedSourceRoots = null;
+        copy.history = null;
+        copy.javaccEngine = null;
+        return copy;
+    }
+
     /**
      * Gets the package into which the generated parser files should be stored.
      * 
@@ -383,6 +601,38 @@ public abstract class AbstractJavaCCMojo
      */
     public void execute()
         throws MojoExecutionException, MojoFailureException
+    {
+        TraceFile previousTrace = TraceFile.getCurrent();
+        if ( this.traceFile != null )
+        {
+            try
+            {
+                TraceFile.setCurrent( TraceFile.getInstance( this.traceFile ) );
+            }
+            catch ( IOException e )
+            {
+                getLog().warn( "Failed to create trace file: " + this.traceFile, e );
+            }
+        }
+        try
+        {
+            generate();
+        }
+        finally
+        {
+            TraceFile.setCurrent( previousTrace );
+        }
+    }
+
+    /**
+     * Scans for stale grammar files and passes them through the tool. This method is invoked by {@link #execute()}
+     * with the configured trace file being active.
+     * 
+     * @throws MojoExecutionException If the invocation of the tool failed.
+     * @throws MojoFailureException If the tool reported a non-zero exit code.
+     */
+    protected void generate()
+        throws MojoExecutionException, MojoFailureException
     {
         GrammarInfo[] grammarInfos = scanForGrammars();
 
@@ -397,23 +647,259 @@ public abstract class AbstractJavaCCMojo
         }
         else
         {
-            determineNonGeneratedSourceRoots();
+            processGrammars( grammarInfos );
+
+            getLog().info( "Processed " + grammarInfos.length + " grammar" + ( grammarInfos.length != 1 ? "s" : "" ) );
+        }
+
+        addCompileSourceRoots();
+    }
+
+    /**
+     * Watches the source directory and regenerates the stale grammar files after each change until the current thread
+     * is interrupted, e.g. by pressing Ctrl+C. Failures are logged but do not stop the watching.
+     * 
+     * @param debounce The time in milliseconds to wait for further changes after a change has been detected, also the
+     *            interval to poll the source directory if the JVM does not provide a watch service.
+     */
+    protected void watch( long debounce )
+    {
+        File sourceDirectory = getSourceDirectory();
+        if ( !sourceDirectory.isDirectory() )
+        {
+            return;
+        }
 
-            if ( StringUtils.isEmpty( grammarEncoding ) )
+        GrammarWatcher watcher = new GrammarWatcher( new File[] { sourceDirectory }, debounce );
+        try
+        {
+            getLog().debug( "Watching with " + ( watcher.isNative() ? "native watch service" : "polling" ) );
+            getLog().info( "Watching for changes to grammars: " + sourceDirectory );
+            while ( true )
             {
-                getLog().warn(
-                               "File encoding for grammars has not been configured"
-                                   + ", using platform default encoding, i.e. build is platform dependent!" );
+                watcher.await( -1 );
+                long changed = System.currentTimeMillis();
+                while ( watcher.await( debounce ) )
+                {
+                    // wait until the changes have settled
+                }
+                regenerate( changed );
             }
+        }
+        catch ( InterruptedException e )
+        {
+            getLog().info( "Stopped watching for changes to grammars" );
+        }
+        finally
+        {
+            watcher.close();
+        }
+    }
 
-            for ( int i = 0; i < grammarInfos.length; i++ )
+    /**
+     * Regenerates the output for all stale grammar files.
+     * 
+     * @param changed The time in milliseconds since the epoch when the change to the source directory was detected.
+     */
+    private void regenerate( long changed )
+    {
+        long start = System.currentTimeMillis();
+        try
+        {
+            GrammarInfo[] grammarInfos = scanForGrammars();
+            if ( grammarInfos == null || grammarInfos.length <= 0 )
             {
-                processGrammar( grammarInfos[i] );
+                getLog().debug( "Skipping - all parsers are up to date" );
+                return;
             }
+            this.watching = true;
+            processGrammars( grammarInfos );
+            long end = System.currentTimeMillis();
+            getLog().info(
+                           "Regenerated " + grammarInfos.length + " grammar" + ( grammarInfos.length != 1 ? "s" : "" )
+                               + " in " + ( end - start ) + " ms (" + ( end - changed ) + " ms after change)" );
+        }
+        catch ( MojoExecutionException e )
+        {
+            getLog().error( e.getMessage(), e.getCause() );
+        }
+        catch ( MojoFailureException e )
+        {
+            getLog().error( e.getMessage() );
+        }
+        finally
+        {
+            this.watching = false;
+        }
+    }
 
-            getLog().info( "Processed " + grammarInfos.length + " grammar" + ( grammarInfos.length != 1 ? "s" : "" ) );
+    /**
+     * Passes the specified grammar files through the tool.
+     * 
+     * @param grammarInfos The grammar infos describing the grammar files to process, must not be <code>null</code>.
+     * @throws MojoExecutionException If the invocation of the tool failed.
+     * @throws MojoFailureException If the tool reported a non-zero exit code.
+     */
+    protected void processGrammars( GrammarInfo[] grammarInfos )
+        throws MojoExecutionException, MojoFailureException
+    {
+        prepareProcessing();
+
+        for ( int i = 0; i < grammarInfos.length; i++ )
+        {
+            processGrammarWithHistory( grammarInfos[i] );
         }
 
+        saveHistory();
+    }
+
+    /**
+     * Passes the specified grammar file through the tool and records the time and the live heap this took in the
+     * history. The grammar file is only processed once its estimated heap fits into the configured share of the maximum
+     * heap next to the grammar files being processed concurrently. If it doesn't fit at all, JavaCC is forked instead.
+     * The live heap is only recorded if it could be measured, otherwise the previous measurement is kept.
+     * 
+     * @param grammarInfo The grammar info describing the grammar file to process, must not be <code>null</code>.
+     * @throws MojoExecutionException If the invocation of the tool failed.
+     * @throws MojoFailureException If the tool reported a non-zero exit code.
+     */
+    protected void processGrammarWithHistory( GrammarInfo grammarInfo )
+        throws MojoExecutionException, MojoFailureException
+    {
+        File grammarFile = grammarInfo.getGrammarFile();
+        long heap = this.history.estimateMemory( grammarFile );
+        long budget = MemoryGate.getBudget( this.memoryShare );
+        boolean fork = heap > budget;
+
+        MemoryGate gate = MemoryGate.getInstance();
+        if ( fork )
+        {
+            getLog().info( "Forking JavaCC for " + grammarFile + ", estimated heap: " + ( heap >> 20 ) + " MB" );
+            // never size the forked heap below the budget that the grammar file exceeded
+            this.forkedHeap.set( new Long( Math.max( budget, heap + heap / 4 ) ) );
+        }
+        else
+        {
+            try
+            {
+                gate.acquire( heap, budget );
+            }
+            catch ( InterruptedException e )
+            {
+                throw new MojoExecutionException( "Interrupted while waiting for heap to process " + grammarFile, e );
+            }
+        }
+        FlightEvent event = FlightEvent.begin( FlightEvent.GRAMMAR_PROCESS );
+        try
+        {
+            long live = fork ? -1 : MemoryGate.getLiveHeap();
+            long collections = MemoryGate.getCollectionCount();
+            long start = System.currentTimeMillis();
+            processGrammar( grammarInfo );
+            long time = System.currentTimeMillis() - start;
+            long memory = -1;
+            if ( fork )
+            {
+                JavaCC javacc = (JavaCC) this.forkedJavaCC.get();
+                memory = ( javacc != null ) ? javacc.getForkedHeapUsed() : -1;
+            }
+            else if ( live >= 0 && collections >= 0 && MemoryGate.getCollectionCount() != collections )
+            {
+                // the live heap is only updated by a garbage collection while the grammar file was processed
+                memory = Math.max( 0, MemoryGate.getLiveHeap() - live );
+            }
+            this.history.record( grammarFile, time, memory );
+            if ( this.watching )
+            {
+                getLog().info( "Regenerated " + grammarFile + " in " + time + " ms" );
+            }
+            else
+            {
+                getLog().debug( "Processed " + grammarFile + " in " + time + " ms" );
+            }
+        }
+        finally
+        {
+            event.set( 0, grammarFile.getPath() );
+            event.commit();
+            if ( fork )
+            {
+                this.forkedHeap.set( null );
+                this.forkedJavaCC.set( null );
+            }
+            else
+            {
+                gate.release( heap );
+            }
+        }
+    }
+
+    /**
+     * Estimates the time the processing of the specified grammar file will take, based on the history from previous
+     * builds or on the size of the grammar file if it has no history.
+     * 
+     * @param grammarInfo The grammar info describing the grammar file, must not be <code>null</code>.
+     * @return The estimated processing time in milliseconds.
+     */
+    protected long estimateTime( GrammarInfo grammarInfo )
+    {
+        return this.history.estimateTime( grammarInfo.getGrammarFile() );
+    }
+
+    /**
+     * Saves the history of the grammar files processed so far. Nothing is saved if {@link #prepareProcessing()} has not
+     * been called, e.g. because all grammar files were up to date.
+     */
+    protected void saveHistory()
+    {
+        if ( this.history == null )
+        {
+            return;
+        }
+        try
+        {
+            this.history.save();
+        }
+        catch ( IOException e )
+        {
+            getLog().warn( "Failed to save grammar history", e );
+        }
+    }
+
+    /**
+     * Prepares the processing of grammar files by resolving the JavaCC version to use, determining the source roots
+     * owned by the user and loading the history of the grammar files. This method must be called before
+     * {@link #processGrammar(GrammarInfo)}.
+     * 
+     * @throws MojoExecutionException If the preparation failed.
+     */
+    protected void prepareProcessing()
+        throws MojoExecutionException
+    {
+        determineNonGeneratedSourceRoots();
+
+        this.history =
+            new GrammarHistory( new File( this.project.getBuild().getDirectory(), "javacc-history.properties" ) );
+
+        this.javaccEngine = resolveJavaCCEngine();
+        if ( this.javaccEngine != null )
+        {
+            getLog().debug( "Using JavaCC from " + this.javaccEngine.getJarFile() );
+        }
+
+        if ( StringUtils.isEmpty( grammarEncoding ) )
+        {
+            getLog().warn(
+                           "File encoding for grammars has not been configured"
+                               + ", using platform default encoding, i.e. build is platform dependent!" );
+        }
+    }
+
+    /**
+     * Registers the compile source roots of this mojo with the current project.
+     */
+    protected void addCompileSourceRoots()
+    {
         Collection compileSourceRoots = new LinkedHashSet( Arrays.asList( getCompileSourceRoots() ) );
         for ( Iterator it = compileSourceRoots.iterator(); it.hasNext(); )
         {
@@ -438,7 +924,7 @@ public abstract class AbstractJavaCCMojo
      *         directory does not exist.
      * @throws MojoExecutionException If the source directory could not be scanned.
      */
-    private GrammarInfo[] scanForGrammars()
+    protected GrammarInfo[] scanForGrammars()
         throws MojoExecutionException
     {
         if ( !getSourceDirectory().isDirectory() )
@@ -458,6 +944,7 @@ public abstract class AbstractJavaCCMojo
             scanner.setOutputDirectory( getOutputDirectory() );
             scanner.setParserPackage( getParserPackage() );
             scanner.setStaleMillis( getStaleMillis() );
+            scanner.setBuildContext( this.buildContext );
             scanner.scan();
             grammarInfos = scanner.getIncludedGrammars();
         }
@@ -471,13 +958,42 @@ public abstract class AbstractJavaCCMojo
     }
 
     /**
-     * Gets a temporary directory within the project's build directory.
+     * Creates a new temporary directory within the project's build directory. The directory is created atomically, so
+     * concurrent executions never share a temporary directory even if they are started within the same millisecond.
      * 
      * @return The path to the temporary directory, never <code>null</code>.
+     * @throws MojoExecutionException If the temporary directory could not be created.
      */
     protected File getTempDirectory()
+        throws MojoExecutionException
+    {
+        File buildDirectory = new File( this.project.getBuild().getDirectory() );
+        String prefix = "javacc-" + System.currentTimeMillis();
+        for ( int i = 0;; i++ )
+        {
+            File tempDirectory = new File( buildDirectory, ( i > 0 ) ? prefix + '-' + i : prefix );
+            if ( tempDirectory.mkdirs() )
+            {
+                return tempDirectory;
+            }
+            if ( !tempDirectory.exists() )
+            {
+                throw new MojoExecutionException( "Failed to create temporary directory: " + tempDirectory );
+            }
+        }
+    }
+
+    /**
+     * Notifies the build context that the specified file has been created or updated.
+     * 
+     * @param file The created or updated file, must not be <code>null</code>.
+     */
+    protected void refresh( File file )
     {
-        return new File( this.project.getBuild().getDirectory(), "javacc-" + System.currentTimeMillis() );
+        if ( this.buildContext != null )
+        {
+            this.buildContext.refresh( file );
+        }
     }
 
     /**
@@ -487,6 +1003,7 @@ public abstract class AbstractJavaCCMojo
      */
     protected void deleteTempDirectory( File tempDirectory )
     {
+        FlightEvent event = FlightEvent.begin( FlightEvent.TEMP_CLEANUP );
         try
         {
             FileUtils.deleteDirectory( tempDirectory );
@@ -495,6 +1012,11 @@ public abstract class AbstractJavaCCMojo
         {
             getLog().warn( "Failed to delete temporary directory: " + tempDirectory, e );
         }
+        finally
+        {
+            event.set( 0, tempDirectory.getPath() );
+            event.commit();
+        }
     }
 
     /**
@@ -511,11 +1033,19 @@ public abstract class AbstractJavaCCMojo
      * @param updatePattern A glob pattern that matches the (simple) names of those files which should always be updated
      *            in case we are outputting directly into <code>src/main/java</code>, may be <code>null</code>. A
      *            leading "!" may be used to negate the pattern.
+     * @param grammarFile The grammar file from which the output files were generated, must not be <code>null</code>.
+     *            The output files are dated no earlier than the grammar file, even if its timestamp lies in the
+     *            future, such that the stale detection considers them up-to-date.
      * @throws MojoExecutionException If the output files could not be copied.
      */
-    protected void copyGrammarOutput( File sourceRoot, String packageName, File tempDirectory, String updatePattern )
+    protected void copyGrammarOutput( File sourceRoot, String packageName, File tempDirectory, String updatePattern,
+                                      File grammarFile )
         throws MojoExecutionException
     {
+        long timestamp = Math.max( System.currentTimeMillis(), grammarFile.lastModified() );
+        FlightEvent event = FlightEvent.begin( FlightEvent.OUTPUT_COPY );
+        int copiedFiles = 0;
+        long copiedBytes = 0;
         try
         {
             Collection tempFiles = FileUtils.getFiles( tempDirectory, "*.java", null );
@@ -548,10 +1078,26 @@ public abstract class AbstractJavaCCMojo
 
                 if ( sourceFile == null || ( alwaysUpdate && sourceFile.equals( outputFile ) ) )
                 {
-                    getLog().debug( "Copying generated file: " + outputPath );
                     try
                     {
-                        FileUtils.copyFile( tempFile, outputFile );
+                        if ( FileUtils.contentEquals( tempFile, outputFile ) )
+                        {
+                            // keep the timestamp current for the stale detection but don't notify the build context
+                            getLog().debug( "Skipping unchanged generated file: " + outputPath );
+                            outputFile.setLastModified( timestamp );
+                        }
+                        else
+                        {
+                            getLog().debug( "Copying generated file: " + outputPath );
+                            FileUtils.copyFile( tempFile, outputFile );
+                            if ( outputFile.lastModified() < timestamp )
+                            {
+                                outputFile.setLastModified( timestamp );
+                            }
+                            refresh( outputFile );
+                            copiedFiles++;
+                            copiedBytes += outputFile.length();
+                        }
                     }
                     catch ( IOException e )
                     {
@@ -569,6 +1115,13 @@ public abstract class AbstractJavaCCMojo
         {
             throw new MojoExecutionException( "Failed to copy generated source files", e );
         }
+        finally
+        {
+            event.set( 0, sourceRoot.getPath() );
+            event.set( 1, copiedFiles );
+            event.set( 2, copiedBytes );
+            event.commit();
+        }
     }
 
     /**
@@ -660,6 +1213,105 @@ public abstract class AbstractJavaCCMojo
         }
     }
 
+    /**
+     * Applies the enhancements selected by the mojo parameters to the parser files generated by JavaCC. This method
+     * must be called after JavaCC has been run and before the parser files are copied to their final destination.
+     * 
+     * @param grammarInfo The grammar info describing the processed grammar file, must not be <code>null</code>.
+     * @param grammarFile The absolute path to the grammar file processed by JavaCC, must not be <code>null</code>. This
+     *            is the output file of JJTree or JTB if one of those tools has been run before JavaCC.
+     * @param parserDirectory The absolute path to the directory with the parser files generated by JavaCC, must not be
+     *            <code>null</code>.
+     * @throws MojoExecutionException If the parser files could not be enhanced.
+     */
+    protected void enhanceParser( GrammarInfo grammarInfo, File grammarFile, File parserDirectory )
+        throws MojoExecutionException
+    {
+        if ( this.lazyTokenImages && this.internTokenImages )
+        {
+            throw new MojoExecutionException( "The parameters lazyTokenImages and internTokenImages"
+                + " cannot be enabled at the same time" );
+        }
+        if ( this.internTokenImages && this.tokenImageCacheSize <= 0 )
+        {
+            throw new MojoExecutionException( "The parameter tokenImageCacheSize must be positive: "
+                + this.tokenImageCacheSize );
+        }
+
+        if ( this.lazyTokenImages )
+        {
+            LazyTokenImages processor = new LazyTokenImages();
+            initParserProcessor( processor, grammarInfo, parserDirectory );
+            processor.run();
+        }
+
+        if ( this.internTokenImages )
+        {
+            InternTokenImages processor = new InternTokenImages();
+            initParserProcessor( processor, grammarInfo, parserDirectory );
+            processor.setCacheSize( this.tokenImageCacheSize );
+            processor.run();
+        }
+
+        if ( this.tokenStatistics )
+        {
+            TokenStatistics processor = new TokenStatistics();
+            initParserProcessor( processor, grammarInfo, parserDirectory );
+            processor.run();
+        }
+
+        if ( this.profileParser )
+        {
+            ParserProfiler processor = new ParserProfiler();
+            initParserProcessor( processor, grammarInfo, parserDirectory );
+            processor.run();
+        }
+
+        if ( this.parserPool )
+        {
+            if ( Boolean.TRUE.equals( this.isStatic ) )
+            {
+                throw new MojoExecutionException( "The parameter parserPool requires a non-static parser"
+                    + " but the parameter isStatic is set to true" );
+            }
+            ParserPool processor = new ParserPool();
+            initParserProcessor( processor, grammarInfo, parserDirectory );
+            processor.run();
+        }
+
+        if ( this.batchDriver )
+        {
+            BatchDriver processor = new BatchDriver();
+            initParserProcessor( processor, grammarInfo, parserDirectory );
+            processor.run();
+        }
+
+        if ( this.chunkedLexer )
+        {
+            ChunkedLexer processor = new ChunkedLexer();
+            initParserProcessor( processor, grammarInfo, parserDirectory );
+            processor.setGrammarFile( grammarFile );
+            processor.setGrammarEncoding( this.grammarEncoding );
+            processor.run();
+        }
+    }
+
+    /**
+     * Configures the specified post-processor for the parser files generated from the given grammar.
+     * 
+     * @param processor The post-processor to configure, must not be <code>null</code>.
+     * @param grammarInfo The grammar info describing the processed grammar file, must not be <code>null</code>.
+     * @param parserDirectory The absolute path to the directory with the parser files generated by JavaCC, must not be
+     *            <code>null</code>.
+     */
+    private void initParserProcessor( ParserProcessor processor, GrammarInfo grammarInfo, File parserDirectory )
+    {
+        processor.setLog( getLog() );
+        processor.setParserDirectory( parserDirectory );
+        processor.setParserName( grammarInfo.getParserName() );
+        processor.setParserPackage( grammarInfo.getParserPackage() );
+    }
+
     /**
      * Creates a new facade to invoke JavaCC. Most options for the invocation are derived from the current values of the
      * corresponding mojo parameters. The caller is responsible to set the input file and output directory on the
@@ -671,6 +1323,13 @@ public abstract class AbstractJavaCCMojo
     {
         JavaCC javacc = new JavaCC();
         javacc.setLog( getLog() );
+        javacc.setEngine( this.javaccEngine );
+        Long heap = (Long) this.forkedHeap.get();
+        if ( heap != null )
+        {
+            javacc.setForkedHeap( heap.longValue() );
+            this.forkedJavaCC.set( javacc );
+        }
         javacc.setGrammarEncoding( this.grammarEncoding );
         javacc.setJdkVersion( this.jdkVersion );
         javacc.setStatic( this.isStatic );
@@ -678,7 +1337,7 @@ public abstract class AbstractJavaCCMojo
         javacc.setBuildTokenManager( this.buildTokenManager );
         javacc.setCacheTokens( this.cacheTokens );
         javacc.setChoiceAmbiguityCheck( this.choiceAmbiguityCheck );
-        javacc.setCommonTokenAction( this.commonTokenAction );
+        javacc.setCommonTokenAction( this.tokenStatistics ? Boolean.TRUE : this.commonTokenAction );
         javacc.setDebugLookAhead( this.debugLookAhead );
         javacc.setDebugParser( this.debugParser );
         javacc.setDebugTokenManager( this.debugTokenManager );
@@ -22,11 +22,11 @@ package org.codehaus.mojo.javacc;
 import java.io.File;
 import java.util.Arrays;
 
-import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.util.FileUtils;
+import org.sonatype.plexus.build.incremental.BuildContext;
 
 /**
  * Provides common services for all mojos that preprocess JavaCC grammar files.
@@ -35,7 +35,7 @@ import org.codehaus.plexus.util.FileUtils;
  * @version $Id$
  */
 public abstract class AbstractPreprocessorMojo
-    extends AbstractMojo
+    extends AbstractJavaCCEngineMojo
 {
 
     /**
@@ -47,6 +47,14 @@ public abstract class AbstractPreprocessorMojo
      */
     private MavenProject project;
 
+    /**
+     * The build context used to scan only the grammar files changed since the last incremental build and to notify the
+     * IDE about updated source files.
+     * 
+     * @component
+     */
+    private BuildContext buildContext;
+
     /**
      * Gets the absolute path to the directory where the grammar files are located.
      * 
@@ -129,6 +137,10 @@ public abstract class AbstractPreprocessorMojo
             {
                 processGrammar( grammarInfos[i] );
             }
+            if ( this.buildContext != null )
+            {
+                this.buildContext.refresh( getOutputDirectory() );
+            }
             getLog().info( "Processed " + grammarInfos.length + " grammar" + ( grammarInfos.length != 1 ? "s" : "" ) );
         }
 
@@ -171,6 +183,7 @@ public abstract class AbstractPreprocessorMojo
             scanner.setExcludes( getExcludes() );
             scanner.setOutputDirectory( getTimestampDirectory() );
             scanner.setStaleMillis( getStaleMillis() );
+            scanner.setBuildContext( this.buildContext );
             scanner.scan();
             grammarInfos = scanner.getIncludedGrammars();
         }
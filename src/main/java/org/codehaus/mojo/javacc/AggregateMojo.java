@@ -0,0 +1,312 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Runs JavaCC on the grammar files (<code>*.jj</code>) of all projects in the reactor. Instead of processing the
+ * grammar files module by module, the stale grammar files of all projects are put into a single work queue that is
+ * processed by a shared pool of threads, starting with the grammar files that took longest to process in previous
+ * builds. Grammar files without history are estimated from their size. This way, a module with a huge grammar file
+ * doesn't delay the other modules. The configuration of this goal applies to all projects, its source
+ * and output directory are resolved relative to the base and build directory of each project, respectively. Each
+ * project gets the output directory registered as a compile source root.
+ * 
+ * @goal aggregate
+ * @aggregator
+ * @phase generate-sources
+ * @threadSafe
+ * @since 2.7
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+public class AggregateMojo
+    extends JavaCCMojo
+{
+
+    /**
+     * The projects in the reactor.
+     * 
+     * @parameter expression="${reactorProjects}"
+     * @readonly
+     * @required
+     */
+    private List reactorProjects;
+
+    /**
+     * The maximum number of grammar files to process concurrently. A value less than one selects the number of
+     * available processors.
+     * 
+     * @parameter expression="${javaccThreads}" default-value="0"
+     * @since 2.7
+     */
+    private int javaccThreads;
+
+    /**
+     * The source directory of the reactor project processed by this copy of the mojo, <code>null</code> for the
+     * original mojo.
+     */
+    private File projectSourceDirectory;
+
+    /**
+     * The output directory of the reactor project processed by this copy of the mojo, <code>null</code> for the
+     * original mojo.
+     */
+    private File projectOutputDirectory;
+
+    /**
+     * {@inheritDoc}
+     */
+    protected File getSourceDirectory()
+    {
+        return ( this.projectSourceDirectory != null ) ? this.projectSourceDirectory : super.getSourceDirectory();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected File getOutputDirectory()
+    {
+        return ( this.projectOutputDirectory != null ) ? this.projectOutputDirectory : super.getOutputDirectory();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void generate()
+        throws MojoExecutionException, MojoFailureException
+    {
+        MavenProject rootProject = getProject();
+
+        List mojos = new ArrayList();
+        List jobs = new ArrayList();
+        for ( Iterator it = this.reactorProjects.iterator(); it.hasNext(); )
+        {
+            MavenProject project = (MavenProject) it.next();
+
+            AggregateMojo mojo = (AggregateMojo) copyForProject( project );
+            mojo.projectSourceDirectory =
+                rebase( getSourceDirectory(), rootProject.getBasedir(), project.getBasedir() );
+            mojo.projectOutputDirectory = rebaseOutput( getOutputDirectory(), rootProject, project );
+
+            GrammarInfo[] grammarInfos = mojo.scanForGrammars();
+            if ( grammarInfos == null )
+            {
+                getLog().debug( "Skipping non-existing source directory: " + mojo.getSourceDirectory() );
+                continue;
+            }
+            mojos.add( mojo );
+            if ( grammarInfos.length > 0 )
+            {
+                mojo.prepareProcessing();
+                for ( int i = 0; i < grammarInfos.length; i++ )
+                {
+                    jobs.add( new GrammarJob( mojo, grammarInfos[i] ) );
+                }
+            }
+        }
+
+        if ( jobs.isEmpty() )
+        {
+            getLog().info( "Skipping - all parsers are up to date" );
+        }
+        else
+        {
+            Collections.sort( jobs, new GrammarJobComparator() );
+
+            WorkerPool pool = new WorkerPool( this.javaccThreads, "javacc" );
+            long[] costs = new long[jobs.size()];
+            for ( int i = 0; i < costs.length; i++ )
+            {
+                costs[i] = ( (GrammarJob) jobs.get( i ) ).cost;
+            }
+            long start = System.currentTimeMillis();
+            try
+            {
+                for ( Iterator it = jobs.iterator(); it.hasNext(); )
+                {
+                    pool.submit( (GrammarJob) it.next() );
+                }
+                pool.await();
+            }
+            catch ( MojoExecutionException e )
+            {
+                throw e;
+            }
+            catch ( MojoFailureException e )
+            {
+                throw e;
+            }
+            catch ( Exception e )
+            {
+                throw new MojoExecutionException( "Failed to process grammars", e );
+            }
+            finally
+            {
+                for ( Iterator it = mojos.iterator(); it.hasNext(); )
+                {
+                    ( (AggregateMojo) it.next() ).saveHistory();
+                }
+            }
+            getLog().debug(
+                            "Estimated makespan: " + WorkerPool.estimateMakespan( costs, pool.getMaxThreads() )
+                                + " ms, actual makespan: " + ( System.currentTimeMillis() - start ) + " ms" );
+
+            getLog().info(
+                           "Processed " + jobs.size() + " grammar" + ( jobs.size() != 1 ? "s" : "" ) + " of "
+                               + mojos.size() + " project" + ( mojos.size() != 1 ? "s" : "" ) );
+        }
+
+        for ( Iterator it = mojos.iterator(); it.hasNext(); )
+        {
+            ( (AggregateMojo) it.next() ).addCompileSourceRoots();
+        }
+    }
+
+    /**
+     * Resolves the specified path against another base directory.
+     * 
+     * @param file The path to resolve, must not be <code>null</code>.
+     * @param fromDirectory The base directory the path is currently relative to, must not be <code>null</code>.
+     * @param toDirectory The base directory to resolve the path against, must not be <code>null</code>.
+     * @return The path resolved against the new base directory or the unchanged path if it does not denote a
+     *         file below the current base directory.
+     */
+    static File rebase( File file, File fromDirectory, File toDirectory )
+    {
+        String path = file.getAbsolutePath();
+        String prefix = fromDirectory.getAbsolutePath();
+        if ( path.equals( prefix ) )
+        {
+            return toDirectory;
+        }
+        if ( !prefix.endsWith( File.separator ) )
+        {
+            prefix += File.separator;
+        }
+        if ( path.startsWith( prefix ) )
+        {
+            return new File( toDirectory, path.substring( prefix.length() ) );
+        }
+        return file;
+    }
+
+    /**
+     * Resolves the specified output directory of the root project against another reactor project. A directory below
+     * the build directory of the root project is moved below the build directory of the other project, any other
+     * directory below the base directory of the root project is moved below the base directory of the other project.
+     * 
+     * @param outputDirectory The output directory of the root project, must not be <code>null</code>.
+     * @param rootProject The root project, must not be <code>null</code>.
+     * @param project The reactor project to resolve the output directory for, must not be <code>null</code>.
+     * @return The output directory for the reactor project, never <code>null</code>.
+     */
+    static File rebaseOutput( File outputDirectory, MavenProject rootProject, MavenProject project )
+    {
+        File rootBuildDirectory = new File( rootProject.getBuild().getDirectory() );
+        File buildDirectory = new File( project.getBuild().getDirectory() );
+        File directory = rebase( outputDirectory, rootBuildDirectory, buildDirectory );
+        if ( directory == outputDirectory )
+        {
+            directory = rebase( outputDirectory, rootProject.getBasedir(), project.getBasedir() );
+        }
+        return directory;
+    }
+
+    /**
+     * Passes a single grammar file of a reactor project through JavaCC.
+     */
+    private static class GrammarJob
+        implements WorkerPool.Job
+    {
+
+        /**
+         * The copy of the mojo for the project owning the grammar file.
+         */
+        private final AggregateMojo mojo;
+
+        /**
+         * The grammar file to process.
+         */
+        private final GrammarInfo grammarInfo;
+
+        /**
+         * The estimated time in milliseconds to process the grammar file.
+         */
+        private final long cost;
+
+        /**
+         * Creates a new job for the specified grammar file.
+         * 
+         * @param mojo The copy of the mojo for the project owning the grammar file, must not be <code>null</code>.
+         * @param grammarInfo The grammar file to process, must not be <code>null</code>.
+         */
+        public GrammarJob( AggregateMojo mojo, GrammarInfo grammarInfo )
+        {
+            this.mojo = mojo;
+            this.grammarInfo = grammarInfo;
+            this.cost = mojo.estimateTime( grammarInfo );
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void run()
+            throws Exception
+        {
+            this.mojo.processGrammarWithHistory( this.grammarInfo );
+        }
+
+    }
+
+    /**
+     * Orders grammar jobs by decreasing cost such that the most expensive grammar files are started first.
+     */
+    private static class GrammarJobComparator
+        implements Comparator
+    {
+
+        /**
+         * {@inheritDoc}
+         */
+        public int compare( Object o1, Object o2 )
+        {
+            GrammarJob job1 = (GrammarJob) o1;
+            GrammarJob job2 = (GrammarJob) o2;
+            if ( job1.cost != job2.cost )
+            {
+                return ( job1.cost > job2.cost ) ? -1 : 1;
+            }
+            return job1.grammarInfo.getGrammarFile().compareTo( job2.grammarInfo.getGrammarFile() );
+        }
+
+    }
+
+}
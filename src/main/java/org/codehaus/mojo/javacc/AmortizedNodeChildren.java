@@ -0,0 +1,71 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+
+/**
+ * Enhances the class <code>SimpleNode</code> generated by JJTree such that its array of child nodes grows
+ * geometrically instead of by a single slot for every added child. The number of children is tracked in a separate
+ * field and the array is trimmed to this size when the node is closed, i.e. after the node has been fully constructed
+ * the field <code>children</code> has the same contents as with the original implementation. Subclasses given by the
+ * option NODE_CLASS hence continue to work as long as they only access the array after <code>jjtClose()</code>.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+class AmortizedNodeChildren
+    extends NodeProcessor
+{
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void execute()
+        throws Exception
+    {
+        File nodeFile = getNodeFile( "SimpleNode.java" );
+        if ( !nodeFile.isFile() )
+        {
+            getLog().debug( "Skipping amortized node children, no SimpleNode generated: " + nodeFile );
+            return;
+        }
+
+        GeneratedSourceFile node = new GeneratedSourceFile( nodeFile );
+        if ( node.contains( "\\bnumChildren\\b" ) )
+        {
+            getLog().debug( "Skipping amortized node children, SimpleNode already tracks its children: " + nodeFile );
+            return;
+        }
+        node.insertAfter( "protected\\s+Node\\[\\]\\s+children;", "\n  protected int numChildren;" );
+        node.replace( "(public\\s+void\\s+jjtClose\\(\\)\\s*\\{)(\\s*\\})",
+                      "$1\n    if (children != null && numChildren < children.length) {\n"
+                          + "      Node c[] = new Node[numChildren];\n"
+                          + "      System.arraycopy(children, 0, c, 0, numChildren);\n"
+                          + "      children = c;\n" + "    }$2" );
+        node.replace( "Node c\\[\\] = new Node\\[i \\+ 1\\];",
+                      "Node c[] = new Node[Math.max(i + 1, children.length * 2)];" );
+        node.insertAfter( "children\\[i\\] = n;", "\n    if (i >= numChildren) {\n      numChildren = i + 1;\n    }" );
+        node.replace( "return \\(children == null\\) \\? 0 : children\\.length;", "return numChildren;" );
+        node.replace( "i < children\\.length;", "i < numChildren;" );
+        node.save();
+    }
+
+}
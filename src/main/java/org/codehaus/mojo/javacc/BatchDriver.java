@@ -0,0 +1,70 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+
+/**
+ * Generates the class <code><i>ParserName</i>BatchDriver</code> next to a non-static parser. The driver parses a stream
+ * of inputs concurrently on virtual threads or a fixed thread pool and reuses idle parsers via
+ * <code>ReInit(java.io.Reader)</code>. Static parsers cannot be used concurrently, so no driver is generated for them.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+class BatchDriver
+    extends ParserProcessor
+{
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void execute()
+        throws Exception
+    {
+        File parserFile = getParserFile( getParserName() + ".java" );
+        if ( !parserFile.isFile() )
+        {
+            getLog().debug( "Skipping batch driver, no parser generated: " + parserFile );
+            return;
+        }
+
+        GeneratedSourceFile parser = new GeneratedSourceFile( parserFile );
+        if ( parser.contains( "\\bjj_initialized_once\\b" ) )
+        {
+            getLog().warn( "Skipping batch driver, the parser " + getParserName() + " is static" );
+            return;
+        }
+        if ( !parser.contains( "public\\s+void\\s+ReInit\\(\\s*java\\.io\\.Reader\\s+\\w+\\s*\\)" ) )
+        {
+            getLog().warn( "Skipping batch driver, the parser " + getParserName()
+                + " has no method ReInit(java.io.Reader), unset the parameters userCharStream and userTokenManager" );
+            return;
+        }
+
+        String driverClass = getParserName() + "BatchDriver";
+        SourceTemplate driver = new SourceTemplate( "BatchDriver.template" );
+        driver.setPackage( getParserPackage() );
+        driver.setVariable( "parserName", getParserName() );
+        driver.setVariable( "driverClass", driverClass );
+        driver.write( getParserFile( driverClass + ".java" ) );
+    }
+
+}
@@ -0,0 +1,563 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Set;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * Benchmarks the compiled parsers on a corpus of sample inputs. For each grammar file, the parser is run on every file
+ * in the corpus directory <code>${corpusDirectory}/&lt;ParserName&gt;</code>, grammars without such a directory are
+ * skipped. After some warmup iterations, the goal reports the throughput in MB/s and tokens/s as well as the bytes
+ * allocated per input byte. The results are compared against a stored baseline and the build fails if a parser
+ * became slower or allocates more than allowed by {@link #maxRegression}.
+ * 
+ * @goal benchmark
+ * @execute phase=test-compile
+ * @requiresDependencyResolution test
+ * @threadSafe
+ * @since 2.7
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+public class BenchmarkMojo
+    extends AbstractMojo
+{
+
+    /**
+     * The current Maven project.
+     * 
+     * @parameter default-value="${project}"
+     * @readonly
+     * @required
+     */
+    private MavenProject project;
+
+    /**
+     * The directories where the JavaCC grammar files (<code>*.jj</code>) are located. By default, the directories
+     * <code>${basedir}/src/main/javacc</code>, <code>${project.build.directory}/generated-sources/jjtree</code>
+     * and <code>${project.build.directory}/generated-sources/jtb</code> are scanned for grammar files.
+     * 
+     * @parameter
+     * @since 2.7
+     */
+    private File[] sourceDirectories;
+
+    /**
+     * The default source directory for hand-crafted grammar files.
+     * 
+     * @parameter default-value="${basedir}/src/main/javacc"
+     * @readonly
+     */
+    private File defaultGrammarDirectoryJavaCC;
+
+    /**
+     * The default source directory for grammar files generated by JJTree.
+     * 
+     * @parameter default-value="${project.build.directory}/generated-sources/jjtree"
+     * @readonly
+     */
+    private File defaultGrammarDirectoryJJTree;
+
+    /**
+     * The default source directory for grammar files generated by JTB.
+     * 
+     * @parameter default-value="${project.build.directory}/generated-sources/jtb"
+     * @readonly
+     */
+    private File defaultGrammarDirectoryJTB;
+
+    /**
+     * The file encoding to use for reading the grammar files.
+     * 
+     * @parameter expression="${grammarEncoding}" default-value="${project.build.sourceEncoding}"
+     * @since 2.7
+     */
+    private String grammarEncoding;
+
+    /**
+     * The base directory of the sample inputs. The inputs for a parser are taken from the sub directory named after
+     * the parser, e.g. <code>src/test/parser-corpus/MyParser</code>.
+     * 
+     * @parameter expression="${javaccCorpusDirectory}" default-value="${basedir}/src/test/parser-corpus"
+     * @since 2.7
+     */
+    private File corpusDirectory;
+
+    /**
+     * The encoding of the sample inputs which is passed to the constructor of the parsers.
+     * 
+     * @parameter expression="${javaccCorpusEncoding}" default-value="${project.build.sourceEncoding}"
+     * @since 2.7
+     */
+    private String corpusEncoding;
+
+    /**
+     * The productions to invoke, keyed by the simple name of the parser. The production must not take parameters.
+     * For parsers not listed here, the first production declared in the grammar file is used.
+     * 
+     * @parameter
+     * @since 2.7
+     */
+    private Properties startProductions;
+
+    /**
+     * The number of iterations over the corpus that are run before the measurement to let the JIT compiler settle.
+     * 
+     * @parameter expression="${javaccWarmupIterations}" default-value="3"
+     * @since 2.7
+     */
+    private int warmupIterations;
+
+    /**
+     * The number of measured iterations over the corpus.
+     * 
+     * @parameter expression="${javaccIterations}" default-value="5"
+     * @since 2.7
+     */
+    private int iterations;
+
+    /**
+     * The properties file holding the baseline results to compare against.
+     * 
+     * @parameter expression="${javaccBaseline}" default-value="${basedir}/src/test/parser-corpus/baseline.properties"
+     * @since 2.7
+     */
+    private File baselineFile;
+
+    /**
+     * A flag whether the current results should be saved as the new baseline instead of being compared against it.
+     * 
+     * @parameter expression="${javaccUpdateBaseline}" default-value="false"
+     * @since 2.7
+     */
+    private boolean updateBaseline;
+
+    /**
+     * The tolerated regression in percent. The build fails if the throughput of a parser drops or its allocation rate
+     * rises by more than this percentage compared to the baseline.
+     * 
+     * @parameter expression="${javaccMaxRegression}" default-value="10"
+     * @since 2.7
+     */
+    private int maxRegression;
+
+    /**
+     * A flag whether the benchmark should be skipped.
+     * 
+     * @parameter expression="${javaccBenchmarkSkip}" default-value="false"
+     * @since 2.7
+     */
+    private boolean skip;
+
+    /**
+     * Get the source directories that should be scanned for grammar files.
+     * 
+     * @return The source directories that should be scanned for grammar files, never <code>null</code>.
+     */
+    private File[] getSourceDirectories()
+    {
+        Set directories = new LinkedHashSet();
+        if ( this.sourceDirectories != null && this.sourceDirectories.length > 0 )
+        {
+            directories.addAll( Arrays.asList( this.sourceDirectories ) );
+        }
+        else
+        {
+            if ( this.defaultGrammarDirectoryJavaCC != null )
+            {
+                directories.add( this.defaultGrammarDirectoryJavaCC );
+            }
+            if ( this.defaultGrammarDirectoryJJTree != null )
+            {
+                directories.add( this.defaultGrammarDirectoryJJTree );
+            }
+            if ( this.defaultGrammarDirectoryJTB != null )
+            {
+                directories.add( this.defaultGrammarDirectoryJTB );
+            }
+        }
+        return (File[]) directories.toArray( new File[directories.size()] );
+    }
+
+    /**
+     * Execute the benchmark.
+     * 
+     * @throws MojoExecutionException If a parser could not be benchmarked.
+     * @throws MojoFailureException If a parser regressed compared to the baseline.
+     */
+    public void execute()
+        throws MojoExecutionException, MojoFailureException
+    {
+        if ( this.skip )
+        {
+            getLog().info( "Skipping benchmark" );
+            return;
+        }
+
+        Properties baseline = loadBaseline();
+        Properties results = new Properties();
+        List regressions = new ArrayList();
+
+        URL[] classpath = getTestClasspath();
+
+        File[] sourceDirs = getSourceDirectories();
+        for ( int j = 0; j < sourceDirs.length; j++ )
+        {
+            GrammarInfo[] grammarInfos = scanForGrammars( sourceDirs[j] );
+            for ( int i = 0; i < grammarInfos.length; i++ )
+            {
+                GrammarInfo grammarInfo = grammarInfos[i];
+                File corpusDir = new File( this.corpusDirectory, grammarInfo.getParserName() );
+                if ( !corpusDir.isDirectory() )
+                {
+                    getLog().debug( "Skipping parser without corpus directory: " + corpusDir );
+                    continue;
+                }
+
+                ParserBenchmark benchmark = newParserBenchmark( grammarInfo, corpusDir, classpath );
+                benchmark.run();
+                record( grammarInfo, benchmark, results, baseline, regressions );
+            }
+        }
+
+        if ( results.isEmpty() )
+        {
+            getLog().info( "Skipping - no parser corpus found in " + this.corpusDirectory );
+        }
+        else if ( this.updateBaseline )
+        {
+            saveBaseline( results );
+        }
+        else if ( !regressions.isEmpty() )
+        {
+            throw new MojoFailureException( "Parser performance regressed by more than " + this.maxRegression
+                + "% compared to the baseline: " + regressions );
+        }
+    }
+
+    /**
+     * Creates a new benchmark for the parser of the specified grammar file.
+     * 
+     * @param grammarInfo The grammar file whose parser should be benchmarked, must not be <code>null</code>.
+     * @param corpusDir The directory with the sample inputs for the parser, must not be <code>null</code>.
+     * @param classpath The class path to load the parser from, must not be <code>null</code>.
+     * @return The configured benchmark, never <code>null</code>.
+     * @throws MojoExecutionException If the parser class or its start production could not be determined.
+     */
+    private ParserBenchmark newParserBenchmark( GrammarInfo grammarInfo, File corpusDir, URL[] classpath )
+        throws MojoExecutionException
+    {
+        String parserName = grammarInfo.getParserName();
+        String parserClassName = parserName;
+        if ( grammarInfo.getParserPackage().length() > 0 )
+        {
+            parserClassName = grammarInfo.getParserPackage() + '.' + parserName;
+        }
+
+        String startProduction = null;
+        if ( this.startProductions != null )
+        {
+            startProduction = this.startProductions.getProperty( parserName );
+        }
+        if ( startProduction == null )
+        {
+            try
+            {
+                String grammar = FileUtils.fileRead( grammarInfo.getGrammarFile(), this.grammarEncoding );
+                startProduction = ParserBenchmark.findStartProduction( grammar );
+            }
+            catch ( IOException e )
+            {
+                throw new MojoExecutionException( "Failed to read grammar file: " + grammarInfo.getGrammarFile(), e );
+            }
+            if ( startProduction == null )
+            {
+                throw new MojoExecutionException( "Failed to determine start production of " + parserName
+                    + ", please configure the parameter startProductions" );
+            }
+        }
+
+        List files;
+        try
+        {
+            files = FileUtils.getFiles( corpusDir, "**/*", null );
+        }
+        catch ( IOException e )
+        {
+            throw new MojoExecutionException( "Failed to scan corpus directory: " + corpusDir, e );
+        }
+        Collections.sort( files );
+
+        // a fresh class loader per parser also provides fresh state for static parsers
+        Class parserClass;
+        try
+        {
+            ClassLoader loader = new URLClassLoader( classpath, ClassLoader.getSystemClassLoader().getParent() );
+            parserClass = loader.loadClass( parserClassName );
+        }
+        catch ( ClassNotFoundException e )
+        {
+            throw new MojoExecutionException( "Failed to load parser " + parserClassName
+                + ", has the project been compiled?", e );
+        }
+
+        ParserBenchmark benchmark = new ParserBenchmark();
+        benchmark.setLog( getLog() );
+        benchmark.setParserClass( parserClass );
+        benchmark.setStartProduction( startProduction );
+        benchmark.setEncoding( this.corpusEncoding );
+        benchmark.setCorpusFiles( (File[]) files.toArray( new File[files.size()] ) );
+        benchmark.setWarmupIterations( this.warmupIterations );
+        benchmark.setIterations( this.iterations );
+        getLog().debug( "Running benchmark: " + benchmark );
+        return benchmark;
+    }
+
+    /**
+     * Logs the results of the specified benchmark and compares them against the baseline.
+     * 
+     * @param grammarInfo The grammar file whose parser has been benchmarked, must not be <code>null</code>.
+     * @param benchmark The completed benchmark, must not be <code>null</code>.
+     * @param results The properties to store the results in, must not be <code>null</code>.
+     * @param baseline The baseline results, must not be <code>null</code>.
+     * @param regressions The list to add descriptions of detected regressions to, must not be <code>null</code>.
+     */
+    private void record( GrammarInfo grammarInfo, ParserBenchmark benchmark, Properties results, Properties baseline,
+                         List regressions )
+    {
+        String parserName = grammarInfo.getParserName();
+        DecimalFormat format = new DecimalFormat( "0.00", new DecimalFormatSymbols( Locale.ENGLISH ) );
+
+        double mbps = benchmark.getMegabytesPerSecond();
+        double tps = benchmark.getTokensPerSecond();
+        double alloc = benchmark.getAllocatedBytesPerByte();
+
+        results.setProperty( parserName + ".megabytesPerSecond", format.format( mbps ) );
+        results.setProperty( parserName + ".tokensPerSecond", format.format( tps ) );
+        if ( !Double.isNaN( alloc ) )
+        {
+            results.setProperty( parserName + ".allocatedBytesPerByte", format.format( alloc ) );
+        }
+
+        StringBuffer message = new StringBuffer( 128 );
+        message.append( parserName ).append( ": " );
+        message.append( format.format( mbps ) ).append( " MB/s, " );
+        message.append( format.format( tps ) ).append( " tokens/s, " );
+        message.append( Double.isNaN( alloc ) ? "n/a" : format.format( alloc ) ).append( " bytes allocated/byte" );
+
+        double baseMbps = getBaseline( baseline, parserName + ".megabytesPerSecond" );
+        if ( !Double.isNaN( baseMbps ) && baseMbps > 0 )
+        {
+            double change = ( mbps - baseMbps ) * 100 / baseMbps;
+            message.append( " (" ).append( format.format( change ) ).append( "% vs. baseline)" );
+            if ( change < -this.maxRegression )
+            {
+                regressions.add( parserName + " throughput " + format.format( change ) + "%" );
+            }
+        }
+        double baseAlloc = getBaseline( baseline, parserName + ".allocatedBytesPerByte" );
+        if ( !Double.isNaN( baseAlloc ) && baseAlloc > 0 && !Double.isNaN( alloc ) )
+        {
+            double change = ( alloc - baseAlloc ) * 100 / baseAlloc;
+            if ( change > this.maxRegression )
+            {
+                regressions.add( parserName + " allocation +" + format.format( change ) + "%" );
+            }
+        }
+
+        getLog().info( message.toString() );
+        if ( getLog().isDebugEnabled() )
+        {
+            getLog().debug( parserName + ": " + benchmark.getCorpusBytes() + " bytes, " + benchmark.getCorpusTokens()
+                + " tokens per iteration" );
+        }
+    }
+
+    /**
+     * Gets the specified value from the baseline.
+     * 
+     * @param baseline The baseline results, must not be <code>null</code>.
+     * @param key The key of the value, must not be <code>null</code>.
+     * @return The baseline value or <code>NaN</code> if not available.
+     */
+    private double getBaseline( Properties baseline, String key )
+    {
+        String value = baseline.getProperty( key );
+        if ( value != null )
+        {
+            try
+            {
+                return Double.parseDouble( value );
+            }
+            catch ( NumberFormatException e )
+            {
+                getLog().warn( "Ignoring invalid baseline value " + key + "=" + value );
+            }
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Loads the baseline results.
+     * 
+     * @return The baseline results, never <code>null</code> but empty if no baseline has been stored yet.
+     * @throws MojoExecutionException If the baseline file could not be read.
+     */
+    private Properties loadBaseline()
+        throws MojoExecutionException
+    {
+        Properties baseline = new Properties();
+        if ( this.baselineFile != null && this.baselineFile.isFile() )
+        {
+            InputStream is = null;
+            try
+            {
+                is = new FileInputStream( this.baselineFile );
+                baseline.load( is );
+            }
+            catch ( IOException e )
+            {
+                throw new MojoExecutionException( "Failed to read baseline: " + this.baselineFile, e );
+            }
+            finally
+            {
+                IOUtil.close( is );
+            }
+        }
+        return baseline;
+    }
+
+    /**
+     * Saves the specified results as the new baseline.
+     * 
+     * @param results The results to save, must not be <code>null</code>.
+     * @throws MojoExecutionException If the baseline file could not be written.
+     */
+    private void saveBaseline( Properties results )
+        throws MojoExecutionException
+    {
+        Properties baseline = loadBaseline();
+        baseline.putAll( results );
+        OutputStream os = null;
+        try
+        {
+            this.baselineFile.getParentFile().mkdirs();
+            os = new FileOutputStream( this.baselineFile );
+            baseline.store( os, "JavaCC parser benchmark baseline" );
+        }
+        catch ( IOException e )
+        {
+            throw new MojoExecutionException( "Failed to write baseline: " + this.baselineFile, e );
+        }
+        finally
+        {
+            IOUtil.close( os );
+        }
+        getLog().info( "Saved baseline: " + this.baselineFile );
+    }
+
+    /**
+     * Gets the test class path of the project which includes the compiled parsers.
+     * 
+     * @return The URLs of the class path elements, never <code>null</code>.
+     * @throws MojoExecutionException If the class path could not be resolved.
+     */
+    private URL[] getTestClasspath()
+        throws MojoExecutionException
+    {
+        try
+        {
+            List elements = this.project.getTestClasspathElements();
+            List urls = new ArrayList( elements.size() );
+            for ( Iterator it = elements.iterator(); it.hasNext(); )
+            {
+                urls.add( new File( (String) it.next() ).toURI().toURL() );
+            }
+            return (URL[]) urls.toArray( new URL[urls.size()] );
+        }
+        catch ( Exception e )
+        {
+            throw new MojoExecutionException( "Failed to resolve test class path", e );
+        }
+    }
+
+    /**
+     * Searches the specified source directory to find grammar files whose parsers can be benchmarked.
+     * 
+     * @param sourceDirectory The source directory to scan for grammar files.
+     * @return An array of grammar infos describing the found grammar files, never <code>null</code>.
+     * @throws MojoExecutionException If there is a problem while scanning for .jj files.
+     */
+    private GrammarInfo[] scanForGrammars( File sourceDirectory )
+        throws MojoExecutionException
+    {
+        if ( !sourceDirectory.isDirectory() )
+        {
+            getLog().debug( "Skipping non-existing source directory: " + sourceDirectory );
+            return new GrammarInfo[0];
+        }
+
+        GrammarInfo[] grammarInfos;
+
+        getLog().debug( "Scanning for grammars: " + sourceDirectory );
+        try
+        {
+            String[] includes = { "**/*.jj", "**/*.JJ" };
+            GrammarDirectoryScanner scanner = new GrammarDirectoryScanner();
+            scanner.setSourceDirectory( sourceDirectory );
+            scanner.setIncludes( includes );
+            scanner.scan();
+            grammarInfos = scanner.getIncludedGrammars();
+        }
+        catch ( Exception e )
+        {
+            throw new MojoExecutionException( "Failed to scan for grammars: " + sourceDirectory, e );
+        }
+        getLog().debug( "Found grammars: " + Arrays.asList( grammarInfos ) );
+
+        return grammarInfos;
+    }
+
+}
@@ -0,0 +1,443 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.codehaus.plexus.util.IOUtil;
+import org.javacc.parser.CharacterRange;
+import org.javacc.parser.JavaCCErrors;
+import org.javacc.parser.JavaCCGlobals;
+import org.javacc.parser.JavaCCParser;
+import org.javacc.parser.Main;
+import org.javacc.parser.RCharacterList;
+import org.javacc.parser.RChoice;
+import org.javacc.parser.RJustName;
+import org.javacc.parser.ROneOrMore;
+import org.javacc.parser.RRepetitionRange;
+import org.javacc.parser.RSequence;
+import org.javacc.parser.RStringLiteral;
+import org.javacc.parser.RZeroOrMore;
+import org.javacc.parser.RZeroOrOne;
+import org.javacc.parser.RegExprSpec;
+import org.javacc.parser.RegularExpression;
+import org.javacc.parser.SingleCharacter;
+import org.javacc.parser.TokenProduction;
+
+/**
+ * Generates the class <code><i>ParserName</i>ChunkedLexer</code> next to the token manager of a line-oriented
+ * grammar. The generated class memory-maps an input file, splits it into chunks at line boundaries and runs a separate
+ * token manager for each chunk on a fork/join pool. This is only correct if the token manager is in the same state at
+ * the start of every line. Therefore, the lexical specification of the grammar is checked: it must use a single
+ * lexical state, must not have <code>MORE</code> rules and no regular expression may match a line terminator other
+ * than as its last character. Like the character streams of JavaCC, a line feed, a carriage return or a carriage return
+ * followed by a line feed terminates a line.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+class ChunkedLexer
+    extends ParserProcessor
+{
+
+    /**
+     * The grammar file processed by JavaCC.
+     */
+    private File grammarFile;
+
+    /**
+     * The encoding of the grammar file.
+     */
+    private String grammarEncoding;
+
+    /**
+     * Sets the grammar file processed by JavaCC.
+     * 
+     * @param value The path to the grammar file (<code>*.jj</code>), must not be <code>null</code>.
+     */
+    public void setGrammarFile( File value )
+    {
+        this.grammarFile = value;
+    }
+
+    /**
+     * Sets the encoding of the grammar file.
+     * 
+     * @param value The encoding of the grammar file, may be <code>null</code> to use the platform default.
+     */
+    public void setGrammarEncoding( String value )
+    {
+        this.grammarEncoding = value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void execute()
+        throws Exception
+    {
+        String reason = checkLineOriented();
+        if ( reason != null )
+        {
+            throw new MojoExecutionException( "The grammar " + this.grammarFile
+                + " does not allow chunked lexing, " + reason );
+        }
+
+        File tokenManagerFile = getTokenManagerFile();
+        if ( !tokenManagerFile.isFile() )
+        {
+            throw new MojoExecutionException( "The parser " + getParserName()
+                + " has no generated token manager for chunked lexing, unset the parameter userTokenManager" );
+        }
+        GeneratedSourceFile tokenManager = new GeneratedSourceFile( tokenManagerFile );
+        if ( isStatic( tokenManager ) )
+        {
+            throw new MojoExecutionException( "The token manager of " + getParserName()
+                + " is static and cannot be run concurrently, set the parameter isStatic or the grammar option STATIC"
+                + " to false" );
+        }
+
+        String charStream;
+        if ( getParserFile( "SimpleCharStream.java" ).isFile() )
+        {
+            charStream = "SimpleCharStream";
+        }
+        else if ( getParserFile( "JavaCharStream.java" ).isFile() )
+        {
+            charStream = "JavaCharStream";
+        }
+        else
+        {
+            throw new MojoExecutionException( "The parser " + getParserName()
+                + " has no generated char stream for chunked lexing, unset the parameter userCharStream" );
+        }
+
+        String lexerClass = getParserName() + "ChunkedLexer";
+        SourceTemplate lexer = new SourceTemplate( "ChunkedLexer.template" );
+        lexer.setPackage( getParserPackage() );
+        lexer.setVariable( "parserName", getParserName() );
+        lexer.setVariable( "lexerClass", lexerClass );
+        lexer.setVariable( "charStream", charStream );
+        lexer.write( getParserFile( lexerClass + ".java" ) );
+    }
+
+    /**
+     * Checks whether the lexical specification of the grammar allows to lex each line independently.
+     * 
+     * @return The reason why the grammar is not line-oriented or <code>null</code> if the grammar is line-oriented.
+     * @throws Exception If the grammar file could not be parsed.
+     */
+    String checkLineOriented()
+        throws Exception
+    {
+        synchronized ( JavaCCEngine.PLUGIN_LOCK )
+        {
+            Reader reader =
+                ( this.grammarEncoding != null ) ? new InputStreamReader( new FileInputStream( this.grammarFile ),
+                                                                          this.grammarEncoding )
+                                : new InputStreamReader( new FileInputStream( this.grammarFile ) );
+            try
+            {
+                Main.reInitAll();
+                JavaCCParser parser = new JavaCCParser( reader );
+                parser.javacc_input();
+            }
+            finally
+            {
+                IOUtil.close( reader );
+            }
+            if ( JavaCCErrors.get_error_count() > 0 )
+            {
+                throw new IllegalStateException( "Failed to parse grammar " + this.grammarFile );
+            }
+            return checkLineOriented( JavaCCGlobals.rexprlist );
+        }
+    }
+
+    /**
+     * Checks whether the specified token productions allow to lex each line independently.
+     * 
+     * @param productions The token productions of the grammar, must not be <code>null</code>.
+     * @return The reason why the grammar is not line-oriented or <code>null</code> if the grammar is line-oriented.
+     */
+    private static String checkLineOriented( List productions )
+    {
+        Map labels = new HashMap();
+        for ( Iterator it = productions.iterator(); it.hasNext(); )
+        {
+            TokenProduction production = (TokenProduction) it.next();
+            for ( Iterator specs = production.respecs.iterator(); specs.hasNext(); )
+            {
+                RegularExpression rexp = ( (RegExprSpec) specs.next() ).rexp;
+                if ( rexp.label != null && rexp.label.length() > 0 && !( rexp instanceof RJustName ) )
+                {
+                    labels.put( rexp.label, rexp );
+                }
+            }
+        }
+
+        for ( Iterator it = productions.iterator(); it.hasNext(); )
+        {
+            TokenProduction production = (TokenProduction) it.next();
+            if ( production.lexStates != null )
+            {
+                for ( int i = 0; i < production.lexStates.length; i++ )
+                {
+                    if ( !"DEFAULT".equals( production.lexStates[i] ) )
+                    {
+                        return "the lexical state " + production.lexStates[i] + " is used";
+                    }
+                }
+            }
+            if ( production.kind == TokenProduction.MORE )
+            {
+                return "MORE rules are used";
+            }
+            for ( Iterator specs = production.respecs.iterator(); specs.hasNext(); )
+            {
+                RegExprSpec spec = (RegExprSpec) specs.next();
+                if ( spec.nextState != null )
+                {
+                    return "the lexical state " + spec.nextState + " is used";
+                }
+                if ( crossesLine( spec.rexp, labels ) )
+                {
+                    String name = ( spec.rexp.label != null && spec.rexp.label.length() > 0 ) ? spec.rexp.label
+                                    : String.valueOf( spec.rexp );
+                    return "the token " + name + " may span more than one line";
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Determines whether the specified regular expression may match a line terminator that is not its last character.
+     * A carriage return directly followed by a line feed is a single line terminator.
+     * 
+     * @param rexp The regular expression to check, must not be <code>null</code>.
+     * @param labels The labeled regular expressions, used to resolve references, must not be <code>null</code>.
+     * @return <code>true</code> if a token matched by the expression may span lines, <code>false</code> otherwise.
+     */
+    private static boolean crossesLine( RegularExpression rexp, Map labels )
+    {
+        if ( rexp instanceof RStringLiteral )
+        {
+            String image = ( (RStringLiteral) rexp ).image;
+            for ( int i = 0; i < image.length() - 1; i++ )
+            {
+                char c = image.charAt( i );
+                if ( c == '\n' || ( c == '\r' && image.charAt( i + 1 ) != '\n' ) )
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+        else if ( rexp instanceof RSequence )
+        {
+            List units = ( (RSequence) rexp ).units;
+            for ( int i = 0; i < units.size() - 1; i++ )
+            {
+                RegularExpression unit = (RegularExpression) units.get( i );
+                if ( matches( unit, '\n', labels ) )
+                {
+                    return true;
+                }
+                // a carriage return is fine if the unit ends with it and the next unit starts with a line feed
+                RegularExpression next = (RegularExpression) units.get( i + 1 );
+                if ( matches( unit, '\r', labels ) && ( crossesLine( unit, labels ) || !startsWithLineFeed( next ) ) )
+                {
+                    return true;
+                }
+            }
+            return !units.isEmpty() && crossesLine( (RegularExpression) units.get( units.size() - 1 ), labels );
+        }
+        else if ( rexp instanceof RChoice )
+        {
+            for ( Iterator it = ( (RChoice) rexp ).getChoices().iterator(); it.hasNext(); )
+            {
+                if ( crossesLine( (RegularExpression) it.next(), labels ) )
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+        else if ( rexp instanceof RZeroOrOne )
+        {
+            return crossesLine( ( (RZeroOrOne) rexp ).regexpr, labels );
+        }
+        else if ( rexp instanceof RZeroOrMore )
+        {
+            return matchesLineTerminator( ( (RZeroOrMore) rexp ).regexpr, labels );
+        }
+        else if ( rexp instanceof ROneOrMore )
+        {
+            return matchesLineTerminator( ( (ROneOrMore) rexp ).regexpr, labels );
+        }
+        else if ( rexp instanceof RRepetitionRange )
+        {
+            RRepetitionRange range = (RRepetitionRange) rexp;
+            if ( range.hasMax && range.max <= 1 )
+            {
+                return crossesLine( range.regexpr, labels );
+            }
+            return matchesLineTerminator( range.regexpr, labels );
+        }
+        else if ( rexp instanceof RJustName )
+        {
+            RegularExpression target = (RegularExpression) labels.get( rexp.label );
+            return target != null && crossesLine( target, labels );
+        }
+        return false;
+    }
+
+    /**
+     * Determines whether the specified regular expression starts with a line feed, i.e. is a string literal whose
+     * first character is a line feed.
+     * 
+     * @param rexp The regular expression to check, must not be <code>null</code>.
+     * @return <code>true</code> if every token matched by the expression starts with a line feed, <code>false</code>
+     *         otherwise.
+     */
+    private static boolean startsWithLineFeed( RegularExpression rexp )
+    {
+        return rexp instanceof RStringLiteral && ( (RStringLiteral) rexp ).image.startsWith( "\n" );
+    }
+
+    /**
+     * Determines whether the specified regular expression may match a line feed or a carriage return at any position.
+     * 
+     * @param rexp The regular expression to check, must not be <code>null</code>.
+     * @param labels The labeled regular expressions, used to resolve references, must not be <code>null</code>.
+     * @return <code>true</code> if a token matched by the expression may contain a line terminator, <code>false</code>
+     *         otherwise.
+     */
+    private static boolean matchesLineTerminator( RegularExpression rexp, Map labels )
+    {
+        return matches( rexp, '\n', labels ) || matches( rexp, '\r', labels );
+    }
+
+    /**
+     * Determines whether the specified regular expression may match the given character at any position.
+     * 
+     * @param rexp The regular expression to check, must not be <code>null</code>.
+     * @param ch The character to search for.
+     * @param labels The labeled regular expressions, used to resolve references, must not be <code>null</code>.
+     * @return <code>true</code> if a token matched by the expression may contain the character, <code>false</code>
+     *         otherwise.
+     */
+    private static boolean matches( RegularExpression rexp, char ch, Map labels )
+    {
+        if ( rexp instanceof RStringLiteral )
+        {
+            return ( (RStringLiteral) rexp ).image.indexOf( ch ) >= 0;
+        }
+        else if ( rexp instanceof RCharacterList )
+        {
+            RCharacterList list = (RCharacterList) rexp;
+            boolean listed = false;
+            for ( Iterator it = list.descriptors.iterator(); it.hasNext() && !listed; )
+            {
+                Object descriptor = it.next();
+                if ( descriptor instanceof SingleCharacter )
+                {
+                    listed = ( (SingleCharacter) descriptor ).ch == ch;
+                }
+                else if ( descriptor instanceof CharacterRange )
+                {
+                    CharacterRange range = (CharacterRange) descriptor;
+                    listed = range.getLeft() <= ch && ch <= range.getRight();
+                }
+            }
+            return listed != list.negated_list;
+        }
+        else if ( rexp instanceof RSequence )
+        {
+            return anyMatches( ( (RSequence) rexp ).units, ch, labels );
+        }
+        else if ( rexp instanceof RChoice )
+        {
+            return anyMatches( ( (RChoice) rexp ).getChoices(), ch, labels );
+        }
+        else if ( rexp instanceof RZeroOrOne )
+        {
+            return matches( ( (RZeroOrOne) rexp ).regexpr, ch, labels );
+        }
+        else if ( rexp instanceof RZeroOrMore )
+        {
+            return matches( ( (RZeroOrMore) rexp ).regexpr, ch, labels );
+        }
+        else if ( rexp instanceof ROneOrMore )
+        {
+            return matches( ( (ROneOrMore) rexp ).regexpr, ch, labels );
+        }
+        else if ( rexp instanceof RRepetitionRange )
+        {
+            return matches( ( (RRepetitionRange) rexp ).regexpr, ch, labels );
+        }
+        else if ( rexp instanceof RJustName )
+        {
+            RegularExpression target = (RegularExpression) labels.get( rexp.label );
+            return target != null && matches( target, ch, labels );
+        }
+        return false;
+    }
+
+    /**
+     * Determines whether any of the specified regular expressions may match the given character.
+     * 
+     * @param rexps The regular expressions to check, must not be <code>null</code>.
+     * @param ch The character to search for.
+     * @param labels The labeled regular expressions, used to resolve references, must not be <code>null</code>.
+     * @return <code>true</code> if any expression may match the character, <code>false</code> otherwise.
+     */
+    private static boolean anyMatches( List rexps, char ch, Map labels )
+    {
+        for ( Iterator it = rexps.iterator(); it.hasNext(); )
+        {
+            if ( matches( (RegularExpression) it.next(), ch, labels ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets a string representation of this processor. This value is for debugging purposes only.
+     * 
+     * @return A string representation of this processor.
+     */
+    public String toString()
+    {
+        return super.toString() + ", " + this.grammarFile;
+    }
+
+}
@@ -0,0 +1,380 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Emits events to the Java Flight Recorder and to the trace file of the current thread for the phases of the plugin and
+ * the tool invocations. The event types are defined at runtime via <code>jdk.jfr.EventFactory</code>, which is accessed
+ * via reflection since the plugin is compiled for Java 1.4. If neither a recording enables the event type nor a trace
+ * file is active, {@link #begin(int)} returns a shared no-op event, so instrumented code causes neither allocations nor
+ * JFR calls.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+class FlightEvent
+{
+
+    /**
+     * The event type for scanning a source directory for stale grammar files. Fields: directory, grammars.
+     */
+    public static final int GRAMMAR_SCAN = 0;
+
+    /**
+     * The event type for parsing the header of a grammar file. Fields: grammar, parser.
+     */
+    public static final int GRAMMAR_PARSE = 1;
+
+    /**
+     * The event type for running a tool like JavaCC. Fields: tool, grammar, exitCode.
+     */
+    public static final int TOOL_RUN = 2;
+
+    /**
+     * The event type for launching a forked JVM. Fields: mainClass, commandLength, startupLatency, exitCode.
+     */
+    public static final int FORKED_JVM = 3;
+
+    /**
+     * The event type for copying the output files of a grammar. Fields: directory, files, bytes.
+     */
+    public static final int OUTPUT_COPY = 4;
+
+    /**
+     * The event type for processing a single grammar file with all its tools. Fields: grammar.
+     */
+    public static final int GRAMMAR_PROCESS = 5;
+
+    /**
+     * The event type for deleting a temporary directory. Fields: directory.
+     */
+    public static final int TEMP_CLEANUP = 6;
+
+    /**
+     * The definitions of the event types, indexed by event type. Each definition starts with the simple name and the
+     * label of the event type, followed by quadruples of field type, name, label and an optional JFR annotation of the
+     * form "class=value".
+     */
+    private static final Object[][] TYPES =
+        {
+            { "GrammarScan", "Grammar Scan", String.class, "directory", "Directory", null, Integer.TYPE, "grammars",
+                "Grammars", null },
+            { "GrammarParse", "Grammar Parse", String.class, "grammar", "Grammar", null, String.class, "parser",
+                "Parser", null },
+            { "ToolRun", "Tool Run", String.class, "tool", "Tool", null, String.class, "grammar", "Grammar", null,
+                Integer.TYPE, "exitCode", "Exit Code", null },
+            { "ForkedJvmLaunch", "Forked JVM Launch", String.class, "mainClass", "Main Class", null, Integer.TYPE,
+                "commandLength", "Command Length", null, Long.TYPE, "startupLatency", "Startup Latency",
+                "jdk.jfr.Timespan=MILLISECONDS", Integer.TYPE, "exitCode", "Exit Code", null },
+            { "GrammarOutputCopy", "Grammar Output Copy", String.class, "directory", "Directory", null, Integer.TYPE,
+                "files", "Files", null, Long.TYPE, "bytes", "Bytes", "jdk.jfr.DataAmount=BYTES" },
+            { "GrammarProcess", "Grammar Processing", String.class, "grammar", "Grammar", null },
+            { "TempDirectoryCleanup", "Temporary Directory Cleanup", String.class, "directory", "Directory", null } };
+
+    /**
+     * The event returned while recording is disabled, ignores all calls.
+     */
+    private static final FlightEvent DISABLED = new FlightEvent( 0, null, null );
+
+    /**
+     * The event factories indexed by event type or <code>null</code> if Flight Recorder is not available.
+     */
+    private static Object[] factories;
+
+    /**
+     * The event types indexed by event type.
+     */
+    private static Object[] eventTypes;
+
+    /**
+     * The method <code>EventType.isEnabled()</code>.
+     */
+    private static Method isEnabled;
+
+    /**
+     * The method <code>EventFactory.newEvent()</code>.
+     */
+    private static Method newEvent;
+
+    /**
+     * The method <code>Event.begin()</code>.
+     */
+    private static Method beginEvent;
+
+    /**
+     * The method <code>Event.set(int, Object)</code>.
+     */
+    private static Method setField;
+
+    /**
+     * The method <code>Event.commit()</code>.
+     */
+    private static Method commitEvent;
+
+    static
+    {
+        try
+        {
+            defineEventTypes();
+        }
+        catch ( Throwable e )
+        {
+            factories = null;
+        }
+    }
+
+    /**
+     * The type of this event.
+     */
+    private final int type;
+
+    /**
+     * The underlying <code>jdk.jfr.Event</code> or <code>null</code> if not recorded by the Flight Recorder.
+     */
+    private final Object event;
+
+    /**
+     * The trace file to write this event to or <code>null</code> if not traced.
+     */
+    private final TraceFile trace;
+
+    /**
+     * The time in milliseconds since the epoch when this event began, only set if traced.
+     */
+    private final long start;
+
+    /**
+     * The field values of this event, only set if traced.
+     */
+    private final Object[] values;
+
+    /**
+     * Creates a new event.
+     * 
+     * @param type The type of the event.
+     * @param event The underlying <code>jdk.jfr.Event</code>, may be <code>null</code> if not recorded.
+     * @param trace The trace file to write the event to, may be <code>null</code> if not traced.
+     */
+    private FlightEvent( int type, Object event, TraceFile trace )
+    {
+        this.type = type;
+        this.event = event;
+        this.trace = trace;
+        this.start = ( trace != null ) ? System.currentTimeMillis() : 0;
+        this.values = ( trace != null ) ? new Object[( TYPES[type].length - 2 ) / 4] : null;
+    }
+
+    /**
+     * Defines the event types with the Flight Recorder.
+     * 
+     * @throws Exception If the Flight Recorder is not available.
+     */
+    private static void defineEventTypes()
+        throws Exception
+    {
+        Class annotationClass = Class.forName( "jdk.jfr.AnnotationElement" );
+        Constructor annotation = annotationClass.getConstructor( new Class[] { Class.class, Object.class } );
+        Constructor field =
+            Class.forName( "jdk.jfr.ValueDescriptor" ).getConstructor( new Class[] { Class.class, String.class,
+                List.class } );
+        Class factoryClass = Class.forName( "jdk.jfr.EventFactory" );
+        Method create = factoryClass.getMethod( "create", new Class[] { List.class, List.class } );
+
+        Object[] newFactories = new Object[TYPES.length];
+        Object[] newEventTypes = new Object[TYPES.length];
+        for ( int i = 0; i < TYPES.length; i++ )
+        {
+            List annotations = new ArrayList();
+            annotations.add( annotation.newInstance( new Object[] { Class.forName( "jdk.jfr.Name" ),
+                FlightEvent.class.getPackage().getName() + '.' + TYPES[i][0] } ) );
+            annotations.add( annotation.newInstance( new Object[] { Class.forName( "jdk.jfr.Label" ), TYPES[i][1] } ) );
+            annotations.add( annotation.newInstance( new Object[] { Class.forName( "jdk.jfr.Category" ),
+                new String[] { "Maven", "JavaCC Plugin" } } ) );
+            annotations.add( annotation.newInstance( new Object[] { Class.forName( "jdk.jfr.StackTrace" ),
+                Boolean.FALSE } ) );
+
+            List fields = new ArrayList();
+            for ( int j = 2; j < TYPES[i].length; j += 4 )
+            {
+                List fieldAnnotations = new ArrayList();
+                fieldAnnotations.add( annotation.newInstance( new Object[] { Class.forName( "jdk.jfr.Label" ),
+                    TYPES[i][j + 2] } ) );
+                String extra = (String) TYPES[i][j + 3];
+                if ( extra != null )
+                {
+                    int eq = extra.indexOf( '=' );
+                    fieldAnnotations.add( annotation.newInstance( new Object[] {
+                        Class.forName( extra.substring( 0, eq ) ), extra.substring( eq + 1 ) } ) );
+                }
+                fields.add( field.newInstance( new Object[] { TYPES[i][j], TYPES[i][j + 1], fieldAnnotations } ) );
+            }
+
+            newFactories[i] = create.invoke( null, new Object[] { annotations, fields } );
+            newEventTypes[i] = factoryClass.getMethod( "getEventType", null ).invoke( newFactories[i], null );
+        }
+
+        Class eventClass = Class.forName( "jdk.jfr.Event" );
+        isEnabled = Class.forName( "jdk.jfr.EventType" ).getMethod( "isEnabled", null );
+        newEvent = factoryClass.getMethod( "newEvent", null );
+        beginEvent = eventClass.getMethod( "begin", null );
+        setField = eventClass.getMethod( "set", new Class[] { Integer.TYPE, Object.class } );
+        commitEvent = eventClass.getMethod( "commit", null );
+        eventTypes = newEventTypes;
+        factories = newFactories;
+    }
+
+    /**
+     * Starts timing a new event of the specified type.
+     * 
+     * @param type The event type, one of the constants of this class.
+     * @return The started event, never <code>null</code>. If neither a recording is enabling the event type nor a
+     *         trace file is active for the current thread, a shared no-op event is returned.
+     */
+    public static FlightEvent begin( int type )
+    {
+        Object event = null;
+        if ( factories != null )
+        {
+            try
+            {
+                if ( Boolean.TRUE.equals( isEnabled.invoke( eventTypes[type], null ) ) )
+                {
+                    event = newEvent.invoke( factories[type], null );
+                    beginEvent.invoke( event, null );
+                }
+            }
+            catch ( Exception e )
+            {
+                // recording is not essential
+            }
+        }
+        TraceFile trace = TraceFile.getCurrent();
+        if ( event == null && trace == null )
+        {
+            return DISABLED;
+        }
+        return new FlightEvent( type, event, trace );
+    }
+
+    /**
+     * Determines whether this event is recorded. Callers can use this to skip the computation of expensive field
+     * values.
+     * 
+     * @return <code>true</code> if this event is recorded, <code>false</code> otherwise.
+     */
+    public boolean isEnabled()
+    {
+        return this.event != null || this.trace != null;
+    }
+
+    /**
+     * Sets a field of this event.
+     * 
+     * @param index The index of the field as documented for the event type.
+     * @param value The value of the field, may be <code>null</code>.
+     */
+    public void set( int index, Object value )
+    {
+        if ( this.event != null )
+        {
+            try
+            {
+                setField.invoke( this.event, new Object[] { new Integer( index ), value } );
+            }
+            catch ( Exception e )
+            {
+                // recording is not essential
+            }
+        }
+        if ( this.values != null )
+        {
+            this.values[index] = value;
+        }
+    }
+
+    /**
+     * Sets an integer field of this event.
+     * 
+     * @param index The index of the field as documented for the event type.
+     * @param value The value of the field.
+     */
+    public void set( int index, int value )
+    {
+        if ( isEnabled() )
+        {
+            set( index, new Integer( value ) );
+        }
+    }
+
+    /**
+     * Sets a long field of this event.
+     * 
+     * @param index The index of the field as documented for the event type.
+     * @param value The value of the field.
+     */
+    public void set( int index, long value )
+    {
+        if ( isEnabled() )
+        {
+            set( index, new Long( value ) );
+        }
+    }
+
+    /**
+     * Ends timing this event and commits it to the recording and the trace file.
+     */
+    public void commit()
+    {
+        if ( this.event != null )
+        {
+            try
+            {
+                commitEvent.invoke( this.event, null );
+            }
+            catch ( Exception e )
+            {
+                // recording is not essential
+            }
+        }
+        if ( this.trace != null )
+        {
+            Object[] definition = TYPES[this.type];
+            String[] names = new String[this.values.length];
+            for ( int i = 0; i < names.length; i++ )
+            {
+                names[i] = (String) definition[2 + i * 4 + 1];
+            }
+            long end = System.currentTimeMillis();
+            if ( this.type == FORKED_JVM )
+            {
+                this.trace.addProcessSpan( "java " + this.values[0], this.start, end, names, this.values );
+            }
+            String name = ( this.type == TOOL_RUN && this.values[0] != null ) ? (String) this.values[0]
+                            : (String) definition[1];
+            this.trace.addSpan( name, (String) definition[0], this.start, end, names, this.values );
+        }
+    }
+
+}
@@ -62,6 +62,11 @@ class ForkedJvm
      */
     private File workingDirectory;
 
+    /**
+     * The options for the forked JVM itself, given as strings.
+     */
+    private List jvmArgs = new ArrayList();
+
     /**
      * The class path entries for the forked JVM, given as strings.
      */
@@ -126,6 +131,19 @@ class ForkedJvm
         this.systemErr = consumer;
     }
 
+    /**
+     * Adds the specified option for the forked JVM itself, e.g. "-Xmx512m".
+     * 
+     * @param argument The option to add, may be <code>null</code>.
+     */
+    public void addJvmArgument( String argument )
+    {
+        if ( argument != null )
+        {
+            this.jvmArgs.add( argument );
+        }
+    }
+
     /**
      * Gets the class path for the forked JVM.
      * 
@@ -327,6 +345,8 @@ class ForkedJvm
             cli.setWorkingDirectory( this.workingDirectory.getAbsolutePath() );
         }
 
+        cli.addArguments( (String[]) this.jvmArgs.toArray( new String[this.jvmArgs.size()] ) );
+
         String classPath = getClassPath();
         if ( classPath != null && classPath.length() > 0 )
         {
@@ -352,7 +372,31 @@ class ForkedJvm
     public int run()
         throws Exception
     {
-        return CommandLineUtils.executeCommandLine( createCommandLine(), this.systemOut, this.systemErr );
+        FlightEvent event = FlightEvent.begin( FlightEvent.FORKED_JVM );
+        Commandline cli = createCommandLine();
+        if ( !event.isEnabled() )
+        {
+            return CommandLineUtils.executeCommandLine( cli, this.systemOut, this.systemErr );
+        }
+
+        long start = System.currentTimeMillis();
+        FirstLineConsumer out = new FirstLineConsumer( this.systemOut );
+        FirstLineConsumer err = new FirstLineConsumer( this.systemErr );
+        int exitCode = -1;
+        try
+        {
+            exitCode = CommandLineUtils.executeCommandLine( cli, out, err );
+            return exitCode;
+        }
+        finally
+        {
+            long firstLine = Math.min( out.getFirstLineTime(), err.getFirstLineTime() );
+            event.set( 0, this.mainClass );
+            event.set( 1, String.valueOf( cli ).length() );
+            event.set( 2, ( firstLine < Long.MAX_VALUE ) ? firstLine - start : -1 );
+            event.set( 3, exitCode );
+            event.commit();
+        }
     }
 
     /**
@@ -365,4 +409,61 @@ class ForkedJvm
         return String.valueOf( createCommandLine() );
     }
 
+    /**
+     * Records when the forked JVM printed its first line of output, which approximates its startup latency.
+     */
+    private static class FirstLineConsumer
+        implements StreamConsumer
+    {
+
+        /**
+         * The stream consumer to pass the lines on to, may be <code>null</code>.
+         */
+        private final StreamConsumer delegate;
+
+        /**
+         * The time in milliseconds since the epoch when the first line was consumed, guarded by <code>this</code>.
+         */
+        private long firstLineTime = Long.MAX_VALUE;
+
+        /**
+         * Creates a new stream consumer.
+         * 
+         * @param delegate The stream consumer to pass the lines on to, may be <code>null</code>.
+         */
+        public FirstLineConsumer( StreamConsumer delegate )
+        {
+            this.delegate = delegate;
+        }
+
+        /**
+         * Gets the time when the first line was consumed.
+         * 
+         * @return The time in milliseconds since the epoch or <code>Long.MAX_VALUE</code> if no line was consumed.
+         */
+        public synchronized long getFirstLineTime()
+        {
+            return this.firstLineTime;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void consumeLine( String line )
+        {
+            synchronized ( this )
+            {
+                if ( this.firstLineTime == Long.MAX_VALUE )
+                {
+                    this.firstLineTime = System.currentTimeMillis();
+                }
+            }
+            if ( this.delegate != null )
+            {
+                this.delegate.consumeLine( line );
+            }
+        }
+
+    }
+
 }
@@ -0,0 +1,247 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Provides simple editing of a Java source file that was generated by one of the JavaCC related tools. All edits are
+ * anchored by regular expressions which are expected to match the generated code, i.e. an edit whose anchor cannot be
+ * found is reported as an error rather than silently ignored.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+class GeneratedSourceFile
+{
+
+    /**
+     * The absolute path to the source file.
+     */
+    private final File file;
+
+    /**
+     * The current contents of the source file.
+     */
+    private String contents;
+
+    /**
+     * Loads the specified source file.
+     * 
+     * @param file The absolute path to the source file, must not be <code>null</code>.
+     * @throws IOException If the source file could not be read.
+     */
+    public GeneratedSourceFile( File file )
+        throws IOException
+    {
+        this.file = file;
+        // NOTE: JavaCC uses the platform default encoding to write files, so must we
+        this.contents = FileUtils.fileRead( file );
+    }
+
+    /**
+     * Gets the absolute path to the source file.
+     * 
+     * @return The absolute path to the source file, never <code>null</code>.
+     */
+    public File getFile()
+    {
+        return this.file;
+    }
+
+    /**
+     * Gets the current contents of the source file.
+     * 
+     * @return The current contents of the source file, never <code>null</code>.
+     */
+    public String getContents()
+    {
+        return this.contents;
+    }
+
+    /**
+     * Sets the contents of the source file. The new contents are not written to disk until {@link #save()} is called.
+     * 
+     * @param contents The new contents of the source file, must not be <code>null</code>.
+     */
+    public void setContents( String contents )
+    {
+        if ( contents == null )
+        {
+            throw new IllegalArgumentException( "no contents specified" );
+        }
+        this.contents = contents;
+    }
+
+    /**
+     * Determines whether the source file contains a match for the specified regular expression.
+     * 
+     * @param regex The regular expression to search for, must not be <code>null</code>.
+     * @return <code>true</code> if the source file contains a match, <code>false</code> otherwise.
+     */
+    public boolean contains( String regex )
+    {
+        return Pattern.compile( regex ).matcher( this.contents ).find();
+    }
+
+    /**
+     * Finds the first match for the specified regular expression.
+     * 
+     * @param regex The regular expression to search for, must not be <code>null</code>.
+     * @param group The index of the capturing group whose value should be returned.
+     * @return The value of the capturing group for the first match or <code>null</code> if no match was found.
+     */
+    public String find( String regex, int group )
+    {
+        Matcher matcher = Pattern.compile( regex ).matcher( this.contents );
+        if ( matcher.find() )
+        {
+            return matcher.group( group );
+        }
+        return null;
+    }
+
+    /**
+     * Replaces all matches of the specified regular expression.
+     * 
+     * @param regex The regular expression to search for, must not be <code>null</code>.
+     * @param replacement The replacement string, may reference capturing groups, must not be <code>null</code>.
+     * @return The number of replaced matches, always positive.
+     * @throws IllegalStateException If the source file does not contain a match.
+     */
+    public int replace( String regex, String replacement )
+    {
+        Matcher matcher = Pattern.compile( regex ).matcher( this.contents );
+        StringBuffer buffer = new StringBuffer( this.contents.length() + replacement.length() );
+        int count = 0;
+        while ( matcher.find() )
+        {
+            matcher.appendReplacement( buffer, replacement );
+            count++;
+        }
+        if ( count <= 0 )
+        {
+            throw newMissingAnchorException( regex );
+        }
+        matcher.appendTail( buffer );
+        this.contents = buffer.toString();
+        return count;
+    }
+
+    /**
+     * Inserts the specified text before the first match of the given regular expression.
+     * 
+     * @param regex The regular expression to search for, must not be <code>null</code>.
+     * @param text The text to insert, must not be <code>null</code>.
+     * @throws IllegalStateException If the source file does not contain a match.
+     */
+    public void insertBefore( String regex, String text )
+    {
+        Matcher matcher = Pattern.compile( regex ).matcher( this.contents );
+        if ( !matcher.find() )
+        {
+            throw newMissingAnchorException( regex );
+        }
+        insert( matcher.start(), text );
+    }
+
+    /**
+     * Inserts the specified text after the first match of the given regular expression.
+     * 
+     * @param regex The regular expression to search for, must not be <code>null</code>.
+     * @param text The text to insert, must not be <code>null</code>.
+     * @throws IllegalStateException If the source file does not contain a match.
+     */
+    public void insertAfter( String regex, String text )
+    {
+        Matcher matcher = Pattern.compile( regex ).matcher( this.contents );
+        if ( !matcher.find() )
+        {
+            throw newMissingAnchorException( regex );
+        }
+        insert( matcher.end(), text );
+    }
+
+    /**
+     * Adds the specified text as a new member to the end of the top-level class, i.e. inserts the text before the last
+     * closing brace of the source file.
+     * 
+     * @param text The text to insert, must not be <code>null</code>.
+     * @throws IllegalStateException If the source file does not contain a closing brace.
+     */
+    public void appendMember( String text )
+    {
+        int index = this.contents.lastIndexOf( '}' );
+        if ( index < 0 )
+        {
+            throw new IllegalStateException( "Unexpected source code in " + this.file + ", missing class body" );
+        }
+        insert( index, text );
+    }
+
+    /**
+     * Inserts the specified text at the given position.
+     * 
+     * @param index The zero-based index at which to insert the text.
+     * @param text The text to insert, must not be <code>null</code>.
+     */
+    private void insert( int index, String text )
+    {
+        this.contents = this.contents.substring( 0, index ) + text + this.contents.substring( index );
+    }
+
+    /**
+     * Creates an exception to report an edit whose anchor could not be found.
+     * 
+     * @param regex The regular expression that did not match, must not be <code>null</code>.
+     * @return The exception to throw, never <code>null</code>.
+     */
+    private IllegalStateException newMissingAnchorException( String regex )
+    {
+        return new IllegalStateException( "Unexpected source code in " + this.file + ", no match for " + regex );
+    }
+
+    /**
+     * Writes the current contents back to the source file.
+     * 
+     * @throws IOException If the source file could not be written.
+     */
+    public void save()
+        throws IOException
+    {
+        FileUtils.fileWrite( this.file.getAbsolutePath(), this.contents );
+    }
+
+    /**
+     * Gets a string representation of this source file. This value is for debugging purposes only.
+     * 
+     * @return A string representation of this source file.
+     */
+    public String toString()
+    {
+        return String.valueOf( this.file );
+    }
+
+}
@@ -0,0 +1,187 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Properties;
+
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * Remembers the digests of the grammar files and tool options from the previous build, so tool invocations whose inputs
+ * did not change can be skipped. Only the entries that were confirmed or updated during the current build are saved,
+ * i.e. entries for deleted grammar files are dropped.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+class GrammarDigests
+{
+
+    /**
+     * The file to load and save the digests from/to.
+     */
+    private final File file;
+
+    /**
+     * The digests from the previous build, keyed by output file, guarded by <code>this</code>.
+     */
+    private final Properties previous = new Properties();
+
+    /**
+     * The digests for the current build, keyed by output file, guarded by <code>this</code>.
+     */
+    private final Properties current = new Properties();
+
+    /**
+     * Creates a new digest store backed by the specified file. If the file exists but cannot be read, all grammars are
+     * considered changed.
+     * 
+     * @param file The file to load and save the digests from/to, must not be <code>null</code>.
+     */
+    public GrammarDigests( File file )
+    {
+        this.file = file;
+        if ( file.isFile() )
+        {
+            InputStream is = null;
+            try
+            {
+                is = new FileInputStream( file );
+                this.previous.load( is );
+            }
+            catch ( IOException e )
+            {
+                this.previous.clear();
+            }
+            finally
+            {
+                IOUtil.close( is );
+            }
+        }
+    }
+
+    /**
+     * Calculates the digest of the specified grammar file and tool options.
+     * 
+     * @param grammarFile The grammar file, must not be <code>null</code>.
+     * @param options The string representation of the tool options that affect the output, must not be
+     *            <code>null</code>.
+     * @return The hexadecimal digest, never <code>null</code>.
+     * @throws IOException If the grammar file could not be read.
+     */
+    public static String digest( File grammarFile, String options )
+        throws IOException
+    {
+        MessageDigest digest;
+        try
+        {
+            digest = MessageDigest.getInstance( "MD5" );
+        }
+        catch ( NoSuchAlgorithmException e )
+        {
+            throw new IllegalStateException( "MD5 not supported" );
+        }
+        InputStream is = new FileInputStream( grammarFile );
+        try
+        {
+            byte[] buffer = new byte[8192];
+            for ( int n = is.read( buffer ); n >= 0; n = is.read( buffer ) )
+            {
+                digest.update( buffer, 0, n );
+            }
+        }
+        finally
+        {
+            IOUtil.close( is );
+        }
+        digest.update( options.getBytes( "UTF-8" ) );
+        byte[] bytes = digest.digest();
+        StringBuffer hex = new StringBuffer( bytes.length * 2 );
+        for ( int i = 0; i < bytes.length; i++ )
+        {
+            hex.append( Character.forDigit( ( bytes[i] >> 4 ) & 0x0F, 16 ) );
+            hex.append( Character.forDigit( bytes[i] & 0x0F, 16 ) );
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Determines whether the specified output file is up-to-date, i.e. exists and has been generated from inputs with
+     * the given digest during the previous build. An up-to-date entry is retained for the next build.
+     * 
+     * @param outputFile The output file generated from the grammar, must not be <code>null</code>.
+     * @param digest The digest of the current inputs, must not be <code>null</code>.
+     * @return <code>true</code> if the output file is up-to-date, <code>false</code> otherwise.
+     */
+    public synchronized boolean isUpToDate( File outputFile, String digest )
+    {
+        String key = outputFile.getAbsolutePath();
+        if ( outputFile.isFile() && digest.equals( this.previous.getProperty( key ) ) )
+        {
+            this.current.setProperty( key, digest );
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Records the digest of the inputs from which the specified output file has been generated.
+     * 
+     * @param outputFile The output file generated from the grammar, must not be <code>null</code>.
+     * @param digest The digest of the inputs, must not be <code>null</code>.
+     */
+    public synchronized void setDigest( File outputFile, String digest )
+    {
+        this.current.setProperty( outputFile.getAbsolutePath(), digest );
+    }
+
+    /**
+     * Saves the digests recorded during the current build.
+     * 
+     * @throws IOException If the file could not be written.
+     */
+    public synchronized void save()
+        throws IOException
+    {
+        File parent = this.file.getParentFile();
+        if ( parent != null )
+        {
+            parent.mkdirs();
+        }
+        OutputStream os = new FileOutputStream( this.file );
+        try
+        {
+            this.current.store( os, "Digests of the grammar files and options" );
+        }
+        finally
+        {
+            IOUtil.close( os );
+        }
+    }
+
+}
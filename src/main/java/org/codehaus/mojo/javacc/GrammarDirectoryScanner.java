@@ -25,6 +25,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.codehaus.plexus.util.DirectoryScanner;
+import org.codehaus.plexus.util.Scanner;
+import org.sonatype.plexus.build.incremental.BuildContext;
 
 /**
  * Scans source directories for JavaCC grammar files.
@@ -36,9 +38,30 @@ class GrammarDirectoryScanner
 {
 
     /**
-     * The directory scanner used to scan the source directory for files.
+     * The absolute path to the source directory to scan for grammar files.
      */
-    private DirectoryScanner scanner;
+    private File sourceDirectory;
+
+    /**
+     * The Ant-like inclusion patterns, may be <code>null</code> to include all files.
+     */
+    private String[] includes;
+
+    /**
+     * The Ant-like exclusion patterns, may be <code>null</code> to exclude no files.
+     */
+    private String[] excludes;
+
+    /**
+     * The flag whether the default exclusion patterns should be applied.
+     */
+    private boolean defaultExcludes;
+
+    /**
+     * The build context that provides the files changed since the last incremental build, may be <code>null</code>
+     * to scan the whole source directory.
+     */
+    private BuildContext buildContext;
 
     /**
      * The absolute path to the output directory used to detect stale target files by timestamp checking, may be
@@ -69,8 +92,6 @@ class GrammarDirectoryScanner
      */
     public GrammarDirectoryScanner()
     {
-        this.scanner = new DirectoryScanner();
-        this.scanner.setFollowSymlinks( true );
         this.includedGrammars = new ArrayList();
     }
 
@@ -86,7 +107,18 @@ class GrammarDirectoryScanner
         {
             throw new IllegalArgumentException( "source directory is not absolute: " + directory );
         }
-        this.scanner.setBasedir( directory );
+        this.sourceDirectory = directory;
+    }
+
+    /**
+     * Sets the build context used to determine the grammar files changed since the last incremental build. In an
+     * incremental build, only the changed grammar files are considered instead of walking the whole source directory.
+     * 
+     * @param context The build context, may be <code>null</code> to always scan the whole source directory.
+     */
+    public void setBuildContext( BuildContext context )
+    {
+        this.buildContext = context;
     }
 
     /**
@@ -107,7 +139,7 @@ class GrammarDirectoryScanner
      */
     public void setIncludes( String[] includes )
     {
-        this.scanner.setIncludes( includes );
+        this.includes = includes;
     }
 
     /**
@@ -117,8 +149,8 @@ class GrammarDirectoryScanner
      */
     public void setExcludes( String[] excludes )
     {
-        this.scanner.setExcludes( excludes );
-        this.scanner.addDefaultExcludes();
+        this.excludes = excludes;
+        this.defaultExcludes = true;
     }
 
     /**
@@ -149,21 +181,43 @@ class GrammarDirectoryScanner
 
     /**
      * Scans the source directory for grammar files that match at least one inclusion pattern but no exclusion pattern,
-     * optionally performing timestamp checking to exclude grammars whose corresponding parser files are up to date.
+     * optionally performing timestamp checking to exclude grammars whose corresponding parser files are up to date. If
+     * a build context has been set, only the grammar files changed since the last incremental build are considered.
      * 
      * @throws IOException If a grammar file could not be analyzed for metadata.
      */
     public void scan()
         throws IOException
     {
+        FlightEvent event = FlightEvent.begin( FlightEvent.GRAMMAR_SCAN );
+
         this.includedGrammars.clear();
-        this.scanner.scan();
 
-        String[] includedFiles = this.scanner.getIncludedFiles();
+        Scanner scanner;
+        if ( this.buildContext != null )
+        {
+            scanner = this.buildContext.newScanner( this.sourceDirectory );
+        }
+        else
+        {
+            DirectoryScanner directoryScanner = new DirectoryScanner();
+            directoryScanner.setFollowSymlinks( true );
+            directoryScanner.setBasedir( this.sourceDirectory );
+            scanner = directoryScanner;
+        }
+        scanner.setIncludes( this.includes );
+        if ( this.defaultExcludes )
+        {
+            scanner.setExcludes( this.excludes );
+            scanner.addDefaultExcludes();
+        }
+        scanner.scan();
+
+        String[] includedFiles = scanner.getIncludedFiles();
         for ( int i = 0; i < includedFiles.length; i++ )
         {
             String includedFile = includedFiles[i];
-            GrammarInfo grammarInfo = new GrammarInfo( this.scanner.getBasedir(), includedFile, this.parserPackage );
+            GrammarInfo grammarInfo = new GrammarInfo( this.sourceDirectory, includedFile, this.parserPackage );
             if ( this.outputDirectory != null )
             {
                 File sourceFile = grammarInfo.getGrammarFile();
@@ -184,6 +238,10 @@ class GrammarDirectoryScanner
                 this.includedGrammars.add( grammarInfo );
             }
         }
+
+        event.set( 0, this.sourceDirectory.getPath() );
+        event.set( 1, this.includedGrammars.size() );
+        event.commit();
     }
 
     /**
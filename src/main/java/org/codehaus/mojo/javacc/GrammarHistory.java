@@ -0,0 +1,250 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.Properties;
+
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * Remembers how long the generation of each grammar file took and how much memory it required during previous builds.
+ * The history is used to estimate the cost of processing a grammar file, such that the most expensive grammar files
+ * can be started first when running in parallel. Entries for deleted grammar files are dropped when saving.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+class GrammarHistory
+{
+
+    /**
+     * The generation time in milliseconds assumed per grammar byte if no history is available at all.
+     */
+    private static final double DEFAULT_MILLIS_PER_BYTE = 0.01;
+
+    /**
+     * The live heap in bytes assumed to be required per grammar byte if no history is available at all.
+     */
+    private static final double DEFAULT_MEMORY_PER_BYTE = 200;
+
+    /**
+     * The file to load and save the history from/to.
+     */
+    private final File file;
+
+    /**
+     * The history entries, keyed by grammar file, each value is of the form "time,memory", guarded by
+     * <code>this</code>.
+     */
+    private final Properties entries = new Properties();
+
+    /**
+     * Creates a new history backed by the specified file. If the file exists but cannot be read, the history starts
+     * empty.
+     * 
+     * @param file The file to load and save the history from/to, must not be <code>null</code>.
+     */
+    public GrammarHistory( File file )
+    {
+        this.file = file;
+        if ( file.isFile() )
+        {
+            InputStream is = null;
+            try
+            {
+                is = new FileInputStream( file );
+                this.entries.load( is );
+            }
+            catch ( IOException e )
+            {
+                this.entries.clear();
+            }
+            finally
+            {
+                IOUtil.close( is );
+            }
+        }
+    }
+
+    /**
+     * Gets the time the last generation of the specified grammar file took.
+     * 
+     * @param grammarFile The grammar file, must not be <code>null</code>.
+     * @return The generation time in milliseconds or <code>-1</code> if unknown.
+     */
+    public synchronized long getTime( File grammarFile )
+    {
+        return getValue( grammarFile, 0 );
+    }
+
+    /**
+     * Gets the memory the last measured generation of the specified grammar file required, i.e. the growth of the live
+     * heap.
+     * 
+     * @param grammarFile The grammar file, must not be <code>null</code>.
+     * @return The required memory in bytes or <code>-1</code> if unknown.
+     */
+    public synchronized long getMemory( File grammarFile )
+    {
+        return getValue( grammarFile, 1 );
+    }
+
+    /**
+     * Records the time and memory the generation of the specified grammar file required. If the memory is unknown, the
+     * memory of the previous generation is kept.
+     * 
+     * @param grammarFile The grammar file, must not be <code>null</code>.
+     * @param time The generation time in milliseconds.
+     * @param memory The required memory in bytes or <code>-1</code> if unknown.
+     */
+    public synchronized void record( File grammarFile, long time, long memory )
+    {
+        if ( memory < 0 )
+        {
+            memory = getValue( grammarFile, 1 );
+        }
+        this.entries.setProperty( grammarFile.getAbsolutePath(), time + "," + memory );
+    }
+
+    /**
+     * Estimates the time the generation of the specified grammar file will take. Grammar files without history are
+     * estimated from their size, using the average processing rate of the grammar files with history.
+     * 
+     * @param grammarFile The grammar file, must not be <code>null</code>.
+     * @return The estimated generation time in milliseconds.
+     */
+    public synchronized long estimateTime( File grammarFile )
+    {
+        return estimate( grammarFile, 0, DEFAULT_MILLIS_PER_BYTE );
+    }
+
+    /**
+     * Estimates the memory the generation of the specified grammar file will require. Grammar files without history
+     * are estimated from their size, using the average memory per byte of the grammar files with history.
+     * 
+     * @param grammarFile The grammar file, must not be <code>null</code>.
+     * @return The estimated memory in bytes.
+     */
+    public synchronized long estimateMemory( File grammarFile )
+    {
+        return estimate( grammarFile, 1, DEFAULT_MEMORY_PER_BYTE );
+    }
+
+    /**
+     * Saves the history, dropping the entries of deleted grammar files.
+     * 
+     * @throws IOException If the file could not be written.
+     */
+    public synchronized void save()
+        throws IOException
+    {
+        for ( Iterator it = this.entries.keySet().iterator(); it.hasNext(); )
+        {
+            if ( !new File( (String) it.next() ).isFile() )
+            {
+                it.remove();
+            }
+        }
+        File parent = this.file.getParentFile();
+        if ( parent != null )
+        {
+            parent.mkdirs();
+        }
+        OutputStream os = new FileOutputStream( this.file );
+        try
+        {
+            this.entries.store( os, "Generation time (ms) and memory (bytes) of the grammar files" );
+        }
+        finally
+        {
+            IOUtil.close( os );
+        }
+    }
+
+    /**
+     * Estimates a component of the history entry for the specified grammar file.
+     * 
+     * @param grammarFile The grammar file, must not be <code>null</code>.
+     * @param index The index of the component, <code>0</code> for the time and <code>1</code> for the memory.
+     * @param defaultPerByte The value per grammar byte to assume if no history is available at all.
+     * @return The recorded value or an estimate based on the size of the grammar file.
+     */
+    private long estimate( File grammarFile, int index, double defaultPerByte )
+    {
+        long value = getValue( grammarFile, index );
+        if ( value >= 0 )
+        {
+            return value;
+        }
+        long totalValue = 0;
+        long totalBytes = 0;
+        for ( Iterator it = this.entries.keySet().iterator(); it.hasNext(); )
+        {
+            File file = new File( (String) it.next() );
+            long fileValue = getValue( file, index );
+            if ( fileValue > 0 && file.isFile() )
+            {
+                totalValue += fileValue;
+                totalBytes += file.length();
+            }
+        }
+        if ( totalValue > 0 && totalBytes > 0 )
+        {
+            return (long) ( grammarFile.length() * ( (double) totalValue / totalBytes ) );
+        }
+        return (long) ( grammarFile.length() * defaultPerByte );
+    }
+
+    /**
+     * Gets a component of the history entry for the specified grammar file.
+     * 
+     * @param grammarFile The grammar file, must not be <code>null</code>.
+     * @param index The index of the component, <code>0</code> for the time and <code>1</code> for the memory.
+     * @return The value of the component or <code>-1</code> if unknown.
+     */
+    private long getValue( File grammarFile, int index )
+    {
+        String entry = this.entries.getProperty( grammarFile.getAbsolutePath() );
+        if ( entry != null )
+        {
+            String[] values = entry.split( "," );
+            if ( values.length > index )
+            {
+                try
+                {
+                    return Long.parseLong( values[index].trim() );
+                }
+                catch ( NumberFormatException e )
+                {
+                    // treat as unknown
+                }
+            }
+        }
+        return -1;
+    }
+
+}
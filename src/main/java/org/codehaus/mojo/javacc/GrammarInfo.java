@@ -113,6 +113,8 @@ class GrammarInfo
             throw new IllegalArgumentException( "input file is not relative to source directory:" + inputFile );
         }
 
+        FlightEvent event = FlightEvent.begin( FlightEvent.GRAMMAR_PARSE );
+
         // NOTE: JavaCC uses the platform default encoding to read files, so must we
         String grammar = FileUtils.fileRead( getGrammarFile() );
 
@@ -146,6 +148,10 @@ class GrammarInfo
         {
             this.parserFile = this.parserName + ".java";
         }
+
+        event.set( 0, getGrammarFile().getPath() );
+        event.set( 1, this.parserName );
+        event.commit();
     }
 
     /**
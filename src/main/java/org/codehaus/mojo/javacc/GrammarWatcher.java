@@ -0,0 +1,332 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Waits for changes to the files in a set of directory trees. On Java 7 and later, the platform's
+ * <code>java.nio.file.WatchService</code> is used (reflectively, since the plugin is compiled for Java 1.4). On older
+ * JVMs, the directories are polled for changes of file timestamps and sizes.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+class GrammarWatcher
+{
+
+    /**
+     * The directories to watch, including their sub directories.
+     */
+    private final File[] directories;
+
+    /**
+     * The interval in milliseconds to poll the directories if no watch service is available.
+     */
+    private final long pollInterval;
+
+    /**
+     * The watch service, <code>null</code> if the JVM does not provide one.
+     */
+    private Object watchService;
+
+    /**
+     * The method <code>File.toPath()</code>.
+     */
+    private Method toPath;
+
+    /**
+     * The method <code>Path.register(WatchService, WatchEvent.Kind[])</code>.
+     */
+    private Method register;
+
+    /**
+     * The method <code>WatchService.poll(long, TimeUnit)</code>.
+     */
+    private Method poll;
+
+    /**
+     * The method <code>WatchService.close()</code>.
+     */
+    private Method closeMethod;
+
+    /**
+     * The method <code>WatchKey.pollEvents()</code>.
+     */
+    private Method pollEvents;
+
+    /**
+     * The method <code>WatchKey.reset()</code>.
+     */
+    private Method reset;
+
+    /**
+     * The event kinds to register for.
+     */
+    private Object kinds;
+
+    /**
+     * The constant <code>TimeUnit.MILLISECONDS</code>.
+     */
+    private Object milliseconds;
+
+    /**
+     * The timestamps and sizes of the watched files, keyed by path, used if no watch service is available.
+     */
+    private Map snapshot;
+
+    /**
+     * Creates a new watcher for the specified directories.
+     * 
+     * @param directories The directories to watch, including their sub directories, must not be <code>null</code>.
+     * @param pollInterval The interval in milliseconds to poll the directories if no watch service is available.
+     */
+    public GrammarWatcher( File[] directories, long pollInterval )
+    {
+        this.directories = directories;
+        this.pollInterval = Math.max( 10, pollInterval );
+        try
+        {
+            Class fileSystemClass = Class.forName( "java.nio.file.FileSystem" );
+            Object fileSystem =
+                Class.forName( "java.nio.file.FileSystems" ).getMethod( "getDefault", null ).invoke( null, null );
+            Class watchServiceClass = Class.forName( "java.nio.file.WatchService" );
+            Class watchKeyClass = Class.forName( "java.nio.file.WatchKey" );
+            Class kindClass = Class.forName( "java.nio.file.WatchEvent$Kind" );
+            Class kindsClass = Class.forName( "java.nio.file.StandardWatchEventKinds" );
+            Class timeUnitClass = Class.forName( "java.util.concurrent.TimeUnit" );
+
+            String[] kindNames = { "ENTRY_CREATE", "ENTRY_MODIFY", "ENTRY_DELETE" };
+            this.kinds = Array.newInstance( kindClass, kindNames.length );
+            for ( int i = 0; i < kindNames.length; i++ )
+            {
+                Array.set( this.kinds, i, kindsClass.getField( kindNames[i] ).get( null ) );
+            }
+            this.milliseconds = timeUnitClass.getField( "MILLISECONDS" ).get( null );
+            this.toPath = File.class.getMethod( "toPath", null );
+            Class[] registerTypes = { watchServiceClass, this.kinds.getClass() };
+            this.register = Class.forName( "java.nio.file.Path" ).getMethod( "register", registerTypes );
+            this.poll = watchServiceClass.getMethod( "poll", new Class[] { Long.TYPE, timeUnitClass } );
+            // the implementation class is not public, so the method must be looked up on the interface
+            this.closeMethod = watchServiceClass.getMethod( "close", null );
+            this.pollEvents = watchKeyClass.getMethod( "pollEvents", null );
+            this.reset = watchKeyClass.getMethod( "reset", null );
+            this.watchService = fileSystemClass.getMethod( "newWatchService", null ).invoke( fileSystem, null );
+            registerAll();
+        }
+        catch ( Exception e )
+        {
+            close();
+            this.watchService = null;
+            this.snapshot = takeSnapshot();
+        }
+    }
+
+    /**
+     * Determines whether this watcher uses the platform's watch service rather than polling.
+     * 
+     * @return <code>true</code> if the platform's watch service is used, <code>false</code> if the directories are
+     *         polled.
+     */
+    public boolean isNative()
+    {
+        return this.watchService != null;
+    }
+
+    /**
+     * Waits for a change to the watched files. All changes that are pending when this method returns are consumed.
+     * 
+     * @param timeout The maximum time in milliseconds to wait, a negative value to wait without timeout.
+     * @return <code>true</code> if a change has been detected, <code>false</code> if the timeout expired.
+     * @throws InterruptedException If the current thread was interrupted while waiting.
+     */
+    public boolean await( long timeout )
+        throws InterruptedException
+    {
+        long deadline = ( timeout < 0 ) ? Long.MAX_VALUE : System.currentTimeMillis() + timeout;
+        if ( this.watchService != null )
+        {
+            try
+            {
+                Object[] args = { new Long( remaining( deadline ) ), this.milliseconds };
+                Object key = this.poll.invoke( this.watchService, args );
+                if ( key == null )
+                {
+                    return false;
+                }
+                args[0] = new Long( 0 );
+                for ( ; key != null; key = this.poll.invoke( this.watchService, args ) )
+                {
+                    this.pollEvents.invoke( key, null );
+                    this.reset.invoke( key, null );
+                }
+                // watch newly created sub directories
+                registerAll();
+                return true;
+            }
+            catch ( InvocationTargetException e )
+            {
+                if ( e.getTargetException() instanceof InterruptedException )
+                {
+                    throw (InterruptedException) e.getTargetException();
+                }
+                throw new IllegalStateException( "Failed to watch directories: " + e.getTargetException() );
+            }
+            catch ( IllegalAccessException e )
+            {
+                throw new IllegalStateException( "Failed to watch directories: " + e );
+            }
+        }
+        while ( true )
+        {
+            Map current = takeSnapshot();
+            if ( !current.equals( this.snapshot ) )
+            {
+                this.snapshot = current;
+                return true;
+            }
+            long remaining = remaining( deadline );
+            if ( remaining <= 0 )
+            {
+                return false;
+            }
+            Thread.sleep( Math.min( remaining, this.pollInterval ) );
+        }
+    }
+
+    /**
+     * Stops watching the directories.
+     */
+    public void close()
+    {
+        if ( this.watchService != null && this.closeMethod != null )
+        {
+            try
+            {
+                this.closeMethod.invoke( this.watchService, null );
+            }
+            catch ( Exception e )
+            {
+                // ignore
+            }
+        }
+    }
+
+    /**
+     * Gets the time remaining until the specified deadline.
+     * 
+     * @param deadline The deadline in milliseconds since the epoch.
+     * @return The remaining time in milliseconds, never negative.
+     */
+    private static long remaining( long deadline )
+    {
+        if ( deadline == Long.MAX_VALUE )
+        {
+            return Long.MAX_VALUE;
+        }
+        return Math.max( 0, deadline - System.currentTimeMillis() );
+    }
+
+    /**
+     * Registers the watched directories and all their sub directories with the watch service. Registering a directory
+     * again has no effect.
+     * 
+     * @throws IllegalAccessException If the watch service could not be accessed.
+     * @throws InvocationTargetException If a directory could not be registered.
+     */
+    private void registerAll()
+        throws IllegalAccessException, InvocationTargetException
+    {
+        for ( int i = 0; i < this.directories.length; i++ )
+        {
+            register( this.directories[i] );
+        }
+    }
+
+    /**
+     * Registers the specified directory and its sub directories with the watch service.
+     * 
+     * @param directory The directory to register, must not be <code>null</code>.
+     * @throws IllegalAccessException If the watch service could not be accessed.
+     * @throws InvocationTargetException If the directory could not be registered.
+     */
+    private void register( File directory )
+        throws IllegalAccessException, InvocationTargetException
+    {
+        File[] files = directory.listFiles();
+        if ( files == null )
+        {
+            return;
+        }
+        Object path = this.toPath.invoke( directory, null );
+        this.register.invoke( path, new Object[] { this.watchService, this.kinds } );
+        for ( int i = 0; i < files.length; i++ )
+        {
+            if ( files[i].isDirectory() )
+            {
+                register( files[i] );
+            }
+        }
+    }
+
+    /**
+     * Records the timestamps and sizes of all files in the watched directories.
+     * 
+     * @return The timestamps and sizes of the files, keyed by path, never <code>null</code>.
+     */
+    private Map takeSnapshot()
+    {
+        Map files = new HashMap();
+        for ( int i = 0; i < this.directories.length; i++ )
+        {
+            takeSnapshot( this.directories[i], files );
+        }
+        return files;
+    }
+
+    /**
+     * Records the timestamps and sizes of all files in the specified directory and its sub directories.
+     * 
+     * @param directory The directory to scan, must not be <code>null</code>.
+     * @param files The map to add the timestamps and sizes to, must not be <code>null</code>.
+     */
+    private void takeSnapshot( File directory, Map files )
+    {
+        File[] children = directory.listFiles();
+        for ( int i = 0; children != null && i < children.length; i++ )
+        {
+            File child = children[i];
+            if ( child.isDirectory() )
+            {
+                takeSnapshot( child, files );
+            }
+            else
+            {
+                files.put( child.getPath(), child.lastModified() + ":" + child.length() );
+            }
+        }
+    }
+
+}
@@ -0,0 +1,123 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+
+/**
+ * Enhances the parser files generated by JavaCC such that the token manager reuses the images of non-literal tokens.
+ * Literal tokens like keywords already share the strings from <code>jjstrLiteralImages</code> but every other token
+ * gets a fresh string, even if the same identifier occurs over and over again in the input. The enhanced token manager
+ * looks up the characters of the current token in a fixed-size, open-addressing cache keyed by the hash code of the
+ * characters and only creates a new string if no equal image is cached. Images longer than the configured maximum
+ * length bypass the cache to keep it from being flushed by long literals or comments.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+class InternTokenImages
+    extends ParserProcessor
+{
+
+    /**
+     * The number of slots in the cache of token images.
+     */
+    private int cacheSize = 4096;
+
+    /**
+     * The maximum length of the token images stored in the cache.
+     */
+    private int maxLength = 64;
+
+    /**
+     * Sets the number of slots in the cache of token images. The value is rounded up to the next power of two.
+     * 
+     * @param value The number of slots in the cache, must be positive.
+     */
+    public void setCacheSize( int value )
+    {
+        if ( value <= 0 )
+        {
+            throw new IllegalArgumentException( "cache size is not positive: " + value );
+        }
+        int size = 1;
+        while ( size < value && size < ( 1 << 30 ) )
+        {
+            size <<= 1;
+        }
+        this.cacheSize = size;
+    }
+
+    /**
+     * Sets the maximum length of the token images stored in the cache.
+     * 
+     * @param value The maximum length of the cached token images, must be positive.
+     */
+    public void setMaxLength( int value )
+    {
+        if ( value <= 0 )
+        {
+            throw new IllegalArgumentException( "maximum length is not positive: " + value );
+        }
+        this.maxLength = value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void execute()
+        throws Exception
+    {
+        File tokenManagerFile = getTokenManagerFile();
+        if ( !tokenManagerFile.isFile() )
+        {
+            getLog().debug( "Skipping token image interning, no token manager generated: " + tokenManagerFile );
+            return;
+        }
+
+        if ( !isCharStreamGenerated() )
+        {
+            getLog().warn( "Skipping token image interning for " + getParserName()
+                               + ", the option userCharStream is not supported" );
+            return;
+        }
+
+        GeneratedSourceFile tokenManager = new GeneratedSourceFile( tokenManagerFile );
+        tokenManager.replace( "curTokenImage = \\(im == null\\) \\? input_stream\\.GetImage\\(\\) : im;",
+                              "curTokenImage = (im == null) ? jjInternImage() : im;" );
+        SourceTemplate internImage = new SourceTemplate( "InternTokenImages-TokenManager.template" );
+        internImage.setStatic( isStatic( tokenManager ) );
+        internImage.setVariable( "cacheSize", Integer.toString( this.cacheSize ) );
+        internImage.setVariable( "maxLength", Integer.toString( this.maxLength ) );
+        tokenManager.insertBefore( "(static\\s+)?protected\\s+Token\\s+jjFillToken\\(\\)", internImage.render() );
+        tokenManager.save();
+    }
+
+    /**
+     * Gets a string representation of this processor. This value is for debugging purposes only.
+     * 
+     * @return A string representation of this processor.
+     */
+    public String toString()
+    {
+        return super.toString() + ", " + this.cacheSize + ", " + this.maxLength;
+    }
+
+}
@@ -20,10 +20,16 @@ package org.codehaus.mojo.javacc;
  */
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 
+import org.codehaus.plexus.util.IOUtil;
 import org.codehaus.plexus.util.StringUtils;
 import org.codehaus.plexus.util.cli.StreamConsumer;
 
@@ -38,6 +44,11 @@ class JJDoc
     extends ToolFacade
 {
 
+    /**
+     * The engine to run JJDoc from a specific JavaCC JAR, <code>null</code> to use the JavaCC version of the plugin.
+     */
+    private JavaCCEngine engine;
+
     /**
      * The input grammar.
      */
@@ -48,6 +59,16 @@ class JJDoc
      */
     private File outputFile;
 
+    /**
+     * The additional grammars to document in the same JVM, each given by a pair of input and output file.
+     */
+    private final List grammars = new ArrayList();
+
+    /**
+     * The exit codes reported by the driver for the jobs of the current run, guarded by <code>this</code>.
+     */
+    private Integer[] exitCodes;
+
     /**
      * The option GRAMMAR_ENCODING.
      */
@@ -73,6 +94,16 @@ class JJDoc
      */
     private Boolean oneTable;
 
+    /**
+     * Sets the engine to run JJDoc from a specific JavaCC JAR.
+     * 
+     * @param value The engine to use, may be <code>null</code> to use the JavaCC version of the plugin.
+     */
+    public void setEngine( JavaCCEngine value )
+    {
+        this.engine = value;
+    }
+
     /**
      * Sets the absolute path to the grammar file to pass into JJDoc for documentation.
      * 
@@ -87,6 +118,14 @@ class JJDoc
         this.inputFile = value;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected File getInputFile()
+    {
+        return this.inputFile;
+    }
+
     /**
      * Sets the absolute path to the output file.
      * 
@@ -101,6 +140,27 @@ class JJDoc
         this.outputFile = value;
     }
 
+    /**
+     * Adds a grammar to document along with the grammar set by {@link #setInputFile(File)}. All grammars are documented
+     * by a single forked JVM using the same options.
+     * 
+     * @param input The absolute path to the grammar file to pass into JJDoc for documentation, must not be
+     *            <code>null</code>.
+     * @param output The absolute path to the HTML/text file to generate, must not be <code>null</code>.
+     */
+    public void addGrammar( File input, File output )
+    {
+        if ( !input.isAbsolute() )
+        {
+            throw new IllegalArgumentException( "path is not absolute: " + input );
+        }
+        if ( !output.isAbsolute() )
+        {
+            throw new IllegalArgumentException( "path is not absolute: " + output );
+        }
+        this.grammars.add( new File[] { input, output } );
+    }
+
     /**
      * Sets the option GRAMMAR_ENCODING.
      * 
@@ -157,33 +217,164 @@ class JJDoc
     protected int execute()
         throws Exception
     {
-        String[] args = generateArguments();
+        List jobs = getJobs();
+        List jobArgs = new ArrayList( jobs.size() );
+        for ( Iterator it = jobs.iterator(); it.hasNext(); )
+        {
+            File[] job = (File[]) it.next();
+            File outputDirectory = ( job[1] != null ) ? job[1].getParentFile() : null;
+            if ( outputDirectory != null && !outputDirectory.exists() )
+            {
+                outputDirectory.mkdirs();
+            }
+            jobArgs.add( generateArguments( job[0], job[1] ) );
+        }
+
+        File jobFile = writeJobFile( jobArgs );
+        try
+        {
+            // fork jjdoc because of calls to System.exit(), the driver runs all grammars in the same JVM
+            ForkedJvm jvm = new ForkedJvm();
+            jvm.setMainClass( JJDocDriver.class );
+            if ( this.engine != null )
+            {
+                jvm.addClassPathEntry( this.engine.getJarFile() );
+            }
+            else
+            {
+                jvm.addClassPathEntry( org.javacc.jjdoc.JJDocMain.class );
+            }
+            jvm.addArgument( jobFile );
+            jvm.setSystemOut( new MojoLogStreamConsumer( false ) );
+            jvm.setSystemErr( new MojoLogStreamConsumer( true ) );
+            if ( getLog().isDebugEnabled() )
+            {
+                getLog().debug( "Forking: " + jvm );
+            }
+            synchronized ( this )
+            {
+                this.exitCodes = new Integer[jobs.size()];
+            }
+            int exitCode = jvm.run();
+            if ( exitCode != 0 )
+            {
+                return exitCode;
+            }
+            return getJobsExitCode( jobs );
+        }
+        finally
+        {
+            if ( !jobFile.delete() )
+            {
+                jobFile.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Gets the grammars to document, each given by a pair of input and output file.
+     * 
+     * @return The list of grammars to document, never <code>null</code>.
+     */
+    private List getJobs()
+    {
+        List jobs = new ArrayList( this.grammars.size() + 1 );
+        if ( this.inputFile != null )
+        {
+            jobs.add( new File[] { this.inputFile, this.outputFile } );
+        }
+        jobs.addAll( this.grammars );
+        return jobs;
+    }
+
+    /**
+     * Writes the job file for the {@link JJDocDriver}.
+     * 
+     * @param jobArgs The command line arguments for each job, must not be <code>null</code>.
+     * @return The temporary job file, never <code>null</code>.
+     * @throws IOException If the job file could not be written.
+     */
+    private File writeJobFile( List jobArgs )
+        throws IOException
+    {
+        File jobFile = File.createTempFile( "jjdoc-", ".jobs" );
+        Writer writer = new OutputStreamWriter( new FileOutputStream( jobFile ), "UTF-8" );
+        try
+        {
+            for ( Iterator it = jobArgs.iterator(); it.hasNext(); )
+            {
+                String[] args = (String[]) it.next();
+                for ( int i = 0; i < args.length; i++ )
+                {
+                    writer.write( args[i] );
+                    writer.write( '\n' );
+                }
+                writer.write( '\n' );
+            }
+        }
+        finally
+        {
+            IOUtil.close( writer );
+        }
+        return jobFile;
+    }
 
-        File outputDirectory = ( this.outputFile != null ) ? this.outputFile.getParentFile() : null;
-        if ( outputDirectory != null && !outputDirectory.exists() )
+    /**
+     * Records the exit code the driver reported for a job.
+     * 
+     * @param job The zero-based index of the job.
+     * @param exitCode The exit code of JJDoc for the job.
+     */
+    synchronized void setExitCode( int job, int exitCode )
+    {
+        if ( this.exitCodes != null && job >= 0 && job < this.exitCodes.length )
         {
-            outputDirectory.mkdirs();
+            this.exitCodes[job] = new Integer( exitCode );
         }
+    }
 
-        // fork jjdoc because of calls to System.exit()
-        ForkedJvm jvm = new ForkedJvm();
-        jvm.setMainClass( org.javacc.jjdoc.JJDocMain.class );
-        jvm.addArguments( args );
-        jvm.setSystemOut( new MojoLogStreamConsumer( false ) );
-        jvm.setSystemErr( new MojoLogStreamConsumer( true ) );
-        if ( getLog().isDebugEnabled() )
+    /**
+     * Gets the overall exit code of the jobs from the last run. Each failed job is logged.
+     * 
+     * @param jobs The jobs of the last run, must not be <code>null</code>.
+     * @return The exit code of the first failed job or zero if all jobs succeeded.
+     */
+    private synchronized int getJobsExitCode( List jobs )
+    {
+        int result = 0;
+        for ( int i = 0; i < this.exitCodes.length; i++ )
         {
-            getLog().debug( "Forking: " + jvm );
+            File input = ( (File[]) jobs.get( i ) )[0];
+            int exitCode;
+            if ( this.exitCodes[i] == null )
+            {
+                getLog().error( "JJDoc did not complete: " + input );
+                exitCode = 1;
+            }
+            else
+            {
+                exitCode = this.exitCodes[i].intValue();
+                if ( exitCode != 0 )
+                {
+                    getLog().error( "JJDoc reported exit code " + exitCode + ": " + input );
+                }
+            }
+            if ( result == 0 )
+            {
+                result = exitCode;
+            }
         }
-        return jvm.run();
+        return result;
     }
 
     /**
      * Assembles the command line arguments for the invocation of JJDoc according to the configuration.
      * 
+     * @param input The grammar file to document, may be <code>null</code>.
+     * @param output The output file to generate, may be <code>null</code>.
      * @return A string array that represents the arguments to use for JJDoc.
      */
-    private String[] generateArguments()
+    private String[] generateArguments( File input, File output )
     {
         List argsList = new ArrayList();
 
@@ -207,9 +398,9 @@ class JJDoc
             argsList.add( "-ONE_TABLE=" + this.oneTable );
         }
 
-        if ( this.outputFile != null )
+        if ( output != null )
         {
-            argsList.add( "-OUTPUT_FILE=" + this.outputFile.getAbsolutePath() );
+            argsList.add( "-OUTPUT_FILE=" + output.getAbsolutePath() );
         }
 
         if ( StringUtils.isNotEmpty( this.cssHref ) )
@@ -217,9 +408,9 @@ class JJDoc
             argsList.add( "-CSS=" + this.cssHref );
         }
 
-        if ( this.inputFile != null )
+        if ( input != null )
         {
-            argsList.add( this.inputFile.getAbsolutePath() );
+            argsList.add( input.getAbsolutePath() );
         }
 
         return (String[]) argsList.toArray( new String[argsList.size()] );
@@ -232,7 +423,18 @@ class JJDoc
      */
     public String toString()
     {
-        return Arrays.asList( generateArguments() ).toString();
+        List jobs = getJobs();
+        if ( jobs.size() <= 1 )
+        {
+            return Arrays.asList( generateArguments( this.inputFile, this.outputFile ) ).toString();
+        }
+        List args = new ArrayList( jobs.size() );
+        for ( Iterator it = jobs.iterator(); it.hasNext(); )
+        {
+            File[] job = (File[]) it.next();
+            args.add( Arrays.asList( generateArguments( job[0], job[1] ) ) );
+        }
+        return args.toString();
     }
 
     /**
@@ -273,6 +475,47 @@ class JJDoc
          * @param line The line to consume.
          */
         public void consumeLine( String line )
+        {
+            if ( line.startsWith( JJDocDriver.PREFIX ) )
+            {
+                String[] tokens = line.substring( JJDocDriver.PREFIX.length() ).split( ":", 3 );
+                if ( tokens.length == 3 )
+                {
+                    try
+                    {
+                        int job = Integer.parseInt( tokens[1] );
+                        if ( JJDocDriver.EXIT.equals( tokens[0] ) )
+                        {
+                            setExitCode( job, Integer.parseInt( tokens[2] ) );
+                            return;
+                        }
+                        else if ( JJDocDriver.OUT.equals( tokens[0] ) )
+                        {
+                            logLine( tokens[2], false );
+                            return;
+                        }
+                        else if ( JJDocDriver.ERR.equals( tokens[0] ) )
+                        {
+                            logLine( tokens[2], true );
+                            return;
+                        }
+                    }
+                    catch ( NumberFormatException e )
+                    {
+                        // not a driver line
+                    }
+                }
+            }
+            logLine( line, this.err );
+        }
+
+        /**
+         * Logs a line of output from JJDoc.
+         * 
+         * @param line The line to log.
+         * @param error If set to <code>true</code>, the line is logged at the error level unless it is a warning.
+         */
+        private void logLine( String line, boolean error )
         {
             if ( line.startsWith( ERROR_PREFIX ) )
             {
@@ -282,7 +525,7 @@ class JJDoc
             {
                 getLog().warn( line.substring( WARN_PREFIX.length() ) );
             }
-            else if ( this.err )
+            else if ( error )
             {
                 getLog().error( line );
             }
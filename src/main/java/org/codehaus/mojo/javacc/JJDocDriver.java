@@ -0,0 +1,379 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.security.Permission;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs JJDoc for a batch of grammars in a single JVM. The driver is the main class of the JVM forked by {@link JJDoc}
+ * and must therefore not depend on anything but the JDK and the JavaCC JAR on the class path.<br/><br/>
+ * The only command line argument is the path to a UTF-8 encoded job file that lists the command line arguments for
+ * JJDoc, one per line, with jobs separated by an empty line. The static state of JJDoc is reset before each job and
+ * calls to <code>System.exit()</code> from JJDoc are intercepted where the JVM supports a security manager. All output
+ * of the driver is written to <code>System.out</code> using the line protocol <code>@jjdoc:out:&lt;job&gt;:text</code>,
+ * <code>@jjdoc:err:&lt;job&gt;:text</code> and <code>@jjdoc:exit:&lt;job&gt;:code</code> where the job index is
+ * zero-based.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+public class JJDocDriver
+{
+
+    /**
+     * The prefix of all lines written by the driver.
+     */
+    static final String PREFIX = "@jjdoc:";
+
+    /**
+     * The kind of line holding standard output of a job.
+     */
+    static final String OUT = "out";
+
+    /**
+     * The kind of line holding error output of a job.
+     */
+    static final String ERR = "err";
+
+    /**
+     * The kind of line holding the exit code of a job.
+     */
+    static final String EXIT = "exit";
+
+    /**
+     * The fields of <code>JJDocGlobals</code> that JJDoc does not reset itself.
+     */
+    private static final String[] GLOBALS = { "generator", "input_file", "output_file" };
+
+    /**
+     * Runs the jobs from the specified job file.
+     * 
+     * @param args The command line arguments, i.e. the path to the job file.
+     * @throws Exception If the job file could not be read or JJDoc could not be loaded.
+     */
+    public static void main( String[] args )
+        throws Exception
+    {
+        List jobs = readJobs( new File( args[0] ) );
+
+        Method mainProgram =
+            Class.forName( "org.javacc.jjdoc.JJDocMain" ).getMethod( "mainProgram", new Class[] { String[].class } );
+        Class globals = Class.forName( "org.javacc.jjdoc.JJDocGlobals" );
+
+        PrintStream out = System.out;
+        PrintStream err = System.err;
+        SecurityManager securityManager = installExitTrap();
+        try
+        {
+            for ( int i = 0; i < jobs.size(); i++ )
+            {
+                String[] jobArgs = (String[]) jobs.get( i );
+                resetGlobals( globals );
+                PrintStream jobOut = new PrintStream( new LineOutputStream( out, PREFIX + OUT + ':' + i + ':' ), true );
+                PrintStream jobErr = new PrintStream( new LineOutputStream( out, PREFIX + ERR + ':' + i + ':' ), true );
+                System.setOut( jobOut );
+                System.setErr( jobErr );
+                int exitCode;
+                try
+                {
+                    Object result = mainProgram.invoke( null, new Object[] { jobArgs } );
+                    exitCode = ( result instanceof Integer ) ? ( (Integer) result ).intValue() : 0;
+                }
+                catch ( InvocationTargetException e )
+                {
+                    Throwable cause = e.getTargetException();
+                    if ( cause instanceof ExitException )
+                    {
+                        exitCode = ( (ExitException) cause ).status;
+                    }
+                    else
+                    {
+                        cause.printStackTrace();
+                        exitCode = 1;
+                    }
+                }
+                finally
+                {
+                    jobOut.close();
+                    jobErr.close();
+                    System.setOut( out );
+                    System.setErr( err );
+                }
+                out.println( PREFIX + EXIT + ':' + i + ':' + exitCode );
+                out.flush();
+            }
+        }
+        finally
+        {
+            if ( securityManager != null )
+            {
+                System.setSecurityManager( null );
+            }
+        }
+        System.exit( 0 );
+    }
+
+    /**
+     * Reads the jobs from the specified job file.
+     * 
+     * @param jobFile The job file to read, must not be <code>null</code>.
+     * @return The list of jobs, each represented by its command line arguments as a string array, never
+     *         <code>null</code>.
+     * @throws IOException If the job file could not be read.
+     */
+    static List readJobs( File jobFile )
+        throws IOException
+    {
+        List jobs = new ArrayList();
+        BufferedReader reader = new BufferedReader( new InputStreamReader( new FileInputStream( jobFile ), "UTF-8" ) );
+        try
+        {
+            List jobArgs = new ArrayList();
+            for ( String line = reader.readLine(); line != null; line = reader.readLine() )
+            {
+                if ( line.length() > 0 )
+                {
+                    jobArgs.add( line );
+                }
+                else if ( !jobArgs.isEmpty() )
+                {
+                    jobs.add( jobArgs.toArray( new String[jobArgs.size()] ) );
+                    jobArgs.clear();
+                }
+            }
+            if ( !jobArgs.isEmpty() )
+            {
+                jobs.add( jobArgs.toArray( new String[jobArgs.size()] ) );
+            }
+        }
+        finally
+        {
+            reader.close();
+        }
+        return jobs;
+    }
+
+    /**
+     * Resets the static fields of JJDoc that survive an invocation of <code>JJDocMain.mainProgram()</code>. Most
+     * notably, the cached output generator would otherwise still write to the output file of the previous job.
+     * 
+     * @param globals The class <code>JJDocGlobals</code>, must not be <code>null</code>.
+     */
+    private static void resetGlobals( Class globals )
+    {
+        for ( int i = 0; i < GLOBALS.length; i++ )
+        {
+            try
+            {
+                Field field = globals.getField( GLOBALS[i] );
+                if ( Modifier.isStatic( field.getModifiers() ) && !field.getType().isPrimitive() )
+                {
+                    field.set( null, null );
+                }
+            }
+            catch ( Exception e )
+            {
+                // not present in this JavaCC version
+            }
+        }
+    }
+
+    /**
+     * Installs a security manager that turns calls to <code>System.exit()</code> into an {@link ExitException}. As of
+     * Java 17, the security manager is deprecated for removal and is not installed. JJDoc's <code>mainProgram()</code>
+     * reports its exit code without calling <code>System.exit()</code> anyway and {@link JJDoc} treats jobs without a
+     * reported exit code as failed.
+     * 
+     * @return The installed security manager or <code>null</code> if none was installed.
+     */
+    private static SecurityManager installExitTrap()
+    {
+        String version = System.getProperty( "java.specification.version", "" );
+        try
+        {
+            int major = Integer.parseInt( version.startsWith( "1." ) ? version.substring( 2 ) : version );
+            if ( major >= 17 )
+            {
+                return null;
+            }
+            SecurityManager securityManager = new ExitTrap();
+            System.setSecurityManager( securityManager );
+            return securityManager;
+        }
+        catch ( RuntimeException e )
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Signals an intercepted call to <code>System.exit()</code>.
+     */
+    private static class ExitException
+        extends SecurityException
+    {
+
+        /**
+         * The serial version UID.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The exit status passed to <code>System.exit()</code>.
+         */
+        final int status;
+
+        /**
+         * Creates a new exception.
+         * 
+         * @param status The exit status passed to <code>System.exit()</code>.
+         */
+        ExitException( int status )
+        {
+            super( "System.exit(" + status + ")" );
+            this.status = status;
+        }
+
+    }
+
+    /**
+     * A security manager that permits everything but exiting the JVM.
+     */
+    private static class ExitTrap
+        extends SecurityManager
+    {
+
+        /**
+         * {@inheritDoc}
+         */
+        public void checkPermission( Permission perm )
+        {
+            // permit
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void checkPermission( Permission perm, Object context )
+        {
+            // permit
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void checkExit( int status )
+        {
+            throw new ExitException( status );
+        }
+
+    }
+
+    /**
+     * Writes each line of the output to a target stream, preceded by a fixed prefix.
+     */
+    private static class LineOutputStream
+        extends OutputStream
+    {
+
+        /**
+         * The stream to write the prefixed lines to.
+         */
+        private final PrintStream target;
+
+        /**
+         * The prefix for each line.
+         */
+        private final String prefix;
+
+        /**
+         * The buffer for the current line.
+         */
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream( 256 );
+
+        /**
+         * Creates a new stream.
+         * 
+         * @param target The stream to write the prefixed lines to, must not be <code>null</code>.
+         * @param prefix The prefix for each line, must not be <code>null</code>.
+         */
+        LineOutputStream( PrintStream target, String prefix )
+        {
+            this.target = target;
+            this.prefix = prefix;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void write( int b )
+        {
+            if ( b == '\n' )
+            {
+                flushLine();
+            }
+            else if ( b != '\r' )
+            {
+                this.line.write( b );
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void close()
+        {
+            if ( this.line.size() > 0 )
+            {
+                flushLine();
+            }
+        }
+
+        /**
+         * Writes the buffered line to the target stream.
+         */
+        private void flushLine()
+        {
+            synchronized ( this.target )
+            {
+                this.target.print( this.prefix );
+                this.target.print( this.line.toString() );
+                this.target.println();
+            }
+            this.line.reset();
+        }
+
+    }
+
+}
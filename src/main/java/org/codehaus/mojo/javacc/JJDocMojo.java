@@ -20,15 +20,22 @@ package org.codehaus.mojo.javacc;
  */
 
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.ResourceBundle;
 import java.util.Set;
 
+import org.apache.maven.artifact.factory.ArtifactFactory;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.artifact.resolver.ArtifactResolver;
 import org.apache.maven.doxia.sink.Sink;
 import org.apache.maven.doxia.siterenderer.Renderer;
+import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.reporting.AbstractMavenReport;
 import org.apache.maven.reporting.MavenReportException;
@@ -42,6 +49,7 @@ import org.apache.maven.reporting.MavenReportException;
  * 
  * @goal jjdoc
  * @execute phase=generate-sources
+ * @threadSafe
  * @since 2.3
  * @author <a href="mailto:pgier@redhat.com">Paul Gier</a>
  * @version $Id$
@@ -64,6 +72,70 @@ public class JJDocMojo
      */
     private MavenProject project;
 
+    /**
+     * The version of JavaCC to run instead of the version the plugin has been built against, e.g. <code>7.0.13</code>.
+     * The JavaCC artifact is resolved like a plugin dependency, i.e. from the local repository if present there, and
+     * JJDoc is then run in a forked JVM with the resolved JAR on its class path. If unset, the JavaCC version of the
+     * plugin is used.
+     * 
+     * @parameter expression="${javaccVersion}"
+     * @since 2.7
+     */
+    private String javaccVersion;
+
+    /**
+     * The group id of the JavaCC artifact to use if <code>javaccVersion</code> is set.
+     * 
+     * @parameter expression="${javaccGroupId}" default-value="net.java.dev.javacc"
+     * @since 2.7
+     */
+    private String javaccGroupId;
+
+    /**
+     * The artifact id of the JavaCC artifact to use if <code>javaccVersion</code> is set.
+     * 
+     * @parameter expression="${javaccArtifactId}" default-value="javacc"
+     * @since 2.7
+     */
+    private String javaccArtifactId;
+
+    /**
+     * The local repository to resolve the JavaCC artifact from.
+     * 
+     * @parameter expression="${localRepository}"
+     * @readonly
+     * @required
+     */
+    private ArtifactRepository localRepository;
+
+    /**
+     * The remote repositories to resolve the JavaCC artifact from if it is not available in the local repository.
+     * 
+     * @parameter expression="${project.pluginArtifactRepositories}"
+     * @readonly
+     */
+    private List remoteRepositories;
+
+    /**
+     * The factory used to create the JavaCC artifact.
+     * 
+     * @component
+     */
+    private ArtifactFactory artifactFactory;
+
+    /**
+     * The resolver used to resolve the JavaCC artifact.
+     * 
+     * @component
+     */
+    private ArtifactResolver artifactResolver;
+
+    /**
+     * The engine to run the JavaCC version selected by <code>javaccVersion</code>, <code>null</code> to use the JavaCC
+     * version of the plugin.
+     */
+    private JavaCCEngine javaccEngine;
+
     /**
      * The site renderer.
      * 
@@ -169,6 +241,25 @@ public class JJDocMojo
      */
     private boolean oneTable;
 
+    /**
+     * The maximum number of JJDoc processes to run concurrently. A value less than one selects the number of available
+     * processors.
+     * 
+     * @parameter expression="${jjdocThreads}" default-value="0"
+     * @since 2.7
+     */
+    private int jjdocThreads;
+
+    /**
+     * The file used to remember the digests of the grammar files and options from the previous report generation.
+     * Grammar files whose digest did not change are not documented again if their output file still exists.
+     * 
+     * @parameter default-value="${project.build.directory}/jjdoc-digests.properties"
+     * @readonly
+     * @since 2.7
+     */
+    private File digestFile;
+
     /**
      * Get the maven project.
      * 
@@ -308,7 +399,23 @@ public class JJDocMojo
 
         createReportHeader( getBundle( locale ), sink );
 
+        try
+        {
+            this.javaccEngine =
+                JavaCCEngine.getInstance( this.javaccGroupId, this.javaccArtifactId, this.javaccVersion,
+                                          this.artifactFactory, this.artifactResolver, this.localRepository,
+                                          this.remoteRepositories );
+        }
+        catch ( MojoExecutionException e )
+        {
+            throw new MavenReportException( e.getMessage(), e );
+        }
+
+        GrammarDigests digests = new GrammarDigests( this.digestFile );
+        List staleGrammars = new ArrayList();
+
         File[] sourceDirs = getSourceDirectories();
+        GrammarInfo[][] grammarInfosPerDir = new GrammarInfo[sourceDirs.length][];
         for ( int j = 0; j < sourceDirs.length; j++ )
         {
             File sourceDir = sourceDirs[j];
@@ -321,39 +428,116 @@ public class JJDocMojo
             else
             {
                 Arrays.sort( grammarInfos, GrammarInfoComparator.getInstance() );
+                grammarInfosPerDir[j] = grammarInfos;
                 for ( int i = 0; i < grammarInfos.length; i++ )
                 {
                     GrammarInfo grammarInfo = grammarInfos[i];
                     File grammarFile = grammarInfo.getGrammarFile();
-
-                    String relativeOutputFileName = grammarInfo.getRelativeGrammarFile();
-                    relativeOutputFileName =
-                        relativeOutputFileName.replaceAll( "(?i)\\.(jj|jjt|jtb)$", getOutputFileExtension() );
-
-                    File jjdocOutputFile = new File( getJJDocOutputDirectory(), relativeOutputFileName );
-
-                    JJDoc jjdoc = newJJDoc();
-                    jjdoc.setInputFile( grammarFile );
-                    jjdoc.setOutputFile( jjdocOutputFile );
+                    File jjdocOutputFile =
+                        new File( getJJDocOutputDirectory(), getRelativeOutputFileName( grammarInfo ) );
+                    String digest;
                     try
                     {
-                        jjdoc.run();
+                        digest = GrammarDigests.digest( grammarFile, getOptionsKey() );
                     }
-                    catch ( Exception e )
+                    catch ( IOException e )
                     {
-                        throw new MavenReportException( "Failed to create BNF documentation: " + grammarFile, e );
+                        throw new MavenReportException( "Failed to read grammar file: " + grammarFile, e );
+                    }
+                    if ( digests.isUpToDate( jjdocOutputFile, digest ) )
+                    {
+                        getLog().debug( "Skipping up-to-date BNF documentation: " + jjdocOutputFile );
+                    }
+                    else
+                    {
+                        staleGrammars.add( new Object[] { grammarFile, jjdocOutputFile, digest } );
                     }
-
-                    createReportLink( sink, sourceDir, grammarFile, relativeOutputFileName );
                 }
             }
         }
 
+        /*
+         * NOTE: Each batch of grammars is documented by a single forked JVM, so the number of batches is the number of
+         * concurrently running JVMs. The round-robin distribution of the sorted grammars keeps the batches balanced.
+         */
+        WorkerPool pool = new WorkerPool( this.jjdocThreads, "jjdoc" );
+        int batchCount = Math.min( pool.getMaxThreads(), staleGrammars.size() );
+        JJDocJob[] batches = new JJDocJob[batchCount];
+        for ( int i = 0; i < batchCount; i++ )
+        {
+            batches[i] = new JJDocJob( digests );
+        }
+        for ( int i = 0; i < staleGrammars.size(); i++ )
+        {
+            Object[] grammar = (Object[]) staleGrammars.get( i );
+            batches[i % batchCount].addGrammar( (File) grammar[0], (File) grammar[1], (String) grammar[2] );
+        }
+
+        try
+        {
+            for ( int i = 0; i < batchCount; i++ )
+            {
+                pool.submit( batches[i] );
+            }
+            pool.await();
+        }
+        catch ( MavenReportException e )
+        {
+            throw e;
+        }
+        catch ( Exception e )
+        {
+            throw new MavenReportException( "Failed to create BNF documentation", e );
+        }
+
+        try
+        {
+            digests.save();
+        }
+        catch ( IOException e )
+        {
+            getLog().warn( "Failed to save grammar digests: " + this.digestFile, e );
+        }
+
+        for ( int j = 0; j < sourceDirs.length; j++ )
+        {
+            GrammarInfo[] grammarInfos = grammarInfosPerDir[j];
+            for ( int i = 0; grammarInfos != null && i < grammarInfos.length; i++ )
+            {
+                GrammarInfo grammarInfo = grammarInfos[i];
+                createReportLink( sink, sourceDirs[j], grammarInfo.getGrammarFile(),
+                                  getRelativeOutputFileName( grammarInfo ) );
+            }
+        }
+
         createReportFooter( sink );
         sink.flush();
         sink.close();
     }
 
+    /**
+     * Gets the path to the JJDoc output file for the specified grammar, relative to the JJDoc output directory.
+     * 
+     * @param grammarInfo The grammar to get the output file for, must not be <code>null</code>.
+     * @return The relative path to the JJDoc output file, never <code>null</code>.
+     */
+    private String getRelativeOutputFileName( GrammarInfo grammarInfo )
+    {
+        String relativeOutputFileName = grammarInfo.getRelativeGrammarFile();
+        return relativeOutputFileName.replaceAll( "(?i)\\.(jj|jjt|jtb)$", getOutputFileExtension() );
+    }
+
+    /**
+     * Gets a string representation of the options that affect the output of JJDoc.
+     * 
+     * @return The string representation of the JJDoc options, never <code>null</code>.
+     */
+    private String getOptionsKey()
+    {
+        return "text=" + this.text + ",bnf=" + this.bnf + ",oneTable=" + this.oneTable + ",cssHref=" + this.cssHref
+            + ",grammarEncoding=" + this.grammarEncoding + ",javacc=" + this.javaccEngine;
+    }
+
     /**
      * The JJDoc output file will have a <code>.html</code> or <code>.txt</code> extension depending on the value of
      * the parameters {@link #text} and {@link #bnf}.
@@ -454,6 +638,7 @@ public class JJDocMojo
     {
         JJDoc jjdoc = new JJDoc();
         jjdoc.setLog( getLog() );
+        jjdoc.setEngine( this.javaccEngine );
         jjdoc.setGrammarEncoding( this.grammarEncoding );
         jjdoc.setCssHref( this.cssHref );
         jjdoc.setText( this.text );
@@ -510,6 +695,84 @@ public class JJDocMojo
         return ResourceBundle.getBundle( "jjdoc-report", locale, getClass().getClassLoader() );
     }
 
+    /**
+     * Documents a batch of grammar files using a single forked JVM.
+     */
+    private class JJDocJob
+        implements WorkerPool.Job
+    {
+
+        /**
+         * The digests of the report generation.
+         */
+        private final GrammarDigests digests;
+
+        /**
+         * The grammar files to document.
+         */
+        private final List grammarFiles = new ArrayList();
+
+        /**
+         * The output files for the documentation, parallel to {@link #grammarFiles}.
+         */
+        private final List outputFiles = new ArrayList();
+
+        /**
+         * The digests of the grammar files and options, parallel to {@link #grammarFiles}.
+         */
+        private final List grammarDigests = new ArrayList();
+
+        /**
+         * Creates a new job.
+         * 
+         * @param digests The digests of the report generation, must not be <code>null</code>.
+         */
+        public JJDocJob( GrammarDigests digests )
+        {
+            this.digests = digests;
+        }
+
+        /**
+         * Adds a grammar file to this batch.
+         * 
+         * @param grammarFile The grammar file to document, must not be <code>null</code>.
+         * @param outputFile The output file for the documentation, must not be <code>null</code>.
+         * @param digest The digest of the grammar file and options, must not be <code>null</code>.
+         */
+        public void addGrammar( File grammarFile, File outputFile, String digest )
+        {
+            this.grammarFiles.add( grammarFile );
+            this.outputFiles.add( outputFile );
+            this.grammarDigests.add( digest );
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void run()
+            throws MavenReportException
+        {
+            JJDoc jjdoc = newJJDoc();
+            for ( int i = 0; i < this.grammarFiles.size(); i++ )
+            {
+                jjdoc.addGrammar( (File) this.grammarFiles.get( i ), (File) this.outputFiles.get( i ) );
+            }
+            try
+            {
+                jjdoc.run();
+            }
+            catch ( Exception e )
+            {
+                throw new MavenReportException( "Failed to create BNF documentation: " + this.grammarFiles, e );
+            }
+            for ( int i = 0; i < this.grammarFiles.size(); i++ )
+            {
+                this.digests.setDigest( (File) this.outputFiles.get( i ), (String) this.grammarDigests.get( i ) );
+            }
+        }
+
+    }
+
     /**
      * Compares grammar infos using their relative grammar file paths as the sort key.
      */
@@ -38,6 +38,11 @@ class JJTree
     extends ToolFacade
 {
 
+    /**
+     * The engine to run JJTree from a specific JavaCC JAR, <code>null</code> to use the JavaCC version of the plugin.
+     */
+    private JavaCCEngine engine;
+
     /**
      * The input grammar.
      */
@@ -133,6 +138,16 @@ class JJTree
      */
     private String visitorException;
 
+    /**
+     * Sets the engine to run JJTree from a specific JavaCC JAR.
+     * 
+     * @param value The engine to use, may be <code>null</code> to use the JavaCC version of the plugin.
+     */
+    public void setEngine( JavaCCEngine value )
+    {
+        this.engine = value;
+    }
+
     /**
      * Sets the absolute path to the grammar file to pass into JJTree for preprocessing.
      * 
@@ -147,6 +162,14 @@ class JJTree
         this.inputFile = value;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected File getInputFile()
+    {
+        return this.inputFile;
+    }
+
     /**
      * Sets the absolute path to the output directory.
      * 
@@ -363,8 +386,16 @@ class JJTree
             this.outputDirectory.mkdirs();
         }
 
-        org.javacc.jjtree.JJTree jjtree = new org.javacc.jjtree.JJTree();
-        return jjtree.main( args );
+        JavaCCEngine engine = ( this.engine != null ) ? this.engine : JavaCCEngine.getDefault();
+        if ( engine != null )
+        {
+            return engine.runJJTree( args );
+        }
+        synchronized ( JavaCCEngine.PLUGIN_LOCK )
+        {
+            org.javacc.jjtree.JJTree jjtree = new org.javacc.jjtree.JJTree();
+            return jjtree.main( args );
+        }
     }
 
     /**
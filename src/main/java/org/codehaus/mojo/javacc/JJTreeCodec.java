@@ -0,0 +1,196 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Generates a compact binary codec for the trees built by a JJTree parser. The codec class
+ * <code><i>ParserName</i>TreeCodec</code> is placed next to the node files and writes a tree in pre-order as
+ * varint-encoded node ids and child counts. If JJTree tracks the tokens of the nodes, the token chain of the tree is
+ * written once with interned images and delta-encoded positions and each node refers to its first and last token by
+ * their index in this chain. The node types are taken from the file <code><i>ParserName</i>TreeConstants.java</code>
+ * generated by JJTree.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+class JJTreeCodec
+    extends NodeProcessor
+{
+
+    /**
+     * The simple name of the generated parser.
+     */
+    private String parserName;
+
+    /**
+     * The flag whether JJTree generates a separate class for each node type.
+     */
+    private boolean multi;
+
+    /**
+     * The prefix of the node classes generated by JJTree.
+     */
+    private String nodePrefix;
+
+    /**
+     * Sets the simple name of the generated parser.
+     * 
+     * @param value The simple name of the generated parser, e.g. "MyParser".
+     */
+    public void setParserName( String value )
+    {
+        this.parserName = value;
+    }
+
+    /**
+     * Sets the flag whether JJTree generates a separate class for each node type.
+     * 
+     * @param value The value of the option MULTI, may be <code>null</code>.
+     */
+    public void setMulti( Boolean value )
+    {
+        this.multi = Boolean.TRUE.equals( value );
+    }
+
+    /**
+     * Sets the prefix of the node classes generated by JJTree.
+     * 
+     * @param value The value of the option NODE_PREFIX, may be <code>null</code> to use "AST".
+     */
+    public void setNodePrefix( String value )
+    {
+        this.nodePrefix = value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void execute()
+        throws Exception
+    {
+        String constantsClass = this.parserName + "TreeConstants";
+        File constantsFile = getNodeFile( constantsClass + ".java" );
+        if ( !constantsFile.isFile() )
+        {
+            getLog().debug( "Skipping tree codec, no tree constants generated: " + constantsFile );
+            return;
+        }
+        File simpleNodeFile = getNodeFile( "SimpleNode.java" );
+        if ( !simpleNodeFile.isFile() )
+        {
+            getLog().warn( "Skipping tree codec, no SimpleNode generated: " + simpleNodeFile );
+            return;
+        }
+        GeneratedSourceFile constants = new GeneratedSourceFile( constantsFile );
+        GeneratedSourceFile simpleNode = new GeneratedSourceFile( simpleNodeFile );
+
+        String nodeNames = constants.find( "jjtNodeName\\s*=\\s*\\{([^}]*)\\}", 1 );
+        if ( nodeNames == null )
+        {
+            throw new IllegalStateException( "Unexpected source code in " + constantsFile + ", no node names" );
+        }
+        List names = new ArrayList();
+        Matcher matcher = Pattern.compile( "\"(\\w+)\"" ).matcher( nodeNames );
+        while ( matcher.find() )
+        {
+            names.add( matcher.group( 1 ) );
+        }
+
+        StringBuffer createCases = new StringBuffer( 2048 );
+        Pattern pattern = Pattern.compile( "public\\s+int\\s+(JJT\\w+)\\s*=\\s*(\\d+)\\s*;" );
+        matcher = pattern.matcher( constants.getContents() );
+        while ( matcher.find() )
+        {
+            int id = Integer.parseInt( matcher.group( 2 ) );
+            if ( id >= names.size() )
+            {
+                throw new IllegalStateException( "Unexpected source code in " + constantsFile + ", no node name for "
+                    + matcher.group( 1 ) );
+            }
+            String name = (String) names.get( id );
+            if ( "void".equals( name ) )
+            {
+                // JJTree always registers the name of void nodes but never creates such nodes
+                continue;
+            }
+            String type = this.multi ? getNodePrefix() + name : "SimpleNode";
+            createCases.append( "      case " ).append( matcher.group( 1 ) ).append( ":\n" );
+            createCases.append( "        return new " ).append( type ).append( "(id);\n" );
+        }
+
+        StringBuffer imports = new StringBuffer( 256 );
+        matcher = Pattern.compile( "import\\s+[\\w.*]+\\s*;" ).matcher( simpleNode.getContents() );
+        while ( matcher.find() )
+        {
+            imports.append( matcher.group() ).append( '\n' );
+        }
+
+        String tokenType = simpleNode.find( "public\\s+([\\w.]+)\\s+jjtGetFirstToken\\(\\)", 1 );
+        SourceTemplate tokenMethods;
+        if ( tokenType != null )
+        {
+            tokenMethods = new SourceTemplate( "JJTreeCodec-Tokens.template" );
+            tokenMethods.setVariable( "tokenType", tokenType );
+        }
+        else
+        {
+            tokenMethods = new SourceTemplate( "JJTreeCodec-NoTokens.template" );
+        }
+
+        String codecClass = this.parserName + "TreeCodec";
+        SourceTemplate codec = new SourceTemplate( "JJTreeCodec.template" );
+        codec.setPackage( constants.find( "package\\s+([\\w.]+)\\s*;", 1 ) );
+        codec.setVariable( "imports", imports.toString() );
+        codec.setVariable( "parserName", this.parserName );
+        codec.setVariable( "codecClass", codecClass );
+        codec.setVariable( "constantsClass", constantsClass );
+        codec.setVariable( "fingerprint", Integer.toString( names.hashCode() ) );
+        codec.setVariable( "tokenMethods", tokenMethods.render() );
+        codec.setVariable( "createCases", createCases.toString() );
+        codec.write( getNodeFile( codecClass + ".java" ) );
+    }
+
+    /**
+     * Gets the prefix of the node classes generated by JJTree.
+     * 
+     * @return The prefix of the node classes, never <code>null</code>.
+     */
+    private String getNodePrefix()
+    {
+        return ( this.nodePrefix != null ) ? this.nodePrefix : "AST";
+    }
+
+    /**
+     * Gets a string representation of this processor. This value is for debugging purposes only.
+     * 
+     * @return A string representation of this processor.
+     */
+    public String toString()
+    {
+        return super.toString() + ", " + this.parserName + ", " + this.multi + ", " + getNodePrefix();
+    }
+
+}
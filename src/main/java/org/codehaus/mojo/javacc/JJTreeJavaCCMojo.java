@@ -30,6 +30,7 @@ import org.apache.maven.plugin.MojoFailureException;
  * 
  * @goal jjtree-javacc
  * @phase generate-sources
+ * @threadSafe
  * @since 2.4
  * @author Benjamin Bentmann
  * @version $Id$
@@ -160,6 +161,56 @@ public class JJTreeJavaCCMojo
      */
     private String visitorException;
 
+    /**
+     * A flag whether the generated class <code>SimpleNode</code> should grow its array of child nodes geometrically
+     * and trim it to the final size in <code>jjtClose()</code> instead of reallocating the array for every added child.
+     * This option only has an effect if JJTree generates the node files, i.e. if <code>buildNodeFiles</code> is not
+     * set to <code>false</code>. Default value is <code>false</code>.
+     * 
+     * @parameter expression="${amortizedNodeChildren}" default-value="false"
+     * @since 2.7
+     */
+    private boolean amortizedNodeChildren;
+
+    /**
+     * A flag whether to generate a node factory that allocates the tree nodes from reusable slabs and stores the
+     * indices of the child nodes in an array shared by all nodes. The factory class
+     * <code><i>ParserName</i>NodeArena</code> is generated into the package of the node files and passed to JJTree via
+     * the option NODE_FACTORY, its static method <code>reset()</code> recycles the nodes created by the current thread
+     * once the tree of the previous document is no longer used. This option cannot be combined with
+     * <code>nodeFactory</code>, <code>multi</code>, <code>nodeClass</code> or <code>amortizedNodeChildren</code> since
+     * the recycled nodes must be instances of <code>SimpleNode</code> whose state the factory knows how to reset.
+     * Default value is <code>false</code>.
+     * 
+     * @parameter expression="${nodeArena}" default-value="false"
+     * @since 2.7
+     */
+    private boolean nodeArena;
+
+    /**
+     * A flag whether to generate the class <code><i>ParserName</i>TreeWalker</code> next to the node files. The
+     * walker traverses the tree in pre-order and post-order using an explicit stack instead of recursion and dispatches
+     * to the enter and leave methods of the node types via a switch on the node id, which avoids stack overflows on
+     * deeply nested input. Default value is <code>false</code>.
+     * 
+     * @parameter expression="${treeWalker}" default-value="false"
+     * @since 2.7
+     */
+    private boolean treeWalker;
+
+    /**
+     * A flag whether to generate the class <code><i>ParserName</i>TreeCodec</code> next to the node files. The codec
+     * writes and reads trees in a compact binary format of varint-encoded node ids instead of Java serialization. If
+     * the option <code>trackTokens</code> is enabled, the tokens of the tree are written once with interned images and
+     * delta-encoded positions and the nodes refer to their first and last token by index. This allows to cache parsed
+     * trees and to read them back, e.g. from a memory-mapped file, without parsing the input again. Default value is
+     * <code>false</code>.
+     * 
+     * @parameter expression="${treeCodec}" default-value="false"
+     * @since 2.7
+     */
+    private boolean treeCodec;
+
     /**
      * The directory where the decorated JavaCC grammar files (<code>*.jjt</code>) are located. It will be
      * recursively scanned for input files to pass to JJTree. The parameters <code>includes</code> and
@@ -298,36 +349,69 @@ public class JJTreeJavaCCMojo
         String nodePackageName = grammarInfo.resolvePackageName( this.nodePackage );
 
         // generate final grammar file
+        JJTreeNodeEnhancer nodeEnhancer = newNodeEnhancer();
+        NodeArena nodeArena = nodeEnhancer.newNodeArena( grammarInfo, nodePackageName );
         JJTree jjtree = newJJTree();
         jjtree.setInputFile( jjtFile );
         jjtree.setOutputDirectory( jjDirectory );
         jjtree.setNodePackage( nodePackageName );
+        if ( nodeArena != null )
+        {
+            jjtree.setNodeFactory( nodeArena.getNodeFactory() );
+        }
         jjtree.run();
+        nodeEnhancer.enhanceNodes( grammarInfo, jjDirectory, nodeArena );
 
         // generate parser files
         JavaCC javacc = newJavaCC();
         javacc.setInputFile( jjtree.getOutputFile() );
         javacc.setOutputDirectory( parserDirectory );
         javacc.run();
+        enhanceParser( grammarInfo, jjtree.getOutputFile(), parserDirectory );
 
         // copy output from JJTree
         copyGrammarOutput( getInterimDirectory(), ( nodePackageName != null ) ? nodePackageName
-                        : grammarInfo.getParserPackage(), jjDirectory, grammarInfo.getParserName() + "TreeConstants*" );
+                        : grammarInfo.getParserPackage(), jjDirectory, grammarInfo.getParserName() + "Tree*",
+                           grammarInfo.getGrammarFile() );
 
         // copy parser files from JavaCC
         copyGrammarOutput( getOutputDirectory(), grammarInfo.getParserPackage(), parserDirectory,
-                           grammarInfo.getParserName() + "*" );
+                           grammarInfo.getParserName() + "*", grammarInfo.getGrammarFile() );
 
         // copy source files which are next to grammar unless the grammar resides in an ordinary source root
         // (legacy support for custom sources)
         if ( !isSourceRoot( grammarInfo.getSourceDirectory() ) )
         {
-            copyGrammarOutput( getOutputDirectory(), grammarInfo.getParserPackage(), jjtDirectory, "*" );
+            copyGrammarOutput( getOutputDirectory(), grammarInfo.getParserPackage(), jjtDirectory, "*",
+                               grammarInfo.getGrammarFile() );
         }
 
         deleteTempDirectory( tempDirectory );
     }
 
+    /**
+     * Creates a new enhancer to run the post-processors enabled by the mojo parameters on the node files generated by
+     * JJTree.
+     * 
+     * @return The enhancer for the node files, never <code>null</code>.
+     */
+    private JJTreeNodeEnhancer newNodeEnhancer()
+    {
+        JJTreeNodeEnhancer enhancer = new JJTreeNodeEnhancer();
+        enhancer.setLog( getLog() );
+        enhancer.setMulti( this.multi );
+        enhancer.setNodeClass( this.nodeClass );
+        enhancer.setNodeFactory( this.nodeFactory );
+        enhancer.setNodePrefix( this.nodePrefix );
+        enhancer.setNodeUsesParser( this.nodeUsesParser );
+        enhancer.setTrackTokens( this.trackTokens );
+        enhancer.setAmortizedNodeChildren( this.amortizedNodeChildren );
+        enhancer.setNodeArena( this.nodeArena );
+        enhancer.setTreeWalker( this.treeWalker );
+        enhancer.setTreeCodec( this.treeCodec );
+        return enhancer;
+    }
+
     /**
      * Creates a new facade to invoke JJTree. Most options for the invocation are derived from the current values of the
      * corresponding mojo parameters. The caller is responsible to set the input file, output directory and package on
@@ -339,6 +423,7 @@ public class JJTreeJavaCCMojo
     {
         JJTree jjtree = new JJTree();
         jjtree.setLog( getLog() );
+        jjtree.setEngine( getJavaCCEngine() );
         jjtree.setGrammarEncoding( getGrammarEncoding() );
         jjtree.setJdkVersion( getJdkVersion() );
         jjtree.setStatic( getIsStatic() );
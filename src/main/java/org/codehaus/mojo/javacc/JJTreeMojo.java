@@ -31,6 +31,7 @@ import org.apache.maven.plugin.MojoFailureException;
  * 
  * @goal jjtree
  * @phase generate-sources
+ * @threadSafe
  * @since 2.0
  * @deprecated As of version 2.4, use the <code>jjtree-javacc</code> goal instead.
  * @author jesse <jesse.mcconnell@gmail.com>
@@ -40,6 +41,11 @@ public class JJTreeMojo
     extends AbstractPreprocessorMojo
 {
 
+    /**
+     * The engine to run the JavaCC version selected by <code>javaccVersion</code>, lazily resolved.
+     */
+    private JavaCCEngine javaccEngine;
+
     /**
      * The Java version for which to generate source code. Default value is <code>1.4</code>.
      * 
@@ -178,6 +184,56 @@ public class JJTreeMojo
      */
     private String visitorException;
 
+    /**
+     * A flag whether the generated class <code>SimpleNode</code> should grow its array of child nodes geometrically
+     * and trim it to the final size in <code>jjtClose()</code> instead of reallocating the array for every added child.
+     * This option only has an effect if JJTree generates the node files, i.e. if <code>buildNodeFiles</code> is not
+     * set to <code>false</code>. Default value is <code>false</code>.
+     * 
+     * @parameter expression="${amortizedNodeChildren}" default-value="false"
+     * @since 2.7
+     */
+    private boolean amortizedNodeChildren;
+
+    /**
+     * A flag whether to generate a node factory that allocates the tree nodes from reusable slabs and stores the
+     * indices of the child nodes in an array shared by all nodes. The factory class
+     * <code><i>ParserName</i>NodeArena</code> is generated into the package of the node files and passed to JJTree via
+     * the option NODE_FACTORY, its static method <code>reset()</code> recycles the nodes created by the current thread
+     * once the tree of the previous document is no longer used. This option cannot be combined with
+     * <code>nodeFactory</code>, <code>multi</code>, <code>nodeClass</code> or <code>amortizedNodeChildren</code> since
+     * the recycled nodes must be instances of <code>SimpleNode</code> whose state the factory knows how to reset.
+     * Default value is <code>false</code>.
+     * 
+     * @parameter expression="${nodeArena}" default-value="false"
+     * @since 2.7
+     */
+    private boolean nodeArena;
+
+    /**
+     * A flag whether to generate the class <code><i>ParserName</i>TreeWalker</code> next to the node files. The
+     * walker traverses the tree in pre-order and post-order using an explicit stack instead of recursion and dispatches
+     * to the enter and leave methods of the node types via a switch on the node id, which avoids stack overflows on
+     * deeply nested input. Default value is <code>false</code>.
+     * 
+     * @parameter expression="${treeWalker}" default-value="false"
+     * @since 2.7
+     */
+    private boolean treeWalker;
+
+    /**
+     * A flag whether to generate the class <code><i>ParserName</i>TreeCodec</code> next to the node files. The codec
+     * writes and reads trees in a compact binary format of varint-encoded node ids instead of Java serialization. If
+     * the option <code>trackTokens</code> is enabled, the tokens of the tree are written once with interned images and
+     * delta-encoded positions and the nodes refer to their first and last token by index. This allows to cache parsed
+     * trees and to read them back, e.g. from a memory-mapped file, without parsing the input again. Default value is
+     * <code>false</code>.
+     * 
+     * @parameter expression="${treeCodec}" default-value="false"
+     * @since 2.7
+     */
+    private boolean treeCodec;
+
     /**
      * Directory where the input JJTree files (<code>*.jjt</code>) are located.
      * 
@@ -300,16 +356,63 @@ public class JJTreeMojo
         nodeDirectory = new File( getOutputDirectory(), nodeDirectory.getPath() );
 
         // generate final grammar file and node files
+        JJTreeNodeEnhancer nodeEnhancer = newNodeEnhancer();
+        NodeArena nodeArena = nodeEnhancer.newNodeArena( grammarInfo, nodePackageName );
         JJTree jjtree = newJJTree();
+        jjtree.setEngine( getJavaCCEngine() );
         jjtree.setInputFile( jjtFile );
         jjtree.setOutputDirectory( nodeDirectory );
         jjtree.setNodePackage( nodePackageName );
+        if ( nodeArena != null )
+        {
+            jjtree.setNodeFactory( nodeArena.getNodeFactory() );
+        }
         jjtree.run();
+        nodeEnhancer.enhanceNodes( grammarInfo, nodeDirectory, nodeArena );
 
         // create timestamp file
         createTimestamp( grammarInfo );
     }
 
+    /**
+     * Creates a new enhancer to run the post-processors enabled by the mojo parameters on the node files generated by
+     * JJTree.
+     * 
+     * @return The enhancer for the node files, never <code>null</code>.
+     */
+    private JJTreeNodeEnhancer newNodeEnhancer()
+    {
+        JJTreeNodeEnhancer enhancer = new JJTreeNodeEnhancer();
+        enhancer.setLog( getLog() );
+        enhancer.setMulti( this.multi );
+        enhancer.setNodeClass( this.nodeClass );
+        enhancer.setNodeFactory( this.nodeFactory );
+        enhancer.setNodePrefix( this.nodePrefix );
+        enhancer.setNodeUsesParser( this.nodeUsesParser );
+        enhancer.setTrackTokens( this.trackTokens );
+        enhancer.setAmortizedNodeChildren( this.amortizedNodeChildren );
+        enhancer.setNodeArena( this.nodeArena );
+        enhancer.setTreeWalker( this.treeWalker );
+        enhancer.setTreeCodec( this.treeCodec );
+        return enhancer;
+    }
+
+    /**
+     * Gets the engine to run the JavaCC version selected by the mojo parameter <code>javaccVersion</code>.
+     * 
+     * @return The engine to pass to the tool facades or <code>null</code> to use the JavaCC version of the plugin.
+     * @throws MojoExecutionException If the JavaCC artifact could not be resolved.
+     */
+    private JavaCCEngine getJavaCCEngine()
+        throws MojoExecutionException
+    {
+        if ( this.javaccEngine == null )
+        {
+            this.javaccEngine = resolveJavaCCEngine();
+        }
+        return this.javaccEngine;
+    }
+
     /**
      * Creates a new facade to invoke JJTree. Most options for the invocation are derived from the current values of the
      * corresponding mojo parameters. The caller is responsible to set the input file, output directory and package on
@@ -0,0 +1,313 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+
+/**
+ * Runs the post-processors enabled by the mojo parameters on the node files generated by JJTree. This is shared by the
+ * goals <code>jjtree</code> and <code>jjtree-javacc</code>, whose callers copy the relevant parameters into the
+ * enhancer before processing a grammar.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+class JJTreeNodeEnhancer
+{
+
+    /**
+     * The logger used to output diagnostic messages.
+     */
+    private Log log;
+
+    /**
+     * The value of the option MULTI, may be <code>null</code>.
+     */
+    private Boolean multi;
+
+    /**
+     * The value of the option NODE_CLASS, may be <code>null</code>.
+     */
+    private String nodeClass;
+
+    /**
+     * The value of the option NODE_FACTORY, may be <code>null</code>.
+     */
+    private String nodeFactory;
+
+    /**
+     * The value of the option NODE_PREFIX, may be <code>null</code>.
+     */
+    private String nodePrefix;
+
+    /**
+     * The value of the option NODE_USES_PARSER, may be <code>null</code>.
+     */
+    private Boolean nodeUsesParser;
+
+    /**
+     * The value of the option TRACK_TOKENS, may be <code>null</code>.
+     */
+    private Boolean trackTokens;
+
+    /**
+     * The flag whether the node children are stored in an amortized growable array.
+     */
+    private boolean amortizedNodeChildren;
+
+    /**
+     * The flag whether an arena-based node factory is generated.
+     */
+    private boolean nodeArena;
+
+    /**
+     * The flag whether an iterative tree walker is generated.
+     */
+    private boolean treeWalker;
+
+    /**
+     * The flag whether a binary tree codec is generated.
+     */
+    private boolean treeCodec;
+
+    /**
+     * Sets the logger used to output diagnostic messages.
+     * 
+     * @param logger The logger used to output diagnostic messages, may be <code>null</code>.
+     */
+    public void setLog( Log logger )
+    {
+        this.log = logger;
+    }
+
+    /**
+     * Gets the logger used to output diagnostic messages.
+     * 
+     * @return The logger used to output diagnostic messages, never <code>null</code>.
+     */
+    protected Log getLog()
+    {
+        if ( this.log == null )
+        {
+            this.log = new SystemStreamLog();
+        }
+        return this.log;
+    }
+
+    /**
+     * Sets the option MULTI.
+     * 
+     * @param value The option value, may be <code>null</code>.
+     */
+    public void setMulti( Boolean value )
+    {
+        this.multi = value;
+    }
+
+    /**
+     * Sets the option NODE_CLASS.
+     * 
+     * @param value The option value, may be <code>null</code>.
+     */
+    public void setNodeClass( String value )
+    {
+        this.nodeClass = value;
+    }
+
+    /**
+     * Sets the option NODE_FACTORY.
+     * 
+     * @param value The option value, may be <code>null</code>.
+     */
+    public void setNodeFactory( String value )
+    {
+        this.nodeFactory = value;
+    }
+
+    /**
+     * Sets the option NODE_PREFIX.
+     * 
+     * @param value The option value, may be <code>null</code>.
+     */
+    public void setNodePrefix( String value )
+    {
+        this.nodePrefix = value;
+    }
+
+    /**
+     * Sets the option NODE_USES_PARSER.
+     * 
+     * @param value The option value, may be <code>null</code>.
+     */
+    public void setNodeUsesParser( Boolean value )
+    {
+        this.nodeUsesParser = value;
+    }
+
+    /**
+     * Sets the option TRACK_TOKENS.
+     * 
+     * @param value The option value, may be <code>null</code>.
+     */
+    public void setTrackTokens( Boolean value )
+    {
+        this.trackTokens = value;
+    }
+
+    /**
+     * Sets the flag whether the node children are stored in an amortized growable array.
+     * 
+     * @param value The value of the mojo parameter <code>amortizedNodeChildren</code>.
+     */
+    public void setAmortizedNodeChildren( boolean value )
+    {
+        this.amortizedNodeChildren = value;
+    }
+
+    /**
+     * Sets the flag whether an arena-based node factory is generated.
+     * 
+     * @param value The value of the mojo parameter <code>nodeArena</code>.
+     */
+    public void setNodeArena( boolean value )
+    {
+        this.nodeArena = value;
+    }
+
+    /**
+     * Sets the flag whether an iterative tree walker is generated.
+     * 
+     * @param value The value of the mojo parameter <code>treeWalker</code>.
+     */
+    public void setTreeWalker( boolean value )
+    {
+        this.treeWalker = value;
+    }
+
+    /**
+     * Sets the flag whether a binary tree codec is generated.
+     * 
+     * @param value The value of the mojo parameter <code>treeCodec</code>.
+     */
+    public void setTreeCodec( boolean value )
+    {
+        this.treeCodec = value;
+    }
+
+    /**
+     * Creates the processor to generate the arena-based node factory for the specified grammar if the parameter
+     * <code>nodeArena</code> is set.
+     * 
+     * @param grammarInfo The grammar info describing the processed grammar file, must not be <code>null</code>.
+     * @param nodePackageName The package of the node files, may be <code>null</code> to use the parser package.
+     * @return The processor for the node factory or <code>null</code> if the parameter <code>nodeArena</code> is not
+     *         set.
+     * @throws MojoExecutionException If the node factory cannot be used with the current parameters.
+     */
+    public NodeArena newNodeArena( GrammarInfo grammarInfo, String nodePackageName )
+        throws MojoExecutionException
+    {
+        if ( !this.nodeArena )
+        {
+            return null;
+        }
+        if ( this.nodeFactory != null )
+        {
+            throw new MojoExecutionException( "The parameters nodeArena and nodeFactory"
+                + " cannot be used at the same time" );
+        }
+        if ( this.amortizedNodeChildren )
+        {
+            throw new MojoExecutionException( "The parameters nodeArena and amortizedNodeChildren"
+                + " cannot be enabled at the same time" );
+        }
+        if ( Boolean.TRUE.equals( this.multi ) )
+        {
+            throw new MojoExecutionException( "The parameter nodeArena is not supported in combination with multi" );
+        }
+        if ( this.nodeClass != null )
+        {
+            // the fields of a custom node class would keep their values when the arena recycles a node
+            throw new MojoExecutionException( "The parameter nodeArena is not supported in combination with"
+                + " nodeClass" );
+        }
+        NodeArena processor = new NodeArena();
+        processor.setLog( getLog() );
+        processor.setParserName( grammarInfo.getParserName() );
+        processor.setParserPackage( grammarInfo.getParserPackage() );
+        processor.setNodePackage( nodePackageName );
+        processor.setTrackTokens( this.trackTokens );
+        processor.setNodeUsesParser( this.nodeUsesParser );
+        return processor;
+    }
+
+    /**
+     * Runs the enabled post-processors on the node files generated by JJTree.
+     * 
+     * @param grammarInfo The grammar info describing the processed grammar file, must not be <code>null</code>.
+     * @param nodeDirectory The directory with the node files generated by JJTree, must not be <code>null</code>.
+     * @param nodeArena The processor to generate the arena-based node factory, may be <code>null</code>.
+     * @throws MojoExecutionException If the node files could not be processed.
+     */
+    public void enhanceNodes( GrammarInfo grammarInfo, File nodeDirectory, NodeArena nodeArena )
+        throws MojoExecutionException
+    {
+        if ( this.amortizedNodeChildren )
+        {
+            AmortizedNodeChildren processor = new AmortizedNodeChildren();
+            processor.setLog( getLog() );
+            processor.setNodeDirectory( nodeDirectory.getAbsoluteFile() );
+            processor.run();
+        }
+
+        if ( nodeArena != null )
+        {
+            nodeArena.setNodeDirectory( nodeDirectory.getAbsoluteFile() );
+            nodeArena.run();
+        }
+
+        if ( this.treeWalker )
+        {
+            JJTreeWalker processor = new JJTreeWalker();
+            processor.setLog( getLog() );
+            processor.setNodeDirectory( nodeDirectory.getAbsoluteFile() );
+            processor.setParserName( grammarInfo.getParserName() );
+            processor.setMulti( this.multi );
+            processor.setNodePrefix( this.nodePrefix );
+            processor.run();
+        }
+
+        if ( this.treeCodec )
+        {
+            JJTreeCodec processor = new JJTreeCodec();
+            processor.setLog( getLog() );
+            processor.setNodeDirectory( nodeDirectory.getAbsoluteFile() );
+            processor.setParserName( grammarInfo.getParserName() );
+            processor.setMulti( this.multi );
+            processor.setNodePrefix( this.nodePrefix );
+            processor.run();
+        }
+    }
+
+}
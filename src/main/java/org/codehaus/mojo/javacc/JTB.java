@@ -138,6 +138,14 @@ class JTB
         this.inputFile = value;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected File getInputFile()
+    {
+        return this.inputFile;
+    }
+
     /**
      * Sets the absolute path to the output directory for the generated grammar file.
      * 
@@ -408,21 +416,42 @@ class JTB
             this.outputDirectory.mkdirs();
         }
 
-        // fork JTB because of its lack to re-initialize its static parser
-        ForkedJvm jvm = new ForkedJvm();
-        jvm.setMainClass( "EDU.purdue.jtb.JTB" );
-        jvm.addArguments( args );
-        jvm.setSystemOut( new MojoLogStreamConsumer( false ) );
-        jvm.setSystemErr( new MojoLogStreamConsumer( true ) );
-        if ( getLog().isDebugEnabled() )
-        {
-            getLog().debug( "Forking: " + jvm );
-        }
-        int exitcode = jvm.run();
+        /*
+         * NOTE: JTB writes the node and visitor files relative to its working directory. Each invocation gets its own
+         * working directory such that concurrent invocations neither clash with each other nor litter the working
+         * directory of the Maven process.
+         */
+        File workingDirectory = createWorkingDirectory();
+        try
+        {
+            // fork JTB because of its lack to re-initialize its static parser
+            ForkedJvm jvm = new ForkedJvm();
+            jvm.setMainClass( "EDU.purdue.jtb.JTB" );
+            jvm.addArguments( args );
+            jvm.setWorkingDirectory( workingDirectory );
+            jvm.setSystemOut( new MojoLogStreamConsumer( false ) );
+            jvm.setSystemErr( new MojoLogStreamConsumer( true ) );
+            if ( getLog().isDebugEnabled() )
+            {
+                getLog().debug( "Forking: " + jvm );
+            }
+            int exitcode = jvm.run();
 
-        moveJavaFiles();
+            moveJavaFiles( workingDirectory );
 
-        return exitcode;
+            return exitcode;
+        }
+        finally
+        {
+            try
+            {
+                FileUtils.deleteDirectory( workingDirectory );
+            }
+            catch ( IOException e )
+            {
+                getLog().warn( "Failed to delete working directory of JTB: " + workingDirectory, e );
+            }
+        }
     }
 
     /**
@@ -513,20 +542,38 @@ class JTB
     }
 
     /**
-     * Moves the previously generated Java files to their proper target directories. JTB simply assumes that the current
+     * Creates a new and empty directory to be used as the working directory of the JTB process.
+     * 
+     * @return The absolute path to the working directory, never <code>null</code>.
+     * @throws IOException If the directory could not be created.
+     */
+    private File createWorkingDirectory()
+        throws IOException
+    {
+        File workingDirectory = File.createTempFile( "jtb-", ".tmp", this.outputDirectory );
+        if ( !workingDirectory.delete() || !workingDirectory.mkdir() )
+        {
+            throw new IOException( "Failed to create working directory for JTB: " + workingDirectory );
+        }
+        return workingDirectory.getAbsoluteFile();
+    }
+
+    /**
+     * Moves the previously generated Java files to their proper target directories. JTB simply assumes that its
      * working directory represents the parent package of the configured node/visitor packages which does not meet our
      * needs.
      * 
+     * @param workingDirectory The working directory of the JTB process, must not be <code>null</code>.
      * @throws IOException If the move failed.
      */
-    private void moveJavaFiles()
+    private void moveJavaFiles( File workingDirectory )
         throws IOException
     {
-        File nodeSrcDir = new File( getLastPackageName( getEffectiveNodePackageName() ) ).getAbsoluteFile();
+        File nodeSrcDir = new File( workingDirectory, getLastPackageName( getEffectiveNodePackageName() ) );
         File nodeDstDir = getEffectiveNodeDirectory();
         moveDirectory( nodeSrcDir, nodeDstDir );
 
-        File visitorSrcDir = new File( getLastPackageName( getEffectiveVisitorPackageName() ) ).getAbsoluteFile();
+        File visitorSrcDir = new File( workingDirectory, getLastPackageName( getEffectiveVisitorPackageName() ) );
         File visitorDstDir = getEffectiveVisitorDirectory();
         moveDirectory( visitorSrcDir, visitorDstDir );
     }
@@ -547,9 +594,9 @@ class JTB
     {
         getLog().debug( "Moving JTB output files: " + sourceDir + " -> " + targetDir );
         /*
-         * NOTE: The source directory might be the current working directory if JTB was told to output into the default
-         * package. The current working directory might be quite anything and will likely contain sub directories not
-         * created by JTB. Therefore, we do a defensive move and only delete the expected Java source files.
+         * NOTE: The source directory might be the working directory itself if JTB was told to output into the default
+         * package. The working directory contains the sub directories for the other package. Therefore, we do a
+         * defensive move and only delete the expected Java source files.
          */
         File[] sourceFiles = sourceDir.listFiles();
         if ( sourceFiles == null )
@@ -0,0 +1,247 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Generates a compact binary codec for the syntax trees built by a JTB parser. The codec class <code>TreeCodec</code>
+ * is placed next to the visitor files and writes a tree in pre-order as varint-encoded node kinds followed by the
+ * children of the node, the tokens with interned images and delta-encoded positions. The kind of a node is determined
+ * by a single call of its accept method with the codec as visitor. The node types are taken from the file
+ * <code>Visitor.java</code> generated by JTB and their children from the public fields of the node files.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+class JTBCodec
+    extends NodeProcessor
+{
+
+    /**
+     * The node classes of JTB that are encoded by the template itself.
+     */
+    private static final Set BUILTIN_NODES = new HashSet();
+
+    static
+    {
+        BUILTIN_NODES.add( "NodeList" );
+        BUILTIN_NODES.add( "NodeListOptional" );
+        BUILTIN_NODES.add( "NodeOptional" );
+        BUILTIN_NODES.add( "NodeSequence" );
+        BUILTIN_NODES.add( "NodeToken" );
+    }
+
+    /**
+     * The absolute path to the directory with the visitor files generated by JTB.
+     */
+    private File visitorDirectory;
+
+    /**
+     * Sets the absolute path to the directory with the visitor files generated by JTB.
+     * 
+     * @param value The absolute path to the directory with the generated visitor files.
+     */
+    public void setVisitorDirectory( File value )
+    {
+        if ( value != null && !value.isAbsolute() )
+        {
+            throw new IllegalArgumentException( "path is not absolute: " + value );
+        }
+        this.visitorDirectory = value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void execute()
+        throws Exception
+    {
+        File visitorFile = new File( this.visitorDirectory, "Visitor.java" );
+        if ( !visitorFile.isFile() )
+        {
+            getLog().debug( "Skipping tree codec, no visitor generated: " + visitorFile );
+            return;
+        }
+        GeneratedSourceFile visitor = new GeneratedSourceFile( visitorFile );
+        String nodePackage = visitor.find( "import\\s+([\\w.]+)\\.\\*\\s*;", 1 );
+        if ( nodePackage == null )
+        {
+            throw new IllegalStateException( "Unexpected source code in " + visitorFile + ", no node package" );
+        }
+
+        List types = new ArrayList();
+        Pattern pattern = Pattern.compile( "public\\s+void\\s+visit\\((\\w+)\\s+n\\)\\s*;" );
+        Matcher matcher = pattern.matcher( visitor.getContents() );
+        while ( matcher.find() )
+        {
+            types.add( matcher.group( 1 ) );
+        }
+        if ( !types.containsAll( BUILTIN_NODES ) )
+        {
+            throw new IllegalStateException( "Unexpected source code in " + visitorFile + ", missing visit methods for "
+                + BUILTIN_NODES );
+        }
+        Set nodeTypes = new HashSet( types );
+        nodeTypes.add( "Node" );
+        nodeTypes.add( "NodeChoice" );
+        nodeTypes.add( "NodeListInterface" );
+
+        StringBuffer kinds = new StringBuffer( 1024 );
+        StringBuffer childCases = new StringBuffer( 4096 );
+        StringBuffer fieldCountCases = new StringBuffer( 2048 );
+        StringBuffer readCases = new StringBuffer( 4096 );
+        StringBuffer visits = new StringBuffer( 2048 );
+        for ( int kind = 0; kind < types.size(); kind++ )
+        {
+            String type = (String) types.get( kind );
+            String constant = JTBWalker.getConstantName( type );
+
+            kinds.append( "  private static final int " ).append( constant ).append( " = " ).append( kind );
+            kinds.append( ";\n" );
+
+            visits.append( "\n  public void visit(" ).append( type ).append( " n) {\n    kind = " ).append( constant );
+            visits.append( ";\n  }\n" );
+
+            if ( BUILTIN_NODES.contains( type ) )
+            {
+                continue;
+            }
+            List fields = getNodeFields( type, nodeTypes );
+            if ( fields == null )
+            {
+                continue;
+            }
+
+            fieldCountCases.append( "      case " ).append( constant ).append( ":\n        return " );
+            fieldCountCases.append( fields.size() ).append( ";\n" );
+            readCases.append( "      case " ).append( constant ).append( ":\n" );
+            readCases.append( "        return new " ).append( type ).append( '(' );
+            for ( int i = 0; i < fields.size(); i++ )
+            {
+                String[] field = (String[]) fields.get( i );
+                readCases.append( ( i > 0 ) ? ", (" : "(" ).append( field[0] ).append( ") operands[start" );
+                readCases.append( ( i > 0 ) ? " + " + i : "" ).append( ']' );
+            }
+            readCases.append( ");\n" );
+            appendChildCase( childCases, type, constant, fields );
+        }
+        kinds.append( "  private static final int NODE_CHOICE = " ).append( types.size() ).append( ";\n" );
+
+        SourceTemplate codec = new SourceTemplate( "JTBCodec.template" );
+        codec.setPackage( visitor.find( "package\\s+([\\w.]+)\\s*;", 1 ) );
+        codec.setVariable( "nodePackage", nodePackage );
+        codec.setVariable( "codecClass", "TreeCodec" );
+        codec.setVariable( "fingerprint", Integer.toString( types.hashCode() ) );
+        codec.setVariable( "kinds", kinds.toString() );
+        codec.setVariable( "childCases", childCases.toString() );
+        codec.setVariable( "fieldCountCases", fieldCountCases.toString() );
+        codec.setVariable( "readCases", readCases.toString() );
+        codec.setVariable( "visits", visits.toString() );
+        codec.write( new File( this.visitorDirectory, "TreeCodec.java" ) );
+    }
+
+    /**
+     * Appends the case of the method <code>child()</code> that selects a field of a production node by its index.
+     * 
+     * @param buffer The buffer to append the case to, must not be <code>null</code>.
+     * @param type The simple name of the node class, must not be <code>null</code>.
+     * @param constant The name of the constant for the node kind, must not be <code>null</code>.
+     * @param fields The type and name of each node field in declaration order, must not be <code>null</code>.
+     */
+    private static void appendChildCase( StringBuffer buffer, String type, String constant, List fields )
+    {
+        if ( fields.isEmpty() )
+        {
+            return;
+        }
+        buffer.append( "      case " ).append( constant ).append( ":\n" );
+        if ( fields.size() == 1 )
+        {
+            String[] field = (String[]) fields.get( 0 );
+            buffer.append( "        return ((" ).append( type ).append( ") n)." ).append( field[1] ).append( ";\n" );
+            return;
+        }
+        buffer.append( "        switch (i) {\n" );
+        for ( int i = 0; i < fields.size(); i++ )
+        {
+            String[] field = (String[]) fields.get( i );
+            if ( i < fields.size() - 1 )
+            {
+                buffer.append( "          case " ).append( i ).append( ":\n" );
+            }
+            else
+            {
+                buffer.append( "          default:\n" );
+            }
+            buffer.append( "            return ((" ).append( type ).append( ") n)." ).append( field[1] );
+            buffer.append( ";\n" );
+        }
+        buffer.append( "        }\n" );
+    }
+
+    /**
+     * Gets the types and names of the public fields of the specified node class that hold child nodes.
+     * 
+     * @param type The simple name of the node class, must not be <code>null</code>.
+     * @param nodeTypes The simple names of all node classes and interfaces, must not be <code>null</code>.
+     * @return The type and name of each field in declaration order or <code>null</code> if the node file does not
+     *         exist.
+     * @throws Exception If the node file could not be read.
+     */
+    private List getNodeFields( String type, Set nodeTypes )
+        throws Exception
+    {
+        File nodeFile = getNodeFile( type + ".java" );
+        if ( !nodeFile.isFile() )
+        {
+            getLog().warn( "Not encoding " + type + " nodes, node file not found: " + nodeFile );
+            return null;
+        }
+        List fields = new ArrayList();
+        GeneratedSourceFile node = new GeneratedSourceFile( nodeFile );
+        Matcher matcher = Pattern.compile( "public\\s+(\\w+)\\s+(\\w+)\\s*;" ).matcher( node.getContents() );
+        while ( matcher.find() )
+        {
+            if ( nodeTypes.contains( matcher.group( 1 ) ) )
+            {
+                fields.add( new String[] { matcher.group( 1 ), matcher.group( 2 ) } );
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Gets a string representation of this processor. This value is for debugging purposes only.
+     * 
+     * @return A string representation of this processor.
+     */
+    public String toString()
+    {
+        return super.toString() + ", " + this.visitorDirectory;
+    }
+
+}
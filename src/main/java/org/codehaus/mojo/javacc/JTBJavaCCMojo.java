@@ -32,6 +32,7 @@ import org.apache.maven.plugin.MojoFailureException;
  * 
  * @goal jtb-javacc
  * @phase generate-sources
+ * @threadSafe
  * @since 2.4
  * @author Benjamin Bentmann
  * @version $Id$
@@ -133,6 +134,28 @@ public class JTBJavaCCMojo
      */
     private Boolean printer;
 
+    /**
+     * If <code>true</code>, the class <code>TreeWalker</code> is generated next to the visitor files. The walker
+     * traverses the syntax tree in pre-order and post-order using an explicit stack instead of recursion and
+     * dispatches to the enter and leave methods of the node types via a switch, which avoids stack overflows on deeply
+     * nested input. Default value is <code>false</code>.
+     * 
+     * @parameter expression="${treeWalker}" default-value="false"
+     * @since 2.7
+     */
+    private boolean treeWalker;
+
+    /**
+     * If <code>true</code>, the class <code>TreeCodec</code> is generated next to the visitor files. The codec writes
+     * and reads syntax trees in a compact binary format of varint-encoded node kinds, interned token images and
+     * delta-encoded token positions instead of Java serialization, such that parsed trees can be cached and read back,
+     * e.g. from a memory-mapped file, without parsing the input again. Default value is <code>false</code>.
+     * 
+     * @parameter expression="${treeCodec}" default-value="false"
+     * @since 2.7
+     */
+    private boolean treeCodec;
+
     /**
      * The directory where the JavaCC grammar files (<code>*.jtb</code>) are located. It will be recursively scanned
      * for input files to pass to JTB. The parameters <code>includes</code> and <code>excludes</code> can be used to
@@ -284,28 +307,31 @@ public class JTBJavaCCMojo
         jtb.setNodePackageName( nodePackage );
         jtb.setVisitorPackageName( visitorPackage );
         jtb.run();
+        newNodeEnhancer().enhanceNodes( nodeDirectory, visitorDirectory );
 
         // generate parser files
         JavaCC javacc = newJavaCC();
         javacc.setInputFile( jtb.getOutputFile() );
         javacc.setOutputDirectory( parserDirectory );
         javacc.run();
+        enhanceParser( grammarInfo, jtb.getOutputFile(), parserDirectory );
 
         // copy tree node files from JTB
-        copyGrammarOutput( getInterimDirectory(), nodePackage, nodeDirectory, "!Node*" );
+        copyGrammarOutput( getInterimDirectory(), nodePackage, nodeDirectory, "!Node*", grammarInfo.getGrammarFile() );
 
         // copy visitor files from JTB
-        copyGrammarOutput( getInterimDirectory(), visitorPackage, visitorDirectory, "" );
+        copyGrammarOutput( getInterimDirectory(), visitorPackage, visitorDirectory, "", grammarInfo.getGrammarFile() );
 
         // copy parser files from JavaCC
         copyGrammarOutput( getOutputDirectory(), grammarInfo.getParserPackage(), parserDirectory,
-                           grammarInfo.getParserName() + "*" );
+                           grammarInfo.getParserName() + "*", grammarInfo.getGrammarFile() );
 
         // copy source files which are next to grammar unless the grammar resides in an ordinary source root
         // (legacy support for custom sources)
         if ( !isSourceRoot( grammarInfo.getSourceDirectory() ) )
         {
-            copyGrammarOutput( getOutputDirectory(), grammarInfo.getParserPackage(), jtbDirectory, "*" );
+            copyGrammarOutput( getOutputDirectory(), grammarInfo.getParserPackage(), jtbDirectory, "*",
+                               grammarInfo.getGrammarFile() );
         }
 
         deleteTempDirectory( tempDirectory );
@@ -353,6 +379,20 @@ public class JTBJavaCCMojo
         }
     }
 
+    /**
+     * Creates a new enhancer to run the post-processors enabled by the mojo parameters on the files generated by JTB.
+     * 
+     * @return The enhancer for the node and visitor files, never <code>null</code>.
+     */
+    private JTBNodeEnhancer newNodeEnhancer()
+    {
+        JTBNodeEnhancer enhancer = new JTBNodeEnhancer();
+        enhancer.setLog( getLog() );
+        enhancer.setTreeWalker( this.treeWalker );
+        enhancer.setTreeCodec( this.treeCodec );
+        return enhancer;
+    }
+
     /**
      * Creates a new facade to invoke JTB. Most options for the invocation are derived from the current values of the
      * corresponding mojo parameters. The caller is responsible to set the input file, output directories and packages
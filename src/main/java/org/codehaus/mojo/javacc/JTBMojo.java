@@ -31,6 +31,7 @@ import org.apache.maven.plugin.MojoFailureException;
  * 
  * @goal jtb
  * @phase generate-sources
+ * @threadSafe
  * @since 2.2
  * @deprecated As of version 2.4, use the <code>jtb-javacc</code> goal instead.
  * @author Gregory Kick (gk5885@kickstyle.net)
@@ -133,6 +134,28 @@ public class JTBMojo
      */
     private Boolean printer;
 
+    /**
+     * If <code>true</code>, the class <code>TreeWalker</code> is generated next to the visitor files. The walker
+     * traverses the syntax tree in pre-order and post-order using an explicit stack instead of recursion and
+     * dispatches to the enter and leave methods of the node types via a switch, which avoids stack overflows on deeply
+     * nested input. Default value is <code>false</code>.
+     * 
+     * @parameter expression="${treeWalker}" default-value="false"
+     * @since 2.7
+     */
+    private boolean treeWalker;
+
+    /**
+     * If <code>true</code>, the class <code>TreeCodec</code> is generated next to the visitor files. The codec writes
+     * and reads syntax trees in a compact binary format of varint-encoded node kinds, interned token images and
+     * delta-encoded token positions instead of Java serialization, such that parsed trees can be cached and read back,
+     * e.g. from a memory-mapped file, without parsing the input again. Default value is <code>false</code>.
+     * 
+     * @parameter expression="${treeCodec}" default-value="false"
+     * @since 2.7
+     */
+    private boolean treeCodec;
+
     /**
      * The directory where the JavaCC grammar files (<code>*.jtb</code>) are located. It will be recursively scanned
      * for input files to pass to JTB.
@@ -258,6 +281,7 @@ public class JTBMojo
         jtb.setNodePackageName( nodePackage );
         jtb.setVisitorPackageName( visitorPackage );
         jtb.run();
+        newNodeEnhancer().enhanceNodes( nodeDirectory, visitorDirectory );
 
         // create timestamp file
         createTimestamp( grammarInfo );
@@ -305,6 +329,20 @@ public class JTBMojo
         }
     }
 
+    /**
+     * Creates a new enhancer to run the post-processors enabled by the mojo parameters on the files generated by JTB.
+     * 
+     * @return The enhancer for the node and visitor files, never <code>null</code>.
+     */
+    private JTBNodeEnhancer newNodeEnhancer()
+    {
+        JTBNodeEnhancer enhancer = new JTBNodeEnhancer();
+        enhancer.setLog( getLog() );
+        enhancer.setTreeWalker( this.treeWalker );
+        enhancer.setTreeCodec( this.treeCodec );
+        return enhancer;
+    }
+
     /**
      * Creates a new facade to invoke JTB. Most options for the invocation are derived from the current values of the
      * corresponding mojo parameters. The caller is responsible to set the input file, output directories and packages
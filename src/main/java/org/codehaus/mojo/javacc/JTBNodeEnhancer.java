@@ -0,0 +1,126 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+
+/**
+ * Runs the post-processors enabled by the mojo parameters on the node and visitor files generated by JTB. This is
+ * shared by the goals <code>jtb</code> and <code>jtb-javacc</code>.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+class JTBNodeEnhancer
+{
+
+    /**
+     * The logger used to output diagnostic messages.
+     */
+    private Log log;
+
+    /**
+     * The flag whether an iterative tree walker is generated.
+     */
+    private boolean treeWalker;
+
+    /**
+     * The flag whether a binary tree codec is generated.
+     */
+    private boolean treeCodec;
+
+    /**
+     * Sets the logger used to output diagnostic messages.
+     * 
+     * @param logger The logger used to output diagnostic messages, may be <code>null</code>.
+     */
+    public void setLog( Log logger )
+    {
+        this.log = logger;
+    }
+
+    /**
+     * Gets the logger used to output diagnostic messages.
+     * 
+     * @return The logger used to output diagnostic messages, never <code>null</code>.
+     */
+    protected Log getLog()
+    {
+        if ( this.log == null )
+        {
+            this.log = new SystemStreamLog();
+        }
+        return this.log;
+    }
+
+    /**
+     * Sets the flag whether an iterative tree walker is generated.
+     * 
+     * @param value The value of the mojo parameter <code>treeWalker</code>.
+     */
+    public void setTreeWalker( boolean value )
+    {
+        this.treeWalker = value;
+    }
+
+    /**
+     * Sets the flag whether a binary tree codec is generated.
+     * 
+     * @param value The value of the mojo parameter <code>treeCodec</code>.
+     */
+    public void setTreeCodec( boolean value )
+    {
+        this.treeCodec = value;
+    }
+
+    /**
+     * Runs the enabled post-processors on the node and visitor files generated by JTB.
+     * 
+     * @param nodeDirectory The directory with the node files generated by JTB, must not be <code>null</code>.
+     * @param visitorDirectory The directory with the visitor files generated by JTB, must not be <code>null</code>.
+     * @throws MojoExecutionException If the generated files could not be processed.
+     */
+    public void enhanceNodes( File nodeDirectory, File visitorDirectory )
+        throws MojoExecutionException
+    {
+        if ( this.treeWalker )
+        {
+            JTBWalker processor = new JTBWalker();
+            processor.setLog( getLog() );
+            processor.setNodeDirectory( nodeDirectory.getAbsoluteFile() );
+            processor.setVisitorDirectory( visitorDirectory.getAbsoluteFile() );
+            processor.run();
+        }
+
+        if ( this.treeCodec )
+        {
+            JTBCodec processor = new JTBCodec();
+            processor.setLog( getLog() );
+            processor.setNodeDirectory( nodeDirectory.getAbsoluteFile() );
+            processor.setVisitorDirectory( visitorDirectory.getAbsoluteFile() );
+            processor.run();
+        }
+    }
+
+}
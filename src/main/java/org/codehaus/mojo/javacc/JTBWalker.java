@@ -0,0 +1,245 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Generates an iterative walker for the syntax trees built by a JTB parser. The walker class <code>TreeWalker</code>
+ * is placed next to the visitor files and traverses a tree using an explicit stack. The kind of a node is determined
+ * by a single call of its accept method with the walker as visitor and the children and the enter and leave methods
+ * of the node types are then selected via a switch on this kind. The node types are taken from the file
+ * <code>Visitor.java</code> generated by JTB and their children from the public fields of the node files.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+class JTBWalker
+    extends NodeProcessor
+{
+
+    /**
+     * The node classes of JTB whose children are accessed via the interface <code>NodeListInterface</code>.
+     */
+    private static final Set LIST_NODES = new HashSet();
+
+    static
+    {
+        LIST_NODES.add( "NodeList" );
+        LIST_NODES.add( "NodeListOptional" );
+        LIST_NODES.add( "NodeSequence" );
+    }
+
+    /**
+     * The absolute path to the directory with the visitor files generated by JTB.
+     */
+    private File visitorDirectory;
+
+    /**
+     * Sets the absolute path to the directory with the visitor files generated by JTB.
+     * 
+     * @param value The absolute path to the directory with the generated visitor files.
+     */
+    public void setVisitorDirectory( File value )
+    {
+        if ( value != null && !value.isAbsolute() )
+        {
+            throw new IllegalArgumentException( "path is not absolute: " + value );
+        }
+        this.visitorDirectory = value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void execute()
+        throws Exception
+    {
+        File visitorFile = new File( this.visitorDirectory, "Visitor.java" );
+        if ( !visitorFile.isFile() )
+        {
+            getLog().debug( "Skipping tree walker, no visitor generated: " + visitorFile );
+            return;
+        }
+        GeneratedSourceFile visitor = new GeneratedSourceFile( visitorFile );
+        String nodePackage = visitor.find( "import\\s+([\\w.]+)\\.\\*\\s*;", 1 );
+        if ( nodePackage == null )
+        {
+            throw new IllegalStateException( "Unexpected source code in " + visitorFile + ", no node package" );
+        }
+
+        List types = new ArrayList();
+        Pattern pattern = Pattern.compile( "public\\s+void\\s+visit\\((\\w+)\\s+n\\)\\s*;" );
+        Matcher matcher = pattern.matcher( visitor.getContents() );
+        while ( matcher.find() )
+        {
+            types.add( matcher.group( 1 ) );
+        }
+        Set nodeTypes = new HashSet( types );
+        nodeTypes.add( "Node" );
+        nodeTypes.add( "NodeChoice" );
+        nodeTypes.add( "NodeListInterface" );
+
+        StringBuffer kinds = new StringBuffer( 1024 );
+        StringBuffer sizeCases = new StringBuffer( 1024 );
+        StringBuffer childCases = new StringBuffer( 4096 );
+        StringBuffer enterCases = new StringBuffer( 1024 );
+        StringBuffer leaveCases = new StringBuffer( 1024 );
+        StringBuffer visits = new StringBuffer( 2048 );
+        StringBuffer hooks = new StringBuffer( 4096 );
+        for ( int kind = 0; kind < types.size(); kind++ )
+        {
+            String type = (String) types.get( kind );
+            String constant = getConstantName( type );
+
+            kinds.append( "  private static final int " ).append( constant ).append( " = " ).append( kind );
+            kinds.append( ";\n" );
+
+            if ( LIST_NODES.contains( type ) )
+            {
+                sizeCases.append( "      case " ).append( constant ).append( ":\n" );
+                sizeCases.append( "        return ((NodeListInterface) n).size();\n" );
+                childCases.append( "      case " ).append( constant ).append( ":\n" );
+                childCases.append( "        return ((NodeListInterface) n).elementAt(i);\n" );
+            }
+            else if ( "NodeOptional".equals( type ) )
+            {
+                sizeCases.append( "      case " ).append( constant ).append( ":\n        return 1;\n" );
+                childCases.append( "      case " ).append( constant ).append( ":\n" );
+                childCases.append( "        return ((NodeOptional) n).node;\n" );
+            }
+            else if ( !"NodeToken".equals( type ) )
+            {
+                List fields = getNodeFields( type, nodeTypes );
+                if ( !fields.isEmpty() )
+                {
+                    sizeCases.append( "      case " ).append( constant ).append( ":\n        return " );
+                    sizeCases.append( fields.size() ).append( ";\n" );
+                    childCases.append( "      case " ).append( constant ).append( ":\n        switch (i) {\n" );
+                    int index = 0;
+                    for ( Iterator it = fields.iterator(); it.hasNext(); index++ )
+                    {
+                        childCases.append( "          case " ).append( index ).append( ":\n            return ((" );
+                        childCases.append( type ).append( ") n)." ).append( it.next() ).append( ";\n" );
+                    }
+                    childCases.append( "        }\n        return null;\n" );
+                }
+            }
+
+            enterCases.append( "      case " ).append( constant ).append( ":\n" );
+            enterCases.append( "        return enter" ).append( type ).append( "((" ).append( type );
+            enterCases.append( ") n);\n" );
+
+            leaveCases.append( "      case " ).append( constant ).append( ":\n" );
+            leaveCases.append( "        leave" ).append( type ).append( "((" ).append( type ).append( ") n);\n" );
+            leaveCases.append( "        break;\n" );
+
+            visits.append( "\n  public void visit(" ).append( type ).append( " n) {\n    kind = " ).append( constant );
+            visits.append( ";\n  }\n" );
+
+            hooks.append( "\n  protected boolean enter" ).append( type ).append( '(' ).append( type );
+            hooks.append( " n) {\n    return enterNode(n);\n  }\n" );
+            hooks.append( "\n  protected void leave" ).append( type ).append( '(' ).append( type );
+            hooks.append( " n) {\n    leaveNode(n);\n  }\n" );
+        }
+
+        SourceTemplate walker = new SourceTemplate( "JTBWalker.template" );
+        walker.setPackage( visitor.find( "package\\s+([\\w.]+)\\s*;", 1 ) );
+        walker.setVariable( "nodePackage", nodePackage );
+        walker.setVariable( "walkerClass", "TreeWalker" );
+        walker.setVariable( "kinds", kinds.toString() );
+        walker.setVariable( "sizeCases", sizeCases.toString() );
+        walker.setVariable( "childCases", childCases.toString() );
+        walker.setVariable( "enterCases", enterCases.toString() );
+        walker.setVariable( "leaveCases", leaveCases.toString() );
+        walker.setVariable( "visits", visits.toString() );
+        walker.setVariable( "hooks", hooks.toString() );
+        walker.write( new File( this.visitorDirectory, "TreeWalker.java" ) );
+    }
+
+    /**
+     * Gets the names of the public fields of the specified node class that hold child nodes.
+     * 
+     * @param type The simple name of the node class, must not be <code>null</code>.
+     * @param nodeTypes The simple names of all node classes and interfaces, must not be <code>null</code>.
+     * @return The names of the fields in declaration order, never <code>null</code>.
+     * @throws Exception If the node file could not be read.
+     */
+    private List getNodeFields( String type, Set nodeTypes )
+        throws Exception
+    {
+        List fields = new ArrayList();
+        File nodeFile = getNodeFile( type + ".java" );
+        if ( !nodeFile.isFile() )
+        {
+            getLog().warn( "Walking " + type + " nodes as leaves, node file not found: " + nodeFile );
+            return fields;
+        }
+        GeneratedSourceFile node = new GeneratedSourceFile( nodeFile );
+        Matcher matcher = Pattern.compile( "public\\s+(\\w+)\\s+(\\w+)\\s*;" ).matcher( node.getContents() );
+        while ( matcher.find() )
+        {
+            if ( nodeTypes.contains( matcher.group( 1 ) ) )
+            {
+                fields.add( matcher.group( 2 ) );
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Gets the name of the constant for the kind of the specified node class, e.g. "NODE_LIST" for "NodeList".
+     * 
+     * @param type The simple name of the node class, must not be <code>null</code>.
+     * @return The name of the constant, never <code>null</code>.
+     */
+    static String getConstantName( String type )
+    {
+        StringBuffer buffer = new StringBuffer( type.length() + 8 );
+        for ( int i = 0; i < type.length(); i++ )
+        {
+            char c = type.charAt( i );
+            if ( i > 0 && Character.isUpperCase( c ) && !Character.isUpperCase( type.charAt( i - 1 ) ) )
+            {
+                buffer.append( '_' );
+            }
+            buffer.append( Character.toUpperCase( c ) );
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Gets a string representation of this processor. This value is for debugging purposes only.
+     * 
+     * @return A string representation of this processor.
+     */
+    public String toString()
+    {
+        return super.toString() + ", " + this.visitorDirectory;
+    }
+
+}
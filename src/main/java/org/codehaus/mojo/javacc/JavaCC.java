@@ -25,6 +25,7 @@ import java.util.Arrays;
 import java.util.List;
 
 import org.codehaus.plexus.util.StringUtils;
+import org.codehaus.plexus.util.cli.StreamConsumer;
 
 /**
  * Provides a facade for the mojos to invoke JavaCC.
@@ -37,6 +38,21 @@ class JavaCC
     extends ToolFacade
 {
 
+    /**
+     * The engine to run JavaCC from a specific JavaCC JAR, <code>null</code> to use the JavaCC version of the plugin.
+     */
+    private JavaCCEngine engine;
+
+    /**
+     * The maximum heap in bytes of the forked JVM to run JavaCC in, zero to run JavaCC in the current JVM.
+     */
+    private long forkedHeap;
+
+    /**
+     * The peak heap in bytes the forked JVM reported after JavaCC finished, <code>-1</code> if unknown.
+     */
+    private long forkedHeapUsed = -1;
+
     /**
      * The input grammar.
      */
@@ -177,6 +193,37 @@ class JavaCC
      */
     private Boolean supportClassVisibilityPublic;
 
+    /**
+     * Sets the engine to run JavaCC from a specific JavaCC JAR.
+     * 
+     * @param value The engine to use, may be <code>null</code> to use the JavaCC version of the plugin.
+     */
+    public void setEngine( JavaCCEngine value )
+    {
+        this.engine = value;
+    }
+
+    /**
+     * Sets whether JavaCC runs in a forked JVM with its own heap rather than in the current JVM. Forking is meant for
+     * grammar files whose processing would require too much heap in the current JVM.
+     * 
+     * @param value The maximum heap in bytes of the forked JVM, zero to run JavaCC in the current JVM.
+     */
+    public void setForkedHeap( long value )
+    {
+        this.forkedHeap = value;
+    }
+
+    /**
+     * Gets the heap that JavaCC required in the forked JVM, i.e. the peak heap usage of the forked JVM.
+     * 
+     * @return The used heap in bytes or <code>-1</code> if JavaCC did not run in a forked JVM or the heap is unknown.
+     */
+    public long getForkedHeapUsed()
+    {
+        return this.forkedHeapUsed;
+    }
+
     /**
      * Sets the absolute path to the grammar file to pass into JavaCC for compilation.
      * 
@@ -191,6 +238,14 @@ class JavaCC
         this.inputFile = value;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected File getInputFile()
+    {
+        return this.inputFile;
+    }
+
     /**
      * Sets the absolute path to the output directory.
      * 
@@ -480,7 +535,54 @@ class JavaCC
             this.outputDirectory.mkdirs();
         }
 
-        return org.javacc.parser.Main.mainProgram( args );
+        if ( this.forkedHeap > 0 )
+        {
+            return fork( args );
+        }
+
+        JavaCCEngine engine = ( this.engine != null ) ? this.engine : JavaCCEngine.getDefault();
+        if ( engine != null )
+        {
+            return engine.runJavaCC( args );
+        }
+        synchronized ( JavaCCEngine.PLUGIN_LOCK )
+        {
+            return org.javacc.parser.Main.mainProgram( args );
+        }
+    }
+
+    /**
+     * Runs JavaCC in a forked JVM whose maximum heap is set to the configured size. The heap that JavaCC required is
+     * remembered as reported by {@link JavaCCDriver}.
+     * 
+     * @param args The command line arguments for JavaCC, must not be <code>null</code>.
+     * @return The exit code of JavaCC.
+     * @throws Exception If the JVM could not be forked.
+     */
+    private int fork( String[] args )
+        throws Exception
+    {
+        this.forkedHeapUsed = -1;
+        ForkedJvm jvm = new ForkedJvm();
+        jvm.addJvmArgument( "-Xmx" + Math.max( 1, this.forkedHeap >> 20 ) + "m" );
+        jvm.setMainClass( JavaCCDriver.class );
+        JavaCCEngine engine = ( this.engine != null ) ? this.engine : JavaCCEngine.getDefault();
+        if ( engine != null )
+        {
+            jvm.addClassPathEntry( engine.getJarFile() );
+        }
+        else
+        {
+            jvm.addClassPathEntry( org.javacc.parser.Main.class );
+        }
+        jvm.addArguments( args );
+        jvm.setSystemOut( new MojoLogStreamConsumer( false ) );
+        jvm.setSystemErr( new MojoLogStreamConsumer( true ) );
+        if ( getLog().isDebugEnabled() )
+        {
+            getLog().debug( "Forking: " + jvm );
+        }
+        return jvm.run();
     }
 
     /**
@@ -490,7 +592,7 @@ class JavaCC
      * 
      * @return A string array that represents the command line arguments to use for JavaCC.
      */
-    private String[] generateArguments()
+    String[] generateArguments()
     {
         List argsList = new ArrayList();
 
@@ -647,4 +749,55 @@ class JavaCC
         return Arrays.asList( generateArguments() ).toString();
     }
 
+    /**
+     * Consume and log command line output from the JavaCC process.
+     */
+    class MojoLogStreamConsumer
+        implements StreamConsumer
+    {
+
+        /**
+         * Determines if the stream consumer is being used for <code>System.out</code> or <code>System.err</code>.
+         */
+        private boolean err;
+
+        /**
+         * Single param constructor.
+         * 
+         * @param error If set to <code>true</code>, all consumed lines will be logged at the error level.
+         */
+        public MojoLogStreamConsumer( boolean error )
+        {
+            this.err = error;
+        }
+
+        /**
+         * Consume a line of text.
+         * 
+         * @param line The line to consume.
+         */
+        public void consumeLine( String line )
+        {
+            if ( !this.err && line.startsWith( JavaCCDriver.HEAP ) )
+            {
+                try
+                {
+                    forkedHeapUsed = Long.parseLong( line.substring( JavaCCDriver.HEAP.length() ).trim() );
+                }
+                catch ( NumberFormatException e )
+                {
+                    getLog().debug( "Ignoring heap report: " + line );
+                }
+            }
+            else if ( this.err && line.length() > 0 )
+            {
+                getLog().error( line );
+            }
+            else
+            {
+                getLog().info( line );
+            }
+        }
+    }
+
 }
@@ -0,0 +1,116 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Runs JavaCC for a single grammar and reports the heap it required. The driver is the main class of the JVM forked by
+ * {@link JavaCC} and must therefore not depend on anything but the JDK and the JavaCC JAR on the class path.<br/><br/>
+ * The command line arguments are passed on to JavaCC. After JavaCC has finished, the peak heap usage of the JVM is
+ * written to <code>System.out</code> as the line <code>@javacc:heap:bytes</code>. The exit code of the JVM is the one
+ * of JavaCC.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+public class JavaCCDriver
+{
+
+    /**
+     * The prefix of the line reporting the heap in bytes required by JavaCC.
+     */
+    static final String HEAP = "@javacc:heap:";
+
+    /**
+     * Runs JavaCC with the specified command line arguments.
+     * 
+     * @param args The command line arguments for JavaCC.
+     * @throws Exception If JavaCC could not be loaded.
+     */
+    public static void main( String[] args )
+        throws Exception
+    {
+        Method mainProgram =
+            Class.forName( "org.javacc.parser.Main" ).getMethod( "mainProgram", new Class[] { String[].class } );
+        int exitCode;
+        try
+        {
+            Object result = mainProgram.invoke( null, new Object[] { args } );
+            exitCode = ( result instanceof Integer ) ? ( (Integer) result ).intValue() : 0;
+        }
+        catch ( InvocationTargetException e )
+        {
+            e.getTargetException().printStackTrace();
+            exitCode = 1;
+        }
+        long heap = getPeakHeap();
+        if ( heap >= 0 )
+        {
+            System.out.println( HEAP + heap );
+        }
+        System.out.flush();
+        System.exit( exitCode );
+    }
+
+    /**
+     * Gets the peak heap usage of this JVM, i.e. the sum of the peak usage of all heap memory pools. The memory pool MX
+     * beans are accessed via reflection so that the driver still runs on JVMs lacking them.
+     * 
+     * @return The peak heap in bytes or <code>-1</code> if unknown.
+     */
+    private static long getPeakHeap()
+    {
+        try
+        {
+            List pools =
+                (List) Class.forName( "java.lang.management.ManagementFactory" ).getMethod( "getMemoryPoolMXBeans",
+                                                                                           new Class[0] )
+                    .invoke( null, new Object[0] );
+            Class poolClass = Class.forName( "java.lang.management.MemoryPoolMXBean" );
+            Method getType = poolClass.getMethod( "getType", new Class[0] );
+            Method getPeakUsage = poolClass.getMethod( "getPeakUsage", new Class[0] );
+            Method getUsed = Class.forName( "java.lang.management.MemoryUsage" ).getMethod( "getUsed", new Class[0] );
+            Object heap = Class.forName( "java.lang.management.MemoryType" ).getField( "HEAP" ).get( null );
+            long peak = 0;
+            for ( Iterator it = pools.iterator(); it.hasNext(); )
+            {
+                Object pool = it.next();
+                if ( heap.equals( getType.invoke( pool, new Object[0] ) ) )
+                {
+                    Object usage = getPeakUsage.invoke( pool, new Object[0] );
+                    if ( usage != null )
+                    {
+                        peak += ( (Long) getUsed.invoke( usage, new Object[0] ) ).longValue();
+                    }
+                }
+            }
+            return peak;
+        }
+        catch ( Exception e )
+        {
+            return -1;
+        }
+    }
+
+}
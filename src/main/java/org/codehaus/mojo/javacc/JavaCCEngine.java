@@ -0,0 +1,508 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.factory.ArtifactFactory;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.artifact.resolver.ArtifactResolver;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.codehaus.plexus.util.StringUtils;
+
+/**
+ * Runs JavaCC, JJTree and JJDoc from a JavaCC JAR that is loaded by isolated class loaders whose parent is the
+ * extension class loader, such that neither the plugin's own JavaCC classes nor any other plugin dependencies are
+ * visible to the tools.<br/><br/>
+ * JavaCC and JJTree keep their state in static fields. Therefore, each engine manages a pool of class loaders and every
+ * run exclusively borrows one of them, i.e. concurrently running threads never share the static state of the tools.
+ * After the run, the class loader is returned to the pool and reused by the next run, so the tool classes remain loaded
+ * and compiled by the JIT across grammars, executions and reactor modules. The engines are cached per JAR file in a
+ * static map of the plugin class loader and hence are kept while the plugin is loaded, which may outlast a single build
+ * when Maven is embedded. {@link #releaseAll()} closes the class loaders of all engines and discards them.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+class JavaCCEngine
+{
+
+    /**
+     * The default group id of the JavaCC artifact.
+     */
+    static final String DEFAULT_GROUP_ID = "net.java.dev.javacc";
+
+    /**
+     * The default artifact id of the JavaCC artifact.
+     */
+    static final String DEFAULT_ARTIFACT_ID = "javacc";
+
+    /**
+     * The resource used to locate the JavaCC JAR the plugin has been built against.
+     */
+    private static final String JAVACC_RESOURCE = "org/javacc/parser/Main.class";
+
+    /**
+     * The lock used to serialize all access to the static state of the JavaCC classes loaded by the plugin class
+     * loader itself, i.e. the invocations of JavaCC and JJTree outside of an engine and the inspections of the grammar
+     * model of JavaCC.
+     */
+    static final Object PLUGIN_LOCK = new Object();
+
+    /**
+     * The engines created so far, keyed by the absolute path to their JAR file.
+     */
+    private static final Map ENGINES = new HashMap();
+
+    /**
+     * The engine for the JavaCC JAR of the plugin, lazily created.
+     */
+    private static JavaCCEngine defaultEngine;
+
+    /**
+     * The JAR file containing the tools.
+     */
+    private final File jarFile;
+
+    /**
+     * The URLs of the class path for the isolated class loaders.
+     */
+    private final URL[] urls;
+
+    /**
+     * The class loaders that are currently not used by any thread, most recently used last, guarded by itself.
+     */
+    private final LinkedList idleLoaders = new LinkedList();
+
+    /**
+     * The number of class loaders created by this engine, guarded by {@link #idleLoaders}.
+     */
+    private int loaderCount;
+
+    /**
+     * The flag whether this engine has been released, guarded by {@link #idleLoaders}. The class loaders of a released
+     * engine are closed as soon as they are no longer used.
+     */
+    private boolean released;
+
+    /**
+     * Creates a new engine for the specified JAR file.
+     * 
+     * @param jarFile The JAR file containing the tools, must not be <code>null</code>.
+     * @throws MalformedURLException If the path to the JAR file could not be converted to a URL.
+     */
+    private JavaCCEngine( File jarFile )
+        throws MalformedURLException
+    {
+        this.jarFile = jarFile;
+        this.urls = new URL[] { jarFile.toURI().toURL() };
+    }
+
+    /**
+     * Gets the engine for the specified JAR file. Engines are cached, i.e. subsequent calls with the same file yield
+     * the same engine.
+     * 
+     * @param jarFile The JAR file containing the tools, must not be <code>null</code>.
+     * @return The engine for the JAR file, never <code>null</code>.
+     * @throws MalformedURLException If the path to the JAR file could not be converted to a URL.
+     */
+    public static synchronized JavaCCEngine getInstance( File jarFile )
+        throws MalformedURLException
+    {
+        File file = jarFile.getAbsoluteFile();
+        JavaCCEngine engine = (JavaCCEngine) ENGINES.get( file );
+        if ( engine == null )
+        {
+            engine = new JavaCCEngine( file );
+            ENGINES.put( file, engine );
+        }
+        return engine;
+    }
+
+    /**
+     * Gets the engine for the JavaCC JAR the plugin has been built against.
+     * 
+     * @return The engine for the plugin's JavaCC JAR or <code>null</code> if the JAR could not be located, e.g. because
+     *         the JavaCC classes are not loaded from a file.
+     */
+    public static synchronized JavaCCEngine getDefault()
+    {
+        if ( defaultEngine == null )
+        {
+            URL url = JavaCCEngine.class.getClassLoader().getResource( JAVACC_RESOURCE );
+            File file = ( url != null ) ? UrlUtils.getResourceRoot( url, JAVACC_RESOURCE ) : null;
+            if ( file == null || !file.exists() )
+            {
+                return null;
+            }
+            try
+            {
+                defaultEngine = getInstance( file );
+            }
+            catch ( MalformedURLException e )
+            {
+                return null;
+            }
+        }
+        return defaultEngine;
+    }
+
+    /**
+     * Releases all engines created so far. The idle class loaders of the engines are closed right away, the class
+     * loaders currently in use are closed once their run has finished. Subsequent calls to <code>getInstance()</code>
+     * and <code>getDefault()</code> create new engines.
+     */
+    public static synchronized void releaseAll()
+    {
+        for ( Iterator it = ENGINES.values().iterator(); it.hasNext(); )
+        {
+            JavaCCEngine engine = (JavaCCEngine) it.next();
+            engine.release();
+        }
+        ENGINES.clear();
+        defaultEngine = null;
+    }
+
+    /**
+     * Resolves the specified JavaCC artifact and gets the engine for its JAR file. The artifact is resolved like a
+     * plugin dependency, i.e. it is taken from the local repository if present there and is otherwise downloaded
+     * unless Maven runs in offline mode.
+     * 
+     * @param groupId The group id of the JavaCC artifact, may be <code>null</code> to use the default.
+     * @param artifactId The artifact id of the JavaCC artifact, may be <code>null</code> to use the default.
+     * @param version The version of the JavaCC artifact, may be <code>null</code> to use the plugin's own JavaCC.
+     * @param factory The artifact factory, must not be <code>null</code>.
+     * @param resolver The artifact resolver, must not be <code>null</code>.
+     * @param localRepository The local repository, must not be <code>null</code>.
+     * @param remoteRepositories The remote repositories, may be <code>null</code>.
+     * @return The engine for the JavaCC artifact or <code>null</code> if no version was specified.
+     * @throws MojoExecutionException If the artifact could not be resolved.
+     */
+    public static JavaCCEngine getInstance( String groupId, String artifactId, String version, ArtifactFactory factory,
+                                            ArtifactResolver resolver, ArtifactRepository localRepository,
+                                            List remoteRepositories )
+        throws MojoExecutionException
+    {
+        if ( StringUtils.isEmpty( version ) )
+        {
+            return null;
+        }
+        Artifact artifact =
+            factory.createArtifact( StringUtils.isNotEmpty( groupId ) ? groupId : DEFAULT_GROUP_ID,
+                                    StringUtils.isNotEmpty( artifactId ) ? artifactId : DEFAULT_ARTIFACT_ID, version,
+                                    Artifact.SCOPE_RUNTIME, "jar" );
+        try
+        {
+            resolver.resolve( artifact, remoteRepositories, localRepository );
+            return getInstance( artifact.getFile() );
+        }
+        catch ( Exception e )
+        {
+            throw new MojoExecutionException( "Failed to resolve JavaCC artifact " + artifact.getId()
+                + " from the repository " + localRepository.getBasedir(), e );
+        }
+    }
+
+    /**
+     * Gets the JAR file containing the tools.
+     * 
+     * @return The absolute path to the JAR file, never <code>null</code>.
+     */
+    public File getJarFile()
+    {
+        return this.jarFile;
+    }
+
+    /**
+     * Gets the number of isolated class loaders this engine has created so far. This equals the maximum number of
+     * threads that have concurrently used the engine.
+     * 
+     * @return The number of class loaders created by this engine.
+     */
+    public int getLoaderCount()
+    {
+        synchronized ( this.idleLoaders )
+        {
+            return this.loaderCount;
+        }
+    }
+
+    /**
+     * Loads the specified class from an isolated class loader of this engine.
+     * 
+     * @param name The qualified name of the class, must not be <code>null</code>.
+     * @return The loaded class, never <code>null</code>.
+     * @throws ClassNotFoundException If the JAR file does not contain the class.
+     */
+    public Class loadClass( String name )
+        throws ClassNotFoundException
+    {
+        Loader loader = acquire();
+        try
+        {
+            return loader.loadClass( name );
+        }
+        finally
+        {
+            release( loader );
+        }
+    }
+
+    /**
+     * Runs JavaCC with the specified command line arguments.
+     * 
+     * @param args The command line arguments, must not be <code>null</code>.
+     * @return The exit code of JavaCC.
+     * @throws Exception If JavaCC could not be invoked.
+     */
+    public int runJavaCC( String[] args )
+        throws Exception
+    {
+        Loader loader = acquire();
+        try
+        {
+            if ( loader.javaccMain == null )
+            {
+                loader.javaccMain =
+                    loader.loadClass( "org.javacc.parser.Main" ).getMethod( "mainProgram",
+                                                                             new Class[] { String[].class } );
+            }
+            return loader.invoke( loader.javaccMain, null, args );
+        }
+        finally
+        {
+            release( loader );
+        }
+    }
+
+    /**
+     * Runs JJTree with the specified command line arguments.
+     * 
+     * @param args The command line arguments, must not be <code>null</code>.
+     * @return The exit code of JJTree.
+     * @throws Exception If JJTree could not be invoked.
+     */
+    public int runJJTree( String[] args )
+        throws Exception
+    {
+        Loader loader = acquire();
+        try
+        {
+            if ( loader.jjtreeMain == null )
+            {
+                loader.jjtreeMain =
+                    loader.loadClass( "org.javacc.jjtree.JJTree" ).getMethod( "main", new Class[] { String[].class } );
+            }
+            Object jjtree = loader.jjtreeMain.getDeclaringClass().newInstance();
+            return loader.invoke( loader.jjtreeMain, jjtree, args );
+        }
+        finally
+        {
+            release( loader );
+        }
+    }
+
+    /**
+     * Borrows a class loader from the pool for exclusive use by the current thread. The most recently used loader is
+     * preferred since its classes are most likely still warm.
+     * 
+     * @return The borrowed class loader, never <code>null</code>.
+     */
+    private Loader acquire()
+    {
+        synchronized ( this.idleLoaders )
+        {
+            if ( !this.idleLoaders.isEmpty() )
+            {
+                return (Loader) this.idleLoaders.removeLast();
+            }
+            this.loaderCount++;
+        }
+        return new Loader( this.urls );
+    }
+
+    /**
+     * Returns a class loader to the pool after its use by the current thread.
+     * 
+     * @param loader The class loader to return, must not be <code>null</code>.
+     */
+    private void release( Loader loader )
+    {
+        synchronized ( this.idleLoaders )
+        {
+            if ( !this.released )
+            {
+                this.idleLoaders.addLast( loader );
+                return;
+            }
+        }
+        loader.close();
+    }
+
+    /**
+     * Releases this engine by closing its idle class loaders. The class loaders currently in use are closed when they
+     * are returned to the pool.
+     */
+    private void release()
+    {
+        List loaders;
+        synchronized ( this.idleLoaders )
+        {
+            this.released = true;
+            loaders = new ArrayList( this.idleLoaders );
+            this.idleLoaders.clear();
+        }
+        for ( Iterator it = loaders.iterator(); it.hasNext(); )
+        {
+            ( (Loader) it.next() ).close();
+        }
+    }
+
+    /**
+     * Gets a string representation of this engine. This value is for debugging purposes only.
+     * 
+     * @return A string representation of this engine.
+     */
+    public String toString()
+    {
+        return this.jarFile.getName();
+    }
+
+    /**
+     * An isolated class loader for the tools along with the cached entry points. A loader is only ever used by one
+     * thread at a time.
+     */
+    private static class Loader
+    {
+
+        /**
+         * The isolated class loader.
+         */
+        final ClassLoader classLoader;
+
+        /**
+         * The cached method <code>org.javacc.parser.Main.mainProgram(String[])</code>.
+         */
+        Method javaccMain;
+
+        /**
+         * The cached method <code>org.javacc.jjtree.JJTree.main(String[])</code>.
+         */
+        Method jjtreeMain;
+
+        /**
+         * Creates a new isolated class loader for the specified class path.
+         * 
+         * @param urls The class path, must not be <code>null</code>.
+         */
+        Loader( URL[] urls )
+        {
+            this.classLoader = new URLClassLoader( urls, ClassLoader.getSystemClassLoader().getParent() );
+        }
+
+        /**
+         * Loads the specified class.
+         * 
+         * @param name The qualified name of the class, must not be <code>null</code>.
+         * @return The loaded class, never <code>null</code>.
+         * @throws ClassNotFoundException If the class path does not contain the class.
+         */
+        Class loadClass( String name )
+            throws ClassNotFoundException
+        {
+            return Class.forName( name, true, this.classLoader );
+        }
+
+        /**
+         * Closes the isolated class loader such that the JAR file is no longer held open. As
+         * <code>URLClassLoader.close()</code> is only available as of Java 7, it is invoked via reflection and the
+         * class loader is merely left to the garbage collector on older JREs.
+         */
+        void close()
+        {
+            try
+            {
+                Method method = this.classLoader.getClass().getMethod( "close", new Class[0] );
+                method.invoke( this.classLoader, new Object[0] );
+            }
+            catch ( NoSuchMethodException e )
+            {
+                // pre Java 7, nothing to close
+            }
+            catch ( Exception e )
+            {
+                // best effort, the class loader is discarded anyway
+            }
+        }
+
+        /**
+         * Invokes the specified entry point of a tool with this class loader as context class loader.
+         * 
+         * @param method The entry point to invoke, must not be <code>null</code>.
+         * @param target The object to invoke the method on, may be <code>null</code> for a static method.
+         * @param args The command line arguments, must not be <code>null</code>.
+         * @return The exit code of the tool.
+         * @throws Exception If the tool could not be invoked.
+         */
+        int invoke( Method method, Object target, String[] args )
+            throws Exception
+        {
+            Thread thread = Thread.currentThread();
+            ClassLoader contextClassLoader = thread.getContextClassLoader();
+            thread.setContextClassLoader( this.classLoader );
+            try
+            {
+                Object exitCode = method.invoke( target, new Object[] { args } );
+                return ( exitCode instanceof Integer ) ? ( (Integer) exitCode ).intValue() : 0;
+            }
+            catch ( InvocationTargetException e )
+            {
+                Throwable cause = e.getTargetException();
+                if ( cause instanceof Exception )
+                {
+                    throw (Exception) cause;
+                }
+                else if ( cause instanceof Error )
+                {
+                    throw (Error) cause;
+                }
+                throw e;
+            }
+            finally
+            {
+                thread.setContextClassLoader( contextClassLoader );
+            }
+        }
+
+    }
+
+}
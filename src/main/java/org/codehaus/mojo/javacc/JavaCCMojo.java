@@ -30,6 +30,7 @@ import org.apache.maven.plugin.MojoFailureException;
  * 
  * @goal javacc
  * @phase generate-sources
+ * @threadSafe
  * @since 2.0
  * @author jruiz@exist.com
  * @author jesse <jesse.mcconnell@gmail.com>
@@ -169,16 +170,18 @@ public class JavaCCMojo
         javacc.setInputFile( jjFile );
         javacc.setOutputDirectory( parserDirectory );
         javacc.run();
+        enhanceParser( grammarInfo, jjFile, parserDirectory );
 
         // copy parser files from JavaCC
         copyGrammarOutput( getOutputDirectory(), grammarInfo.getParserPackage(), parserDirectory,
-                           grammarInfo.getParserName() + "*" );
+                           grammarInfo.getParserName() + "*", grammarInfo.getGrammarFile() );
 
         // copy source files which are next to grammar unless the grammar resides in an ordinary source root
         // (legacy support for custom sources)
         if ( !isSourceRoot( grammarInfo.getSourceDirectory() ) )
         {
-            copyGrammarOutput( getOutputDirectory(), grammarInfo.getParserPackage(), jjDirectory, "*" );
+            copyGrammarOutput( getOutputDirectory(), grammarInfo.getParserPackage(), jjDirectory, "*",
+                               grammarInfo.getGrammarFile() );
         }
 
         deleteTempDirectory( tempDirectory );
@@ -0,0 +1,87 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+
+/**
+ * Enhances the parser files generated by JavaCC such that the token manager defers the creation of the image strings
+ * for non-literal tokens. Instead of calling <code>GetImage()</code> on the char stream for every token, the token
+ * manager copies the characters of the token into a large chunk that is shared by subsequent tokens and the generated
+ * <code>Token</code> class creates its image from this chunk on the first call to <code>getImage()</code>. The token
+ * factory configured via the option TOKEN_FACTORY is still used to create the tokens, it merely receives
+ * <code>null</code> as the image of non-literal tokens.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+class LazyTokenImages
+    extends ParserProcessor
+{
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void execute()
+        throws Exception
+    {
+        File tokenManagerFile = getTokenManagerFile();
+        if ( !tokenManagerFile.isFile() )
+        {
+            getLog().debug( "Skipping lazy token images, no token manager generated: " + tokenManagerFile );
+            return;
+        }
+
+        if ( !isCharStreamGenerated() )
+        {
+            getLog().warn( "Skipping lazy token images for " + getParserName()
+                               + ", the option userCharStream is not supported" );
+            return;
+        }
+
+        GeneratedSourceFile tokenManager = new GeneratedSourceFile( tokenManagerFile );
+        tokenManager.replace( "curTokenImage = \\(im == null\\) \\? input_stream\\.GetImage\\(\\) : im;",
+                              "curTokenImage = im;" );
+        tokenManager.insertAfter( "t = [\\w.]+\\.newToken\\(jjmatchedKind, curTokenImage\\);",
+                                  "\n   if (im == null)\n      jjFillImage(t);" );
+        SourceTemplate fillImage = new SourceTemplate( "LazyTokenImages-TokenManager.template" );
+        fillImage.setStatic( isStatic( tokenManager ) );
+        tokenManager.insertBefore( "(static\\s+)?protected\\s+Token\\s+jjFillToken\\(\\)", fillImage.render() );
+        tokenManager.save();
+
+        File tokenFile = getParserFile( "Token.java" );
+        if ( tokenFile.isFile() )
+        {
+            GeneratedSourceFile token = new GeneratedSourceFile( tokenFile );
+            token.replace( "(public\\s+String\\s+toString\\(\\)\\s*\\{\\s*)return image;", "$1return getImage();" );
+            token.appendMember( new SourceTemplate( "LazyTokenImages-Token.template" ).render() );
+            token.save();
+        }
+
+        File exceptionFile = getParserFile( "ParseException.java" );
+        if ( exceptionFile.isFile() )
+        {
+            GeneratedSourceFile exception = new GeneratedSourceFile( exceptionFile );
+            exception.replace( "\\btok\\.image\\b", "tok.getImage()" );
+            exception.save();
+        }
+    }
+
+}
@@ -0,0 +1,335 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.codehaus.plexus.util.cli.StreamConsumer;
+
+/**
+ * Analyzes the explicit lookahead specifications of a JavaCC grammar. The grammar is processed by JavaCC in a forked
+ * JVM running {@link LookaheadDriver} in order to obtain the lookaheads of its parsed productions as well as the
+ * ambiguity warnings reported according to the options <code>CHOICE_AMBIGUITY_CHECK</code> and
+ * <code>OTHER_AMBIGUITY_CHECK</code>. If the option <code>LOOKAHEAD</code> is greater than one, the choice points
+ * without explicit lookahead are included as well since the generated parser scans the global number of tokens
+ * there. The lookaheads are then ranked by the estimated number of tokens that the generated parser needs to scan
+ * (and rescan) in the worst case.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+class LookaheadAnalyzer
+{
+
+    /**
+     * The prefix of the warnings reported by JavaCC.
+     */
+    private static final String WARNING_PREFIX = "Warning:";
+
+    /**
+     * The logger used to output diagnostic messages.
+     */
+    private Log log;
+
+    /**
+     * The lookaheads found by the last analysis, ranked by their estimated cost, never <code>null</code>.
+     */
+    private List lookaheads = Collections.EMPTY_LIST;
+
+    /**
+     * The ambiguity warnings reported by JavaCC during the last analysis, never <code>null</code>.
+     */
+    private List warnings = Collections.EMPTY_LIST;
+
+    /**
+     * Sets the logger used to output diagnostic messages.
+     * 
+     * @param logger The logger used to output diagnostic messages, may be <code>null</code>.
+     */
+    public void setLog( Log logger )
+    {
+        this.log = logger;
+    }
+
+    /**
+     * Gets the logger used to output diagnostic messages.
+     * 
+     * @return The logger used to output diagnostic messages, never <code>null</code>.
+     */
+    protected Log getLog()
+    {
+        if ( this.log == null )
+        {
+            this.log = new SystemStreamLog();
+        }
+        return this.log;
+    }
+
+    /**
+     * Gets the lookaheads found by the last analysis.
+     * 
+     * @return The lookaheads ranked by their estimated cost (most expensive first), never <code>null</code>.
+     */
+    public LookaheadInfo[] getLookaheads()
+    {
+        return (LookaheadInfo[]) this.lookaheads.toArray( new LookaheadInfo[this.lookaheads.size()] );
+    }
+
+    /**
+     * Gets the ambiguity warnings reported by JavaCC during the last analysis.
+     * 
+     * @return The warning messages (without the leading "Warning:"), never <code>null</code>.
+     */
+    public String[] getWarnings()
+    {
+        return (String[]) this.warnings.toArray( new String[this.warnings.size()] );
+    }
+
+    /**
+     * Analyzes the grammar of the specified JavaCC invocation. JavaCC does not retain its warnings but only prints them
+     * to the console, so the analysis runs in a forked JVM whose console output is captured. The standard streams of
+     * the current JVM are left untouched such that other builds running concurrently are not affected. The captured
+     * output is only logged at debug level unless JavaCC fails.
+     * 
+     * @param javacc The facade for the JavaCC invocation, including input file and output directory, must not be
+     *            <code>null</code>.
+     * @throws MojoExecutionException If JavaCC could not be invoked.
+     * @throws MojoFailureException If JavaCC reported a non-zero exit code.
+     */
+    public void analyze( JavaCC javacc )
+        throws MojoExecutionException, MojoFailureException
+    {
+        ForkedJvm jvm = new ForkedJvm();
+        jvm.setMainClass( LookaheadDriver.class );
+        jvm.addClassPathEntry( org.javacc.parser.Main.class );
+        jvm.addArguments( javacc.generateArguments() );
+        OutputConsumer out = new OutputConsumer();
+        OutputConsumer err = new OutputConsumer();
+        jvm.setSystemOut( out );
+        jvm.setSystemErr( err );
+        if ( getLog().isDebugEnabled() )
+        {
+            getLog().debug( "Forking: " + jvm );
+        }
+
+        int exitCode;
+        try
+        {
+            exitCode = jvm.run();
+        }
+        catch ( Exception e )
+        {
+            throw new MojoExecutionException( "Failed to execute JavaCC", e );
+        }
+
+        String output = out.getOutput() + err.getOutput();
+        if ( exitCode != 0 )
+        {
+            getLog().error( output );
+            throw new MojoFailureException( "JavaCC reported exit code " + exitCode + ": " + javacc );
+        }
+        if ( getLog().isDebugEnabled() )
+        {
+            getLog().debug( output );
+        }
+        this.warnings = parseWarnings( output );
+
+        List infos = out.getLookaheads();
+        Collections.sort( infos, LookaheadComparator.getInstance() );
+        this.lookaheads = infos;
+    }
+
+    /**
+     * Extracts the ambiguity warnings from the console output of JavaCC. Besides the choice conflicts, this includes
+     * the warnings about ignored lookahead specifications.
+     * 
+     * @param output The console output of JavaCC, must not be <code>null</code>.
+     * @return The list of warning messages, never <code>null</code>.
+     */
+    static List parseWarnings( String output )
+    {
+        List messages = new ArrayList();
+        try
+        {
+            BufferedReader reader = new BufferedReader( new StringReader( output ) );
+            StringBuffer message = null;
+            for ( String line = reader.readLine(); line != null; line = reader.readLine() )
+            {
+                if ( message != null && line.length() > 0 && Character.isWhitespace( line.charAt( 0 ) ) )
+                {
+                    message.append( ' ' ).append( line.trim() );
+                    continue;
+                }
+                addWarning( messages, message );
+                message = null;
+                if ( line.startsWith( WARNING_PREFIX ) )
+                {
+                    message = new StringBuffer( line.substring( WARNING_PREFIX.length() ).trim() );
+                }
+            }
+            addWarning( messages, message );
+        }
+        catch ( IOException e )
+        {
+            // not going to happen when reading from a string
+        }
+        return messages;
+    }
+
+    /**
+     * Adds the specified warning message to the given list if it relates to lookahead.
+     * 
+     * @param messages The list of warning messages, must not be <code>null</code>.
+     * @param message The warning message to add, may be <code>null</code>.
+     */
+    private static void addWarning( List messages, StringBuffer message )
+    {
+        if ( message != null )
+        {
+            String text = message.toString();
+            if ( text.indexOf( "conflict" ) >= 0 || text.indexOf( "LOOKAHEAD" ) >= 0 )
+            {
+                messages.add( text );
+            }
+        }
+    }
+
+    /**
+     * Captures a console stream of the forked JVM, separating the lookaheads reported by {@link LookaheadDriver} from
+     * the remaining output.
+     */
+    private static class OutputConsumer
+        implements StreamConsumer
+    {
+
+        /**
+         * The console output without the lookahead lines, guarded by <code>this</code>.
+         */
+        private final StringBuffer output = new StringBuffer();
+
+        /**
+         * The reported lookahead infos, guarded by <code>this</code>.
+         */
+        private final List lookaheads = new ArrayList();
+
+        /**
+         * Consumes a line of console output.
+         * 
+         * @param line The line to consume.
+         */
+        public synchronized void consumeLine( String line )
+        {
+            LookaheadInfo info = line.startsWith( LookaheadDriver.PREFIX ) ? LookaheadDriver.parse( line ) : null;
+            if ( info != null )
+            {
+                this.lookaheads.add( info );
+            }
+            else
+            {
+                this.output.append( line ).append( '\n' );
+            }
+        }
+
+        /**
+         * Gets the captured console output.
+         * 
+         * @return The console output without the lookahead lines, never <code>null</code>.
+         */
+        public synchronized String getOutput()
+        {
+            return this.output.toString();
+        }
+
+        /**
+         * Gets the reported lookaheads.
+         * 
+         * @return The list of lookahead infos in the order of their report, never <code>null</code>.
+         */
+        public synchronized List getLookaheads()
+        {
+            return new ArrayList( this.lookaheads );
+        }
+
+    }
+
+    /**
+     * Ranks lookahead infos by their estimated cost, i.e. the number of scanned tokens and whether they are evaluated
+     * repeatedly. Ties are broken by the line of the lookahead.
+     */
+    private static class LookaheadComparator
+        implements Comparator
+    {
+
+        /**
+         * The singleton instance of this comparator.
+         */
+        private static final LookaheadComparator INSTANCE = new LookaheadComparator();
+
+        /**
+         * Gets the singleton instance of this class.
+         * 
+         * @return The singleton instance of this class.
+         */
+        public static LookaheadComparator getInstance()
+        {
+            return INSTANCE;
+        }
+
+        /**
+         * Compares the estimated cost of two lookaheads.
+         * 
+         * @param o1 The first lookahead info.
+         * @param o2 The second lookahead info.
+         * @return A negative integer if the first lookahead is more expensive, a positive integer if it is cheaper
+         *         and zero otherwise.
+         */
+        public int compare( Object o1, Object o2 )
+        {
+            LookaheadInfo info1 = (LookaheadInfo) o1;
+            LookaheadInfo info2 = (LookaheadInfo) o2;
+
+            if ( info1.getScannedTokens() != info2.getScannedTokens() )
+            {
+                return ( info1.getScannedTokens() > info2.getScannedTokens() ) ? -1 : 1;
+            }
+            if ( info1.isRepeated() != info2.isRepeated() )
+            {
+                return info1.isRepeated() ? -1 : 1;
+            }
+            if ( info1.isSemantic() != info2.isSemantic() )
+            {
+                return info1.isSemantic() ? -1 : 1;
+            }
+            return info1.getLine() - info2.getLine();
+        }
+
+    }
+
+}
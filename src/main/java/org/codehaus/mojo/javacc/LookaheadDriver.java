@@ -0,0 +1,309 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.javacc.parser.Choice;
+import org.javacc.parser.Expansion;
+import org.javacc.parser.JavaCCGlobals;
+import org.javacc.parser.JavaCodeProduction;
+import org.javacc.parser.Lookahead;
+import org.javacc.parser.Main;
+import org.javacc.parser.NonTerminal;
+import org.javacc.parser.NormalProduction;
+import org.javacc.parser.OneOrMore;
+import org.javacc.parser.RegularExpression;
+import org.javacc.parser.Sequence;
+import org.javacc.parser.TryBlock;
+import org.javacc.parser.ZeroOrMore;
+import org.javacc.parser.ZeroOrOne;
+
+/**
+ * Runs JavaCC for a single grammar and reports the lookaheads of its parsed productions. The driver is the main class
+ * of the JVM forked by {@link LookaheadAnalyzer} and must therefore not depend on anything but the JDK, the JavaCC JAR
+ * and {@link LookaheadInfo} on the class path.<br/><br/>
+ * The command line arguments are passed on to JavaCC whose console output, including its ambiguity warnings, is left
+ * untouched. If JavaCC succeeded, each lookahead is written to <code>System.out</code> as the line
+ * <code>@lookahead:line:explicit:syntactic:semantic:depth:scanned:repeated:production</code>. The exit code of the JVM
+ * is the one of JavaCC.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+public class LookaheadDriver
+{
+
+    /**
+     * The prefix of the lines reporting a lookahead.
+     */
+    static final String PREFIX = "@lookahead:";
+
+    /**
+     * Runs JavaCC with the specified command line arguments and reports the lookaheads.
+     * 
+     * @param args The command line arguments for JavaCC.
+     * @throws Exception If JavaCC failed unexpectedly.
+     */
+    public static void main( String[] args )
+        throws Exception
+    {
+        int exitCode = Main.mainProgram( args );
+        if ( exitCode == 0 )
+        {
+            List infos = new ArrayList();
+            for ( Iterator it = JavaCCGlobals.bnfproductions.iterator(); it.hasNext(); )
+            {
+                NormalProduction production = (NormalProduction) it.next();
+                if ( production.getExpansion() != null )
+                {
+                    collect( infos, production, production.getExpansion(), false, false );
+                }
+            }
+            for ( Iterator it = infos.iterator(); it.hasNext(); )
+            {
+                System.out.println( format( (LookaheadInfo) it.next() ) );
+            }
+        }
+        System.out.flush();
+        System.exit( exitCode );
+    }
+
+    /**
+     * Formats the specified lookahead info as a line of the protocol.
+     * 
+     * @param info The lookahead info to format, must not be <code>null</code>.
+     * @return The protocol line, never <code>null</code>.
+     */
+    static String format( LookaheadInfo info )
+    {
+        return PREFIX + info.getLine() + ':' + info.isExplicit() + ':' + info.isSyntactic() + ':' + info.isSemantic()
+            + ':' + info.getDepth() + ':' + info.getScannedTokens() + ':' + info.isRepeated() + ':'
+            + info.getProduction();
+    }
+
+    /**
+     * Parses a line of the protocol.
+     * 
+     * @param line The protocol line including the prefix, must not be <code>null</code>.
+     * @return The lookahead info or <code>null</code> if the line is malformed.
+     */
+    static LookaheadInfo parse( String line )
+    {
+        String[] tokens = line.substring( PREFIX.length() ).split( ":", 8 );
+        if ( tokens.length != 8 )
+        {
+            return null;
+        }
+        try
+        {
+            return new LookaheadInfo( tokens[7], Integer.parseInt( tokens[0] ), Boolean.valueOf( tokens[1] )
+                .booleanValue(), Boolean.valueOf( tokens[2] ).booleanValue(), Boolean.valueOf( tokens[3] )
+                .booleanValue(), Integer.parseInt( tokens[4] ), Integer.parseInt( tokens[5] ),
+                                      Boolean.valueOf( tokens[6] ).booleanValue() );
+        }
+        catch ( NumberFormatException e )
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Collects the explicit lookaheads from the specified expansion and its nested expansions. The implicit lookaheads
+     * of choice points are collected if they scan more than one token due to the global option
+     * <code>LOOKAHEAD</code>.
+     * 
+     * @param infos The list to add the lookahead infos to, must not be <code>null</code>.
+     * @param production The production that contains the expansion, must not be <code>null</code>.
+     * @param expansion The expansion to search, must not be <code>null</code>.
+     * @param repeated The flag whether the expansion is the body of a loop or nested within one.
+     * @param choicePoint The flag whether the expansion is an alternative of a choice or the body of a loop or an
+     *            optional expansion, i.e. whether the parser evaluates its lookahead to make a decision.
+     */
+    private static void collect( List infos, NormalProduction production, Expansion expansion, boolean repeated,
+                                 boolean choicePoint )
+    {
+        if ( expansion instanceof Sequence )
+        {
+            Sequence sequence = (Sequence) expansion;
+            for ( Iterator it = sequence.units.iterator(); it.hasNext(); )
+            {
+                Expansion unit = (Expansion) it.next();
+                if ( unit instanceof Lookahead )
+                {
+                    Lookahead lookahead = (Lookahead) unit;
+                    if ( lookahead.isExplicit() || ( choicePoint && lookahead.getAmount() > 1 ) )
+                    {
+                        infos.add( newLookaheadInfo( production, lookahead, sequence, repeated ) );
+                    }
+                }
+                else
+                {
+                    collect( infos, production, unit, repeated, false );
+                }
+            }
+        }
+        else if ( expansion instanceof Choice )
+        {
+            for ( Iterator it = ( (Choice) expansion ).getChoices().iterator(); it.hasNext(); )
+            {
+                collect( infos, production, (Expansion) it.next(), repeated, true );
+            }
+        }
+        else if ( expansion instanceof ZeroOrMore )
+        {
+            collect( infos, production, ( (ZeroOrMore) expansion ).expansion, true, true );
+        }
+        else if ( expansion instanceof OneOrMore )
+        {
+            collect( infos, production, ( (OneOrMore) expansion ).expansion, true, true );
+        }
+        else if ( expansion instanceof ZeroOrOne )
+        {
+            collect( infos, production, ( (ZeroOrOne) expansion ).expansion, repeated, true );
+        }
+        else if ( expansion instanceof TryBlock )
+        {
+            collect( infos, production, ( (TryBlock) expansion ).exp, repeated, choicePoint );
+        }
+    }
+
+    /**
+     * Creates a new info for the specified lookahead.
+     * 
+     * @param production The production that contains the lookahead, must not be <code>null</code>.
+     * @param lookahead The lookahead to describe, must not be <code>null</code>.
+     * @param sequence The sequence that is guarded by the lookahead, must not be <code>null</code>.
+     * @param repeated The flag whether the lookahead is evaluated once per iteration of a loop.
+     * @return The lookahead info, never <code>null</code>.
+     */
+    private static LookaheadInfo newLookaheadInfo( NormalProduction production, Lookahead lookahead,
+                                                   Sequence sequence, boolean repeated )
+    {
+        boolean semantic = lookahead.getActionTokens() != null && !lookahead.getActionTokens().isEmpty();
+        boolean syntactic = lookahead.getLaExpansion() != null && lookahead.getLaExpansion() != sequence;
+        int depth = lookahead.getAmount();
+        int scanned = 0;
+        if ( depth > 0 && lookahead.getLaExpansion() != null )
+        {
+            scanned = Math.min( depth, getMaxTokens( lookahead.getLaExpansion(), new HashSet() ) );
+        }
+        int line = getLine( lookahead );
+        if ( line <= 0 && sequence.units.size() > 1 )
+        {
+            // implicit lookaheads have no location of their own
+            line = getLine( (Expansion) sequence.units.get( 1 ) );
+        }
+        return new LookaheadInfo( production.getLhs(), line, lookahead.isExplicit(), syntactic, semantic, depth,
+                                  scanned, repeated );
+    }
+
+    /**
+     * Estimates the maximum number of tokens matched by the specified expansion.
+     * 
+     * @param expansion The expansion to inspect, must not be <code>null</code>.
+     * @param visiting The productions currently being inspected, used to detect recursion, must not be
+     *            <code>null</code>.
+     * @return The maximum number of tokens or {@link LookaheadInfo#UNBOUNDED} if the expansion contains a loop,
+     *         recursion or a <code>JAVACODE</code> production.
+     */
+    private static int getMaxTokens( Expansion expansion, Set visiting )
+    {
+        if ( expansion instanceof RegularExpression )
+        {
+            return 1;
+        }
+        else if ( expansion instanceof Sequence )
+        {
+            int sum = 0;
+            for ( Iterator it = ( (Sequence) expansion ).units.iterator(); it.hasNext(); )
+            {
+                int tokens = getMaxTokens( (Expansion) it.next(), visiting );
+                if ( tokens == LookaheadInfo.UNBOUNDED )
+                {
+                    return LookaheadInfo.UNBOUNDED;
+                }
+                sum += tokens;
+            }
+            return sum;
+        }
+        else if ( expansion instanceof Choice )
+        {
+            int max = 0;
+            for ( Iterator it = ( (Choice) expansion ).getChoices().iterator(); it.hasNext(); )
+            {
+                max = Math.max( max, getMaxTokens( (Expansion) it.next(), visiting ) );
+            }
+            return max;
+        }
+        else if ( expansion instanceof ZeroOrMore || expansion instanceof OneOrMore )
+        {
+            return LookaheadInfo.UNBOUNDED;
+        }
+        else if ( expansion instanceof ZeroOrOne )
+        {
+            return getMaxTokens( ( (ZeroOrOne) expansion ).expansion, visiting );
+        }
+        else if ( expansion instanceof TryBlock )
+        {
+            return getMaxTokens( ( (TryBlock) expansion ).exp, visiting );
+        }
+        else if ( expansion instanceof NonTerminal )
+        {
+            NormalProduction production = ( (NonTerminal) expansion ).getProd();
+            if ( production == null || production instanceof JavaCodeProduction || !visiting.add( production ) )
+            {
+                return LookaheadInfo.UNBOUNDED;
+            }
+            int tokens = getMaxTokens( production.getExpansion(), visiting );
+            visiting.remove( production );
+            return tokens;
+        }
+        // lookaheads and actions do not consume tokens
+        return 0;
+    }
+
+    /**
+     * Gets the line where the specified expansion is declared. JavaCC does not publicly expose this information so
+     * reflection is used.
+     * 
+     * @param expansion The expansion whose line should be retrieved, must not be <code>null</code>.
+     * @return The one-based line number or zero if unknown.
+     */
+    private static int getLine( Expansion expansion )
+    {
+        try
+        {
+            Method method = Expansion.class.getDeclaredMethod( "getLine", new Class[0] );
+            method.setAccessible( true );
+            return ( (Integer) method.invoke( expansion, new Object[0] ) ).intValue();
+        }
+        catch ( Exception e )
+        {
+            return 0;
+        }
+    }
+
+}
@@ -0,0 +1,201 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+/**
+ * This bean describes a lookahead specification found in a JavaCC grammar along with an estimate of the tokens that
+ * the generated parser needs to scan ahead in the worst case whenever it evaluates the lookahead. Besides explicit
+ * specifications, this includes the implicit lookaheads of choice points when the global option
+ * <code>LOOKAHEAD</code> is greater than one.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+class LookaheadInfo
+{
+
+    /**
+     * The value used to indicate an unbounded number of tokens.
+     */
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
+
+    /**
+     * The name of the production that contains the lookahead.
+     */
+    private final String production;
+
+    /**
+     * The line in the grammar file where the lookahead is declared.
+     */
+    private final int line;
+
+    /**
+     * The flag whether the lookahead is declared in the grammar rather than implied by the global option LOOKAHEAD.
+     */
+    private final boolean explicit;
+
+    /**
+     * The flag whether the lookahead specifies a nested expansion to scan.
+     */
+    private final boolean syntactic;
+
+    /**
+     * The flag whether the lookahead specifies a boolean expression.
+     */
+    private final boolean semantic;
+
+    /**
+     * The maximum number of tokens declared for the lookahead.
+     */
+    private final int depth;
+
+    /**
+     * The estimated maximum number of tokens scanned by a single evaluation of the lookahead.
+     */
+    private final int scannedTokens;
+
+    /**
+     * The flag whether the lookahead guards the body of a loop and is hence evaluated once per iteration.
+     */
+    private final boolean repeated;
+
+    /**
+     * Creates a new info about a lookahead specification.
+     * 
+     * @param production The name of the production that contains the lookahead, must not be <code>null</code>.
+     * @param line The line in the grammar file where the lookahead is declared or zero if unknown.
+     * @param explicit The flag whether the lookahead is declared in the grammar.
+     * @param syntactic The flag whether the lookahead specifies a nested expansion to scan.
+     * @param semantic The flag whether the lookahead specifies a boolean expression.
+     * @param depth The maximum number of tokens declared for the lookahead, may be {@link #UNBOUNDED}.
+     * @param scannedTokens The estimated maximum number of tokens scanned by the lookahead, may be
+     *            {@link #UNBOUNDED}.
+     * @param repeated The flag whether the lookahead is evaluated once per iteration of a loop.
+     */
+    public LookaheadInfo( String production, int line, boolean explicit, boolean syntactic, boolean semantic,
+                          int depth, int scannedTokens, boolean repeated )
+    {
+        this.production = production;
+        this.line = line;
+        this.explicit = explicit;
+        this.syntactic = syntactic;
+        this.semantic = semantic;
+        this.depth = depth;
+        this.scannedTokens = scannedTokens;
+        this.repeated = repeated;
+    }
+
+    /**
+     * Gets the name of the production that contains the lookahead.
+     * 
+     * @return The name of the production that contains the lookahead, never <code>null</code>.
+     */
+    public String getProduction()
+    {
+        return this.production;
+    }
+
+    /**
+     * Gets the line in the grammar file where the lookahead is declared.
+     * 
+     * @return The one-based line number or zero if unknown.
+     */
+    public int getLine()
+    {
+        return this.line;
+    }
+
+    /**
+     * Determines whether the lookahead is declared in the grammar. Implicit lookaheads use the number of tokens given
+     * by the global option <code>LOOKAHEAD</code> and are only reported if this value is greater than one.
+     * 
+     * @return <code>true</code> if the lookahead is explicit, <code>false</code> otherwise.
+     */
+    public boolean isExplicit()
+    {
+        return this.explicit;
+    }
+
+    /**
+     * Determines whether the lookahead specifies a nested expansion to scan, e.g. <code>LOOKAHEAD( Foo() )</code>.
+     * 
+     * @return <code>true</code> if the lookahead is syntactic, <code>false</code> otherwise.
+     */
+    public boolean isSyntactic()
+    {
+        return this.syntactic;
+    }
+
+    /**
+     * Determines whether the lookahead specifies a boolean expression, e.g. <code>LOOKAHEAD( { isFoo() } )</code>.
+     * 
+     * @return <code>true</code> if the lookahead is semantic, <code>false</code> otherwise.
+     */
+    public boolean isSemantic()
+    {
+        return this.semantic;
+    }
+
+    /**
+     * Gets the maximum number of tokens declared for the lookahead.
+     * 
+     * @return The declared number of tokens, may be {@link #UNBOUNDED} for a syntactic lookahead without explicit
+     *         limit.
+     */
+    public int getDepth()
+    {
+        return this.depth;
+    }
+
+    /**
+     * Gets the estimated maximum number of tokens scanned by a single evaluation of the lookahead. On success, these
+     * tokens are scanned again by the production that is chosen, i.e. this is also the number of rescanned tokens.
+     * 
+     * @return The estimated number of tokens, may be {@link #UNBOUNDED} if the scanned expansion contains a loop or
+     *         recursion.
+     */
+    public int getScannedTokens()
+    {
+        return this.scannedTokens;
+    }
+
+    /**
+     * Determines whether the lookahead guards the body of a loop and is hence evaluated once per iteration.
+     * 
+     * @return <code>true</code> if the lookahead is evaluated repeatedly, <code>false</code> otherwise.
+     */
+    public boolean isRepeated()
+    {
+        return this.repeated;
+    }
+
+    /**
+     * Gets a string representation of this bean. This value is for debugging purposes only.
+     * 
+     * @return A string representation of this bean.
+     */
+    public String toString()
+    {
+        return this.production + ":" + this.line + ", explicit=" + this.explicit + ", syntactic=" + this.syntactic
+            + ", semantic=" + this.semantic + ", depth=" + this.depth + ", scanned=" + this.scannedTokens
+            + ", repeated=" + this.repeated;
+    }
+
+}
@@ -0,0 +1,596 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.ResourceBundle;
+import java.util.Set;
+
+import org.apache.maven.doxia.sink.Sink;
+import org.apache.maven.doxia.siterenderer.Renderer;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.reporting.AbstractMavenReport;
+import org.apache.maven.reporting.MavenReportException;
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Analyzes the explicit lookahead specifications of the JavaCC grammar files and generates a site report that ranks
+ * them by their estimated cost. For each syntactic, semantic or numeric lookahead, the report lists the production,
+ * the declared depth and the estimated number of tokens that the generated parser scans (and on success rescans) in
+ * the worst case. Lookaheads guarding a loop are flagged since they are evaluated once per iteration. Finally, the
+ * ambiguity warnings reported by JavaCC according to the parameters {@link #choiceAmbiguityCheck} and
+ * {@link #otherAmbiguityCheck} are included. If the global lookahead given by {@link #lookAhead} or the grammar
+ * option <code>LOOKAHEAD</code> is greater than one, the choice points without explicit lookahead are ranked as well.
+ * JavaCC only prints these warnings to the console, so each grammar file is analyzed in a forked JVM whose console
+ * output is captured.
+ * 
+ * @goal lookahead-report
+ * @execute phase=generate-sources
+ * @threadSafe
+ * @since 2.7
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+public class LookaheadReportMojo
+    extends AbstractMavenReport
+{
+
+    // ----------------------------------------------------------------------
+    // Mojo Parameters
+    // ----------------------------------------------------------------------
+
+    /**
+     * The current Maven project.
+     * 
+     * @parameter expression="${project}"
+     * @required
+     * @readonly
+     */
+    private MavenProject project;
+
+    /**
+     * The site renderer.
+     * 
+     * @component
+     */
+    private Renderer siteRenderer;
+
+    /**
+     * The directories where the JavaCC grammar files (<code>*.jj</code>) are located. By default, the directories
+     * <code>${basedir}/src/main/javacc</code>, <code>${project.build.directory}/generated-sources/jjtree</code>
+     * and <code>${project.build.directory}/generated-sources/jtb</code> are scanned for grammar files to analyze.
+     * 
+     * @parameter
+     */
+    private File[] sourceDirectories;
+
+    /**
+     * The default source directory for hand-crafted grammar files.
+     * 
+     * @parameter default-value="${basedir}/src/main/javacc"
+     * @readonly
+     */
+    private File defaultGrammarDirectoryJavaCC;
+
+    /**
+     * The default source directory for grammar files generated by JJTree.
+     * 
+     * @parameter default-value="${project.build.directory}/generated-sources/jjtree"
+     * @readonly
+     */
+    private File defaultGrammarDirectoryJJTree;
+
+    /**
+     * The default source directory for grammar files generated by JTB.
+     * 
+     * @parameter default-value="${project.build.directory}/generated-sources/jtb"
+     * @readonly
+     */
+    private File defaultGrammarDirectoryJTB;
+
+    /**
+     * The directory where JavaCC saves the parser files generated during the analysis. These files are not used and
+     * the directory is deleted after the report has been generated.
+     * 
+     * @parameter default-value="${project.build.directory}/javacc-lookahead"
+     * @readonly
+     */
+    private File tempDirectory;
+
+    /**
+     * The destination directory where the report is saved. Note that this parameter is only relevant if the goal is
+     * run from the command line or from the default build lifecycle. If the goal is run indirectly as part of a site
+     * generation, the output directory configured in the Maven Site Plugin is used instead.
+     * 
+     * @parameter expression="${outputDirectory}" default-value="${project.reporting.outputDirectory}"
+     */
+    private File outputDirectory;
+
+    /**
+     * The file encoding to use for reading the grammar files.
+     * 
+     * @parameter expression="${grammarEncoding}" default-value="${project.build.sourceEncoding}"
+     */
+    private String grammarEncoding;
+
+    /**
+     * This is the number of tokens considered in checking choices of the form "A | B | ..." for ambiguity. Default
+     * value is <code>2</code>.
+     * 
+     * @parameter expression="${choiceAmbiguityCheck}"
+     */
+    private Integer choiceAmbiguityCheck;
+
+    /**
+     * This is the number of tokens considered in checking all other kinds of choices (i.e., of the forms "(A)*",
+     * "(A)+", and "(A)?") for ambiguity. Default value is <code>1</code>.
+     * 
+     * @parameter expression="${otherAmbiguityCheck}"
+     */
+    private Integer otherAmbiguityCheck;
+
+    /**
+     * The number of tokens to look ahead before making a decision at a choice point during parsing. If this value is
+     * greater than one, the report also lists the choice points without explicit lookahead since the generated parser
+     * scans this number of tokens there. By default, the value of the option <code>LOOKAHEAD</code> given in the
+     * grammar file is used, i.e. <code>1</code> unless specified otherwise.
+     * 
+     * @parameter expression="${lookAhead}"
+     */
+    private Integer lookAhead;
+
+    /**
+     * Get the maven project.
+     * 
+     * @see org.apache.maven.reporting.AbstractMavenReport#getProject()
+     * @return The current Maven project.
+     */
+    protected MavenProject getProject()
+    {
+        return this.project;
+    }
+
+    /**
+     * Get the site renderer.
+     * 
+     * @see org.apache.maven.reporting.AbstractMavenReport#getSiteRenderer()
+     * @return The site renderer.
+     */
+    protected Renderer getSiteRenderer()
+    {
+        return this.siteRenderer;
+    }
+
+    /**
+     * Get the output directory of the report if run directly from the command line.
+     * 
+     * @see org.apache.maven.reporting.AbstractMavenReport#getOutputDirectory()
+     * @return The report output directory.
+     */
+    protected String getOutputDirectory()
+    {
+        return this.outputDirectory.getAbsolutePath();
+    }
+
+    /**
+     * Get the source directories that should be scanned for grammar files.
+     * 
+     * @return The source directories that should be scanned for grammar files, never <code>null</code>.
+     */
+    private File[] getSourceDirectories()
+    {
+        Set directories = new LinkedHashSet();
+        if ( this.sourceDirectories != null && this.sourceDirectories.length > 0 )
+        {
+            directories.addAll( Arrays.asList( this.sourceDirectories ) );
+        }
+        else
+        {
+            if ( this.defaultGrammarDirectoryJavaCC != null )
+            {
+                directories.add( this.defaultGrammarDirectoryJavaCC );
+            }
+            if ( this.defaultGrammarDirectoryJJTree != null )
+            {
+                directories.add( this.defaultGrammarDirectoryJJTree );
+            }
+            if ( this.defaultGrammarDirectoryJTB != null )
+            {
+                directories.add( this.defaultGrammarDirectoryJTB );
+            }
+        }
+        return (File[]) directories.toArray( new File[directories.size()] );
+    }
+
+    // ----------------------------------------------------------------------
+    // public methods
+    // ----------------------------------------------------------------------
+
+    /**
+     * @see org.apache.maven.reporting.MavenReport#getName(java.util.Locale)
+     * @param locale The locale to use for this report.
+     * @return The name of this report.
+     */
+    public String getName( Locale locale )
+    {
+        return getBundle( locale ).getString( "report.lookahead.name" );
+    }
+
+    /**
+     * @see org.apache.maven.reporting.MavenReport#getDescription(java.util.Locale)
+     * @param locale The locale to use for this report.
+     * @return The description of this report.
+     */
+    public String getDescription( Locale locale )
+    {
+        return getBundle( locale ).getString( "report.lookahead.short.description" );
+    }
+
+    /**
+     * @see org.apache.maven.reporting.MavenReport#getOutputName()
+     * @return The name of the main report file.
+     */
+    public String getOutputName()
+    {
+        return "lookahead-report";
+    }
+
+    /**
+     * @see org.apache.maven.reporting.MavenReport#canGenerateReport()
+     * @return <code>true</code> if the configured source directories are not empty, <code>false</code> otherwise.
+     */
+    public boolean canGenerateReport()
+    {
+        File sourceDirs[] = getSourceDirectories();
+        for ( int i = 0; i < sourceDirs.length; i++ )
+        {
+            File sourceDir = sourceDirs[i];
+            String[] files = sourceDir.list();
+            if ( files != null && files.length > 0 )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Run the actual report.
+     * 
+     * @param locale The locale to use for this report.
+     * @throws MavenReportException If the report generation failed.
+     */
+    public void executeReport( Locale locale )
+        throws MavenReportException
+    {
+        ResourceBundle bundle = getBundle( locale );
+        Sink sink = getSink();
+
+        createReportHeader( bundle, sink );
+
+        try
+        {
+            File[] sourceDirs = getSourceDirectories();
+            for ( int j = 0; j < sourceDirs.length; j++ )
+            {
+                File sourceDir = sourceDirs[j];
+                GrammarInfo[] grammarInfos = scanForGrammars( sourceDir );
+
+                if ( grammarInfos == null )
+                {
+                    getLog().debug( "Skipping non-existing source directory: " + sourceDir );
+                }
+                else
+                {
+                    for ( int i = 0; i < grammarInfos.length; i++ )
+                    {
+                        GrammarInfo grammarInfo = grammarInfos[i];
+                        File grammarFile = grammarInfo.getGrammarFile();
+
+                        LookaheadAnalyzer analyzer = new LookaheadAnalyzer();
+                        analyzer.setLog( getLog() );
+                        try
+                        {
+                            analyzer.analyze( newJavaCC( grammarFile ) );
+                        }
+                        catch ( Exception e )
+                        {
+                            throw new MavenReportException( "Failed to analyze lookaheads: " + grammarFile, e );
+                        }
+
+                        createGrammarSection( bundle, sink, grammarInfo, analyzer );
+                    }
+                }
+            }
+        }
+        finally
+        {
+            deleteTempDirectory();
+        }
+
+        createReportFooter( sink );
+        sink.flush();
+        sink.close();
+    }
+
+    /**
+     * Create the header and title for the HTML report page.
+     * 
+     * @param bundle The resource bundle with the text.
+     * @param sink The sink for writing to the main report file.
+     */
+    private void createReportHeader( ResourceBundle bundle, Sink sink )
+    {
+        sink.head();
+        sink.title();
+        sink.text( bundle.getString( "report.lookahead.title" ) );
+        sink.title_();
+        sink.head_();
+
+        sink.body();
+
+        sink.section1();
+        sink.sectionTitle1();
+        sink.text( bundle.getString( "report.lookahead.title" ) );
+        sink.sectionTitle1_();
+        sink.text( bundle.getString( "report.lookahead.description" ) );
+        sink.section1_();
+    }
+
+    /**
+     * Create the section with the ranked lookaheads and the ambiguity warnings for a grammar file.
+     * 
+     * @param bundle The resource bundle with the text.
+     * @param sink The sink for writing to the main report file.
+     * @param grammarInfo The grammar file that has been analyzed.
+     * @param analyzer The analyzer holding the results for the grammar file.
+     */
+    private void createGrammarSection( ResourceBundle bundle, Sink sink, GrammarInfo grammarInfo,
+                                       LookaheadAnalyzer analyzer )
+    {
+        sink.section2();
+        sink.sectionTitle2();
+        sink.text( grammarInfo.getRelativeGrammarFile().replace( '\\', '/' ) );
+        sink.sectionTitle2_();
+
+        LookaheadInfo[] lookaheads = analyzer.getLookaheads();
+        if ( lookaheads.length <= 0 )
+        {
+            sink.paragraph();
+            sink.text( bundle.getString( "report.lookahead.none" ) );
+            sink.paragraph_();
+        }
+        else
+        {
+            sink.table();
+            sink.tableRow();
+            createHeaderCell( sink, bundle.getString( "report.lookahead.table.rank" ) );
+            createHeaderCell( sink, bundle.getString( "report.lookahead.table.production" ) );
+            createHeaderCell( sink, bundle.getString( "report.lookahead.table.line" ) );
+            createHeaderCell( sink, bundle.getString( "report.lookahead.table.kind" ) );
+            createHeaderCell( sink, bundle.getString( "report.lookahead.table.depth" ) );
+            createHeaderCell( sink, bundle.getString( "report.lookahead.table.scanned" ) );
+            createHeaderCell( sink, bundle.getString( "report.lookahead.table.repeated" ) );
+            sink.tableRow_();
+            for ( int i = 0; i < lookaheads.length; i++ )
+            {
+                LookaheadInfo lookahead = lookaheads[i];
+                sink.tableRow();
+                createCell( sink, String.valueOf( i + 1 ) );
+                createCell( sink, lookahead.getProduction() );
+                createCell( sink, ( lookahead.getLine() > 0 ) ? String.valueOf( lookahead.getLine() ) : "" );
+                createCell( sink, getKind( bundle, lookahead ) );
+                createCell( sink, formatTokens( bundle, lookahead.getDepth() ) );
+                createCell( sink, formatTokens( bundle, lookahead.getScannedTokens() ) );
+                createCell( sink, lookahead.isRepeated() ? bundle.getString( "report.lookahead.yes" ) : "" );
+                sink.tableRow_();
+            }
+            sink.table_();
+        }
+
+        String[] warnings = analyzer.getWarnings();
+        if ( warnings.length > 0 )
+        {
+            sink.paragraph();
+            sink.bold();
+            sink.text( bundle.getString( "report.lookahead.warnings" ) );
+            sink.bold_();
+            sink.paragraph_();
+            sink.list();
+            for ( int i = 0; i < warnings.length; i++ )
+            {
+                sink.listItem();
+                sink.text( warnings[i] );
+                sink.listItem_();
+            }
+            sink.list_();
+        }
+
+        sink.section2_();
+    }
+
+    /**
+     * Create a table header cell with the specified text.
+     * 
+     * @param sink The sink for writing to the main report file.
+     * @param text The text of the cell.
+     */
+    private void createHeaderCell( Sink sink, String text )
+    {
+        sink.tableHeaderCell();
+        sink.text( text );
+        sink.tableHeaderCell_();
+    }
+
+    /**
+     * Create a table cell with the specified text.
+     * 
+     * @param sink The sink for writing to the main report file.
+     * @param text The text of the cell.
+     */
+    private void createCell( Sink sink, String text )
+    {
+        sink.tableCell();
+        sink.text( text );
+        sink.tableCell_();
+    }
+
+    /**
+     * Gets the localized kind of the specified lookahead.
+     * 
+     * @param bundle The resource bundle with the text.
+     * @param lookahead The lookahead to describe.
+     * @return The kind of the lookahead, never <code>null</code>.
+     */
+    private String getKind( ResourceBundle bundle, LookaheadInfo lookahead )
+    {
+        if ( lookahead.isSyntactic() && lookahead.isSemantic() )
+        {
+            return bundle.getString( "report.lookahead.kind.syntactic" ) + ", "
+                + bundle.getString( "report.lookahead.kind.semantic" );
+        }
+        else if ( lookahead.isSyntactic() )
+        {
+            return bundle.getString( "report.lookahead.kind.syntactic" );
+        }
+        else if ( lookahead.isSemantic() )
+        {
+            return bundle.getString( "report.lookahead.kind.semantic" );
+        }
+        else if ( !lookahead.isExplicit() )
+        {
+            return bundle.getString( "report.lookahead.kind.global" );
+        }
+        return bundle.getString( "report.lookahead.kind.numeric" );
+    }
+
+    /**
+     * Formats the specified number of tokens.
+     * 
+     * @param bundle The resource bundle with the text.
+     * @param tokens The number of tokens, may be {@link LookaheadInfo#UNBOUNDED}.
+     * @return The formatted number of tokens, never <code>null</code>.
+     */
+    private String formatTokens( ResourceBundle bundle, int tokens )
+    {
+        if ( tokens == LookaheadInfo.UNBOUNDED )
+        {
+            return bundle.getString( "report.lookahead.unbounded" );
+        }
+        return String.valueOf( tokens );
+    }
+
+    /**
+     * Create the HTML footer for the report page.
+     * 
+     * @param sink The sink to write the HTML report page.
+     */
+    private void createReportFooter( Sink sink )
+    {
+        sink.body_();
+    }
+
+    /**
+     * Creates a new facade to invoke JavaCC for the analysis of the specified grammar file.
+     * 
+     * @param grammarFile The grammar file to analyze, must not be <code>null</code>.
+     * @return The facade for the tool invocation, never <code>null</code>.
+     */
+    private JavaCC newJavaCC( File grammarFile )
+    {
+        JavaCC javacc = new JavaCC();
+        javacc.setLog( getLog() );
+        javacc.setInputFile( grammarFile );
+        javacc.setOutputDirectory( this.tempDirectory );
+        javacc.setGrammarEncoding( this.grammarEncoding );
+        javacc.setChoiceAmbiguityCheck( this.choiceAmbiguityCheck );
+        javacc.setOtherAmbiguityCheck( this.otherAmbiguityCheck );
+        javacc.setLookAhead( this.lookAhead );
+        return javacc;
+    }
+
+    /**
+     * Deletes the directory with the parser files generated during the analysis.
+     */
+    private void deleteTempDirectory()
+    {
+        try
+        {
+            FileUtils.deleteDirectory( this.tempDirectory );
+        }
+        catch ( Exception e )
+        {
+            getLog().warn( "Failed to delete temporary directory: " + this.tempDirectory, e );
+        }
+    }
+
+    /**
+     * Searches the specified source directory to find grammar files that can be analyzed. Unlike JJDoc, JavaCC only
+     * accepts plain grammar files so the report relies on the grammar files generated by JJTree and JTB.
+     * 
+     * @param sourceDirectory The source directory to scan for grammar files.
+     * @return An array of grammar infos describing the found grammar files or <code>null</code> if the source
+     *         directory does not exist.
+     * @throws MavenReportException If there is a problem while scanning for .jj files.
+     */
+    private GrammarInfo[] scanForGrammars( File sourceDirectory )
+        throws MavenReportException
+    {
+        if ( !sourceDirectory.isDirectory() )
+        {
+            return null;
+        }
+
+        GrammarInfo[] grammarInfos;
+
+        getLog().debug( "Scanning for grammars: " + sourceDirectory );
+        try
+        {
+            String[] includes = { "**/*.jj", "**/*.JJ" };
+            GrammarDirectoryScanner scanner = new GrammarDirectoryScanner();
+            scanner.setSourceDirectory( sourceDirectory );
+            scanner.setIncludes( includes );
+            scanner.scan();
+            grammarInfos = scanner.getIncludedGrammars();
+        }
+        catch ( Exception e )
+        {
+            throw new MavenReportException( "Failed to scan for grammars: " + sourceDirectory, e );
+        }
+        getLog().debug( "Found grammars: " + Arrays.asList( grammarInfos ) );
+
+        return grammarInfos;
+    }
+
+    /**
+     * Get the resource bundle for the report text.
+     * 
+     * @param locale The locale to use for this report.
+     * @return The resource bundle.
+     */
+    private ResourceBundle getBundle( Locale locale )
+    {
+        return ResourceBundle.getBundle( "lookahead-report", locale, getClass().getClassLoader() );
+    }
+
+}
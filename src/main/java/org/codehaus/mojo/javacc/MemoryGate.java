@@ -0,0 +1,183 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.lang.reflect.Method;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Limits the estimated heap usage of the grammar files processed concurrently within this JVM. A job is admitted as
+ * long as the estimated heap of all admitted jobs stays within the budget of the caller. A single job is always
+ * admitted if no other job is running, so jobs exceeding the budget cannot block forever.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+class MemoryGate
+{
+
+    /**
+     * The gate shared by all mojo executions in this JVM.
+     */
+    private static final MemoryGate INSTANCE = new MemoryGate();
+
+    /**
+     * The estimated heap in bytes used by the admitted jobs, guarded by <code>this</code>.
+     */
+    private long used;
+
+    /**
+     * The number of admitted jobs, guarded by <code>this</code>.
+     */
+    private int jobs;
+
+    /**
+     * Gets the gate shared by all mojo executions in this JVM.
+     * 
+     * @return The shared gate, never <code>null</code>.
+     */
+    public static MemoryGate getInstance()
+    {
+        return INSTANCE;
+    }
+
+    /**
+     * Gets the heap budget for the specified share of the maximum heap of this JVM.
+     * 
+     * @param percent The share of the maximum heap in percent.
+     * @return The heap budget in bytes.
+     */
+    public static long getBudget( int percent )
+    {
+        return Runtime.getRuntime().maxMemory() / 100 * Math.max( 1, Math.min( 100, percent ) );
+    }
+
+    /**
+     * Gets the heap of this JVM that was in use after the most recent garbage collection, i.e. the sum of the
+     * collection usage of all heap memory pools. Unlike the current heap usage, this excludes the garbage that has
+     * been allocated since. The memory pool MX beans are accessed via reflection so that the plugin still runs on JVMs
+     * lacking them.
+     * 
+     * @return The live heap in bytes or <code>-1</code> if unknown.
+     */
+    public static long getLiveHeap()
+    {
+        try
+        {
+            List pools =
+                (List) Class.forName( "java.lang.management.ManagementFactory" ).getMethod( "getMemoryPoolMXBeans",
+                                                                                           new Class[0] )
+                    .invoke( null, new Object[0] );
+            Class poolClass = Class.forName( "java.lang.management.MemoryPoolMXBean" );
+            Method getType = poolClass.getMethod( "getType", new Class[0] );
+            Method getCollectionUsage = poolClass.getMethod( "getCollectionUsage", new Class[0] );
+            Method getUsed = Class.forName( "java.lang.management.MemoryUsage" ).getMethod( "getUsed", new Class[0] );
+            Object heap = Class.forName( "java.lang.management.MemoryType" ).getField( "HEAP" ).get( null );
+            long live = 0;
+            for ( Iterator it = pools.iterator(); it.hasNext(); )
+            {
+                Object pool = it.next();
+                if ( heap.equals( getType.invoke( pool, new Object[0] ) ) )
+                {
+                    Object usage = getCollectionUsage.invoke( pool, new Object[0] );
+                    if ( usage != null )
+                    {
+                        live += ( (Long) getUsed.invoke( usage, new Object[0] ) ).longValue();
+                    }
+                }
+            }
+            return live;
+        }
+        catch ( Exception e )
+        {
+            return -1;
+        }
+    }
+
+    /**
+     * Gets the number of garbage collections this JVM has performed so far, summed over all collectors.
+     * 
+     * @return The number of garbage collections or <code>-1</code> if unknown.
+     */
+    public static long getCollectionCount()
+    {
+        try
+        {
+            List collectors =
+                (List) Class.forName( "java.lang.management.ManagementFactory" )
+                    .getMethod( "getGarbageCollectorMXBeans", new Class[0] ).invoke( null, new Object[0] );
+            Method getCount =
+                Class.forName( "java.lang.management.GarbageCollectorMXBean" ).getMethod( "getCollectionCount",
+                                                                                         new Class[0] );
+            long count = 0;
+            for ( Iterator it = collectors.iterator(); it.hasNext(); )
+            {
+                count += Math.max( 0, ( (Long) getCount.invoke( it.next(), new Object[0] ) ).longValue() );
+            }
+            return count;
+        }
+        catch ( Exception e )
+        {
+            return -1;
+        }
+    }
+
+    /**
+     * Waits until the specified job can be admitted without exceeding the given budget.
+     * 
+     * @param memory The estimated heap of the job in bytes.
+     * @param budget The heap budget in bytes.
+     * @throws InterruptedException If the current thread was interrupted while waiting.
+     */
+    public synchronized void acquire( long memory, long budget )
+        throws InterruptedException
+    {
+        while ( this.jobs > 0 && this.used + memory > budget )
+        {
+            wait();
+        }
+        this.used += memory;
+        this.jobs++;
+    }
+
+    /**
+     * Releases the heap of a completed job.
+     * 
+     * @param memory The estimated heap of the job in bytes as passed to {@link #acquire(long, long)}.
+     */
+    public synchronized void release( long memory )
+    {
+        this.used -= memory;
+        this.jobs--;
+        notifyAll();
+    }
+
+    /**
+     * Gets the estimated heap used by the admitted jobs.
+     * 
+     * @return The estimated heap in bytes.
+     */
+    public synchronized long getUsed()
+    {
+        return this.used;
+    }
+
+}
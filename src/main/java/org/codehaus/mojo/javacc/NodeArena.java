@@ -0,0 +1,226 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+
+/**
+ * Generates a node factory for JJTree that allocates the tree nodes from reusable slabs. The factory class
+ * <code><i>ParserName</i>NodeArena</code> is meant to be passed to JJTree via the option NODE_FACTORY and creates
+ * instances of the generated node class <code><i>ParserName</i>ArenaNode</code>, which extends the generated class
+ * <code>SimpleNode</code> (hence the option NODE_CLASS is not supported). Instead of an own array of child nodes, each
+ * arena node stores the indices of its children in an <code>int[]</code> shared by all nodes of the arena. As the
+ * generated class <code>SimpleNode</code> accesses its children via the field <code>children</code>, it is changed to
+ * use <code>jjtGetChild()</code> and <code>jjtGetNumChildren()</code> instead.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+class NodeArena
+    extends NodeProcessor
+{
+
+    /**
+     * The simple name of the generated parser.
+     */
+    private String parserName;
+
+    /**
+     * The package of the generated parser.
+     */
+    private String parserPackage;
+
+    /**
+     * The package of the generated node files.
+     */
+    private String nodePackage;
+
+    /**
+     * The flag whether the nodes track their first and last token.
+     */
+    private boolean trackTokens;
+
+    /**
+     * The flag whether the node construction routines receive the parser object.
+     */
+    private boolean nodeUsesParser;
+
+    /**
+     * Sets the simple name of the generated parser.
+     * 
+     * @param value The simple name of the generated parser, e.g. "MyParser".
+     */
+    public void setParserName( String value )
+    {
+        this.parserName = value;
+    }
+
+    /**
+     * Sets the package of the generated parser.
+     * 
+     * @param value The package of the generated parser, may be <code>null</code> or empty for the default package.
+     */
+    public void setParserPackage( String value )
+    {
+        this.parserPackage = value;
+    }
+
+    /**
+     * Sets the package of the generated node files.
+     * 
+     * @param value The package of the node files, may be <code>null</code> to use the package of the parser.
+     */
+    public void setNodePackage( String value )
+    {
+        this.nodePackage = value;
+    }
+
+    /**
+     * Gets the package of the generated node files.
+     * 
+     * @return The package of the node files, never <code>null</code> but empty for the default package.
+     */
+    private String getNodePackage()
+    {
+        if ( this.nodePackage != null )
+        {
+            return this.nodePackage;
+        }
+        return ( this.parserPackage != null ) ? this.parserPackage : "";
+    }
+
+    /**
+     * Sets the flag whether the nodes track their first and last token. The tokens of recycled nodes are cleared.
+     * 
+     * @param value The value of the option TRACK_TOKENS, may be <code>null</code>.
+     */
+    public void setTrackTokens( Boolean value )
+    {
+        this.trackTokens = Boolean.TRUE.equals( value );
+    }
+
+    /**
+     * Sets the flag whether the node construction routines receive the parser object.
+     * 
+     * @param value The value of the option NODE_USES_PARSER, may be <code>null</code>.
+     */
+    public void setNodeUsesParser( Boolean value )
+    {
+        this.nodeUsesParser = Boolean.TRUE.equals( value );
+    }
+
+    /**
+     * Gets the simple name of the generated node factory.
+     * 
+     * @return The simple name of the node factory, never <code>null</code>.
+     */
+    private String getArenaClass()
+    {
+        return this.parserName + "NodeArena";
+    }
+
+    /**
+     * Gets the fully qualified name of the generated node factory, i.e. the value for the option NODE_FACTORY.
+     * 
+     * @return The fully qualified name of the node factory, never <code>null</code>.
+     */
+    public String getNodeFactory()
+    {
+        String pkg = getNodePackage();
+        return ( pkg.length() > 0 ) ? pkg + '.' + getArenaClass() : getArenaClass();
+    }
+
+    /**
+     * Gets the fully qualified name of the generated parser.
+     * 
+     * @return The fully qualified name of the parser, never <code>null</code>.
+     */
+    private String getParserClass()
+    {
+        return ( this.parserPackage != null && this.parserPackage.length() > 0 ) ? this.parserPackage + '.'
+                        + this.parserName : this.parserName;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void execute()
+        throws Exception
+    {
+        String arenaClass = getArenaClass();
+        String nodeClass = this.parserName + "ArenaNode";
+
+        SourceTemplate arena = new SourceTemplate( "NodeArena-Factory.template" );
+        arena.setPackage( getNodePackage() );
+        arena.setVariable( "parserName", this.parserName );
+        arena.setVariable( "arenaClass", arenaClass );
+        arena.setVariable( "nodeClass", nodeClass );
+        if ( this.nodeUsesParser )
+        {
+            SourceTemplate factory = new SourceTemplate( "NodeArena-Factory-Parser.template" );
+            factory.setVariable( "parserClass", getParserClass() );
+            factory.setVariable( "arenaClass", arenaClass );
+            factory.setVariable( "nodeClass", nodeClass );
+            arena.setVariable( "parserFactory", factory.render() );
+        }
+        else
+        {
+            arena.setVariable( "parserFactory", "" );
+        }
+        arena.write( getNodeFile( arenaClass + ".java" ) );
+
+        SourceTemplate node = new SourceTemplate( "NodeArena-Node.template" );
+        node.setPackage( getNodePackage() );
+        node.setVariable( "arenaClass", arenaClass );
+        node.setVariable( "nodeClass", nodeClass );
+        node.setVariable( "resetTokens", this.trackTokens ? "\n    firstToken = null;\n    lastToken = null;" : "" );
+        node.write( getNodeFile( nodeClass + ".java" ) );
+
+        File simpleNodeFile = getNodeFile( "SimpleNode.java" );
+        if ( !simpleNodeFile.isFile() )
+        {
+            getLog().debug( "Skipping update of SimpleNode, file not generated: " + simpleNodeFile );
+            return;
+        }
+        GeneratedSourceFile simpleNode = new GeneratedSourceFile( simpleNodeFile );
+        if ( simpleNode.contains( "i < children\\.length;" ) )
+        {
+            simpleNode.replace( "if \\(children != null\\) \\{(\\s*for \\(int i = 0; i < )children\\.length;",
+                                "if (jjtGetNumChildren() > 0) {$1jjtGetNumChildren();" );
+            if ( simpleNode.contains( "children\\[i\\]\\.jjtAccept" ) )
+            {
+                simpleNode.replace( "children\\[i\\]\\.jjtAccept", "jjtGetChild(i).jjtAccept" );
+            }
+            simpleNode.replace( "\\(SimpleNode\\)\\s*children\\[i\\]", "(SimpleNode)jjtGetChild(i)" );
+            simpleNode.save();
+        }
+    }
+
+    /**
+     * Gets a string representation of this processor. This value is for debugging purposes only.
+     * 
+     * @return A string representation of this processor.
+     */
+    public String toString()
+    {
+        return super.toString() + ", " + getNodeFactory() + ", " + this.trackTokens + ", " + this.nodeUsesParser;
+    }
+
+}
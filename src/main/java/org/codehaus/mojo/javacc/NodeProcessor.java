@@ -0,0 +1,84 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+
+/**
+ * Provides a base for the post-processors that enhance the tree node files generated by JJTree.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+abstract class NodeProcessor
+    extends SourceProcessor
+{
+
+    /**
+     * The absolute path to the directory with the node files generated by JJTree.
+     */
+    private File nodeDirectory;
+
+    /**
+     * Sets the absolute path to the directory with the node files generated by JJTree.
+     * 
+     * @param value The absolute path to the directory with the generated node files.
+     */
+    public void setNodeDirectory( File value )
+    {
+        if ( value != null && !value.isAbsolute() )
+        {
+            throw new IllegalArgumentException( "path is not absolute: " + value );
+        }
+        this.nodeDirectory = value;
+    }
+
+    /**
+     * Gets the absolute path to the directory with the node files generated by JJTree.
+     * 
+     * @return The absolute path to the directory with the generated node files.
+     */
+    protected File getNodeDirectory()
+    {
+        return this.nodeDirectory;
+    }
+
+    /**
+     * Gets the specified file in the directory with the generated node files.
+     * 
+     * @param name The name of the file, e.g. "SimpleNode.java", must not be <code>null</code>.
+     * @return The absolute path to the file, never <code>null</code>.
+     */
+    protected File getNodeFile( String name )
+    {
+        return new File( this.nodeDirectory, name );
+    }
+
+    /**
+     * Gets a string representation of this processor. This value is for debugging purposes only.
+     * 
+     * @return A string representation of this processor.
+     */
+    public String toString()
+    {
+        return String.valueOf( this.nodeDirectory );
+    }
+
+}
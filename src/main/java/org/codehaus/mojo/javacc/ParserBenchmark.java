@@ -0,0 +1,545 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+
+/**
+ * Measures the throughput of a compiled parser on a corpus of input files. Like JMH, the harness first runs some
+ * warmup iterations to let the JIT compiler settle and then measures the iterations that follow. The corpus files are
+ * read into memory beforehand so that only lexing and parsing are measured. The parser is created via its constructor
+ * taking an input stream and the start production is invoked via reflection.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+class ParserBenchmark
+{
+
+    /**
+     * The pattern used to locate the first BNF production of a grammar, i.e. a method-like declaration followed by a
+     * colon. The first group captures the name of the production.
+     */
+    private static final Pattern PRODUCTION =
+        Pattern.compile( "(?m)^[ \\t]*(?:(?:public|protected|private)[ \\t]+)?[\\w.$<>\\[\\]]+[ \\t]+(\\w+)[ \\t]*"
+            + "\\([^)]*\\)\\s*(?:throws[\\w.,\\s]+)?:" );
+
+    /**
+     * The logger used to output diagnostic messages.
+     */
+    private Log log;
+
+    /**
+     * The compiled parser class.
+     */
+    private Class parserClass;
+
+    /**
+     * The name of the production to invoke for each corpus file.
+     */
+    private String startProduction;
+
+    /**
+     * The encoding of the corpus files, may be <code>null</code> to use the platform default.
+     */
+    private String encoding;
+
+    /**
+     * The corpus files to parse.
+     */
+    private File[] corpusFiles;
+
+    /**
+     * The number of warmup iterations.
+     */
+    private int warmupIterations = 3;
+
+    /**
+     * The number of measured iterations.
+     */
+    private int iterations = 5;
+
+    /**
+     * The number of bytes in the corpus.
+     */
+    private long bytes;
+
+    /**
+     * The number of tokens consumed by the parser for the entire corpus.
+     */
+    private long tokens;
+
+    /**
+     * The milliseconds spent in the measured iterations.
+     */
+    private long millis;
+
+    /**
+     * The bytes allocated by the measured iterations or <code>-1</code> if unknown.
+     */
+    private long allocatedBytes = -1;
+
+    /**
+     * Sets the logger used to output diagnostic messages.
+     * 
+     * @param logger The logger used to output diagnostic messages, may be <code>null</code>.
+     */
+    public void setLog( Log logger )
+    {
+        this.log = logger;
+    }
+
+    /**
+     * Gets the logger used to output diagnostic messages.
+     * 
+     * @return The logger used to output diagnostic messages, never <code>null</code>.
+     */
+    protected Log getLog()
+    {
+        if ( this.log == null )
+        {
+            this.log = new SystemStreamLog();
+        }
+        return this.log;
+    }
+
+    /**
+     * Sets the compiled parser class.
+     * 
+     * @param value The compiled parser class, must not be <code>null</code>.
+     */
+    public void setParserClass( Class value )
+    {
+        this.parserClass = value;
+    }
+
+    /**
+     * Sets the name of the production to invoke for each corpus file. The production must not take parameters.
+     * 
+     * @param value The name of the start production, must not be <code>null</code>.
+     */
+    public void setStartProduction( String value )
+    {
+        this.startProduction = value;
+    }
+
+    /**
+     * Sets the encoding of the corpus files.
+     * 
+     * @param value The encoding of the corpus files, may be <code>null</code> to use the platform default.
+     */
+    public void setEncoding( String value )
+    {
+        this.encoding = value;
+    }
+
+    /**
+     * Sets the corpus files to parse.
+     * 
+     * @param value The corpus files to parse, must not be <code>null</code>.
+     */
+    public void setCorpusFiles( File[] value )
+    {
+        this.corpusFiles = value;
+    }
+
+    /**
+     * Sets the number of warmup iterations whose timing is discarded.
+     * 
+     * @param value The number of warmup iterations.
+     */
+    public void setWarmupIterations( int value )
+    {
+        this.warmupIterations = value;
+    }
+
+    /**
+     * Sets the number of measured iterations.
+     * 
+     * @param value The number of measured iterations, should be positive.
+     */
+    public void setIterations( int value )
+    {
+        this.iterations = value;
+    }
+
+    /**
+     * Gets the size of the corpus processed by a single iteration of the last run.
+     * 
+     * @return The number of bytes in the corpus.
+     */
+    public long getCorpusBytes()
+    {
+        return this.bytes;
+    }
+
+    /**
+     * Gets the number of tokens consumed by the parser for the corpus during a single iteration of the last run.
+     * 
+     * @return The number of tokens in the corpus.
+     */
+    public long getCorpusTokens()
+    {
+        return this.tokens;
+    }
+
+    /**
+     * Gets the throughput of the last run in megabytes of input per second.
+     * 
+     * @return The throughput in MB/s or <code>NaN</code> if unknown.
+     */
+    public double getMegabytesPerSecond()
+    {
+        return perSecond( this.bytes ) / ( 1024 * 1024 );
+    }
+
+    /**
+     * Gets the throughput of the last run in tokens per second.
+     * 
+     * @return The throughput in tokens/s or <code>NaN</code> if unknown.
+     */
+    public double getTokensPerSecond()
+    {
+        return perSecond( this.tokens );
+    }
+
+    /**
+     * Gets the bytes allocated per byte of input during the last run.
+     * 
+     * @return The allocated bytes per input byte or <code>NaN</code> if the JVM does not support allocation
+     *         accounting.
+     */
+    public double getAllocatedBytesPerByte()
+    {
+        if ( this.allocatedBytes < 0 || this.bytes <= 0 || this.iterations <= 0 )
+        {
+            return Double.NaN;
+        }
+        return this.allocatedBytes / (double) ( this.bytes * this.iterations );
+    }
+
+    /**
+     * Computes the rate of the specified per-iteration quantity over the measured iterations.
+     * 
+     * @param amount The amount processed by a single iteration.
+     * @return The amount per second or <code>NaN</code> if nothing has been measured.
+     */
+    private double perSecond( long amount )
+    {
+        if ( this.millis <= 0 || this.iterations <= 0 )
+        {
+            return Double.NaN;
+        }
+        return amount * (double) this.iterations * 1000 / this.millis;
+    }
+
+    /**
+     * Runs the benchmark.
+     * 
+     * @throws MojoExecutionException If the parser could not be invoked or failed to parse a corpus file.
+     */
+    public void run()
+        throws MojoExecutionException
+    {
+        byte[][] inputs = new byte[this.corpusFiles.length][];
+        this.bytes = 0;
+        for ( int i = 0; i < inputs.length; i++ )
+        {
+            try
+            {
+                inputs[i] = readBytes( this.corpusFiles[i] );
+            }
+            catch ( IOException e )
+            {
+                throw new MojoExecutionException( "Failed to read corpus file: " + this.corpusFiles[i], e );
+            }
+            this.bytes += inputs[i].length;
+        }
+
+        Harness harness = new Harness();
+
+        this.tokens = 0;
+        for ( int i = 0; i < inputs.length; i++ )
+        {
+            this.tokens += harness.parse( inputs[i], this.corpusFiles[i], true );
+        }
+
+        for ( int n = 0; n < this.warmupIterations; n++ )
+        {
+            for ( int i = 0; i < inputs.length; i++ )
+            {
+                harness.parse( inputs[i], this.corpusFiles[i], false );
+            }
+        }
+
+        long allocatedBefore = getAllocatedBytes();
+        long start = System.currentTimeMillis();
+        for ( int n = 0; n < this.iterations; n++ )
+        {
+            for ( int i = 0; i < inputs.length; i++ )
+            {
+                harness.parse( inputs[i], this.corpusFiles[i], false );
+            }
+        }
+        this.millis = System.currentTimeMillis() - start;
+        long allocatedAfter = getAllocatedBytes();
+        this.allocatedBytes = ( allocatedBefore >= 0 && allocatedAfter >= 0 ) ? allocatedAfter - allocatedBefore : -1;
+    }
+
+    /**
+     * Reads the specified file into memory.
+     * 
+     * @param file The file to read, must not be <code>null</code>.
+     * @return The contents of the file, never <code>null</code>.
+     * @throws IOException If the file could not be read.
+     */
+    private static byte[] readBytes( File file )
+        throws IOException
+    {
+        InputStream is = new FileInputStream( file );
+        try
+        {
+            byte[] data = new byte[(int) file.length()];
+            int offset = 0;
+            while ( offset < data.length )
+            {
+                int read = is.read( data, offset, data.length - offset );
+                if ( read < 0 )
+                {
+                    break;
+                }
+                offset += read;
+            }
+            return data;
+        }
+        finally
+        {
+            is.close();
+        }
+    }
+
+    /**
+     * Gets the number of bytes allocated so far by the current thread. The HotSpot specific extension of the thread
+     * MX bean is accessed via reflection so that the plugin still runs on JVMs lacking it.
+     * 
+     * @return The number of allocated bytes or <code>-1</code> if unknown.
+     */
+    static long getAllocatedBytes()
+    {
+        try
+        {
+            Object bean =
+                Class.forName( "java.lang.management.ManagementFactory" ).getMethod( "getThreadMXBean", new Class[0] )
+                    .invoke( null, new Object[0] );
+            Object id = Thread.class.getMethod( "getId", new Class[0] ).invoke( Thread.currentThread(), new Object[0] );
+            Method method =
+                Class.forName( "com.sun.management.ThreadMXBean" ).getMethod( "getThreadAllocatedBytes",
+                                                                             new Class[] { Long.TYPE } );
+            return ( (Long) method.invoke( bean, new Object[] { id } ) ).longValue();
+        }
+        catch ( Exception e )
+        {
+            return -1;
+        }
+    }
+
+    /**
+     * Finds the first BNF production declared in the specified grammar, which JavaCC regards as the start symbol.
+     * 
+     * @param grammar The contents of the grammar file, must not be <code>null</code>.
+     * @return The name of the first production or <code>null</code> if none could be found.
+     */
+    public static String findStartProduction( String grammar )
+    {
+        int end = grammar.indexOf( "PARSER_END" );
+        Matcher matcher = PRODUCTION.matcher( grammar );
+        if ( end >= 0 && matcher.find( end ) )
+        {
+            return matcher.group( 1 );
+        }
+        return null;
+    }
+
+    /**
+     * Gets a string representation of this benchmark. This value is for debugging purposes only.
+     * 
+     * @return A string representation of this benchmark.
+     */
+    public String toString()
+    {
+        return ( ( this.parserClass != null ) ? this.parserClass.getName() : "" ) + "."
+            + ( ( this.startProduction != null ) ? this.startProduction : "" ) + "(), "
+            + ( ( this.corpusFiles != null ) ? this.corpusFiles.length : 0 ) + " files, " + this.warmupIterations + "+"
+            + this.iterations + " iterations";
+    }
+
+    /**
+     * Holds the reflective handles used to drive the parser.
+     */
+    private class Harness
+    {
+
+        /**
+         * The constructor taking an input stream (and an encoding).
+         */
+        private final Constructor constructor;
+
+        /**
+         * The <code>ReInit()</code> method matching the constructor, used for static parsers.
+         */
+        private final Method reinit;
+
+        /**
+         * The start production.
+         */
+        private final Method production;
+
+        /**
+         * The field <code>token</code> of the parser which holds the current token.
+         */
+        private final Field token;
+
+        /**
+         * The flag whether the parser has been generated with the option STATIC.
+         */
+        private final boolean statik;
+
+        /**
+         * The parser instance used for static parsers.
+         */
+        private Object parser;
+
+        /**
+         * Creates a new harness for the enclosing benchmark.
+         * 
+         * @throws MojoExecutionException If the parser lacks one of the required members.
+         */
+        public Harness()
+            throws MojoExecutionException
+        {
+            Class[] types =
+                ( encoding != null ) ? new Class[] { InputStream.class, String.class }
+                                : new Class[] { InputStream.class };
+            try
+            {
+                this.constructor = parserClass.getConstructor( types );
+                this.reinit = parserClass.getMethod( "ReInit", types );
+                this.production = parserClass.getMethod( startProduction, new Class[0] );
+                this.token = parserClass.getField( "token" );
+            }
+            catch ( NoSuchMethodException e )
+            {
+                throw new MojoExecutionException( "The parser " + parserClass.getName()
+                    + " does not provide the constructor/production required for benchmarking: " + e.getMessage(), e );
+            }
+            catch ( NoSuchFieldException e )
+            {
+                throw new MojoExecutionException( "The parser " + parserClass.getName()
+                    + " does not provide the field 'token' required for benchmarking", e );
+            }
+            this.statik = Modifier.isStatic( this.token.getModifiers() );
+        }
+
+        /**
+         * Parses the specified input.
+         * 
+         * @param input The input to parse, must not be <code>null</code>.
+         * @param file The corpus file the input was read from, only used for error reporting.
+         * @param count The flag whether the consumed tokens should be counted.
+         * @return The number of consumed tokens or zero if not counted.
+         * @throws MojoExecutionException If the parser failed.
+         */
+        public long parse( byte[] input, File file, boolean count )
+            throws MojoExecutionException
+        {
+            Object[] args =
+                ( encoding != null ) ? new Object[] { new ByteArrayInputStream( input ), encoding }
+                                : new Object[] { new ByteArrayInputStream( input ) };
+            try
+            {
+                Object instance;
+                if ( !this.statik )
+                {
+                    instance = this.constructor.newInstance( args );
+                }
+                else if ( this.parser == null )
+                {
+                    this.parser = this.constructor.newInstance( args );
+                    instance = null;
+                }
+                else
+                {
+                    this.reinit.invoke( null, args );
+                    instance = null;
+                }
+                Object first = this.token.get( instance );
+                this.production.invoke( instance, new Object[0] );
+                return count ? countTokens( first ) : 0;
+            }
+            catch ( InvocationTargetException e )
+            {
+                throw new MojoExecutionException( "Failed to parse corpus file: " + file, e.getTargetException() );
+            }
+            catch ( Exception e )
+            {
+                throw new MojoExecutionException( "Failed to invoke parser " + parserClass.getName(), e );
+            }
+        }
+
+        /**
+         * Counts the tokens linked to the specified token, i.e. the tokens consumed by the parser.
+         * 
+         * @param first The token the parser started with, may be <code>null</code>.
+         * @return The number of consumed tokens.
+         * @throws Exception If the token chain could not be accessed.
+         */
+        private long countTokens( Object first )
+            throws Exception
+        {
+            long count = 0;
+            if ( first != null )
+            {
+                Field next = first.getClass().getField( "next" );
+                for ( Object t = next.get( first ); t != null; t = next.get( t ) )
+                {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+    }
+
+}
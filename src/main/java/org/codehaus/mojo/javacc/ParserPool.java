@@ -0,0 +1,86 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * Generates the class <code><i>ParserName</i>Pool</code> next to a non-static parser. The pool offers a
+ * <code>borrow()</code> method for each <code>ReInit()</code> method of the parser and hands out idle parsers reset via
+ * <code>ReInit()</code> instead of constructing a new parser, token manager and char stream for every input.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+class ParserPool
+    extends ParserProcessor
+{
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void execute()
+        throws Exception
+    {
+        File parserFile = getParserFile( getParserName() + ".java" );
+        if ( !parserFile.isFile() )
+        {
+            getLog().debug( "Skipping parser pool, no parser generated: " + parserFile );
+            return;
+        }
+
+        GeneratedSourceFile parser = new GeneratedSourceFile( parserFile );
+        if ( parser.contains( "\\bjj_initialized_once\\b" ) )
+        {
+            throw new MojoExecutionException( "The parser " + getParserName()
+                + " is static and cannot be pooled, set the parameter isStatic or the grammar option STATIC to false" );
+        }
+
+        StringBuffer borrowMethods = new StringBuffer( 2048 );
+        Pattern pattern = Pattern.compile( "public\\s+void\\s+ReInit\\(([^)]*)\\)" );
+        Matcher matcher = pattern.matcher( parser.getContents() );
+        while ( matcher.find() )
+        {
+            String parameters = matcher.group( 1 ).trim();
+            SourceTemplate borrow = new SourceTemplate( "ParserPool-Borrow.template" );
+            borrow.setVariable( "parserName", getParserName() );
+            borrow.setVariable( "parameters", parameters );
+            borrow.setVariable( "arguments", getArguments( parameters ) );
+            borrowMethods.append( borrow.render() );
+        }
+        if ( borrowMethods.length() <= 0 )
+        {
+            throw new IllegalStateException( "Unexpected source code in " + parserFile + ", no ReInit() method" );
+        }
+
+        String poolClass = getParserName() + "Pool";
+        SourceTemplate pool = new SourceTemplate( "ParserPool.template" );
+        pool.setPackage( getParserPackage() );
+        pool.setVariable( "parserName", getParserName() );
+        pool.setVariable( "poolClass", poolClass );
+        pool.setVariable( "borrowMethods", borrowMethods.toString() );
+        pool.write( getParserFile( poolClass + ".java" ) );
+    }
+
+}
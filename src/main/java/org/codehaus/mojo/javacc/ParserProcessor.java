@@ -0,0 +1,237 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Provides a base for the post-processors that enhance the parser files generated by JavaCC.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+abstract class ParserProcessor
+    extends SourceProcessor
+{
+
+    /**
+     * The absolute path to the directory with the parser files generated by JavaCC.
+     */
+    private File parserDirectory;
+
+    /**
+     * The simple name of the generated parser.
+     */
+    private String parserName;
+
+    /**
+     * The package of the generated parser.
+     */
+    private String parserPackage;
+
+    /**
+     * Sets the absolute path to the directory with the parser files generated by JavaCC.
+     * 
+     * @param value The absolute path to the directory with the generated parser files.
+     */
+    public void setParserDirectory( File value )
+    {
+        if ( value != null && !value.isAbsolute() )
+        {
+            throw new IllegalArgumentException( "path is not absolute: " + value );
+        }
+        this.parserDirectory = value;
+    }
+
+    /**
+     * Gets the absolute path to the directory with the parser files generated by JavaCC.
+     * 
+     * @return The absolute path to the directory with the generated parser files.
+     */
+    protected File getParserDirectory()
+    {
+        return this.parserDirectory;
+    }
+
+    /**
+     * Sets the simple name of the generated parser.
+     * 
+     * @param value The simple name of the generated parser, e.g. "MyParser".
+     */
+    public void setParserName( String value )
+    {
+        this.parserName = value;
+    }
+
+    /**
+     * Gets the simple name of the generated parser.
+     * 
+     * @return The simple name of the generated parser, e.g. "MyParser".
+     */
+    protected String getParserName()
+    {
+        return this.parserName;
+    }
+
+    /**
+     * Sets the package of the generated parser.
+     * 
+     * @param value The package of the generated parser, may be <code>null</code> or empty for the default package.
+     */
+    public void setParserPackage( String value )
+    {
+        this.parserPackage = value;
+    }
+
+    /**
+     * Gets the package of the generated parser.
+     * 
+     * @return The package of the generated parser, never <code>null</code> but empty for the default package.
+     */
+    protected String getParserPackage()
+    {
+        return ( this.parserPackage != null ) ? this.parserPackage : "";
+    }
+
+    /**
+     * Gets the specified file in the directory with the generated parser files.
+     * 
+     * @param name The name of the file, e.g. "Token.java", must not be <code>null</code>.
+     * @return The absolute path to the file, never <code>null</code>.
+     */
+    protected File getParserFile( String name )
+    {
+        return new File( this.parserDirectory, name );
+    }
+
+    /**
+     * Gets the token manager generated by JavaCC.
+     * 
+     * @return The absolute path to the token manager, never <code>null</code>.
+     */
+    protected File getTokenManagerFile()
+    {
+        return getParserFile( this.parserName + "TokenManager.java" );
+    }
+
+    /**
+     * Determines whether JavaCC generated one of its char streams. The char streams are not generated if the option
+     * USER_CHAR_STREAM is set and the token manager can then only access the token images via the interface
+     * <code>CharStream</code>.
+     * 
+     * @return <code>true</code> if the file <code>SimpleCharStream.java</code> or <code>JavaCharStream.java</code>
+     *         has been generated, <code>false</code> otherwise.
+     */
+    protected boolean isCharStreamGenerated()
+    {
+        return getParserFile( "SimpleCharStream.java" ).isFile() || getParserFile( "JavaCharStream.java" ).isFile();
+    }
+
+    /**
+     * Determines whether the specified token manager has been generated with the option STATIC.
+     * 
+     * @param tokenManager The token manager to check, must not be <code>null</code>.
+     * @return <code>true</code> if the token manager uses static members, <code>false</code> otherwise.
+     */
+    protected boolean isStatic( GeneratedSourceFile tokenManager )
+    {
+        return tokenManager.contains( "static\\s+protected\\s+Token\\s+jjFillToken\\(\\)" );
+    }
+
+    /**
+     * Gets the argument list to pass the parameters of a method declaration on to another method.
+     * 
+     * @param parameters The parameter declarations, e.g. "java.io.Reader stream, String encoding", must not be
+     *            <code>null</code>. Commas within type arguments like "Map&lt;String, Integer&gt; map" are not treated
+     *            as parameter separators.
+     * @return The names of the parameters, e.g. "stream, encoding", never <code>null</code>.
+     */
+    protected static String getArguments( String parameters )
+    {
+        StringBuffer arguments = new StringBuffer( parameters.length() );
+        String[] declarations = splitParameters( parameters );
+        for ( int i = 0; i < declarations.length; i++ )
+        {
+            String declaration = declarations[i].trim();
+            String[] tokens = declaration.substring( declaration.lastIndexOf( '>' ) + 1 ).trim().split( "\\s+" );
+            String name = tokens[tokens.length - 1];
+            int brackets = name.indexOf( '[' );
+            if ( brackets >= 0 )
+            {
+                name = name.substring( 0, brackets );
+            }
+            if ( name.length() > 0 )
+            {
+                if ( arguments.length() > 0 )
+                {
+                    arguments.append( ", " );
+                }
+                arguments.append( name );
+            }
+        }
+        return arguments.toString();
+    }
+
+    /**
+     * Splits the specified parameter declarations at the commas that are not nested within the angle brackets of type
+     * arguments.
+     * 
+     * @param parameters The parameter declarations to split, must not be <code>null</code>.
+     * @return The individual parameter declarations, never <code>null</code>.
+     */
+    private static String[] splitParameters( String parameters )
+    {
+        List declarations = new ArrayList();
+        int depth = 0;
+        int start = 0;
+        for ( int i = 0; i < parameters.length(); i++ )
+        {
+            char c = parameters.charAt( i );
+            if ( c == '<' )
+            {
+                depth++;
+            }
+            else if ( c == '>' )
+            {
+                depth--;
+            }
+            else if ( c == ',' && depth <= 0 )
+            {
+                declarations.add( parameters.substring( start, i ) );
+                start = i + 1;
+            }
+        }
+        declarations.add( parameters.substring( start ) );
+        return (String[]) declarations.toArray( new String[declarations.size()] );
+    }
+
+    /**
+     * Gets a string representation of this processor. This value is for debugging purposes only.
+     * 
+     * @return A string representation of this processor.
+     */
+    public String toString()
+    {
+        return this.parserDirectory + ", " + getParserPackage() + ", " + this.parserName;
+    }
+
+}
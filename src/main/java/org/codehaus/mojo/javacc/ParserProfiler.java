@@ -0,0 +1,177 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Instruments the parser generated by JavaCC to collect a profile of the productions and the syntactic lookahead. Each
+ * production method is renamed and replaced with a method of the original signature that counts the calls and the
+ * elapsed nanoseconds before it delegates to the renamed method. The lookahead methods <code>jj_2_*</code> and
+ * <code>jj_3*</code> count their calls. The counters are plain <code>long[]</code> indexed by the production or
+ * lookahead method and can be printed via the generated method <code>dumpProfile()</code>.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+class ParserProfiler
+    extends ParserProcessor
+{
+
+    /**
+     * The pattern matching the declaration of a production method, i.e. a method that throws
+     * <code>ParseException</code>. The groups are the indentation, the modifiers, the return type, the name, the
+     * parameters and the <code>throws</code> clause.
+     */
+    private static final Pattern PRODUCTION =
+        Pattern.compile( "(?m)^([ \\t]*)((?:static\\s+)?(?:final\\s+)?(?:(?:public|protected|private)\\s+)?"
+            + "(?:static\\s+)?(?:final\\s+)?)([\\w.$<>\\[\\], ?]+?)\\s+(\\w+)\\(([^)]*)\\)\\s*throws\\s+"
+            + "(ParseException\\b[^{;]*)\\{" );
+
+    /**
+     * The pattern matching the declaration of a lookahead method. The groups are the declaration and the name.
+     */
+    private static final Pattern LOOKAHEAD =
+        Pattern.compile( "((?:static\\s+)?private\\s+boolean\\s+(jj_[23]\\w*)\\([^)]*\\)\\s*\\{)" );
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void execute()
+        throws Exception
+    {
+        File parserFile = getParserFile( getParserName() + ".java" );
+        if ( !parserFile.isFile() )
+        {
+            getLog().debug( "Skipping parser profiling, no parser generated: " + parserFile );
+            return;
+        }
+
+        GeneratedSourceFile parser = new GeneratedSourceFile( parserFile );
+        if ( parser.contains( "\\bjjProfileCalls\\b" ) )
+        {
+            getLog().debug( "Skipping parser profiling, parser already instrumented: " + parserFile );
+            return;
+        }
+
+        List productions = new ArrayList();
+        String contents = parser.getContents();
+        StringBuffer buffer = new StringBuffer( contents.length() * 2 );
+        int end = 0;
+        Matcher matcher = PRODUCTION.matcher( contents );
+        while ( matcher.find() )
+        {
+            String name = matcher.group( 4 );
+            if ( name.startsWith( "jj" ) )
+            {
+                continue;
+            }
+            buffer.append( contents.substring( end, matcher.start() ) );
+            end = matcher.end();
+            appendProduction( buffer, productions.size(), matcher );
+            productions.add( name );
+        }
+        buffer.append( contents.substring( end ) );
+        contents = buffer.toString();
+
+        List lookaheads = new ArrayList();
+        buffer = new StringBuffer( contents.length() * 2 );
+        end = 0;
+        matcher = LOOKAHEAD.matcher( contents );
+        while ( matcher.find() )
+        {
+            buffer.append( contents.substring( end, matcher.end() ) );
+            end = matcher.end();
+            buffer.append( " jjProfileLookaheadCalls[" ).append( lookaheads.size() ).append( "]++;" );
+            lookaheads.add( matcher.group( 2 ) );
+        }
+        buffer.append( contents.substring( end ) );
+        parser.setContents( buffer.toString() );
+
+        SourceTemplate profile = new SourceTemplate( "ParserProfiler-Parser.template" );
+        profile.setVariable( "parserName", getParserName() );
+        profile.setVariable( "productionNames", toArrayInitializer( productions ) );
+        profile.setVariable( "productionCount", String.valueOf( productions.size() ) );
+        profile.setVariable( "lookaheadNames", toArrayInitializer( lookaheads ) );
+        profile.setVariable( "lookaheadCount", String.valueOf( lookaheads.size() ) );
+        parser.appendMember( profile.render() );
+        parser.save();
+    }
+
+    /**
+     * Appends the profiling wrapper and the renamed declaration of a production method.
+     * 
+     * @param buffer The buffer to append the code to, must not be <code>null</code>.
+     * @param index The index of the production in the counters.
+     * @param declaration The match of {@link #PRODUCTION} for the production method, must not be <code>null</code>.
+     */
+    private void appendProduction( StringBuffer buffer, int index, Matcher declaration )
+    {
+        String indent = declaration.group( 1 );
+        String modifiers = declaration.group( 2 );
+        String type = declaration.group( 3 );
+        String name = declaration.group( 4 );
+        String parameters = declaration.group( 5 );
+        String exceptions = declaration.group( 6 );
+
+        buffer.append( indent ).append( modifiers ).append( type ).append( ' ' ).append( name );
+        buffer.append( '(' ).append( parameters ).append( ") throws " ).append( exceptions ).append( "{\n" );
+        buffer.append( indent ).append( "  final long jjProfileStart = System.nanoTime();\n" );
+        buffer.append( indent ).append( "  try {\n" );
+        buffer.append( indent ).append( "    " ).append( "void".equals( type.trim() ) ? "" : "return " );
+        buffer.append( "jjProfiled_" ).append( name ).append( '(' ).append( getArguments( parameters ) );
+        buffer.append( ");\n" );
+        buffer.append( indent ).append( "  } finally {\n" );
+        buffer.append( indent ).append( "    jjProfileCalls[" ).append( index ).append( "]++;\n" );
+        buffer.append( indent ).append( "    jjProfileNanos[" ).append( index );
+        buffer.append( "] += System.nanoTime() - jjProfileStart;\n" );
+        buffer.append( indent ).append( "  }\n" );
+        buffer.append( indent ).append( "}\n\n" );
+
+        buffer.append( indent ).append( ( modifiers.indexOf( "static" ) >= 0 ) ? "static " : "" );
+        buffer.append( "private " ).append( type ).append( " jjProfiled_" ).append( name );
+        buffer.append( '(' ).append( parameters ).append( ") throws " ).append( exceptions ).append( '{' );
+    }
+
+    /**
+     * Creates the initializer for an array with the specified strings.
+     * 
+     * @param strings The strings to list, must not be <code>null</code>.
+     * @return The comma-separated and quoted strings, never <code>null</code>.
+     */
+    private static String toArrayInitializer( List strings )
+    {
+        StringBuffer buffer = new StringBuffer( strings.size() * 16 );
+        for ( int i = 0; i < strings.size(); i++ )
+        {
+            if ( i > 0 )
+            {
+                buffer.append( ", " );
+            }
+            buffer.append( '"' ).append( strings.get( i ) ).append( '"' );
+        }
+        return buffer.toString();
+    }
+
+}
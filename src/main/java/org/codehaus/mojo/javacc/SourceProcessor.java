@@ -0,0 +1,109 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+
+/**
+ * Provides a base for the post-processors that enhance the source files generated by the JavaCC related tools.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+abstract class SourceProcessor
+{
+
+    /**
+     * The logger used to output diagnostic messages.
+     */
+    private Log log;
+
+    /**
+     * Sets the logger used to output diagnostic messages.
+     * 
+     * @param logger The logger used to output diagnostic messages, may be <code>null</code>.
+     */
+    public void setLog( Log logger )
+    {
+        this.log = logger;
+    }
+
+    /**
+     * Gets the logger used to output diagnostic messages.
+     * 
+     * @return The logger used to output diagnostic messages, never <code>null</code>.
+     */
+    protected Log getLog()
+    {
+        if ( this.log == null )
+        {
+            this.log = new SystemStreamLog();
+        }
+        return this.log;
+    }
+
+    /**
+     * Gets the name of the processor.
+     * 
+     * @return The name of the processor, never <code>null</code>.
+     */
+    protected String getProcessorName()
+    {
+        String name = getClass().getName();
+        return name.substring( name.lastIndexOf( '.' ) + 1 );
+    }
+
+    /**
+     * Runs the processor using the previously set parameters.
+     * 
+     * @throws MojoExecutionException If the generated sources could not be processed.
+     */
+    public void run()
+        throws MojoExecutionException
+    {
+        try
+        {
+            if ( getLog().isDebugEnabled() )
+            {
+                getLog().debug( "Running " + getProcessorName() + ": " + this );
+            }
+            execute();
+        }
+        catch ( MojoExecutionException e )
+        {
+            throw e;
+        }
+        catch ( Exception e )
+        {
+            throw new MojoExecutionException( "Failed to execute " + getProcessorName() + ": " + e.getMessage(), e );
+        }
+    }
+
+    /**
+     * Runs the processor using the previously set parameters.
+     * 
+     * @throws Exception If the generated sources could not be processed.
+     */
+    protected abstract void execute()
+        throws Exception;
+
+}
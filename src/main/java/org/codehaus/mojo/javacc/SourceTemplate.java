@@ -0,0 +1,158 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
+import org.codehaus.plexus.util.StringUtils;
+
+/**
+ * Renders Java source code from a template bundled with the plugin. Templates are plain text resources next to this
+ * class whose placeholders of the form <code>${name}</code> are replaced with the values of the corresponding
+ * variables.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+class SourceTemplate
+{
+
+    /**
+     * The name of the template resource, relative to this class.
+     */
+    private final String name;
+
+    /**
+     * The variables used to replace the placeholders, mapping strings to strings.
+     */
+    private final Map variables = new HashMap();
+
+    /**
+     * Creates a new template.
+     * 
+     * @param name The name of the template resource, relative to this class, must not be <code>null</code>.
+     */
+    public SourceTemplate( String name )
+    {
+        this.name = name;
+    }
+
+    /**
+     * Sets the value of the specified variable.
+     * 
+     * @param variable The name of the variable, must not be <code>null</code>.
+     * @param value The value of the variable, may be <code>null</code> to use an empty string.
+     * @return This template for chaining, never <code>null</code>.
+     */
+    public SourceTemplate setVariable( String variable, String value )
+    {
+        this.variables.put( variable, ( value != null ) ? value : "" );
+        return this;
+    }
+
+    /**
+     * Sets the package declaration of the rendered source file. The variable <code>package</code> is set to the
+     * complete declaration or to an empty string for the default package.
+     * 
+     * @param packageName The name of the package, may be <code>null</code> or empty for the default package.
+     * @return This template for chaining, never <code>null</code>.
+     */
+    public SourceTemplate setPackage( String packageName )
+    {
+        if ( packageName != null && packageName.length() > 0 )
+        {
+            return setVariable( "package", "package " + packageName + ";\n" );
+        }
+        return setVariable( "package", "" );
+    }
+
+    /**
+     * Sets the <code>static</code> modifier of the rendered members. The variable <code>static</code> is set to
+     * <code>"static "</code> or to an empty string.
+     * 
+     * @param isStatic <code>true</code> if the rendered members should be static, <code>false</code> otherwise.
+     * @return This template for chaining, never <code>null</code>.
+     */
+    public SourceTemplate setStatic( boolean isStatic )
+    {
+        return setVariable( "static", isStatic ? "static " : "" );
+    }
+
+    /**
+     * Renders the template.
+     * 
+     * @return The rendered source code, never <code>null</code>.
+     * @throws IOException If the template could not be read.
+     */
+    public String render()
+        throws IOException
+    {
+        InputStream is = SourceTemplate.class.getResourceAsStream( this.name );
+        if ( is == null )
+        {
+            throw new IOException( "Missing source template: " + this.name );
+        }
+        String template;
+        try
+        {
+            template = IOUtil.toString( is, "UTF-8" );
+        }
+        finally
+        {
+            IOUtil.close( is );
+        }
+        return StringUtils.interpolate( template, this.variables );
+    }
+
+    /**
+     * Renders the template to the specified file. The parent directory of the file is created if required.
+     * 
+     * @param file The absolute path to the output file, must not be <code>null</code>.
+     * @throws IOException If the template could not be rendered.
+     */
+    public void write( File file )
+        throws IOException
+    {
+        String source = render();
+        if ( file.getParentFile() != null )
+        {
+            file.getParentFile().mkdirs();
+        }
+        // NOTE: JavaCC uses the platform default encoding to write files, so must we
+        FileUtils.fileWrite( file.getAbsolutePath(), source );
+    }
+
+    /**
+     * Gets a string representation of this template. This value is for debugging purposes only.
+     * 
+     * @return A string representation of this template.
+     */
+    public String toString()
+    {
+        return this.name + " " + this.variables;
+    }
+
+}
@@ -0,0 +1,116 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+
+/**
+ * Enhances the parser files generated by JavaCC such that the token manager collects statistics about the scanned
+ * tokens. The processor requires the option COMMON_TOKEN_ACTION and adds the method <code>CommonTokenAction()</code>
+ * to the token manager which records each token in the generated class <code><i>ParserName</i>TokenStatistics</code>.
+ * The class counts the tokens per kind, the characters of their images and the elapsed time, and offers static
+ * accessors for these counters. If the grammar already defines <code>CommonTokenAction()</code>, the method is renamed
+ * and still called before the token is recorded.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+class TokenStatistics
+    extends ParserProcessor
+{
+
+    /**
+     * The new name for a user-defined <code>CommonTokenAction()</code> method.
+     */
+    private static final String USER_ACTION = "jjUserCommonTokenAction";
+
+    /**
+     * The pattern matching the declaration of a user-defined <code>CommonTokenAction()</code> method.
+     */
+    private static final String USER_DECLARATION = "\\bvoid\\s+CommonTokenAction\\s*\\(";
+
+    /**
+     * The number of tokens between two samples of the clock, must be a power of two.
+     */
+    private static final int SAMPLE_INTERVAL = 256;
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void execute()
+        throws Exception
+    {
+        File tokenManagerFile = getTokenManagerFile();
+        if ( !tokenManagerFile.isFile() )
+        {
+            getLog().debug( "Skipping token statistics, no token manager generated: " + tokenManagerFile );
+            return;
+        }
+
+        GeneratedSourceFile tokenManager = new GeneratedSourceFile( tokenManagerFile );
+        if ( tokenManager.contains( "TokenStatistics\\.count\\(" ) )
+        {
+            getLog().debug( "Skipping token statistics, token manager already enhanced: " + tokenManagerFile );
+            return;
+        }
+        if ( !tokenManager.contains( "CommonTokenAction\\(matchedToken\\);" ) )
+        {
+            getLog().warn( "Skipping token statistics for " + getParserName()
+                               + ", the token manager was not generated with the option commonTokenAction" );
+            return;
+        }
+
+        String statisticsClass = getParserName() + "TokenStatistics";
+
+        String userAction = "";
+        if ( tokenManager.contains( USER_DECLARATION ) )
+        {
+            tokenManager.replace( USER_DECLARATION, "void " + USER_ACTION + "(" );
+            userAction = USER_ACTION + "(t);\n   ";
+        }
+
+        String pendingImageLength = "0";
+        if ( isCharStreamGenerated() )
+        {
+            // the image is null if created lazily but the stream still holds the token as CommonTokenAction() is
+            // called right after the token has been matched
+            pendingImageLength =
+                "((input_stream.bufpos >= input_stream.tokenBegin) ? input_stream.bufpos - input_stream.tokenBegin + 1"
+                    + " : input_stream.bufsize - input_stream.tokenBegin + input_stream.bufpos + 1)";
+        }
+
+        SourceTemplate action = new SourceTemplate( "TokenStatistics-TokenManager.template" );
+        action.setStatic( isStatic( tokenManager ) );
+        action.setVariable( "statisticsClass", statisticsClass );
+        action.setVariable( "userAction", userAction );
+        action.setVariable( "pendingImageLength", pendingImageLength );
+        tokenManager.insertBefore( "(static\\s+)?protected\\s+Token\\s+jjFillToken\\(\\)", action.render() );
+        tokenManager.save();
+
+        SourceTemplate statistics = new SourceTemplate( "TokenStatistics.template" );
+        statistics.setPackage( getParserPackage() );
+        statistics.setVariable( "parserName", getParserName() );
+        statistics.setVariable( "statisticsClass", statisticsClass );
+        statistics.setVariable( "sampleInterval", Integer.toString( SAMPLE_INTERVAL ) );
+        statistics.setVariable( "sampleMask", Integer.toString( SAMPLE_INTERVAL - 1 ) );
+        statistics.write( getParserFile( statisticsClass + ".java" ) );
+    }
+
+}
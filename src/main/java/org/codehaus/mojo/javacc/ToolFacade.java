@@ -19,6 +19,8 @@ package org.codehaus.mojo.javacc;
  * under the License.
  */
 
+import java.io.File;
+
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugin.logging.Log;
@@ -73,6 +75,16 @@ abstract class ToolFacade
         return name.substring( name.lastIndexOf( '.' ) + 1 );
     }
 
+    /**
+     * Gets the grammar file processed by the tool.
+     * 
+     * @return The grammar file processed by the tool or <code>null</code> if not applicable.
+     */
+    protected File getInputFile()
+    {
+        return null;
+    }
+
     /**
      * Runs the tool using the previously set parameters.
      * 
@@ -82,7 +94,8 @@ abstract class ToolFacade
     public void run()
         throws MojoExecutionException, MojoFailureException
     {
-        int exitCode;
+        int exitCode = -1;
+        FlightEvent event = FlightEvent.begin( FlightEvent.TOOL_RUN );
         try
         {
             if ( getLog().isDebugEnabled() )
@@ -95,6 +108,17 @@ abstract class ToolFacade
         {
             throw new MojoExecutionException( "Failed to execute " + getToolName(), e );
         }
+        finally
+        {
+            if ( event.isEnabled() )
+            {
+                File inputFile = getInputFile();
+                event.set( 0, getToolName() );
+                event.set( 1, ( inputFile != null ) ? inputFile.getPath() : null );
+                event.set( 2, exitCode );
+                event.commit();
+            }
+        }
         if ( exitCode != 0 )
         {
             throw new MojoFailureException( getToolName() + " reported exit code " + exitCode + ": " + this );
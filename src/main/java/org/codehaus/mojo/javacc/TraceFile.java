@@ -0,0 +1,327 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * Writes spans to a trace file in the Chrome trace event format, which can be viewed with <code>chrome://tracing</code>
+ * or Perfetto. Each thread of the Maven JVM gets its own track within the process "Maven" and each forked JVM gets its
+ * own process track. All mojo executions within the same JVM that are configured with the same trace file append to
+ * it, the file is only truncated when it is first used by this JVM. Since the events are appended as they occur, the
+ * closing bracket of the JSON array is omitted, which the trace event format explicitly permits.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ * @see <a href="https://docs.google.com/document/d/1CvAClvFfyA5R-PhYUmn5OOQtYMH4h6I0nSsKchNAySU">Trace Event
+ *      Format</a>
+ */
+class TraceFile
+{
+
+    /**
+     * The process id used for the Maven JVM.
+     */
+    private static final int MAVEN_PID = 1;
+
+    /**
+     * The trace files used by this JVM, keyed by canonical path, guarded by the class.
+     */
+    private static final Map INSTANCES = new HashMap();
+
+    /**
+     * The trace file of the current thread, inherited by the worker threads it starts.
+     */
+    private static final ThreadLocal CURRENT = new InheritableThreadLocal();
+
+    /**
+     * The track ids of the threads.
+     */
+    private static final ThreadLocal THREAD_IDS = new ThreadLocal();
+
+    /**
+     * The track id to assign to the next thread, guarded by the class.
+     */
+    private static int nextThreadId = 1;
+
+    /**
+     * The process id to assign to the next forked JVM, guarded by the class.
+     */
+    private static int nextProcessId = MAVEN_PID + 1;
+
+    /**
+     * The file to write the events to.
+     */
+    private final File file;
+
+    /**
+     * The track ids of the threads whose names have already been written, guarded by <code>this</code>.
+     */
+    private final Set namedThreads = new HashSet();
+
+    /**
+     * The flag whether at least one event has been written, guarded by <code>this</code>.
+     */
+    private boolean started;
+
+    /**
+     * Creates a new trace file.
+     * 
+     * @param file The file to write the events to, must not be <code>null</code>.
+     */
+    private TraceFile( File file )
+    {
+        this.file = file;
+    }
+
+    /**
+     * Gets the trace file for the specified path. The file is truncated when it is first requested by this JVM.
+     * 
+     * @param file The path to the trace file, must not be <code>null</code>.
+     * @return The trace file, never <code>null</code>.
+     * @throws IOException If the trace file could not be created.
+     */
+    public static TraceFile getInstance( File file )
+        throws IOException
+    {
+        File canonicalFile = file.getCanonicalFile();
+        synchronized ( TraceFile.class )
+        {
+            TraceFile trace = (TraceFile) INSTANCES.get( canonicalFile );
+            if ( trace == null )
+            {
+                trace = new TraceFile( canonicalFile );
+                trace.write( "[\n{\"name\":\"process_name\",\"ph\":\"M\",\"pid\":" + MAVEN_PID
+                    + ",\"tid\":0,\"args\":{\"name\":\"Maven\"}}" );
+                INSTANCES.put( canonicalFile, trace );
+            }
+            return trace;
+        }
+    }
+
+    /**
+     * Gets the trace file of the current thread.
+     * 
+     * @return The trace file of the current thread or <code>null</code> if tracing is disabled.
+     */
+    public static TraceFile getCurrent()
+    {
+        return (TraceFile) CURRENT.get();
+    }
+
+    /**
+     * Sets the trace file of the current thread. Threads started afterwards by the current thread inherit it.
+     * 
+     * @param trace The trace file of the current thread, may be <code>null</code> to disable tracing.
+     */
+    public static void setCurrent( TraceFile trace )
+    {
+        CURRENT.set( trace );
+    }
+
+    /**
+     * Gets the path to this trace file.
+     * 
+     * @return The canonical path to this trace file, never <code>null</code>.
+     */
+    public File getFile()
+    {
+        return this.file;
+    }
+
+    /**
+     * Adds a span on the track of the current thread.
+     * 
+     * @param name The name of the span, must not be <code>null</code>.
+     * @param category The category of the span, must not be <code>null</code>.
+     * @param start The start time of the span in milliseconds since the epoch.
+     * @param end The end time of the span in milliseconds since the epoch.
+     * @param argNames The names of the arguments, must not be <code>null</code>.
+     * @param args The values of the arguments, must not be <code>null</code>.
+     */
+    public void addSpan( String name, String category, long start, long end, String[] argNames, Object[] args )
+    {
+        Thread thread = Thread.currentThread();
+        Integer tid = (Integer) THREAD_IDS.get();
+        if ( tid == null )
+        {
+            synchronized ( TraceFile.class )
+            {
+                tid = new Integer( nextThreadId++ );
+            }
+            THREAD_IDS.set( tid );
+        }
+        StringBuffer buffer = new StringBuffer( 256 );
+        synchronized ( this )
+        {
+            if ( this.namedThreads.add( tid ) )
+            {
+                buffer.append( "{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":" ).append( MAVEN_PID );
+                buffer.append( ",\"tid\":" ).append( tid ).append( ",\"args\":{\"name\":" );
+                appendString( buffer, thread.getName() );
+                buffer.append( "}},\n" );
+            }
+        }
+        appendSpan( buffer, name, category, MAVEN_PID, tid.intValue(), start, end, argNames, args );
+        write( buffer.toString() );
+    }
+
+    /**
+     * Adds a span on the track of a new process, e.g. a forked JVM.
+     * 
+     * @param name The name of the process and the span, must not be <code>null</code>.
+     * @param start The start time of the span in milliseconds since the epoch.
+     * @param end The end time of the span in milliseconds since the epoch.
+     * @param argNames The names of the arguments, must not be <code>null</code>.
+     * @param args The values of the arguments, must not be <code>null</code>.
+     */
+    public void addProcessSpan( String name, long start, long end, String[] argNames, Object[] args )
+    {
+        int pid;
+        synchronized ( TraceFile.class )
+        {
+            pid = nextProcessId++;
+        }
+        StringBuffer buffer = new StringBuffer( 256 );
+        buffer.append( "{\"name\":\"process_name\",\"ph\":\"M\",\"pid\":" ).append( pid );
+        buffer.append( ",\"tid\":0,\"args\":{\"name\":" );
+        appendString( buffer, name );
+        buffer.append( "}},\n" );
+        appendSpan( buffer, name, "ForkedJvm", pid, 0, start, end, argNames, args );
+        write( buffer.toString() );
+    }
+
+    /**
+     * Appends a complete event to the specified buffer.
+     * 
+     * @param buffer The buffer to append to, must not be <code>null</code>.
+     * @param name The name of the span, must not be <code>null</code>.
+     * @param category The category of the span, must not be <code>null</code>.
+     * @param pid The id of the process track.
+     * @param tid The id of the thread track.
+     * @param start The start time of the span in milliseconds since the epoch.
+     * @param end The end time of the span in milliseconds since the epoch.
+     * @param argNames The names of the arguments, must not be <code>null</code>.
+     * @param args The values of the arguments, must not be <code>null</code>.
+     */
+    private static void appendSpan( StringBuffer buffer, String name, String category, int pid, int tid, long start,
+                                    long end, String[] argNames, Object[] args )
+    {
+        buffer.append( "{\"name\":" );
+        appendString( buffer, name );
+        buffer.append( ",\"cat\":" );
+        appendString( buffer, category );
+        buffer.append( ",\"ph\":\"X\",\"pid\":" ).append( pid ).append( ",\"tid\":" ).append( tid );
+        buffer.append( ",\"ts\":" ).append( start * 1000 ).append( ",\"dur\":" ).append( ( end - start ) * 1000 );
+        buffer.append( ",\"args\":{" );
+        boolean first = true;
+        for ( int i = 0; i < args.length; i++ )
+        {
+            if ( args[i] == null )
+            {
+                continue;
+            }
+            if ( !first )
+            {
+                buffer.append( ',' );
+            }
+            first = false;
+            appendString( buffer, argNames[i] );
+            buffer.append( ':' );
+            if ( args[i] instanceof Number )
+            {
+                buffer.append( args[i] );
+            }
+            else
+            {
+                appendString( buffer, args[i].toString() );
+            }
+        }
+        buffer.append( "}}" );
+    }
+
+    /**
+     * Appends the specified string as a JSON string literal to the buffer.
+     * 
+     * @param buffer The buffer to append to, must not be <code>null</code>.
+     * @param value The string to append, must not be <code>null</code>.
+     */
+    static void appendString( StringBuffer buffer, String value )
+    {
+        buffer.append( '"' );
+        for ( int i = 0; i < value.length(); i++ )
+        {
+            char c = value.charAt( i );
+            if ( c == '"' || c == '\\' )
+            {
+                buffer.append( '\\' ).append( c );
+            }
+            else if ( c < 0x20 )
+            {
+                String hex = Integer.toHexString( c );
+                buffer.append( "\\u" ).append( "0000".substring( hex.length() ) ).append( hex );
+            }
+            else
+            {
+                buffer.append( c );
+            }
+        }
+        buffer.append( '"' );
+    }
+
+    /**
+     * Appends the specified events to the trace file. Write errors are ignored since tracing is not essential.
+     * 
+     * @param events The events to append, separated by commas and newlines, must not be <code>null</code>.
+     */
+    private synchronized void write( String events )
+    {
+        OutputStream os = null;
+        try
+        {
+            File parent = this.file.getParentFile();
+            if ( parent != null )
+            {
+                parent.mkdirs();
+            }
+            os = new FileOutputStream( this.file, this.started );
+            os.write( ( this.started ? ",\n" + events : events ).getBytes( "UTF-8" ) );
+            this.started = true;
+        }
+        catch ( IOException e )
+        {
+            // tracing is not essential
+        }
+        finally
+        {
+            IOUtil.close( os );
+        }
+    }
+
+}
@@ -0,0 +1,62 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+
+/**
+ * Watches the source directory and regenerates the parser for each JavaCC grammar file (<code>*.jj</code>) as soon as
+ * it has been changed. After all stale parsers have been generated like by the goal <code>javacc</code>, this goal
+ * keeps running until the build is interrupted, e.g. by pressing Ctrl+C. All regenerations are performed by the same
+ * JVM such that the classes of JavaCC only need to be loaded and compiled once. Grammar files for JJTree or JTB are
+ * watched by the goals <code>jjtree-javacc-watch</code> and <code>jtb-javacc-watch</code>.
+ * 
+ * @goal watch
+ * @threadSafe
+ * @since 2.7
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+public class WatchMojo
+    extends JavaCCMojo
+{
+
+    /**
+     * The time in milliseconds to wait for further changes after a change to the source directory has been detected.
+     * All changes made within this period, e.g. by an editor saving several files, are handled by a single
+     * regeneration. If the JVM does not provide a watch service, the source directory is polled at this interval.
+     * 
+     * @parameter expression="${watchDebounce}" default-value="200"
+     * @since 2.7
+     */
+    private long watchDebounce;
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void generate()
+        throws MojoExecutionException, MojoFailureException
+    {
+        super.generate();
+        watch( this.watchDebounce );
+    }
+
+}
@@ -0,0 +1,275 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.util.LinkedList;
+
+/**
+ * Runs jobs on a bounded number of worker threads. Jobs are started in the order of their submission. The first failing
+ * job cancels all jobs that have not yet been started and its error is reported by {@link #await()}. A pool with a
+ * single thread runs the jobs directly in the submitting thread.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+class WorkerPool
+{
+
+    /**
+     * The maximum number of worker threads.
+     */
+    private final int maxThreads;
+
+    /**
+     * The prefix for the names of the worker threads.
+     */
+    private final String name;
+
+    /**
+     * The jobs that have not yet been started, guarded by <code>this</code>.
+     */
+    private final LinkedList queue = new LinkedList();
+
+    /**
+     * The number of worker threads started so far, guarded by <code>this</code>.
+     */
+    private int threadCount;
+
+    /**
+     * The number of jobs currently running, guarded by <code>this</code>.
+     */
+    private int activeCount;
+
+    /**
+     * The first error raised by a job, guarded by <code>this</code>.
+     */
+    private Exception error;
+
+    /**
+     * The flag whether {@link #await()} has been called, guarded by <code>this</code>.
+     */
+    private boolean closed;
+
+    /**
+     * Creates a new worker pool.
+     * 
+     * @param maxThreads The maximum number of worker threads, values less than one select the number of available
+     *            processors.
+     * @param name The prefix for the names of the worker threads, must not be <code>null</code>.
+     */
+    public WorkerPool( int maxThreads, String name )
+    {
+        this.maxThreads = ( maxThreads > 0 ) ? maxThreads : Runtime.getRuntime().availableProcessors();
+        this.name = name;
+    }
+
+    /**
+     * Gets the maximum number of worker threads.
+     * 
+     * @return The maximum number of worker threads, always positive.
+     */
+    public int getMaxThreads()
+    {
+        return this.maxThreads;
+    }
+
+    /**
+     * Estimates the makespan of running jobs with the specified durations in the given order, i.e. the time until the
+     * last job completes if each job is started by the next idle worker thread.
+     * 
+     * @param durations The durations of the jobs in submission order, must not be <code>null</code>.
+     * @param threads The number of worker threads, must be positive.
+     * @return The estimated makespan.
+     */
+    public static long estimateMakespan( long[] durations, int threads )
+    {
+        long[] loads = new long[Math.max( 1, threads )];
+        for ( int i = 0; i < durations.length; i++ )
+        {
+            int idle = 0;
+            for ( int j = 1; j < loads.length; j++ )
+            {
+                if ( loads[j] < loads[idle] )
+                {
+                    idle = j;
+                }
+            }
+            loads[idle] += durations[i];
+        }
+        long makespan = 0;
+        for ( int i = 0; i < loads.length; i++ )
+        {
+            makespan = Math.max( makespan, loads[i] );
+        }
+        return makespan;
+    }
+
+    /**
+     * Submits the specified job for execution. If the pool has only one thread, the job is run directly. Otherwise, a
+     * new worker thread is started if all existing ones are busy and the thread limit has not been reached yet.
+     * 
+     * @param job The job to run, must not be <code>null</code>.
+     * @throws Exception If the pool runs jobs in the submitting thread and the job failed.
+     */
+    public void submit( Job job )
+        throws Exception
+    {
+        if ( this.maxThreads <= 1 )
+        {
+            job.run();
+            return;
+        }
+        synchronized ( this )
+        {
+            if ( this.closed )
+            {
+                throw new IllegalStateException( "pool already closed" );
+            }
+            if ( this.error != null )
+            {
+                return;
+            }
+            this.queue.addLast( job );
+            if ( this.threadCount < this.maxThreads && this.queue.size() > this.threadCount - this.activeCount )
+            {
+                this.threadCount++;
+                Thread thread = new Thread( new Worker(), this.name + '-' + this.threadCount );
+                thread.setDaemon( true );
+                thread.start();
+            }
+            notifyAll();
+        }
+    }
+
+    /**
+     * Waits until all submitted jobs have completed and stops the worker threads. The pool cannot be used afterwards.
+     * 
+     * @throws Exception The error raised by the first failing job or an <code>InterruptedException</code> if the
+     *             current thread was interrupted while waiting.
+     */
+    public synchronized void await()
+        throws Exception
+    {
+        this.closed = true;
+        notifyAll();
+        while ( !this.queue.isEmpty() || this.activeCount > 0 )
+        {
+            wait();
+        }
+        if ( this.error != null )
+        {
+            throw this.error;
+        }
+    }
+
+    /**
+     * Gets the next job to run, blocking until one is available or the pool has been closed.
+     * 
+     * @return The next job to run or <code>null</code> if the worker should terminate.
+     * @throws InterruptedException If the worker thread was interrupted while waiting.
+     */
+    synchronized Job take()
+        throws InterruptedException
+    {
+        while ( this.queue.isEmpty() && !this.closed )
+        {
+            wait();
+        }
+        if ( this.queue.isEmpty() )
+        {
+            return null;
+        }
+        this.activeCount++;
+        return (Job) this.queue.removeFirst();
+    }
+
+    /**
+     * Records the completion of a job.
+     * 
+     * @param failure The error raised by the job, may be <code>null</code> if the job succeeded.
+     */
+    synchronized void done( Exception failure )
+    {
+        this.activeCount--;
+        if ( failure != null && this.error == null )
+        {
+            this.error = failure;
+            this.queue.clear();
+        }
+        notifyAll();
+    }
+
+    /**
+     * A unit of work to run in the pool.
+     */
+    public interface Job
+    {
+
+        /**
+         * Runs this job.
+         * 
+         * @throws Exception If the job failed.
+         */
+        void run()
+            throws Exception;
+
+    }
+
+    /**
+     * The main loop of a worker thread.
+     */
+    private class Worker
+        implements Runnable
+    {
+
+        /**
+         * {@inheritDoc}
+         */
+        public void run()
+        {
+            try
+            {
+                for ( Job job = take(); job != null; job = take() )
+                {
+                    Exception failure = null;
+                    try
+                    {
+                        job.run();
+                    }
+                    catch ( Exception e )
+                    {
+                        failure = e;
+                    }
+                    catch ( Error e )
+                    {
+                        failure = new RuntimeException( e.toString(), e );
+                    }
+                    done( failure );
+                }
+            }
+            catch ( InterruptedException e )
+            {
+                // terminate
+            }
+        }
+
+    }
+
+}
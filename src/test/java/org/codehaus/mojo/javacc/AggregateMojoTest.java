@@ -0,0 +1,136 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+import java.util.Arrays;
+
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.ReflectionUtils;
+
+/**
+ * Tests <code>AggregateMojo</code>.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+public class AggregateMojoTest
+    extends GrammarTestCase
+{
+
+    public void testRebase()
+    {
+        File root = new File( "root" ).getAbsoluteFile();
+        File module = new File( root, "module" );
+        assertEquals( new File( module, "src/main/javacc" ),
+                      AggregateMojo.rebase( new File( root, "src/main/javacc" ), root, module ) );
+        assertEquals( module, AggregateMojo.rebase( root, root, module ) );
+    }
+
+    public void testRebaseOutsideDirectory()
+    {
+        File root = new File( "root" ).getAbsoluteFile();
+        File other = new File( "rootless/src" ).getAbsoluteFile();
+        assertSame( other, AggregateMojo.rebase( other, root, new File( root, "module" ) ) );
+    }
+
+    public void testRebaseOutput()
+    {
+        File root = new File( "root" ).getAbsoluteFile();
+        MavenProject rootProject = newProject( root );
+        MavenProject module = newProject( new File( root, "module" ) );
+        assertEquals( new File( root, "module/target/generated-sources/javacc" ),
+                      AggregateMojo.rebaseOutput( new File( root, "target/generated-sources/javacc" ), rootProject,
+                                                  module ) );
+        assertEquals( new File( root, "module/src/main/generated" ),
+                      AggregateMojo.rebaseOutput( new File( root, "src/main/generated" ), rootProject, module ) );
+    }
+
+    public void testProcessStaleAndUpToDateProjects()
+        throws Exception
+    {
+        File rootDir = new File( "target/unit-tests/aggregate-mojo" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( rootDir );
+        MavenProject root = newProject( rootDir );
+        MavenProject moduleA = newProject( new File( rootDir, "module-a" ) );
+        MavenProject moduleB = newProject( new File( rootDir, "module-b" ) );
+        File grammarA = new File( rootDir, "module-a/src/main/javacc/Parser1.jj" );
+        File grammarB = new File( rootDir, "module-b/src/main/javacc/Parser1.jj" );
+        FileUtils.copyFile( getGrammar( "Parser1.jj" ), grammarA );
+        FileUtils.copyFile( getGrammar( "Parser1.jj" ), grammarB );
+        String parser = "target/generated-sources/javacc/org/codehaus/mojo/javacc/test/BasicParser.java";
+        File parserA = new File( rootDir, "module-a/" + parser );
+        File parserB = new File( rootDir, "module-b/" + parser );
+
+        newMojo( root, new MavenProject[] { root, moduleA, moduleB } ).execute();
+        assertTrue( parserA.isFile() );
+        assertTrue( parserB.isFile() );
+
+        // only module A is stale now
+        long modified = parserB.lastModified();
+        long outdated = grammarA.lastModified() - 60 * 1000;
+        assertTrue( parserA.setLastModified( outdated ) );
+        newMojo( root, new MavenProject[] { root, moduleA, moduleB } ).execute();
+        assertTrue( parserA.lastModified() > outdated );
+        assertTrue( parserA.lastModified() >= grammarA.lastModified() );
+        assertEquals( modified, parserB.lastModified() );
+        assertTrue( new File( rootDir, "module-a/target/javacc-history.properties" ).isFile() );
+    }
+
+    public void testDateOutputNoEarlierThanGrammar()
+        throws Exception
+    {
+        File rootDir = new File( "target/unit-tests/aggregate-mojo-future" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( rootDir );
+        MavenProject root = newProject( rootDir );
+        File grammar = new File( rootDir, "src/main/javacc/Parser1.jj" );
+        FileUtils.copyFile( getGrammar( "Parser1.jj" ), grammar );
+        File parser =
+            new File( rootDir, "target/generated-sources/javacc/org/codehaus/mojo/javacc/test/BasicParser.java" );
+
+        // e.g. clock skew or an extracted archive
+        assertTrue( grammar.setLastModified( System.currentTimeMillis() + 60 * 1000 ) );
+        newMojo( root, new MavenProject[] { root } ).execute();
+        assertTrue( parser.lastModified() >= grammar.lastModified() );
+
+        // unchanged output of a stale grammar
+        assertTrue( parser.setLastModified( grammar.lastModified() - 60 * 1000 ) );
+        newMojo( root, new MavenProject[] { root } ).execute();
+        assertTrue( parser.lastModified() >= grammar.lastModified() );
+    }
+
+    private AggregateMojo newMojo( MavenProject project, MavenProject[] reactorProjects )
+        throws Exception
+    {
+        AggregateMojo mojo = new AggregateMojo();
+        ReflectionUtils.setVariableValueInObject( mojo, "project", project );
+        ReflectionUtils.setVariableValueInObject( mojo, "reactorProjects", Arrays.asList( reactorProjects ) );
+        File basedir = project.getBasedir();
+        ReflectionUtils.setVariableValueInObject( mojo, "sourceDirectory", new File( basedir, "src/main/javacc" ) );
+        ReflectionUtils.setVariableValueInObject( mojo, "outputDirectory",
+                                                  new File( basedir, "target/generated-sources/javacc" ) );
+        ReflectionUtils.setVariableValueInObject( mojo, "grammarEncoding", "UTF-8" );
+        ReflectionUtils.setVariableValueInObject( mojo, "memoryShare", new Integer( 50 ) );
+        ReflectionUtils.setVariableValueInObject( mojo, "javaccThreads", new Integer( 2 ) );
+        return mojo;
+    }
+
+}
@@ -0,0 +1,92 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Tests <code>AmortizedNodeChildren</code>.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+public class AmortizedNodeChildrenTest
+    extends GrammarTestCase
+{
+
+    public void testToStringNullSafe()
+        throws Exception
+    {
+        AmortizedNodeChildren processor = new AmortizedNodeChildren();
+        String string = processor.toString();
+        assertNotNull( string );
+    }
+
+    public void testEnhanceNodes()
+        throws Exception
+    {
+        File outputDir = new File( "target/unit-tests/amortized-node-children" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( outputDir );
+
+        JJTree jjtree = new JJTree();
+        jjtree.setInputFile( getGrammar( "Tree1.jjt" ) );
+        jjtree.setOutputDirectory( outputDir );
+        jjtree.run();
+
+        AmortizedNodeChildren processor = new AmortizedNodeChildren();
+        processor.setNodeDirectory( outputDir );
+        processor.run();
+
+        String node = FileUtils.fileRead( new File( outputDir, "SimpleNode.java" ) );
+        assertTrue( node.indexOf( "protected int numChildren;" ) > 0 );
+        assertTrue( node.indexOf( "children.length * 2" ) > 0 );
+        assertTrue( node.indexOf( "return numChildren;" ) > 0 );
+        assertTrue( node.indexOf( "i < children.length" ) < 0 );
+
+        // processing the same file twice must not break it
+        processor.run();
+        String again = FileUtils.fileRead( new File( outputDir, "SimpleNode.java" ) );
+        assertEquals( node, again );
+
+        JavaCC javacc = new JavaCC();
+        javacc.setInputFile( jjtree.getOutputFile() );
+        javacc.setOutputDirectory( outputDir );
+        javacc.run();
+
+        StringBuffer input = new StringBuffer( "(a = 1 (2 b)" );
+        StringBuffer tree = new StringBuffer( "Start(List(Assignment(Name,Number),List(Number,Name)" );
+        for ( int i = 0; i < 20; i++ )
+        {
+            input.append( " n" ).append( i );
+            tree.append( ",Name" );
+        }
+        input.append( ')' );
+        tree.append( "))" );
+        String output = compileAndRun( outputDir, new String[] { "AmortizedNodeChildrenCheck", "TreeFormat" },
+                                       input.toString() );
+        if ( output != null )
+        {
+            assertEquals( tree.toString(), output );
+        }
+    }
+
+}
@@ -0,0 +1,94 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Tests <code>BatchDriver</code>.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+public class BatchDriverTest
+    extends GrammarTestCase
+{
+
+    public void testToStringNullSafe()
+        throws Exception
+    {
+        BatchDriver processor = new BatchDriver();
+        String string = processor.toString();
+        assertNotNull( string );
+    }
+
+    public void testGenerateDriver()
+        throws Exception
+    {
+        File outputDir = new File( "target/unit-tests/batch-driver" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( outputDir );
+
+        JavaCC javacc = new JavaCC();
+        javacc.setInputFile( getGrammar( "Parser3.jj" ) );
+        javacc.setOutputDirectory( outputDir );
+        javacc.run();
+
+        BatchDriver processor = new BatchDriver();
+        processor.setParserDirectory( outputDir );
+        processor.setParserName( "ListParser" );
+        processor.setParserPackage( "org.codehaus.mojo.javacc.test" );
+        processor.run();
+
+        String driver = FileUtils.fileRead( new File( outputDir, "ListParserBatchDriver.java" ) );
+        assertTrue( driver.indexOf( "package org.codehaus.mojo.javacc.test;" ) >= 0 );
+        assertTrue( driver.indexOf( "public class ListParserBatchDriver" ) > 0 );
+        assertTrue( driver.indexOf( "R parse(ListParser parser)" ) > 0 );
+        assertTrue( driver.indexOf( "parser.ReInit(input);" ) > 0 );
+
+        String output = compileAndRun( outputDir, "BatchDriverCheck", "(a)\n(b = 1)\n(c\n(1 (2))\n)\n()" );
+        if ( output != null )
+        {
+            assertEquals( "results=[0, 1, 3, 5] errors=[2, 4] created<=true counts=4/2", output );
+        }
+    }
+
+    public void testSkipStaticParser()
+        throws Exception
+    {
+        File outputDir = new File( "target/unit-tests/batch-driver-static" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( outputDir );
+
+        JavaCC javacc = new JavaCC();
+        javacc.setInputFile( getGrammar( "Parser1.jj" ) );
+        javacc.setOutputDirectory( outputDir );
+        javacc.run();
+
+        BatchDriver processor = new BatchDriver();
+        processor.setParserDirectory( outputDir );
+        processor.setParserName( "BasicParser" );
+        processor.setParserPackage( "org.codehaus.mojo.javacc.test" );
+        processor.run();
+
+        assertFalse( new File( outputDir, "BasicParserBatchDriver.java" ).exists() );
+    }
+
+}
@@ -0,0 +1,212 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Tests <code>ChunkedLexer</code>.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+public class ChunkedLexerTest
+    extends GrammarTestCase
+{
+
+    private static final String HEADER =
+        "options { STATIC = false; }\nPARSER_BEGIN(LineParser)\npublic class LineParser {}\nPARSER_END(LineParser)\n";
+
+    private static final String PRODUCTION = "\nvoid Start() : {} { ( <WORD> )* <EOF> }\n";
+
+    public void testToStringNullSafe()
+        throws Exception
+    {
+        ChunkedLexer processor = new ChunkedLexer();
+        String string = processor.toString();
+        assertNotNull( string );
+    }
+
+    public void testGenerateLexer()
+        throws Exception
+    {
+        File outputDir = new File( "target/unit-tests/chunked-lexer" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( outputDir );
+
+        File grammarFile = getGrammar( "Parser3.jj" );
+        JavaCC javacc = new JavaCC();
+        javacc.setInputFile( grammarFile );
+        javacc.setOutputDirectory( outputDir );
+        javacc.run();
+
+        ChunkedLexer processor = new ChunkedLexer();
+        processor.setGrammarFile( grammarFile );
+        processor.setParserDirectory( outputDir );
+        processor.setParserName( "ListParser" );
+        processor.setParserPackage( "org.codehaus.mojo.javacc.test" );
+        processor.run();
+
+        String lexer = FileUtils.fileRead( new File( outputDir, "ListParserChunkedLexer.java" ) );
+        assertTrue( lexer.indexOf( "package org.codehaus.mojo.javacc.test;" ) >= 0 );
+        assertTrue( lexer.indexOf( "public class ListParserChunkedLexer" ) > 0 );
+        assertTrue( lexer.indexOf( "new ListParserTokenManager(stream)" ) > 0 );
+        assertTrue( lexer.indexOf( "new SimpleCharStream(" ) > 0 );
+
+        String output = compileAndRun( outputDir, "ChunkedLexerCheck", "(a = 1\n  b\n\n(2 c)\n\td = 34567890123\n)\n" );
+        if ( output != null )
+        {
+            assertEquals( "OK 14", output );
+        }
+    }
+
+    public void testJoinSpecialTokens()
+        throws Exception
+    {
+        File outputDir = new File( "target/unit-tests/chunked-lexer-special" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( outputDir );
+
+        String output = runLineLexer( outputDir, "#a\nab #one\n#two\n\n#three\ncd\n#tail\n#tail2\n#tail3\n" );
+        if ( output != null )
+        {
+            assertEquals( "OK 3", output );
+        }
+    }
+
+    public void testSplitAtCarriageReturns()
+        throws Exception
+    {
+        File outputDir = new File( "target/unit-tests/chunked-lexer-cr" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( outputDir );
+
+        String output = runLineLexer( outputDir, "#a\rab #one\r\n#two\r\rcd\r#tail\r\nef\n\r\n\r#x\rgh ij\r" );
+        if ( output != null )
+        {
+            assertEquals( "OK 6", output );
+        }
+    }
+
+    public void testAcceptLineTerminatedTokens()
+        throws Exception
+    {
+        assertNull( check( "SKIP : { \"\\n\" | < COMMENT : \"#\" (~[\"\\n\",\"\\r\"])* \"\\n\" > }\n"
+            + "TOKEN : { < WORD : ([\"a\"-\"z\"])+ > | < #BLANK : [\" \",\"\\t\"] > | < GAP : (<BLANK>)+ > }" ) );
+        assertNull( check( "SKIP : { \"\\r\\n\" | < EOL : (\"\\r\")? \"\\n\" > | \"\\r\" }\n"
+            + "TOKEN : { < WORD : ([\"a\"-\"z\"])+ > }" ) );
+    }
+
+    public void testRefuseMultiLineTokens()
+        throws Exception
+    {
+        assertNotNull( check( "SKIP : { \"\\n\" | \" \" }\n"
+            + "TOKEN : { < WORD : ([\"a\"-\"z\"])+ > | < STRING : \"\\\"\" (~[\"\\\"\"])* \"\\\"\" > }" ) );
+        assertNotNull( check( "SKIP : { < #NL : \"\\n\" > | < LINES : (<NL>)+ \"x\" > }\n"
+            + "TOKEN : { < WORD : ([\"a\"-\"z\"])+ > }" ) );
+        assertNotNull( check( "SKIP : { \"\\n\" | \"\\r\" }\nTOKEN : { < WORD : ([\"a\"-\"z\"])+ \"\\r\" \"-\" > }" ) );
+        assertNotNull( check( "SKIP : { \"\\n\" | \"\\r\" }\n"
+            + "TOKEN : { < WORD : ([\"a\"-\"z\"])+ > | < CR : \"\\r\\r\" > }" ) );
+        assertNotNull( check( "SKIP : { \"\\n\" | < LINES : ([\" \",\"\\r\"])+ \"x\" > }\n"
+            + "TOKEN : { < WORD : ([\"a\"-\"z\"])+ > }" ) );
+    }
+
+    public void testRefuseMoreRules()
+        throws Exception
+    {
+        assertNotNull( check( "SKIP : { \"\\n\" }\nMORE : { \"/*\" }\n"
+            + "TOKEN : { < WORD : ([\"a\"-\"z\"])+ > }" ) );
+    }
+
+    public void testRefuseLexicalStates()
+        throws Exception
+    {
+        assertNotNull( check( "SKIP : { \"\\n\" | \"%\" : IN_COMMENT }\n<IN_COMMENT> SKIP : { \"\\n\" : DEFAULT }\n"
+            + "TOKEN : { < WORD : ([\"a\"-\"z\"])+ > }" ) );
+    }
+
+    public void testRunRefusesGrammar()
+        throws Exception
+    {
+        File outputDir = new File( "target/unit-tests/chunked-lexer-refused" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( outputDir );
+        outputDir.mkdirs();
+
+        ChunkedLexer processor = new ChunkedLexer();
+        processor.setGrammarFile( writeGrammar( "SKIP : { \"\\n\" }\nMORE : { \"/*\" }\n"
+            + "TOKEN : { < WORD : ([\"a\"-\"z\"])+ > }" ) );
+        processor.setParserDirectory( outputDir );
+        processor.setParserName( "LineParser" );
+        try
+        {
+            processor.run();
+            fail( "Missing MojoExecutionException" );
+        }
+        catch ( MojoExecutionException e )
+        {
+            assertTrue( e.getMessage().indexOf( "MORE" ) > 0 );
+        }
+        assertFalse( new File( outputDir, "LineParserChunkedLexer.java" ).exists() );
+    }
+
+    private String runLineLexer( File outputDir, String input )
+        throws Exception
+    {
+        outputDir.mkdirs();
+        File grammarFile = new File( outputDir, "LineLexer.jj" );
+        FileUtils.fileWrite( grammarFile.getPath(), "options { STATIC = false; }\nPARSER_BEGIN(LineParser)\n"
+            + "package org.codehaus.mojo.javacc.test;\npublic class LineParser {}\nPARSER_END(LineParser)\n"
+            + "SKIP : { \" \" | \"\\t\" | \"\\n\" | \"\\r\" }\n"
+            + "SPECIAL_TOKEN : { < COMMENT : \"#\" (~[\"\\n\",\"\\r\"])* > }\n"
+            + "TOKEN : { < WORD : ([\"a\"-\"z\"])+ > }" + PRODUCTION );
+
+        JavaCC javacc = new JavaCC();
+        javacc.setInputFile( grammarFile );
+        javacc.setOutputDirectory( outputDir );
+        javacc.run();
+
+        ChunkedLexer processor = new ChunkedLexer();
+        processor.setGrammarFile( grammarFile );
+        processor.setParserDirectory( outputDir );
+        processor.setParserName( "LineParser" );
+        processor.setParserPackage( "org.codehaus.mojo.javacc.test" );
+        processor.run();
+
+        return compileAndRun( outputDir, "LineLexerCheck", input );
+    }
+
+    private String check( String lexicalSpecification )
+        throws Exception
+    {
+        ChunkedLexer processor = new ChunkedLexer();
+        processor.setGrammarFile( writeGrammar( lexicalSpecification ) );
+        return processor.checkLineOriented();
+    }
+
+    private File writeGrammar( String lexicalSpecification )
+        throws Exception
+    {
+        File grammarFile = new File( "target/unit-tests/chunked-lexer-grammars/Line.jj" ).getAbsoluteFile();
+        grammarFile.getParentFile().mkdirs();
+        FileUtils.fileWrite( grammarFile.getPath(), HEADER + lexicalSpecification + PRODUCTION );
+        return grammarFile;
+    }
+
+}
@@ -0,0 +1,77 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+
+/**
+ * Tests <code>FlightEvent</code>.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+public class FlightEventTest
+    extends TestCase
+{
+
+    public void testDisabledWithoutRecording()
+    {
+        FlightEvent event = FlightEvent.begin( FlightEvent.TOOL_RUN );
+        assertFalse( event.isEnabled() );
+        assertSame( event, FlightEvent.begin( FlightEvent.OUTPUT_COPY ) );
+        event.set( 0, "JavaCC" );
+        event.set( 2, 0 );
+        event.commit();
+    }
+
+    public void testEnabledDuringRecording()
+        throws Exception
+    {
+        Class recordingClass;
+        try
+        {
+            recordingClass = Class.forName( "jdk.jfr.Recording" );
+        }
+        catch ( ClassNotFoundException e )
+        {
+            // no flight recorder available
+            return;
+        }
+        Object recording = recordingClass.newInstance();
+        Object[] eventName = { "org.codehaus.mojo.javacc.ToolRun" };
+        recordingClass.getMethod( "enable", new Class[] { String.class } ).invoke( recording, eventName );
+        recordingClass.getMethod( "start", null ).invoke( recording, null );
+        try
+        {
+            FlightEvent event = FlightEvent.begin( FlightEvent.TOOL_RUN );
+            assertTrue( event.isEnabled() );
+            event.set( 0, "JavaCC" );
+            event.set( 1, "Parser1.jj" );
+            event.set( 2, 0 );
+            event.commit();
+        }
+        finally
+        {
+            recordingClass.getMethod( "stop", null ).invoke( recording, null );
+            recordingClass.getMethod( "close", null ).invoke( recording, null );
+        }
+    }
+
+}
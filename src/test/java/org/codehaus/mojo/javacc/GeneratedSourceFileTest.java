@@ -0,0 +1,99 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+
+import org.codehaus.plexus.util.FileUtils;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests <code>GeneratedSourceFile</code>.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+public class GeneratedSourceFileTest
+    extends TestCase
+{
+
+    private File newSourceFile( String contents )
+        throws Exception
+    {
+        File file = new File( "target/unit-tests/generated-source-file/Test.java" ).getAbsoluteFile();
+        file.getParentFile().mkdirs();
+        FileUtils.fileWrite( file.getAbsolutePath(), contents );
+        return file;
+    }
+
+    public void testReplace()
+        throws Exception
+    {
+        GeneratedSourceFile source = new GeneratedSourceFile( newSourceFile( "class Test { int a; int b; }" ) );
+        assertEquals( 2, source.replace( "int (\\w);", "long $1;" ) );
+        assertEquals( "class Test { long a; long b; }", source.getContents() );
+    }
+
+    public void testReplaceMissingAnchor()
+        throws Exception
+    {
+        GeneratedSourceFile source = new GeneratedSourceFile( newSourceFile( "class Test { int a; }" ) );
+        try
+        {
+            source.replace( "float", "double" );
+            fail( "Missing illegal state exception" );
+        }
+        catch ( IllegalStateException e )
+        {
+            // expected
+        }
+    }
+
+    public void testInsert()
+        throws Exception
+    {
+        GeneratedSourceFile source = new GeneratedSourceFile( newSourceFile( "class Test { int a; }" ) );
+        source.insertBefore( "int", "/* a */ " );
+        source.insertAfter( "a;", " int b;" );
+        source.appendMember( "int c; " );
+        assertEquals( "class Test { /* a */ int a; int b; int c; }", source.getContents() );
+    }
+
+    public void testFind()
+        throws Exception
+    {
+        GeneratedSourceFile source = new GeneratedSourceFile( newSourceFile( "class Test { int a; }" ) );
+        assertTrue( source.contains( "class\\s+Test" ) );
+        assertEquals( "Test", source.find( "class\\s+(\\w+)", 1 ) );
+        assertNull( source.find( "interface\\s+(\\w+)", 1 ) );
+    }
+
+    public void testSave()
+        throws Exception
+    {
+        File file = newSourceFile( "class Test { }" );
+        GeneratedSourceFile source = new GeneratedSourceFile( file );
+        source.appendMember( "int a; " );
+        source.save();
+        assertEquals( "class Test { int a; }", FileUtils.fileRead( file ) );
+    }
+
+}
@@ -0,0 +1,87 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+
+import org.codehaus.plexus.util.FileUtils;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests <code>GrammarDigests</code>.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+public class GrammarDigestsTest
+    extends TestCase
+{
+
+    private File dir;
+
+    protected void setUp()
+        throws Exception
+    {
+        this.dir = new File( "target/unit-tests/grammar-digests" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( this.dir );
+        this.dir.mkdirs();
+    }
+
+    public void testDigest()
+        throws Exception
+    {
+        File grammar = new File( this.dir, "Test.jj" );
+        FileUtils.fileWrite( grammar.getPath(), "PARSER_BEGIN(Test)" );
+        String digest = GrammarDigests.digest( grammar, "text=true" );
+        assertEquals( 32, digest.length() );
+        assertEquals( digest, GrammarDigests.digest( grammar, "text=true" ) );
+        assertFalse( digest.equals( GrammarDigests.digest( grammar, "text=false" ) ) );
+    }
+
+    public void testUpToDate()
+        throws Exception
+    {
+        File store = new File( this.dir, "digests.properties" );
+        File output = new File( this.dir, "Test.html" );
+        File removed = new File( this.dir, "Removed.html" );
+        FileUtils.fileWrite( output.getPath(), "" );
+        FileUtils.fileWrite( removed.getPath(), "" );
+
+        GrammarDigests digests = new GrammarDigests( store );
+        assertFalse( digests.isUpToDate( output, "abc" ) );
+        digests.setDigest( output, "abc" );
+        digests.setDigest( removed, "abc" );
+        digests.save();
+
+        digests = new GrammarDigests( store );
+        assertTrue( digests.isUpToDate( output, "abc" ) );
+        assertFalse( digests.isUpToDate( output, "def" ) );
+        digests.save();
+
+        digests = new GrammarDigests( store );
+        assertTrue( digests.isUpToDate( output, "abc" ) );
+        assertFalse( digests.isUpToDate( removed, "abc" ) );
+
+        output.delete();
+        assertFalse( digests.isUpToDate( output, "abc" ) );
+    }
+
+}
@@ -0,0 +1,159 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import org.codehaus.plexus.util.DirectoryScanner;
+import org.codehaus.plexus.util.Scanner;
+import org.sonatype.plexus.build.incremental.BuildContext;
+import org.sonatype.plexus.build.incremental.EmptyScanner;
+
+/**
+ * Tests <code>GrammarDirectoryScanner</code>.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+public class GrammarDirectoryScannerTest
+    extends GrammarTestCase
+{
+
+    public void testScanWholeDirectory()
+        throws Exception
+    {
+        GrammarDirectoryScanner scanner = newScanner();
+        scanner.scan();
+        assertEquals( 5, scanner.getIncludedGrammars().length );
+    }
+
+    public void testScanDelta()
+        throws Exception
+    {
+        GrammarDirectoryScanner scanner = newScanner();
+        scanner.setBuildContext( new DeltaBuildContext( "Parser2.jj" ) );
+        scanner.scan();
+        GrammarInfo[] grammarInfos = scanner.getIncludedGrammars();
+        assertEquals( 1, grammarInfos.length );
+        assertEquals( "Parser2.jj", grammarInfos[0].getGrammarFile().getName() );
+    }
+
+    public void testScanEmptyDelta()
+        throws Exception
+    {
+        GrammarDirectoryScanner scanner = newScanner();
+        scanner.setBuildContext( new DeltaBuildContext( null ) );
+        scanner.scan();
+        assertEquals( 0, scanner.getIncludedGrammars().length );
+    }
+
+    private GrammarDirectoryScanner newScanner()
+        throws Exception
+    {
+        File sourceDirectory = getGrammar( "Parser1.jj" ).getParentFile();
+        GrammarDirectoryScanner scanner = new GrammarDirectoryScanner();
+        scanner.setSourceDirectory( sourceDirectory );
+        scanner.setIncludes( new String[] { "*.jj" } );
+        return scanner;
+    }
+
+    /**
+     * A build context whose delta consists of at most one file.
+     */
+    private static class DeltaBuildContext
+        implements BuildContext
+    {
+
+        private final String changedFile;
+
+        public DeltaBuildContext( String changedFile )
+        {
+            this.changedFile = changedFile;
+        }
+
+        public boolean hasDelta( String relpath )
+        {
+            return relpath.equals( this.changedFile );
+        }
+
+        public boolean hasDelta( List relpaths )
+        {
+            return relpaths.contains( this.changedFile );
+        }
+
+        public void refresh( File file )
+        {
+            // irrelevant
+        }
+
+        public OutputStream newFileOutputStream( File file )
+            throws IOException
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        public Scanner newScanner( File basedir )
+        {
+            if ( this.changedFile == null )
+            {
+                return new EmptyScanner( basedir );
+            }
+            DirectoryScanner scanner = new DirectoryScanner()
+            {
+                public void setIncludes( String[] includes )
+                {
+                    super.setIncludes( new String[] { changedFile } );
+                }
+            };
+            scanner.setBasedir( basedir );
+            return scanner;
+        }
+
+        public Scanner newDeleteScanner( File basedir )
+        {
+            return new EmptyScanner( basedir );
+        }
+
+        public Scanner newScanner( File basedir, boolean ignoreDelta )
+        {
+            return newScanner( basedir );
+        }
+
+        public boolean isIncremental()
+        {
+            return true;
+        }
+
+        public void setValue( String key, Object value )
+        {
+            // irrelevant
+        }
+
+        public Object getValue( String key )
+        {
+            return null;
+        }
+
+    }
+
+}
@@ -0,0 +1,97 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+
+import junit.framework.TestCase;
+
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Tests <code>GrammarHistory</code>.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+public class GrammarHistoryTest
+    extends TestCase
+{
+
+    private File dir;
+
+    protected void setUp()
+        throws Exception
+    {
+        this.dir = new File( "target/unit-tests/grammar-history" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( this.dir );
+        this.dir.mkdirs();
+    }
+
+    public void testSaveAndLoad()
+        throws Exception
+    {
+        File grammar = new File( this.dir, "Test.jj" );
+        FileUtils.fileWrite( grammar.getPath(), "PARSER_BEGIN(Test)" );
+        File deleted = new File( this.dir, "Deleted.jj" );
+        File file = new File( this.dir, "history.properties" );
+
+        GrammarHistory history = new GrammarHistory( file );
+        assertEquals( -1, history.getTime( grammar ) );
+        history.record( grammar, 1500, 4096 );
+        history.record( deleted, 10, 20 );
+        history.save();
+
+        history = new GrammarHistory( file );
+        assertEquals( 1500, history.getTime( grammar ) );
+        assertEquals( 4096, history.getMemory( grammar ) );
+        assertEquals( -1, history.getTime( deleted ) );
+    }
+
+    public void testEstimateTime()
+        throws Exception
+    {
+        File known = new File( this.dir, "Known.jj" );
+        FileUtils.fileWrite( known.getPath(), "0123456789" );
+        File unknown = new File( this.dir, "Unknown.jj" );
+        FileUtils.fileWrite( unknown.getPath(), "01234567890123456789" );
+
+        GrammarHistory history = new GrammarHistory( new File( this.dir, "history.properties" ) );
+        assertEquals( 0, history.estimateTime( unknown ) );
+        history.record( known, 300, -1 );
+        assertEquals( 300, history.estimateTime( known ) );
+        assertEquals( 600, history.estimateTime( unknown ) );
+    }
+
+    public void testRecordKeepsMeasuredMemory()
+        throws Exception
+    {
+        File grammar = new File( this.dir, "Test.jj" );
+        FileUtils.fileWrite( grammar.getPath(), "PARSER_BEGIN(Test)" );
+
+        GrammarHistory history = new GrammarHistory( new File( this.dir, "history.properties" ) );
+        history.record( grammar, 100, 4096 );
+        history.record( grammar, 80, -1 );
+        assertEquals( 80, history.getTime( grammar ) );
+        assertEquals( 4096, history.getMemory( grammar ) );
+        assertEquals( 4096, history.estimateMemory( grammar ) );
+    }
+
+}
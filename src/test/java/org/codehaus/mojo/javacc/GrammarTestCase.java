@@ -0,0 +1,188 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Model;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.FileUtils;
+
+import junit.framework.TestCase;
+
+/**
+ * Provides a base for the tests that process the test grammars. Besides locating the test grammars, it compiles the
+ * generated sources together with a driver class and runs the driver to check that the generated code actually works.
+ * The drivers are stored as test resources in the directory <code>drivers</code> and provide a method
+ * <code>public static String run(String input)</code> in the package <code>org.codehaus.mojo.javacc.test</code>.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+public abstract class GrammarTestCase
+    extends TestCase
+{
+
+    /**
+     * The package of the test grammars and the drivers.
+     */
+    private static final String TEST_PACKAGE = "org.codehaus.mojo.javacc.test";
+
+    /**
+     * Gets the specified test grammar.
+     * 
+     * @param resource The name of the grammar file, e.g. "Parser1.jj", must not be <code>null</code>.
+     * @return The absolute path to the grammar file, never <code>null</code>.
+     * @throws Exception If the grammar could not be located.
+     */
+    protected File getGrammar( String resource )
+        throws Exception
+    {
+        return new File( new URI( getClass().getResource( '/' + resource ).toString() ) );
+    }
+
+    /**
+     * Creates a minimal project with the default build directory.
+     * 
+     * @param basedir The base directory of the project, must not be <code>null</code>.
+     * @return The project, never <code>null</code>.
+     */
+    protected MavenProject newProject( File basedir )
+    {
+        Build build = new Build();
+        build.setDirectory( new File( basedir, "target" ).getPath() );
+        Model model = new Model();
+        model.setBuild( build );
+        MavenProject project = new MavenProject( model );
+        project.setFile( new File( basedir, "pom.xml" ) );
+        return project;
+    }
+
+    /**
+     * Compiles the sources in the specified directory along with the given driver and runs the driver.
+     * 
+     * @param sourceDirectory The directory with the generated sources, must not be <code>null</code>.
+     * @param driver The simple name of the driver class, e.g. "ParserPoolCheck", must not be <code>null</code>.
+     * @param input The input to pass to the driver, may be <code>null</code>.
+     * @return The output of the driver or <code>null</code> if no Java compiler is available to the tests.
+     * @throws Exception If the sources could not be compiled or the driver failed.
+     */
+    protected String compileAndRun( File sourceDirectory, String driver, String input )
+        throws Exception
+    {
+        return compileAndRun( sourceDirectory, new String[] { driver }, input );
+    }
+
+    /**
+     * Compiles the sources in the specified directory along with the given drivers and runs the first driver.
+     * 
+     * @param sourceDirectory The directory with the generated sources, must not be <code>null</code>.
+     * @param drivers The simple names of the driver class to run and the helper classes it uses, must not be
+     *            <code>null</code>.
+     * @param input The input to pass to the driver, may be <code>null</code>.
+     * @return The output of the driver or <code>null</code> if no Java compiler is available to the tests.
+     * @throws Exception If the sources could not be compiled or the driver failed.
+     */
+    protected String compileAndRun( File sourceDirectory, String[] drivers, String input )
+        throws Exception
+    {
+        ClassLoader loader = compile( sourceDirectory, drivers );
+        if ( loader == null )
+        {
+            return null;
+        }
+        Class type = loader.loadClass( TEST_PACKAGE + '.' + drivers[0] );
+        Method run = type.getMethod( "run", new Class[] { String.class } );
+        return (String) run.invoke( null, new Object[] { input } );
+    }
+
+    /**
+     * Compiles the sources in the specified directory along with the given drivers.
+     * 
+     * @param sourceDirectory The directory with the generated sources, must not be <code>null</code>.
+     * @param drivers The simple names of the driver classes, must not be <code>null</code>.
+     * @return The class loader for the compiled classes or <code>null</code> if no Java compiler is available.
+     * @throws Exception If the sources could not be compiled.
+     */
+    protected ClassLoader compile( File sourceDirectory, String[] drivers )
+        throws Exception
+    {
+        Object compiler;
+        try
+        {
+            Class providerClass = Class.forName( "javax.tools.ToolProvider" );
+            compiler = providerClass.getMethod( "getSystemJavaCompiler", null ).invoke( null, null );
+        }
+        catch ( ClassNotFoundException e )
+        {
+            compiler = null;
+        }
+        if ( compiler == null )
+        {
+            // running on a JRE without compiler
+            return null;
+        }
+
+        for ( int i = 0; i < drivers.length; i++ )
+        {
+            URL driverSource = getClass().getResource( "/drivers/" + drivers[i] + ".java" );
+            assertNotNull( "Missing driver " + drivers[i], driverSource );
+            FileUtils.copyURLToFile( driverSource, new File( sourceDirectory, drivers[i] + ".java" ) );
+        }
+
+        File classesDirectory = new File( sourceDirectory.getPath() + "-classes" );
+        FileUtils.deleteDirectory( classesDirectory );
+        classesDirectory.mkdirs();
+
+        List args = new ArrayList();
+        args.add( "-nowarn" );
+        args.add( "-encoding" );
+        args.add( "UTF-8" );
+        args.add( "-d" );
+        args.add( classesDirectory.getPath() );
+        for ( Iterator it = FileUtils.getFiles( sourceDirectory, "**/*.java", null ).iterator(); it.hasNext(); )
+        {
+            args.add( ( (File) it.next() ).getPath() );
+        }
+
+        // look up the method on the public interface, the compiler class itself is internal to the JDK
+        Class toolClass = Class.forName( "javax.tools.Tool" );
+        Method run =
+            toolClass.getMethod( "run", new Class[] { java.io.InputStream.class, OutputStream.class,
+                OutputStream.class, String[].class } );
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Object[] params = { null, output, output, args.toArray( new String[args.size()] ) };
+        int exitCode = ( (Integer) run.invoke( compiler, params ) ).intValue();
+        assertEquals( output.toString(), 0, exitCode );
+
+        return new URLClassLoader( new URL[] { classesDirectory.toURI().toURL() }, getClass().getClassLoader() );
+    }
+
+}
@@ -0,0 +1,121 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+
+import junit.framework.TestCase;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.ReflectionUtils;
+
+/**
+ * Tests <code>GrammarWatcher</code>.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+public class GrammarWatcherTest
+    extends TestCase
+{
+
+    private File dir;
+
+    protected void setUp()
+        throws Exception
+    {
+        this.dir = new File( "target/unit-tests/grammar-watcher" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( this.dir );
+        new File( this.dir, "org" ).mkdirs();
+    }
+
+    public void testTimeoutWithoutChange()
+        throws Exception
+    {
+        GrammarWatcher watcher = new GrammarWatcher( new File[] { this.dir }, 20 );
+        try
+        {
+            assertFalse( watcher.await( 100 ) );
+        }
+        finally
+        {
+            watcher.close();
+        }
+    }
+
+    public void testDetectsChangeInSubDirectory()
+        throws Exception
+    {
+        GrammarWatcher watcher = new GrammarWatcher( new File[] { this.dir }, 20 );
+        try
+        {
+            FileUtils.fileWrite( new File( this.dir, "org/Test.jj" ).getPath(), "PARSER_BEGIN(Test)" );
+            assertTrue( watcher.await( 15000 ) );
+        }
+        finally
+        {
+            watcher.close();
+        }
+    }
+
+    public void testDetectsChangeInNewSubDirectory()
+        throws Exception
+    {
+        GrammarWatcher watcher = new GrammarWatcher( new File[] { this.dir }, 20 );
+        try
+        {
+            File subDir = new File( this.dir, "org/test" );
+            subDir.mkdirs();
+            assertTrue( watcher.await( 15000 ) );
+            while ( watcher.await( 200 ) )
+            {
+                // drain pending events
+            }
+            FileUtils.fileWrite( new File( subDir, "Test.jj" ).getPath(), "PARSER_BEGIN(Test)" );
+            assertTrue( watcher.await( 15000 ) );
+        }
+        finally
+        {
+            watcher.close();
+        }
+    }
+
+    public void testCloseReleasesWatchService()
+        throws Exception
+    {
+        GrammarWatcher watcher = new GrammarWatcher( new File[] { this.dir }, 20 );
+        Object watchService = ReflectionUtils.getValueIncludingSuperclasses( "watchService", watcher );
+        watcher.close();
+        if ( watchService != null )
+        {
+            try
+            {
+                Class.forName( "java.nio.file.WatchService" ).getMethod( "poll", null ).invoke( watchService, null );
+                fail( "Watch service not closed" );
+            }
+            catch ( InvocationTargetException e )
+            {
+                assertEquals( "java.nio.file.ClosedWatchServiceException", e.getCause().getClass().getName() );
+            }
+        }
+    }
+
+}
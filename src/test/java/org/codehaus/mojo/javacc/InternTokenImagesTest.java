@@ -0,0 +1,80 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Tests <code>InternTokenImages</code>.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+public class InternTokenImagesTest
+    extends GrammarTestCase
+{
+
+    public void testToStringNullSafe()
+        throws Exception
+    {
+        InternTokenImages processor = new InternTokenImages();
+        String string = processor.toString();
+        assertNotNull( string );
+    }
+
+    public void testEnhanceParser()
+        throws Exception
+    {
+        File outputDir = new File( "target/unit-tests/intern-token-images" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( outputDir );
+
+        JavaCC javacc = new JavaCC();
+        javacc.setInputFile( getGrammar( "Parser3.jj" ) );
+        javacc.setOutputDirectory( outputDir );
+        javacc.run();
+
+        InternTokenImages processor = new InternTokenImages();
+        processor.setParserDirectory( outputDir );
+        processor.setParserName( "ListParser" );
+        processor.run();
+
+        String tokenManager = FileUtils.fileRead( new File( outputDir, "ListParserTokenManager.java" ) );
+        assertTrue( tokenManager.indexOf( "curTokenImage = (im == null) ? jjInternImage() : im;" ) > 0 );
+        assertTrue( tokenManager.indexOf( "private String jjInternImage()" ) > 0 );
+        assertTrue( tokenManager.indexOf( "jjImageCacheSize = 4096;" ) > 0 );
+
+        String output = compileAndRun( outputDir, "InternTokenImagesCheck", "(x = 1 y x (x 1))" );
+        if ( output != null )
+        {
+            assertEquals( "( x = 1 y x ( x 1 ) ) | 6/6", output );
+        }
+    }
+
+    public void testSetCacheSize()
+        throws Exception
+    {
+        InternTokenImages processor = new InternTokenImages();
+        processor.setCacheSize( 1000 );
+        assertTrue( processor.toString().indexOf( ", 1024," ) > 0 );
+    }
+
+}
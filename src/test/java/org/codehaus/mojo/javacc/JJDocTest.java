@@ -19,7 +19,10 @@ package org.codehaus.mojo.javacc;
  * under the License.
  */
 
-import junit.framework.TestCase;
+import java.io.File;
+
+import org.apache.maven.plugin.MojoFailureException;
+import org.codehaus.plexus.util.FileUtils;
 
 /**
  * Tests <code>JJDoc</code> facade.
@@ -28,7 +31,7 @@ import junit.framework.TestCase;
  * @version $Id$
  */
 public class JJDocTest
-    extends TestCase
+    extends GrammarTestCase
 {
 
     public void testToStringNullSafe()
@@ -51,4 +54,52 @@ public class JJDocTest
         tool.setLog( null );
     }
 
+    public void testBatch()
+        throws Exception
+    {
+        File outputDir = new File( "target/unit-tests/jjdoc-batch" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( outputDir );
+
+        String[] grammars = { "Parser1.jj", "Parser2.jj", "Parser3.jj" };
+        JJDoc tool = new JJDoc();
+        tool.setText( Boolean.TRUE );
+        for ( int i = 0; i < grammars.length; i++ )
+        {
+            tool.addGrammar( getGrammar( grammars[i] ), new File( outputDir, grammars[i] + ".txt" ) );
+        }
+        tool.run();
+
+        for ( int i = 0; i < grammars.length; i++ )
+        {
+            File output = new File( outputDir, grammars[i] + ".txt" );
+            assertTrue( output.isFile() );
+            String bnf = FileUtils.fileRead( output );
+            assertTrue( bnf, bnf.indexOf( "DOCUMENT START" ) >= 0 );
+        }
+        String bnf1 = FileUtils.fileRead( new File( outputDir, "Parser1.jj.txt" ) );
+        String bnf3 = FileUtils.fileRead( new File( outputDir, "Parser3.jj.txt" ) );
+        assertFalse( bnf1.equals( bnf3 ) );
+    }
+
+    public void testBatchReportsFailedJob()
+        throws Exception
+    {
+        File outputDir = new File( "target/unit-tests/jjdoc-batch-failure" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( outputDir );
+
+        JJDoc tool = new JJDoc();
+        tool.addGrammar( new File( outputDir, "Missing.jj" ), new File( outputDir, "Missing.html" ) );
+        tool.addGrammar( getGrammar( "Parser1.jj" ), new File( outputDir, "Parser1.html" ) );
+        try
+        {
+            tool.run();
+            fail( "Missing MojoFailureException" );
+        }
+        catch ( MojoFailureException e )
+        {
+            assertTrue( true );
+        }
+        assertTrue( new File( outputDir, "Parser1.html" ).isFile() );
+    }
+
 }
@@ -0,0 +1,114 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Tests <code>JJTreeCodec</code>.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+public class JJTreeCodecTest
+    extends GrammarTestCase
+{
+
+    public void testToStringNullSafe()
+        throws Exception
+    {
+        JJTreeCodec processor = new JJTreeCodec();
+        String string = processor.toString();
+        assertNotNull( string );
+    }
+
+    public void testGenerateCodec()
+        throws Exception
+    {
+        File outputDir = new File( "target/unit-tests/jjtree-codec" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( outputDir );
+
+        JJTree jjtree = new JJTree();
+        jjtree.setInputFile( getGrammar( "Tree1.jjt" ) );
+        jjtree.setOutputDirectory( outputDir );
+        jjtree.setMulti( Boolean.TRUE );
+        jjtree.run();
+
+        JJTreeCodec processor = new JJTreeCodec();
+        processor.setNodeDirectory( outputDir );
+        processor.setParserName( "TreeParser" );
+        processor.setMulti( Boolean.TRUE );
+        processor.run();
+
+        String codec = FileUtils.fileRead( new File( outputDir, "TreeParserTreeCodec.java" ) );
+        assertTrue( codec.indexOf( "package org.codehaus.mojo.javacc.test;" ) >= 0 );
+        assertTrue( codec.indexOf( "implements TreeParserTreeConstants" ) > 0 );
+        assertTrue( codec.indexOf( "case JJTASSIGNMENT:\n        return new ASTAssignment(id);" ) > 0 );
+        assertTrue( codec.indexOf( "private void readNodeTokens(SimpleNode n) {" ) > 0 );
+        assertTrue( codec.indexOf( "${" ) < 0 );
+
+        assertRoundTrip( outputDir, jjtree );
+    }
+
+    public void testGenerateCodecWithTokens()
+        throws Exception
+    {
+        File outputDir = new File( "target/unit-tests/jjtree-codec-tokens" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( outputDir );
+
+        JJTree jjtree = new JJTree();
+        jjtree.setInputFile( getGrammar( "Tree1.jjt" ) );
+        jjtree.setOutputDirectory( outputDir );
+        jjtree.setTrackTokens( Boolean.TRUE );
+        jjtree.run();
+
+        JJTreeCodec processor = new JJTreeCodec();
+        processor.setNodeDirectory( outputDir );
+        processor.setParserName( "TreeParser" );
+        processor.run();
+
+        String codec = FileUtils.fileRead( new File( outputDir, "TreeParserTreeCodec.java" ) );
+        assertTrue( codec.indexOf( "case JJTASSIGNMENT:\n        return new SimpleNode(id);" ) > 0 );
+        assertTrue( codec.indexOf( "Token t = Token.newToken(kind, image);" ) > 0 );
+        assertTrue( codec.indexOf( "n.jjtSetFirstToken(token(first));" ) > 0 );
+        assertTrue( codec.indexOf( "${" ) < 0 );
+
+        assertRoundTrip( outputDir, jjtree );
+    }
+
+    private void assertRoundTrip( File outputDir, JJTree jjtree )
+        throws Exception
+    {
+        JavaCC javacc = new JavaCC();
+        javacc.setInputFile( jjtree.getOutputFile() );
+        javacc.setOutputDirectory( outputDir );
+        javacc.run();
+
+        String output = compileAndRun( outputDir, new String[] { "JJTreeCodecCheck", "TreeFormat" },
+                                       "(a = 1 (2 b) c)" );
+        if ( output != null )
+        {
+            assertEquals( "Start(List(Assignment(Name,Number),List(Number,Name),Name)) | true | 100000", output );
+        }
+    }
+
+}
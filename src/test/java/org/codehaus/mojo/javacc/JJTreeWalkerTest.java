@@ -0,0 +1,81 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Tests <code>JJTreeWalker</code>.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+public class JJTreeWalkerTest
+    extends GrammarTestCase
+{
+
+    public void testToStringNullSafe()
+        throws Exception
+    {
+        JJTreeWalker processor = new JJTreeWalker();
+        String string = processor.toString();
+        assertNotNull( string );
+    }
+
+    public void testGenerateWalker()
+        throws Exception
+    {
+        File outputDir = new File( "target/unit-tests/jjtree-walker" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( outputDir );
+
+        JJTree jjtree = new JJTree();
+        jjtree.setInputFile( getGrammar( "Tree1.jjt" ) );
+        jjtree.setOutputDirectory( outputDir );
+        jjtree.setMulti( Boolean.TRUE );
+        jjtree.run();
+
+        JJTreeWalker processor = new JJTreeWalker();
+        processor.setNodeDirectory( outputDir );
+        processor.setParserName( "TreeParser" );
+        processor.setMulti( Boolean.TRUE );
+        processor.run();
+
+        String walker = FileUtils.fileRead( new File( outputDir, "TreeParserTreeWalker.java" ) );
+        assertTrue( walker.indexOf( "package org.codehaus.mojo.javacc.test;" ) >= 0 );
+        assertTrue( walker.indexOf( "implements TreeParserTreeConstants" ) > 0 );
+        assertTrue( walker.indexOf( "case JJTASSIGNMENT:" ) > 0 );
+        assertTrue( walker.indexOf( "protected boolean enterAssignment(ASTAssignment n)" ) > 0 );
+        assertTrue( walker.indexOf( "protected void leaveNumber(ASTNumber n)" ) > 0 );
+
+        JavaCC javacc = new JavaCC();
+        javacc.setInputFile( jjtree.getOutputFile() );
+        javacc.setOutputDirectory( outputDir );
+        javacc.run();
+
+        String output = compileAndRun( outputDir, "JJTreeWalkerCheck", "(a b = 1 (2))" );
+        if ( output != null )
+        {
+            assertEquals( "<Start<List<Name><=><List<Number>>>>", output );
+        }
+    }
+
+}
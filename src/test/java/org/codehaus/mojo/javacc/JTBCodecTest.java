@@ -0,0 +1,109 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Tests <code>JTBCodec</code>.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+public class JTBCodecTest
+    extends GrammarTestCase
+{
+
+    public void testToStringNullSafe()
+        throws Exception
+    {
+        JTBCodec processor = new JTBCodec();
+        String string = processor.toString();
+        assertNotNull( string );
+    }
+
+    public void testGenerateCodec()
+        throws Exception
+    {
+        File outputDir = new File( "target/unit-tests/jtb-codec" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( outputDir );
+        File nodeDir = new File( outputDir, "node" );
+        File visitorDir = new File( outputDir, "visitor" );
+
+        JTB jtb = new JTB();
+        jtb.setInputFile( getGrammar( "Parser3.jj" ) );
+        jtb.setOutputDirectory( outputDir );
+        jtb.setNodeDirectory( nodeDir );
+        jtb.setVisitorDirectory( visitorDir );
+        jtb.setNodePackageName( "org.codehaus.mojo.javacc.test.syntaxtree" );
+        jtb.setVisitorPackageName( "org.codehaus.mojo.javacc.test.visitor" );
+        jtb.run();
+
+        JTBCodec processor = new JTBCodec();
+        processor.setNodeDirectory( nodeDir );
+        processor.setVisitorDirectory( visitorDir );
+        processor.run();
+
+        String codec = FileUtils.fileRead( new File( visitorDir, "TreeCodec.java" ) );
+        assertTrue( codec.indexOf( "package org.codehaus.mojo.javacc.test.visitor;" ) >= 0 );
+        assertTrue( codec.indexOf( "import org.codehaus.mojo.javacc.test.syntaxtree.*;" ) > 0 );
+        assertTrue( codec.indexOf( "private static final int NODE_CHOICE = " ) > 0 );
+        assertTrue( codec.indexOf( "return ((List) n).f1;" ) > 0 );
+        assertTrue( codec.indexOf( "return new Item((NodeChoice) operands[start]);" ) > 0 );
+        assertTrue( codec.indexOf( "${" ) < 0 );
+    }
+
+    public void testRoundTrip()
+        throws Exception
+    {
+        File outputDir = new File( "target/unit-tests/jtb-codec-run" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( outputDir );
+        File nodeDir = new File( outputDir, "node" );
+        File visitorDir = new File( outputDir, "visitor" );
+
+        JTB jtb = new JTB();
+        jtb.setInputFile( getGrammar( "Parser4.jj" ) );
+        jtb.setOutputDirectory( outputDir );
+        jtb.setNodeDirectory( nodeDir );
+        jtb.setVisitorDirectory( visitorDir );
+        jtb.setNodePackageName( "org.codehaus.mojo.javacc.test.syntaxtree" );
+        jtb.setVisitorPackageName( "org.codehaus.mojo.javacc.test.visitor" );
+        jtb.run();
+
+        JTBCodec processor = new JTBCodec();
+        processor.setNodeDirectory( nodeDir );
+        processor.setVisitorDirectory( visitorDir );
+        processor.run();
+
+        JavaCC javacc = new JavaCC();
+        javacc.setInputFile( jtb.getOutputFile() );
+        javacc.setOutputDirectory( outputDir );
+        javacc.run();
+
+        String output = compileAndRun( outputDir, "JTBCodecCheck", "(a b = 1 2 (c) ())" );
+        if ( output != null )
+        {
+            assertEquals( "( a b = 1 2 ( c ) ( ) ) | true | 100000", output );
+        }
+    }
+
+}
@@ -0,0 +1,109 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Tests <code>JTBWalker</code>.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+public class JTBWalkerTest
+    extends GrammarTestCase
+{
+
+    public void testToStringNullSafe()
+        throws Exception
+    {
+        JTBWalker processor = new JTBWalker();
+        String string = processor.toString();
+        assertNotNull( string );
+    }
+
+    public void testGenerateWalker()
+        throws Exception
+    {
+        File outputDir = new File( "target/unit-tests/jtb-walker" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( outputDir );
+        File nodeDir = new File( outputDir, "node" );
+        File visitorDir = new File( outputDir, "visitor" );
+
+        JTB jtb = new JTB();
+        jtb.setInputFile( getGrammar( "Parser3.jj" ) );
+        jtb.setOutputDirectory( outputDir );
+        jtb.setNodeDirectory( nodeDir );
+        jtb.setVisitorDirectory( visitorDir );
+        jtb.setNodePackageName( "org.codehaus.mojo.javacc.test.syntaxtree" );
+        jtb.setVisitorPackageName( "org.codehaus.mojo.javacc.test.visitor" );
+        jtb.run();
+
+        JTBWalker processor = new JTBWalker();
+        processor.setNodeDirectory( nodeDir );
+        processor.setVisitorDirectory( visitorDir );
+        processor.run();
+
+        String walker = FileUtils.fileRead( new File( visitorDir, "TreeWalker.java" ) );
+        assertTrue( walker.indexOf( "package org.codehaus.mojo.javacc.test.visitor;" ) >= 0 );
+        assertTrue( walker.indexOf( "import org.codehaus.mojo.javacc.test.syntaxtree.*;" ) > 0 );
+        assertTrue( walker.indexOf( "private static final int NODE_LIST_OPTIONAL = " ) > 0 );
+        assertTrue( walker.indexOf( "return ((List) n).f1;" ) > 0 );
+        assertTrue( walker.indexOf( "protected boolean enterItem(Item n)" ) > 0 );
+    }
+
+    public void testRunWalker()
+        throws Exception
+    {
+        File outputDir = new File( "target/unit-tests/jtb-walker-run" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( outputDir );
+        File nodeDir = new File( outputDir, "node" );
+        File visitorDir = new File( outputDir, "visitor" );
+
+        // the production List of Parser3.jj would clash with java.util.List in the visitors generated by JTB
+        JTB jtb = new JTB();
+        jtb.setInputFile( getGrammar( "Parser4.jj" ) );
+        jtb.setOutputDirectory( outputDir );
+        jtb.setNodeDirectory( nodeDir );
+        jtb.setVisitorDirectory( visitorDir );
+        jtb.setNodePackageName( "org.codehaus.mojo.javacc.test.syntaxtree" );
+        jtb.setVisitorPackageName( "org.codehaus.mojo.javacc.test.visitor" );
+        jtb.run();
+
+        JTBWalker processor = new JTBWalker();
+        processor.setNodeDirectory( nodeDir );
+        processor.setVisitorDirectory( visitorDir );
+        processor.run();
+
+        JavaCC javacc = new JavaCC();
+        javacc.setInputFile( jtb.getOutputFile() );
+        javacc.setOutputDirectory( outputDir );
+        javacc.run();
+
+        String output = compileAndRun( outputDir, "JTBWalkerCheck", "(a b = 1 2 (c))" );
+        if ( output != null )
+        {
+            assertEquals( "( [ a ] [ b = 1 ] # [ ( [ c ] ) ] )", output );
+        }
+    }
+
+}
@@ -0,0 +1,147 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Tests <code>JavaCCEngine</code>.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+public class JavaCCEngineTest
+    extends GrammarTestCase
+{
+
+    public void testToString()
+        throws Exception
+    {
+        JavaCCEngine engine = JavaCCEngine.getInstance( getJavaCCJar() );
+        String string = engine.toString();
+        assertNotNull( string );
+    }
+
+    public void testGetInstanceCached()
+        throws Exception
+    {
+        File jar = getJavaCCJar();
+        JavaCCEngine engine = JavaCCEngine.getInstance( jar );
+        assertSame( engine, JavaCCEngine.getInstance( new File( jar.getAbsolutePath() ) ) );
+        assertEquals( jar.getAbsoluteFile(), engine.getJarFile() );
+    }
+
+    public void testGetInstanceWithoutVersion()
+        throws Exception
+    {
+        assertNull( JavaCCEngine.getInstance( null, null, null, null, null, null, null ) );
+        assertNull( JavaCCEngine.getInstance( null, null, "", null, null, null, null ) );
+    }
+
+    public void testReleaseAll()
+        throws Exception
+    {
+        File jar = getJavaCCJar();
+        JavaCCEngine engine = JavaCCEngine.getInstance( jar );
+        engine.loadClass( "org.javacc.parser.Main" );
+        JavaCCEngine.releaseAll();
+        assertNotSame( engine, JavaCCEngine.getInstance( jar ) );
+        // a released engine still runs, it merely does not pool its class loaders anymore
+        assertEquals( "org.javacc.parser.Main", engine.loadClass( "org.javacc.parser.Main" ).getName() );
+    }
+
+    public void testLoadClassIsolated()
+        throws Exception
+    {
+        JavaCCEngine engine = JavaCCEngine.getInstance( getJavaCCJar() );
+        Class type = engine.loadClass( "org.javacc.parser.Main" );
+        assertNotSame( org.javacc.parser.Main.class, type );
+        assertEquals( org.javacc.parser.Main.class.getName(), type.getName() );
+        try
+        {
+            engine.loadClass( JavaCCEngine.class.getName() );
+            fail( "Missing ClassNotFoundException" );
+        }
+        catch ( ClassNotFoundException e )
+        {
+            assertTrue( true );
+        }
+    }
+
+    public void testGetDefault()
+        throws Exception
+    {
+        JavaCCEngine engine = JavaCCEngine.getDefault();
+        assertNotNull( engine );
+        assertSame( engine, JavaCCEngine.getDefault() );
+        assertSame( engine, JavaCCEngine.getInstance( getJavaCCJar() ) );
+    }
+
+    public void testLoaderReusedAcrossRuns()
+        throws Exception
+    {
+        JavaCCEngine engine = JavaCCEngine.getInstance( getJavaCCJar() );
+        Class type = engine.loadClass( "org.javacc.parser.Main" );
+        int count = engine.getLoaderCount();
+        assertSame( type, engine.loadClass( "org.javacc.parser.Main" ) );
+        assertEquals( count, engine.getLoaderCount() );
+    }
+
+    public void testRunJavaCC()
+        throws Exception
+    {
+        File outputDir = new File( "target/unit-tests/javacc-engine" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( outputDir );
+
+        JavaCC javacc = new JavaCC();
+        javacc.setEngine( JavaCCEngine.getInstance( getJavaCCJar() ) );
+        javacc.setInputFile( getGrammar( "Parser3.jj" ) );
+        javacc.setOutputDirectory( outputDir );
+        javacc.run();
+
+        assertTrue( new File( outputDir, "ListParser.java" ).isFile() );
+        assertTrue( new File( outputDir, "ListParserTokenManager.java" ).isFile() );
+    }
+
+    public void testRunJJTree()
+        throws Exception
+    {
+        File outputDir = new File( "target/unit-tests/javacc-engine-jjtree" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( outputDir );
+
+        JJTree jjtree = new JJTree();
+        jjtree.setEngine( JavaCCEngine.getInstance( getJavaCCJar() ) );
+        jjtree.setInputFile( getGrammar( "Tree1.jjt" ) );
+        jjtree.setOutputDirectory( outputDir );
+        jjtree.run();
+
+        assertTrue( new File( outputDir, "Tree1.jj" ).isFile() );
+        assertTrue( new File( outputDir, "TreeParserTreeConstants.java" ).isFile() );
+    }
+
+    private File getJavaCCJar()
+    {
+        String resource = "org/javacc/parser/Main.class";
+        return UrlUtils.getResourceRoot( getClass().getClassLoader().getResource( resource ), resource );
+    }
+
+}
@@ -0,0 +1,65 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.ReflectionUtils;
+
+/**
+ * Tests <code>JavaCCMojo</code>.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+public class JavaCCMojoTest
+    extends GrammarTestCase
+{
+
+    public void testRejectNonPositiveTokenImageCacheSize()
+        throws Exception
+    {
+        File basedir = new File( "target/unit-tests/javacc-mojo" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( basedir );
+        FileUtils.copyFile( getGrammar( "Parser1.jj" ), new File( basedir, "src/main/javacc/Parser1.jj" ) );
+
+        JavaCCMojo mojo = new JavaCCMojo();
+        ReflectionUtils.setVariableValueInObject( mojo, "project", newProject( basedir ) );
+        ReflectionUtils.setVariableValueInObject( mojo, "sourceDirectory", new File( basedir, "src/main/javacc" ) );
+        ReflectionUtils.setVariableValueInObject( mojo, "outputDirectory",
+                                                  new File( basedir, "target/generated-sources/javacc" ) );
+        ReflectionUtils.setVariableValueInObject( mojo, "grammarEncoding", "UTF-8" );
+        ReflectionUtils.setVariableValueInObject( mojo, "memoryShare", new Integer( 50 ) );
+        ReflectionUtils.setVariableValueInObject( mojo, "internTokenImages", Boolean.TRUE );
+        ReflectionUtils.setVariableValueInObject( mojo, "tokenImageCacheSize", new Integer( 0 ) );
+        try
+        {
+            mojo.execute();
+            fail( "Missing MojoExecutionException" );
+        }
+        catch ( MojoExecutionException e )
+        {
+            assertTrue( e.getMessage().indexOf( "tokenImageCacheSize" ) >= 0 );
+        }
+    }
+
+}
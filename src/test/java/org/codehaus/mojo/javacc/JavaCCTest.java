@@ -19,8 +19,13 @@ package org.codehaus.mojo.javacc;
  * under the License.
  */
 
+import java.io.File;
+import java.net.URI;
+
 import junit.framework.TestCase;
 
+import org.codehaus.plexus.util.FileUtils;
+
 /**
  * Tests <code>JavaCC</code> facade.
  * 
@@ -71,4 +76,20 @@ public class JavaCCTest
         tool.setLog( null );
     }
 
+    public void testForkedHeap()
+        throws Exception
+    {
+        File outputDir = new File( "target/unit-tests/javacc-forked" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( outputDir );
+        JavaCC tool = new JavaCC();
+        tool.setInputFile( new File( new URI( getClass().getResource( "/Parser1.jj" ).toString() ) ) );
+        tool.setOutputDirectory( outputDir );
+        tool.setForkedHeap( 64 << 20 );
+        assertEquals( -1, tool.getForkedHeapUsed() );
+        tool.run();
+        assertTrue( new File( outputDir, "BasicParser.java" ).isFile() );
+        assertTrue( tool.getForkedHeapUsed() > 0 );
+        assertTrue( tool.getForkedHeapUsed() <= 64 << 20 );
+    }
+
 }
@@ -0,0 +1,86 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Tests <code>LazyTokenImages</code>.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+public class LazyTokenImagesTest
+    extends GrammarTestCase
+{
+
+    public void testToStringNullSafe()
+        throws Exception
+    {
+        LazyTokenImages processor = new LazyTokenImages();
+        String string = processor.toString();
+        assertNotNull( string );
+    }
+
+    public void testEnhanceParser()
+        throws Exception
+    {
+        File outputDir = new File( "target/unit-tests/lazy-token-images" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( outputDir );
+
+        JavaCC javacc = new JavaCC();
+        javacc.setInputFile( getGrammar( "Parser3.jj" ) );
+        javacc.setOutputDirectory( outputDir );
+        javacc.run();
+
+        LazyTokenImages processor = new LazyTokenImages();
+        processor.setParserDirectory( outputDir );
+        processor.setParserName( "ListParser" );
+        processor.run();
+
+        String tokenManager = FileUtils.fileRead( new File( outputDir, "ListParserTokenManager.java" ) );
+        assertTrue( tokenManager.indexOf( "curTokenImage = im;" ) > 0 );
+        assertTrue( tokenManager.indexOf( "jjFillImage(t);" ) > 0 );
+        assertTrue( tokenManager.indexOf( "private void jjFillImage(Token t)" ) > 0 );
+
+        String token = FileUtils.fileRead( new File( outputDir, "Token.java" ) );
+        assertTrue( token.indexOf( "public String getImage()" ) > 0 );
+        assertTrue( token.indexOf( "return getImage();" ) > 0 );
+
+        String exception = FileUtils.fileRead( new File( outputDir, "ParseException.java" ) );
+        assertTrue( exception.indexOf( "tok.image" ) < 0 );
+
+        // read the images only after the char stream has reused its buffer
+        StringBuffer input = new StringBuffer( "(" );
+        for ( int i = 0; i < 1000; i++ )
+        {
+            input.append( " name" ).append( i ).append( " = " ).append( i );
+        }
+        input.append( " )" );
+        String output = compileAndRun( outputDir, "LazyTokenImagesCheck", input.toString() );
+        if ( output != null )
+        {
+            assertEquals( input.toString(), output );
+        }
+    }
+
+}
@@ -0,0 +1,175 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.List;
+
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Tests <code>LookaheadAnalyzer</code>.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+public class LookaheadAnalyzerTest
+    extends GrammarTestCase
+{
+
+    public void testParseWarnings()
+        throws Exception
+    {
+        String output =
+            "Reading from file Foo.jj . . .\n" + "Warning: Choice conflict involving two expansions at\n"
+                + "         line 4, column 23 and line 4, column 29 respectively.\n"
+                + "         A common prefix is: \"a\"\n" + "Warning: Output directory \"out\" does not exist.\n"
+                + "Parser generated with 0 errors and 2 warnings.\n";
+        List warnings = LookaheadAnalyzer.parseWarnings( output );
+        assertEquals( 1, warnings.size() );
+        assertEquals( "Choice conflict involving two expansions at line 4, column 23 and line 4, column 29 "
+            + "respectively. A common prefix is: \"a\"", warnings.get( 0 ) );
+    }
+
+    public void testAnalyze()
+        throws Exception
+    {
+        File outputDir = new File( "target/unit-tests/lookahead-analyzer" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( outputDir );
+
+        JavaCC javacc = new JavaCC();
+        javacc.setInputFile( getGrammar( "Lookahead1.jj" ) );
+        javacc.setOutputDirectory( outputDir );
+
+        LookaheadAnalyzer analyzer = new LookaheadAnalyzer();
+        analyzer.analyze( javacc );
+
+        LookaheadInfo[] lookaheads = analyzer.getLookaheads();
+        assertEquals( 3, lookaheads.length );
+
+        assertEquals( "Single", lookaheads[0].getProduction() );
+        assertTrue( lookaheads[0].isExplicit() );
+        assertFalse( lookaheads[0].isSyntactic() );
+        assertFalse( lookaheads[0].isSemantic() );
+        assertEquals( 3, lookaheads[0].getDepth() );
+        assertEquals( 3, lookaheads[0].getScannedTokens() );
+        assertFalse( lookaheads[0].isRepeated() );
+
+        assertEquals( "Start", lookaheads[1].getProduction() );
+        assertTrue( lookaheads[1].isSyntactic() );
+        assertEquals( LookaheadInfo.UNBOUNDED, lookaheads[1].getDepth() );
+        assertEquals( 2, lookaheads[1].getScannedTokens() );
+        assertTrue( lookaheads[1].isRepeated() );
+        assertEquals( 23, lookaheads[1].getLine() );
+
+        assertEquals( "Pair", lookaheads[2].getProduction() );
+        assertTrue( lookaheads[2].isSemantic() );
+        assertEquals( 0, lookaheads[2].getScannedTokens() );
+
+        String[] warnings = analyzer.getWarnings();
+        assertTrue( warnings.length > 0 );
+        for ( int i = 0; i < warnings.length; i++ )
+        {
+            assertTrue( warnings[i], warnings[i].indexOf( "conflict" ) >= 0 );
+        }
+    }
+
+    public void testAnalyzeLeavesStandardStreams()
+        throws Exception
+    {
+        File outputDir = new File( "target/unit-tests/lookahead-analyzer-streams" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( outputDir );
+
+        JavaCC javacc = new JavaCC();
+        javacc.setInputFile( getGrammar( "Lookahead1.jj" ) );
+        javacc.setOutputDirectory( outputDir );
+
+        PrintStream out = System.out;
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        PrintStream capture = new PrintStream( buffer, true );
+        System.setOut( capture );
+        try
+        {
+            LookaheadAnalyzer analyzer = new LookaheadAnalyzer();
+            analyzer.analyze( javacc );
+            assertSame( capture, System.out );
+            assertTrue( analyzer.getWarnings().length > 0 );
+        }
+        finally
+        {
+            System.setOut( out );
+        }
+        assertEquals( "", buffer.toString() );
+    }
+
+    public void testProtocol()
+    {
+        LookaheadInfo info = new LookaheadInfo( "Start", 23, true, true, false, LookaheadInfo.UNBOUNDED, 2, true );
+        LookaheadInfo parsed = LookaheadDriver.parse( LookaheadDriver.format( info ) );
+        assertEquals( "Start", parsed.getProduction() );
+        assertEquals( 23, parsed.getLine() );
+        assertTrue( parsed.isExplicit() );
+        assertTrue( parsed.isSyntactic() );
+        assertFalse( parsed.isSemantic() );
+        assertEquals( LookaheadInfo.UNBOUNDED, parsed.getDepth() );
+        assertEquals( 2, parsed.getScannedTokens() );
+        assertTrue( parsed.isRepeated() );
+        assertNull( LookaheadDriver.parse( LookaheadDriver.PREFIX + "garbage" ) );
+    }
+
+    public void testAnalyzeGlobalLookahead()
+        throws Exception
+    {
+        File outputDir = new File( "target/unit-tests/lookahead-analyzer-global" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( outputDir );
+
+        JavaCC javacc = new JavaCC();
+        javacc.setInputFile( getGrammar( "Lookahead1.jj" ) );
+        javacc.setOutputDirectory( outputDir );
+        javacc.setLookAhead( new Integer( 2 ) );
+
+        LookaheadAnalyzer analyzer = new LookaheadAnalyzer();
+        analyzer.analyze( javacc );
+
+        LookaheadInfo[] lookaheads = analyzer.getLookaheads();
+        int explicit = 0;
+        int implicit = 0;
+        for ( int i = 0; i < lookaheads.length; i++ )
+        {
+            if ( lookaheads[i].isExplicit() )
+            {
+                explicit++;
+            }
+            else
+            {
+                implicit++;
+                assertFalse( lookaheads[i].isSyntactic() );
+                assertFalse( lookaheads[i].isSemantic() );
+                assertEquals( 2, lookaheads[i].getDepth() );
+                assertTrue( lookaheads[i].getLine() > 0 );
+            }
+        }
+        assertEquals( 3, explicit );
+        assertEquals( 5, implicit );
+    }
+
+}
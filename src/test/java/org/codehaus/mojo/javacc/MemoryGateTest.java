@@ -0,0 +1,92 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+
+/**
+ * Tests <code>MemoryGate</code>.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+public class MemoryGateTest
+    extends TestCase
+{
+
+    public void testBudget()
+    {
+        long max = Runtime.getRuntime().maxMemory();
+        assertEquals( max / 100 * 50, MemoryGate.getBudget( 50 ) );
+        assertEquals( max / 100 * 100, MemoryGate.getBudget( 200 ) );
+    }
+
+    public void testLiveHeap()
+    {
+        long collections = MemoryGate.getCollectionCount();
+        System.gc();
+        assertTrue( MemoryGate.getCollectionCount() > collections );
+        long live = MemoryGate.getLiveHeap();
+        assertTrue( live > 0 );
+        assertTrue( live <= Runtime.getRuntime().totalMemory() );
+    }
+
+    public void testAdmitsOversizedJobWhenIdle()
+        throws Exception
+    {
+        MemoryGate gate = new MemoryGate();
+        gate.acquire( 1000, 100 );
+        assertEquals( 1000, gate.getUsed() );
+        gate.release( 1000 );
+        assertEquals( 0, gate.getUsed() );
+    }
+
+    public void testBlocksUntilHeapReleased()
+        throws Exception
+    {
+        final MemoryGate gate = new MemoryGate();
+        gate.acquire( 60, 100 );
+        final long[] admitted = new long[1];
+        Thread thread = new Thread()
+        {
+            public void run()
+            {
+                try
+                {
+                    gate.acquire( 60, 100 );
+                    admitted[0] = System.currentTimeMillis();
+                    gate.release( 60 );
+                }
+                catch ( InterruptedException e )
+                {
+                    // fail below
+                }
+            }
+        };
+        thread.start();
+        Thread.sleep( 100 );
+        long released = System.currentTimeMillis();
+        gate.release( 60 );
+        thread.join( 5000 );
+        assertTrue( admitted[0] >= released );
+        assertEquals( 0, gate.getUsed() );
+    }
+
+}
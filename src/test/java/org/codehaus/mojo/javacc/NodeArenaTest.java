@@ -0,0 +1,147 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Tests <code>NodeArena</code>.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+public class NodeArenaTest
+    extends GrammarTestCase
+{
+
+    public void testToStringNullSafe()
+        throws Exception
+    {
+        NodeArena processor = new NodeArena();
+        String string = processor.toString();
+        assertNotNull( string );
+    }
+
+    public void testGetNodeFactory()
+        throws Exception
+    {
+        NodeArena processor = new NodeArena();
+        processor.setParserName( "TreeParser" );
+        processor.setParserPackage( "org.test" );
+        assertEquals( "org.test.TreeParserNodeArena", processor.getNodeFactory() );
+        processor.setNodePackage( "org.test.node" );
+        assertEquals( "org.test.node.TreeParserNodeArena", processor.getNodeFactory() );
+        processor.setParserPackage( null );
+        processor.setNodePackage( null );
+        assertEquals( "TreeParserNodeArena", processor.getNodeFactory() );
+    }
+
+    public void testGenerateArena()
+        throws Exception
+    {
+        File outputDir = new File( "target/unit-tests/node-arena" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( outputDir );
+
+        NodeArena processor = new NodeArena();
+        processor.setNodeDirectory( outputDir );
+        processor.setParserName( "TreeParser" );
+        processor.setParserPackage( "org.codehaus.mojo.javacc.test" );
+        processor.setNodeUsesParser( Boolean.TRUE );
+
+        JJTree jjtree = new JJTree();
+        jjtree.setInputFile( getGrammar( "Tree1.jjt" ) );
+        jjtree.setOutputDirectory( outputDir );
+        jjtree.setNodeFactory( processor.getNodeFactory() );
+        jjtree.setNodeUsesParser( Boolean.TRUE );
+        jjtree.run();
+
+        processor.run();
+
+        String arena = FileUtils.fileRead( new File( outputDir, "TreeParserNodeArena.java" ) );
+        assertTrue( arena.indexOf( "package org.codehaus.mojo.javacc.test;" ) >= 0 );
+        assertTrue( arena.indexOf( "public static Node jjtCreate(int id)" ) > 0 );
+        assertTrue( arena.indexOf( "jjtCreate(org.codehaus.mojo.javacc.test.TreeParser p, int id)" ) > 0 );
+        assertTrue( arena.indexOf( "public static void reset()" ) > 0 );
+
+        String node = FileUtils.fileRead( new File( outputDir, "TreeParserArenaNode.java" ) );
+        assertTrue( node.indexOf( "extends SimpleNode" ) > 0 );
+
+        String simpleNode = FileUtils.fileRead( new File( outputDir, "SimpleNode.java" ) );
+        assertTrue( simpleNode.indexOf( "children[i].jjtAccept" ) < 0 );
+        assertTrue( simpleNode.indexOf( "(SimpleNode)children[i]" ) < 0 );
+        assertTrue( simpleNode.indexOf( "i < jjtGetNumChildren();" ) > 0 );
+
+        String grammar = FileUtils.fileRead( jjtree.getOutputFile() );
+        assertTrue( grammar.indexOf( "TreeParserNodeArena.jjtCreate(this, " ) > 0 );
+
+        JavaCC javacc = new JavaCC();
+        javacc.setInputFile( jjtree.getOutputFile() );
+        javacc.setOutputDirectory( outputDir );
+        javacc.run();
+
+        String tree = "Start(List(Assignment(Name,Number),List(Number,Name),Name,Name,Name))";
+        String output = compileAndRun( outputDir, new String[] { "NodeArenaCheck", "TreeFormat" },
+                                       "(a = 1 (2 b) c d e)" );
+        if ( output != null )
+        {
+            assertEquals( tree + " | " + tree + " | true", output );
+        }
+    }
+
+    public void testResetTrackedTokens()
+        throws Exception
+    {
+        File outputDir = new File( "target/unit-tests/node-arena-tokens" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( outputDir );
+
+        NodeArena processor = new NodeArena();
+        processor.setNodeDirectory( outputDir );
+        processor.setParserName( "TreeParser" );
+        processor.setParserPackage( "org.codehaus.mojo.javacc.test" );
+        processor.setTrackTokens( Boolean.TRUE );
+
+        JJTree jjtree = new JJTree();
+        jjtree.setInputFile( getGrammar( "Tree1.jjt" ) );
+        jjtree.setOutputDirectory( outputDir );
+        jjtree.setNodeFactory( processor.getNodeFactory() );
+        jjtree.setTrackTokens( Boolean.TRUE );
+        jjtree.run();
+
+        processor.run();
+
+        String node = FileUtils.fileRead( new File( outputDir, "TreeParserArenaNode.java" ) );
+        assertTrue( node.indexOf( "firstToken = null;" ) > 0 );
+        assertTrue( node.indexOf( "lastToken = null;" ) > 0 );
+
+        JavaCC javacc = new JavaCC();
+        javacc.setInputFile( jjtree.getOutputFile() );
+        javacc.setOutputDirectory( outputDir );
+        javacc.run();
+
+        String output = compileAndRun( outputDir, "NodeArenaTokensCheck", "(a = 1 (2 b) c d e)" );
+        if ( output != null )
+        {
+            assertEquals( "'(' '' | true null null", output );
+        }
+    }
+
+}
@@ -0,0 +1,106 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+import java.net.URI;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.codehaus.plexus.util.FileUtils;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests <code>ParserBenchmark</code>.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+public class ParserBenchmarkTest
+    extends TestCase
+{
+
+    public void testToStringNullSafe()
+        throws Exception
+    {
+        ParserBenchmark benchmark = new ParserBenchmark();
+        String string = benchmark.toString();
+        assertNotNull( string );
+        assertTrue( string.indexOf( "null" ) < 0 );
+    }
+
+    public void testFindStartProduction()
+        throws Exception
+    {
+        assertEquals( "Input", ParserBenchmark.findStartProduction( readGrammar( "Parser1.jj" ) ) );
+        assertEquals( "Start", ParserBenchmark.findStartProduction( readGrammar( "Tree1.jjt" ) ) );
+        assertEquals( "Start", ParserBenchmark.findStartProduction( readGrammar( "Lookahead1.jj" ) ) );
+        assertNull( ParserBenchmark.findStartProduction( "PARSER_BEGIN(Foo) class Foo {} PARSER_END(Foo)" ) );
+    }
+
+    public void testRun()
+        throws Exception
+    {
+        File corpusDir = new File( "target/unit-tests/parser-benchmark" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( corpusDir );
+        corpusDir.mkdirs();
+        File file1 = new File( corpusDir, "one.txt" );
+        FileUtils.fileWrite( file1.getPath(), "a b c" );
+        File file2 = new File( corpusDir, "two.txt" );
+        FileUtils.fileWrite( file2.getPath(), "d e f g" );
+
+        ParserBenchmark benchmark = new ParserBenchmark();
+        benchmark.setParserClass( ParserStub.class );
+        benchmark.setStartProduction( "Words" );
+        benchmark.setEncoding( "UTF-8" );
+        benchmark.setCorpusFiles( new File[] { file1, file2 } );
+        benchmark.setWarmupIterations( 1 );
+        benchmark.setIterations( 2 );
+        benchmark.run();
+
+        assertEquals( 12, benchmark.getCorpusBytes() );
+        assertEquals( 5, benchmark.getCorpusTokens() );
+    }
+
+    public void testRejectMissingProduction()
+        throws Exception
+    {
+        ParserBenchmark benchmark = new ParserBenchmark();
+        benchmark.setParserClass( ParserStub.class );
+        benchmark.setStartProduction( "Sentences" );
+        benchmark.setCorpusFiles( new File[0] );
+        try
+        {
+            benchmark.run();
+            fail( "Missing production not rejected" );
+        }
+        catch ( MojoExecutionException e )
+        {
+            assertTrue( e.getMessage().indexOf( "ParserStub" ) > 0 );
+        }
+    }
+
+    private String readGrammar( String resource )
+        throws Exception
+    {
+        return FileUtils.fileRead( new File( new URI( getClass().getResource( '/' + resource ).toString() ) ) );
+    }
+
+}
@@ -0,0 +1,112 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Tests <code>ParserPool</code>.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+public class ParserPoolTest
+    extends GrammarTestCase
+{
+
+    public void testToStringNullSafe()
+        throws Exception
+    {
+        ParserPool processor = new ParserPool();
+        String string = processor.toString();
+        assertNotNull( string );
+    }
+
+    public void testGetArguments()
+    {
+        assertEquals( "", ParserPool.getArguments( "" ) );
+        assertEquals( "stream", ParserPool.getArguments( "java.io.Reader stream" ) );
+        assertEquals( "stream, encoding", ParserPool.getArguments( "java.io.InputStream  stream,String encoding" ) );
+        assertEquals( "map, x", ParserPool.getArguments( "java.util.Map<String, Integer> map, int x" ) );
+        assertEquals( "map, list", ParserPool.getArguments( "Map<String, List<Integer>>map, final List<?> list" ) );
+    }
+
+    public void testGeneratePool()
+        throws Exception
+    {
+        File outputDir = new File( "target/unit-tests/parser-pool" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( outputDir );
+
+        JavaCC javacc = new JavaCC();
+        javacc.setInputFile( getGrammar( "Parser3.jj" ) );
+        javacc.setOutputDirectory( outputDir );
+        javacc.run();
+
+        ParserPool processor = new ParserPool();
+        processor.setParserDirectory( outputDir );
+        processor.setParserName( "ListParser" );
+        processor.setParserPackage( "org.codehaus.mojo.javacc.test" );
+        processor.run();
+
+        String pool = FileUtils.fileRead( new File( outputDir, "ListParserPool.java" ) );
+        assertTrue( pool.indexOf( "package org.codehaus.mojo.javacc.test;" ) >= 0 );
+        assertTrue( pool.indexOf( "public ListParser borrow(java.io.Reader stream)" ) > 0 );
+        assertTrue( pool.indexOf( "parser.ReInit(stream, encoding);" ) > 0 );
+        assertTrue( pool.indexOf( "public ListParser borrow(ListParserTokenManager tm)" ) > 0 );
+        assertTrue( pool.indexOf( "public void release(ListParser parser)" ) > 0 );
+
+        String output = compileAndRun( outputDir, "ParserPoolCheck", "(a = 1 b (2))" );
+        if ( output != null )
+        {
+            assertEquals( "borrowed=2 created=1 active=0 reused=true", output );
+        }
+    }
+
+    public void testRejectStaticParser()
+        throws Exception
+    {
+        File outputDir = new File( "target/unit-tests/parser-pool-static" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( outputDir );
+
+        JavaCC javacc = new JavaCC();
+        javacc.setInputFile( getGrammar( "Parser3.jj" ) );
+        javacc.setOutputDirectory( outputDir );
+        javacc.setStatic( Boolean.TRUE );
+        javacc.run();
+
+        ParserPool processor = new ParserPool();
+        processor.setParserDirectory( outputDir );
+        processor.setParserName( "ListParser" );
+        try
+        {
+            processor.run();
+            fail( "Static parser not rejected" );
+        }
+        catch ( MojoExecutionException e )
+        {
+            assertTrue( e.getMessage().indexOf( "static" ) > 0 );
+        }
+        assertFalse( new File( outputDir, "ListParserPool.java" ).exists() );
+    }
+
+}
@@ -0,0 +1,76 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Tests <code>ParserProfiler</code>.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+public class ParserProfilerTest
+    extends GrammarTestCase
+{
+
+    public void testToStringNullSafe()
+        throws Exception
+    {
+        ParserProfiler processor = new ParserProfiler();
+        String string = processor.toString();
+        assertNotNull( string );
+    }
+
+    public void testInstrumentParser()
+        throws Exception
+    {
+        File outputDir = new File( "target/unit-tests/parser-profiler" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( outputDir );
+
+        JavaCC javacc = new JavaCC();
+        javacc.setInputFile( getGrammar( "Parser3.jj" ) );
+        javacc.setOutputDirectory( outputDir );
+        javacc.run();
+
+        ParserProfiler processor = new ParserProfiler();
+        processor.setParserDirectory( outputDir );
+        processor.setParserName( "ListParser" );
+        processor.run();
+
+        String parser = FileUtils.fileRead( new File( outputDir, "ListParser.java" ) );
+        assertTrue( parser.indexOf( "jjProfiled_List();" ) > 0 );
+        assertTrue( parser.indexOf( "private void jjProfiled_Item() throws ParseException {" ) > 0 );
+        assertTrue( parser.indexOf( "jjProfileLookaheadCalls[0]++;" ) > 0 );
+        assertTrue( parser.indexOf( "{\"List\", \"Item\"}" ) > 0 );
+        assertTrue( parser.indexOf( "public static void dumpProfile()" ) > 0 );
+        assertTrue( parser.indexOf( "jjProfiled_jj" ) < 0 );
+
+        String output = compileAndRun( outputDir, "ParserProfilerCheck", "(a = 1 b (2))" );
+        if ( output != null )
+        {
+            assertTrue( output, output.indexOf( "  List\t1\t" ) > 0 );
+            assertTrue( output, output.indexOf( "  Item\t4\t" ) > 0 );
+        }
+    }
+
+}
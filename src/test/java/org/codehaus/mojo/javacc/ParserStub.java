@@ -0,0 +1,80 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Supports {@link ParserBenchmarkTest} by mimicking the public API of a parser generated by JavaCC.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+public class ParserStub
+{
+
+    public static class Token
+    {
+
+        public Token next;
+
+    }
+
+    public Token token;
+
+    private InputStream stream;
+
+    public ParserStub( InputStream stream )
+    {
+        ReInit( stream );
+    }
+
+    public ParserStub( InputStream stream, String encoding )
+    {
+        ReInit( stream, encoding );
+    }
+
+    public void ReInit( InputStream stream )
+    {
+        this.stream = stream;
+        this.token = new Token();
+    }
+
+    public void ReInit( InputStream stream, String encoding )
+    {
+        ReInit( stream );
+    }
+
+    public void Words()
+        throws IOException
+    {
+        Token last = this.token;
+        for ( int c = this.stream.read(); c >= 0; c = this.stream.read() )
+        {
+            if ( c == ' ' )
+            {
+                last.next = new Token();
+                last = last.next;
+            }
+        }
+    }
+
+}
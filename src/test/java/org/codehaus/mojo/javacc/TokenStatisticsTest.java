@@ -0,0 +1,101 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Tests <code>TokenStatistics</code>.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+public class TokenStatisticsTest
+    extends GrammarTestCase
+{
+
+    public void testToStringNullSafe()
+        throws Exception
+    {
+        TokenStatistics processor = new TokenStatistics();
+        String string = processor.toString();
+        assertNotNull( string );
+    }
+
+    public void testGenerateStatistics()
+        throws Exception
+    {
+        File outputDir = new File( "target/unit-tests/token-statistics" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( outputDir );
+
+        JavaCC javacc = new JavaCC();
+        javacc.setInputFile( getGrammar( "Parser3.jj" ) );
+        javacc.setOutputDirectory( outputDir );
+        javacc.setCommonTokenAction( Boolean.TRUE );
+        javacc.run();
+
+        TokenStatistics processor = new TokenStatistics();
+        processor.setParserDirectory( outputDir );
+        processor.setParserName( "ListParser" );
+        processor.setParserPackage( "org.codehaus.mojo.javacc.test" );
+        processor.run();
+
+        String tokenManager = FileUtils.fileRead( new File( outputDir, "ListParserTokenManager.java" ) );
+        assertTrue( tokenManager.indexOf( "void CommonTokenAction(Token t)" ) > 0 );
+        assertTrue( tokenManager.indexOf( "ListParserTokenStatistics.count(t.kind, " ) > 0 );
+        assertTrue( tokenManager.indexOf( "jjUserCommonTokenAction" ) < 0 );
+
+        String statistics = FileUtils.fileRead( new File( outputDir, "ListParserTokenStatistics.java" ) );
+        assertTrue( statistics.indexOf( "package org.codehaus.mojo.javacc.test;" ) >= 0 );
+        assertTrue( statistics.indexOf( "new long[ListParserConstants.tokenImage.length]" ) > 0 );
+        assertTrue( statistics.indexOf( "public static double getCharactersPerSecond()" ) > 0 );
+
+        String output = compileAndRun( outputDir, "TokenStatisticsCheck", "(ab = 12 c (3))" );
+        if ( output != null )
+        {
+            assertEquals( "tokens=10 identifiers=2 numbers=2 characters=11", output );
+        }
+
+        processor.run();
+        assertEquals( tokenManager, FileUtils.fileRead( new File( outputDir, "ListParserTokenManager.java" ) ) );
+    }
+
+    public void testSkipWithoutCommonTokenAction()
+        throws Exception
+    {
+        File outputDir = new File( "target/unit-tests/token-statistics-skipped" ).getAbsoluteFile();
+        FileUtils.deleteDirectory( outputDir );
+
+        JavaCC javacc = new JavaCC();
+        javacc.setInputFile( getGrammar( "Parser3.jj" ) );
+        javacc.setOutputDirectory( outputDir );
+        javacc.run();
+
+        TokenStatistics processor = new TokenStatistics();
+        processor.setParserDirectory( outputDir );
+        processor.setParserName( "ListParser" );
+        processor.run();
+
+        assertFalse( new File( outputDir, "ListParserTokenStatistics.java" ).exists() );
+    }
+
+}
@@ -0,0 +1,80 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.io.File;
+
+import org.codehaus.plexus.util.FileUtils;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests <code>TraceFile</code>.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+public class TraceFileTest
+    extends TestCase
+{
+
+    public void testGetInstance()
+        throws Exception
+    {
+        File file = new File( "target/unit-tests/trace-file/instance.json" ).getAbsoluteFile();
+        TraceFile trace = TraceFile.getInstance( file );
+        assertSame( trace, TraceFile.getInstance( new File( file.getParentFile(), "../trace-file/instance.json" ) ) );
+        assertEquals( file.getCanonicalFile(), trace.getFile() );
+        assertTrue( FileUtils.fileRead( file ).startsWith( "[\n" ) );
+    }
+
+    public void testFlightEventWritesSpan()
+        throws Exception
+    {
+        File file = new File( "target/unit-tests/trace-file/events.json" ).getAbsoluteFile();
+        TraceFile.setCurrent( TraceFile.getInstance( file ) );
+        try
+        {
+            FlightEvent event = FlightEvent.begin( FlightEvent.TOOL_RUN );
+            assertTrue( event.isEnabled() );
+            event.set( 0, "JavaCC" );
+            event.set( 1, "Parser1.jj" );
+            event.set( 2, 0 );
+            event.commit();
+        }
+        finally
+        {
+            TraceFile.setCurrent( null );
+        }
+        String json = FileUtils.fileRead( file, "UTF-8" );
+        assertTrue( json, json.indexOf( "\"thread_name\"" ) > 0 );
+        assertTrue( json, json.indexOf( "{\"name\":\"JavaCC\",\"cat\":\"ToolRun\",\"ph\":\"X\"" ) > 0 );
+        assertTrue( json, json.indexOf( "\"grammar\":\"Parser1.jj\",\"exitCode\":0" ) > 0 );
+        assertFalse( FlightEvent.begin( FlightEvent.TOOL_RUN ).isEnabled() );
+    }
+
+    public void testAppendString()
+    {
+        StringBuffer buffer = new StringBuffer();
+        TraceFile.appendString( buffer, "C:\\dir\t\"x\"" );
+        assertEquals( "\"C:\\\\dir\\u0009\\\"x\\\"\"", buffer.toString() );
+    }
+
+}
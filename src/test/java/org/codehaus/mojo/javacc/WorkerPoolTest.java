@@ -0,0 +1,136 @@
+package org.codehaus.mojo.javacc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file 
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY 
+ * KIND, either express or implied.  See the License for the 
+ * specific language governing permissions and limitations 
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests <code>WorkerPool</code>.
+ * 
+ * @author <a href="mailto:agent@local">agent</a>
+ * @version $Id$
+ */
+public class WorkerPoolTest
+    extends TestCase
+{
+
+    public void testDefaultThreadCount()
+    {
+        assertEquals( Runtime.getRuntime().availableProcessors(), new WorkerPool( 0, "test" ).getMaxThreads() );
+        assertEquals( 3, new WorkerPool( 3, "test" ).getMaxThreads() );
+    }
+
+    public void testEstimateMakespan()
+    {
+        assertEquals( 0, WorkerPool.estimateMakespan( new long[0], 2 ) );
+        assertEquals( 10, WorkerPool.estimateMakespan( new long[] { 10, 4, 3, 3 }, 2 ) );
+        assertEquals( 20, WorkerPool.estimateMakespan( new long[] { 10, 4, 3, 3 }, 1 ) );
+        assertEquals( 13, WorkerPool.estimateMakespan( new long[] { 3, 3, 4, 10 }, 2 ) );
+    }
+
+    public void testSingleThreadRunsInline()
+        throws Exception
+    {
+        final List threads = new ArrayList();
+        WorkerPool pool = new WorkerPool( 1, "test" );
+        pool.submit( new WorkerPool.Job()
+        {
+            public void run()
+            {
+                threads.add( Thread.currentThread() );
+            }
+        } );
+        pool.await();
+        assertEquals( Collections.singletonList( Thread.currentThread() ), threads );
+    }
+
+    public void testRunsAllJobsConcurrently()
+        throws Exception
+    {
+        final int[] state = new int[2];
+        WorkerPool pool = new WorkerPool( 4, "test" );
+        for ( int i = 0; i < 20; i++ )
+        {
+            pool.submit( new WorkerPool.Job()
+            {
+                public void run()
+                    throws Exception
+                {
+                    synchronized ( state )
+                    {
+                        state[1]++;
+                        state[0] = Math.max( state[0], state[1] );
+                    }
+                    Thread.sleep( 20 );
+                    synchronized ( state )
+                    {
+                        state[1]--;
+                    }
+                }
+            } );
+        }
+        pool.await();
+        assertEquals( 0, state[1] );
+        assertTrue( state[0] > 1 );
+        assertTrue( state[0] <= 4 );
+    }
+
+    public void testFailureCancelsPendingJobs()
+        throws Exception
+    {
+        final List ran = Collections.synchronizedList( new ArrayList() );
+        final Exception failure = new Exception( "failed" );
+        WorkerPool pool = new WorkerPool( 2, "test" );
+        pool.submit( new WorkerPool.Job()
+        {
+            public void run()
+                throws Exception
+            {
+                throw failure;
+            }
+        } );
+        Thread.sleep( 100 );
+        for ( int i = 0; i < 10; i++ )
+        {
+            pool.submit( new WorkerPool.Job()
+            {
+                public void run()
+                {
+                    ran.add( this );
+                }
+            } );
+        }
+        try
+        {
+            pool.await();
+            fail( "Missing exception" );
+        }
+        catch ( Exception e )
+        {
+            assertSame( failure, e );
+        }
+        assertEquals( 0, ran.size() );
+    }
+
+}
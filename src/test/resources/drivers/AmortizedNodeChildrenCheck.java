@@ -0,0 +1,12 @@
+package org.codehaus.mojo.javacc.test;
+
+/**
+ * Parses the input with the parser generated from Tree1.jjt and returns the formatted tree.
+ */
+public class AmortizedNodeChildrenCheck {
+
+  public static String run(String input) throws Exception {
+    return TreeFormat.format(new TreeParser(new java.io.StringReader(input)).Start());
+  }
+
+}
@@ -0,0 +1,39 @@
+package org.codehaus.mojo.javacc.test;
+
+/**
+ * Parses the lines of the input concurrently with the batch driver generated for Parser3.jj and returns the indices
+ * of the lines that parsed and failed along with the driver counters.
+ */
+public class BatchDriverCheck {
+
+  public static String run(String input) throws Exception {
+    java.util.List<java.io.Reader> inputs = new java.util.ArrayList<java.io.Reader>();
+    for (String line : input.split("\n")) {
+      inputs.add(new java.io.StringReader(line));
+    }
+    final java.util.Set<Long> results = new java.util.concurrent.ConcurrentSkipListSet<Long>();
+    final java.util.Set<Long> errors = new java.util.concurrent.ConcurrentSkipListSet<Long>();
+    ListParserBatchDriver driver = ListParserBatchDriver.newFixedPoolDriver(3);
+    try {
+      driver.parseAll(inputs.iterator(), new ListParserBatchDriver.Production<Token>() {
+        public Token parse(ListParser parser) throws Exception {
+          parser.List();
+          return parser.token;
+        }
+      }, new ListParserBatchDriver.Callback<Token>() {
+        public void onResult(long index, Token result) {
+          results.add(index);
+        }
+
+        public void onError(long index, Throwable error) {
+          errors.add(index);
+        }
+      });
+    } finally {
+      driver.close();
+    }
+    return "results=" + results + " errors=" + errors + " created<=" + (driver.getCreateCount() <= 3) + " counts="
+        + driver.getResultCount() + "/" + driver.getErrorCount();
+  }
+
+}
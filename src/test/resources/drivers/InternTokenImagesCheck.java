@@ -0,0 +1,23 @@
+package org.codehaus.mojo.javacc.test;
+
+/**
+ * Lexes the input with the parser generated from Parser3.jj and returns the token images, separated by spaces,
+ * followed by the number of distinct image values and the number of distinct image instances.
+ */
+public class InternTokenImagesCheck {
+
+  public static String run(String input) throws Exception {
+    ListParserTokenManager tm = new ListParserTokenManager(new SimpleCharStream(new java.io.StringReader(input)));
+    java.util.Set<String> values = new java.util.HashSet<String>();
+    java.util.Map<String, Boolean> instances = new java.util.IdentityHashMap<String, Boolean>();
+    StringBuilder buffer = new StringBuilder();
+    for (Token t = tm.getNextToken(); t.kind != ListParserConstants.EOF; t = tm.getNextToken()) {
+      buffer.append(t.image).append(' ');
+      values.add(t.image);
+      instances.put(t.image, Boolean.TRUE);
+    }
+    new ListParser(new java.io.StringReader(input)).List();
+    return buffer.append("| ").append(values.size()).append('/').append(instances.size()).toString();
+  }
+
+}
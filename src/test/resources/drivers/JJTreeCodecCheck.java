@@ -0,0 +1,38 @@
+package org.codehaus.mojo.javacc.test;
+
+/**
+ * Parses the input with the parser generated from Tree1.jjt, round-trips the tree through the generated codec and
+ * returns the formatted copy, whether the copy encodes to the same bytes and the depth of a decoded degenerate tree
+ * that is too deep for a recursive codec.
+ */
+public class JJTreeCodecCheck {
+
+  private static final int DEPTH = 100000;
+
+  public static String run(String input) throws Exception {
+    SimpleNode root = new TreeParser(new java.io.StringReader(input)).Start();
+    TreeParserTreeCodec codec = new TreeParserTreeCodec();
+    byte[] bytes = codec.toByteArray(root);
+    Node copy = codec.read(bytes);
+    boolean same = java.util.Arrays.equals(bytes, codec.toByteArray(copy));
+
+    SimpleNode deep = new SimpleNode(TreeParserTreeConstants.JJTLIST);
+    SimpleNode n = deep;
+    for (int i = 1; i < DEPTH; i++) {
+      SimpleNode c = new SimpleNode(TreeParserTreeConstants.JJTLIST);
+      c.jjtSetParent(n);
+      n.jjtAddChild(c, 0);
+      n = c;
+    }
+    int depth = 0;
+    for (Node c = codec.read(codec.toByteArray(deep)); c != null; depth++) {
+      Node child = (c.jjtGetNumChildren() > 0) ? c.jjtGetChild(0) : null;
+      if (child != null && child.jjtGetParent() != c) {
+        return "wrong parent at depth " + depth;
+      }
+      c = child;
+    }
+    return TreeFormat.format(copy) + " | " + same + " | " + depth;
+  }
+
+}
@@ -0,0 +1,30 @@
+package org.codehaus.mojo.javacc.test;
+
+/**
+ * Parses the input with the parser generated from Tree1.jjt and returns the events of the generated tree walker.
+ * Assignments are not descended into.
+ */
+public class JJTreeWalkerCheck {
+
+  public static String run(String input) throws Exception {
+    Node root = new TreeParser(new java.io.StringReader(input)).Start();
+    final StringBuilder buffer = new StringBuilder();
+    new TreeParserTreeWalker() {
+      protected boolean enterNode(Node n) {
+        buffer.append('<').append(n);
+        return true;
+      }
+
+      protected void leaveNode(Node n) {
+        buffer.append('>');
+      }
+
+      protected boolean enterAssignment(ASTAssignment n) {
+        buffer.append("<=");
+        return false;
+      }
+    }.walk(root);
+    return buffer.toString();
+  }
+
+}
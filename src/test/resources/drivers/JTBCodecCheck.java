@@ -0,0 +1,43 @@
+package org.codehaus.mojo.javacc.test;
+
+import org.codehaus.mojo.javacc.test.syntaxtree.*;
+import org.codehaus.mojo.javacc.test.visitor.*;
+
+/**
+ * Parses the input with the JTB parser generated from Parser4.jj, round-trips the tree through the generated codec and
+ * returns the token images of the copy, whether the copy encodes to the same bytes and the depth of a decoded chain of
+ * choice nodes that is too deep for a recursive codec.
+ */
+public class JTBCodecCheck {
+
+  private static final int DEPTH = 100000;
+
+  public static String run(String input) throws Exception {
+    Node root = new SequenceParser(new java.io.StringReader(input)).Sequence();
+    TreeCodec codec = new TreeCodec();
+    byte[] bytes = codec.toByteArray(root);
+    Node copy = codec.read(bytes);
+    boolean same = java.util.Arrays.equals(bytes, codec.toByteArray(copy));
+    final StringBuilder buffer = new StringBuilder();
+    copy.accept(new DepthFirstVisitor() {
+      public void visit(NodeToken n) {
+        buffer.append(n.tokenImage).append(' ');
+      }
+    });
+
+    Node deep = new NodeToken("x");
+    for (int i = 1; i < DEPTH; i++) {
+      deep = new NodeChoice(deep, i % 3);
+    }
+    int depth = 1;
+    for (Node c = codec.read(codec.toByteArray(deep)); c instanceof NodeChoice; depth++) {
+      NodeChoice choice = (NodeChoice) c;
+      if (choice.which != (DEPTH - depth) % 3) {
+        return "wrong choice at depth " + depth;
+      }
+      c = choice.choice;
+    }
+    return buffer.toString().trim() + " | " + same + " | " + depth;
+  }
+
+}
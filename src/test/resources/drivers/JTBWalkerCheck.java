@@ -0,0 +1,39 @@
+package org.codehaus.mojo.javacc.test;
+
+import org.codehaus.mojo.javacc.test.syntaxtree.*;
+import org.codehaus.mojo.javacc.test.visitor.*;
+
+/**
+ * Parses the input with the JTB parser generated from Parser4.jj and returns the events of the generated tree walker:
+ * the images of the tokens and brackets around the items. Items consisting of a number are not descended into.
+ */
+public class JTBWalkerCheck {
+
+  public static String run(String input) throws Exception {
+    Node root = new SequenceParser(new java.io.StringReader(input)).Sequence();
+    final StringBuilder buffer = new StringBuilder();
+    new TreeWalker() {
+      protected boolean enterNode(Node n) {
+        if (n instanceof NodeToken) {
+          buffer.append(((NodeToken) n).tokenImage).append(' ');
+        }
+        return true;
+      }
+
+      protected boolean enterItem(Item n) {
+        buffer.append(isNumber(n) ? "# " : "[ ");
+        return !isNumber(n);
+      }
+
+      protected void leaveItem(Item n) {
+        buffer.append(isNumber(n) ? "" : "] ");
+      }
+    }.walk(root);
+    return buffer.toString().trim();
+  }
+
+  private static boolean isNumber(Item n) {
+    return n.f0.choice instanceof NodeToken && ((NodeToken) n.f0.choice).kind == SequenceParserConstants.NUMBER;
+  }
+
+}
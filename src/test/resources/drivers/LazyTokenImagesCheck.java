@@ -0,0 +1,26 @@
+package org.codehaus.mojo.javacc.test;
+
+/**
+ * Lexes the input with the parser generated from Parser3.jj and returns the token images, separated by spaces. The
+ * images are only accessed after all tokens have been created, i.e. after the char stream has reused its buffer.
+ */
+public class LazyTokenImagesCheck {
+
+  public static String run(String input) throws Exception {
+    ListParserTokenManager tm = new ListParserTokenManager(new SimpleCharStream(new java.io.StringReader(input)));
+    java.util.List<Token> tokens = new java.util.ArrayList<Token>();
+    for (Token t = tm.getNextToken(); t.kind != ListParserConstants.EOF; t = tm.getNextToken()) {
+      tokens.add(t);
+    }
+    StringBuilder buffer = new StringBuilder();
+    for (Token t : tokens) {
+      if (buffer.length() > 0) {
+        buffer.append(' ');
+      }
+      buffer.append(t.getImage());
+    }
+    new ListParser(new java.io.StringReader(input)).List();
+    return buffer.toString();
+  }
+
+}
@@ -0,0 +1,61 @@
+package org.codehaus.mojo.javacc.test;
+
+/**
+ * Lexes the input with the chunked lexer generated for the grammar LineParser of ChunkedLexerTest using tiny chunks
+ * and compares the tokens with those of a single token manager. Returns "OK" with the number of tokens or a
+ * description of the first difference.
+ */
+public class LineLexerCheck {
+
+  public static String run(String input) throws Exception {
+    java.io.File file = java.io.File.createTempFile("chunked", ".txt");
+    try {
+      java.nio.file.Files.write(file.toPath(), input.getBytes("UTF-8"));
+      java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(4);
+      java.util.List<Token> actual;
+      try {
+        actual = new LineParserChunkedLexer(pool, 8, "UTF-8").tokenize(file);
+      } finally {
+        pool.shutdown();
+      }
+      LineParserTokenManager tm = new LineParserTokenManager(new SimpleCharStream(new java.io.StringReader(input)));
+      java.util.List<Token> expected = new java.util.ArrayList<Token>();
+      for (Token t = tm.getNextToken(); ; t = tm.getNextToken()) {
+        expected.add(t);
+        if (t.kind == LineParserConstants.EOF) {
+          break;
+        }
+      }
+      if (actual.size() != expected.size()) {
+        return "token count " + actual.size() + " instead of " + expected.size();
+      }
+      for (int i = 0; i < expected.size(); i++) {
+        String e = describe(expected.get(i));
+        String a = describe(actual.get(i));
+        if (!e.equals(a)) {
+          return "token " + i + " is " + a + " instead of " + e;
+        }
+      }
+      return "OK " + expected.size();
+    } finally {
+      file.delete();
+    }
+  }
+
+  /** Describes a token and its special tokens including their positions and their forward links. */
+  private static String describe(Token token) {
+    StringBuilder buffer = new StringBuilder();
+    Token first = null;
+    for (Token t = token; t != null; t = t.specialToken) {
+      buffer.append(t.kind).append(':').append(t.image).append('@').append(t.beginLine).append(',')
+          .append(t.beginColumn).append('-').append(t.endLine).append(',').append(t.endColumn).append(' ');
+      first = t;
+    }
+    buffer.append('|');
+    for (Token t = (first != token) ? first : null; t != null; t = t.next) {
+      buffer.append(' ').append(t.image);
+    }
+    return buffer.toString();
+  }
+
+}
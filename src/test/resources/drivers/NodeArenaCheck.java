@@ -0,0 +1,18 @@
+package org.codehaus.mojo.javacc.test;
+
+/**
+ * Parses the input twice with the parser generated from Tree1.jjt, resetting the node arena in between, and returns
+ * both formatted trees followed by whether the second tree reused the nodes of the first.
+ */
+public class NodeArenaCheck {
+
+  public static String run(String input) throws Exception {
+    TreeParserNodeArena.reset();
+    SimpleNode first = new TreeParser(new java.io.StringReader(input)).Start();
+    String firstTree = TreeFormat.format(first);
+    TreeParserNodeArena.reset();
+    SimpleNode second = new TreeParser(new java.io.StringReader(input)).Start();
+    return firstTree + " | " + TreeFormat.format(second) + " | " + (first == second);
+  }
+
+}
@@ -0,0 +1,20 @@
+package org.codehaus.mojo.javacc.test;
+
+/**
+ * Parses the input with the parser generated from Tree1.jjt using the option TRACK_TOKENS, resets the node arena and
+ * returns the quoted images of the first and last token (EOF) of the root node followed by the tokens of the recycled
+ * root node.
+ */
+public class NodeArenaTokensCheck {
+
+  public static String run(String input) throws Exception {
+    TreeParserNodeArena.reset();
+    SimpleNode root = new TreeParser(new java.io.StringReader(input)).Start();
+    String tokens = "'" + root.jjtGetFirstToken().image + "' '" + root.jjtGetLastToken().image + "'";
+    TreeParserNodeArena.reset();
+    SimpleNode recycled = (SimpleNode) TreeParserNodeArena.jjtCreate(0);
+    return tokens + " | " + (recycled == root) + " " + recycled.jjtGetFirstToken() + " "
+        + recycled.jjtGetLastToken();
+  }
+
+}
@@ -0,0 +1,20 @@
+package org.codehaus.mojo.javacc.test;
+
+/**
+ * Parses the input twice with parsers borrowed from the pool generated for Parser3.jj and returns the pool counters.
+ */
+public class ParserPoolCheck {
+
+  public static String run(String input) throws Exception {
+    ListParserPool pool = new ListParserPool();
+    ListParser first = pool.borrow(new java.io.StringReader(input));
+    first.List();
+    pool.release(first);
+    ListParser second = pool.borrow(new java.io.StringReader(input));
+    second.List();
+    pool.release(second);
+    return "borrowed=" + pool.getBorrowCount() + " created=" + pool.getCreateCount() + " active="
+        + pool.getActiveCount() + " reused=" + (first == second);
+  }
+
+}
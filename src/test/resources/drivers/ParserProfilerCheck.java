@@ -0,0 +1,18 @@
+package org.codehaus.mojo.javacc.test;
+
+/**
+ * Parses the input with the instrumented parser generated from Parser3.jj and returns the dumped profile.
+ */
+public class ParserProfilerCheck {
+
+  public static String run(String input) throws Exception {
+    ListParser.resetProfile();
+    new ListParser(new java.io.StringReader(input)).List();
+    java.io.ByteArrayOutputStream out = new java.io.ByteArrayOutputStream();
+    java.io.PrintStream print = new java.io.PrintStream(out, true, "UTF-8");
+    ListParser.dumpProfile(print);
+    print.close();
+    return out.toString("UTF-8");
+  }
+
+}
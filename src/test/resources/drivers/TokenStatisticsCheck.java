@@ -0,0 +1,17 @@
+package org.codehaus.mojo.javacc.test;
+
+/**
+ * Parses the input with the parser generated from Parser3.jj and returns the collected token statistics.
+ */
+public class TokenStatisticsCheck {
+
+  public static String run(String input) throws Exception {
+    ListParserTokenStatistics.reset();
+    new ListParser(new java.io.StringReader(input)).List();
+    return "tokens=" + ListParserTokenStatistics.getTokenCount() + " identifiers="
+        + ListParserTokenStatistics.getTokenCount(ListParserConstants.IDENTIFIER) + " numbers="
+        + ListParserTokenStatistics.getTokenCount(ListParserConstants.NUMBER) + " characters="
+        + ListParserTokenStatistics.getCharacterCount();
+  }
+
+}
@@ -0,0 +1,32 @@
+package org.codehaus.mojo.javacc.test;
+
+/**
+ * Formats a JJTree node and its descendants in the form "Node(Child,Child)". Children whose parent is not set to the
+ * enclosing node are prefixed with "!".
+ */
+public class TreeFormat {
+
+  public static String format(Node root) {
+    StringBuilder buffer = new StringBuilder();
+    append(buffer, root);
+    return buffer.toString();
+  }
+
+  private static void append(StringBuilder buffer, Node node) {
+    buffer.append(node);
+    if (node.jjtGetNumChildren() > 0) {
+      buffer.append('(');
+      for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+        if (i > 0) {
+          buffer.append(',');
+        }
+        if (node.jjtGetChild(i).jjtGetParent() != node) {
+          buffer.append('!');
+        }
+        append(buffer, node.jjtGetChild(i));
+      }
+      buffer.append(')');
+    }
+  }
+
+}